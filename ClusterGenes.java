@@ -130,6 +130,10 @@ class ClusterGenes
   /** Threshold distance for current gene cluster*/
   static float
     curGeneDistThr;
+  /** results of the simple clustering by MID: DISTANCE to the current
+   * gene and CLUSTER_COUNT of all filtered genes */
+  static GeneResultSet
+    clusterRS;
   
   /* --- Complex clustering using Constructor, eg. K-means, etc --- */
   /** ARG: list of genes to be clustered */
@@ -246,6 +250,10 @@ class ClusterGenes
   /** [1:maxKmeansNodes] max distance within each K-means primary clusters */
   float
     kMeansMaxDist[];
+  /** results of the K-means clustering by MID: DISTANCE of each gene
+   * to its K-means node, or of a node to the nearest other node */
+  GeneResultSet
+    kMeansRS;
   /** [1:maxKmeansNodes] mean within-cluster distance between K-means
    * clusters */
   float
@@ -742,7 +750,7 @@ class ClusterGenes
       for(int i= 0;i<nClist;i++)
       { /* save gene name and gene MID index in terminal nodes */
         Gene gene= complexClusterCL.mList[i];
-        geneNames[i]= (gene!=null) ? gene.Gene_Name : "";
+        geneNames[i]= (gene!=null) ? gene.getGene_Name() : "";
         midList[i]= (gene!=null) ? gene.mid : -1;
       }
     }
@@ -1111,8 +1119,8 @@ class ClusterGenes
    * @see Filter#showNbrFilteredGenes
    * @see MenuBarFrame#setSTOPbuttonState
    * @see Util#showMsg3
-   * @see Gene#setGeneData
-   * @see Gene#sortGeneList
+   * @see GeneResultSet#set
+   * @see GeneResultSet#sortGeneList
    * @see #findClustersOfGene
    * @see #showReducedFilteredGenesMsg
    * @see #updateAllClustersGeneReport
@@ -1137,6 +1145,8 @@ class ClusterGenes
       cnt;
     
     maxGenesInCurCluster= mae.mp.maxGenes;
+    if(clusterRS==null || clusterRS.maxGenes!=mae.mp.maxGenes)
+      clusterRS= new GeneResultSet("gene clusters", mae.mp.maxGenes);
     
     if((nTest > maxGenesInCurCluster) || (nTest<=1))
     { /* make sure have valid # of genes to cluster */
@@ -1166,7 +1176,7 @@ class ClusterGenes
       cnt= findClustersOfGene(mae,gene,clusterDistThr,false);
       gene.nGeneClustersCnt= cnt;
       maxNgeneClusterCnt= Math.max(maxNgeneClusterCnt,cnt);
-      gene.setGeneData((float)cnt);
+      clusterRS.set(GeneResultSet.CLUSTER_COUNT, gene.mid, (float)cnt);
       
       if(mae.abortFlag)
       {
@@ -1175,7 +1185,8 @@ class ClusterGenes
       }
     } /* find clusters for EACH gene */
     
-    Gene.sortGeneList(workingCL.mList, workingCL.length, false /* DESCENDING*/);
+    clusterRS.sortGeneList(workingCL.mList, workingCL.length,
+                           GeneResultSet.CLUSTER_COUNT, false /* DESCENDING*/);
     
     /* Update Msg3 w/# genes passing filter */
     fc.showNbrFilteredGenes();
@@ -1193,8 +1204,8 @@ class ClusterGenes
    * @param clusterDistThr is threshold distance to set
    * @param doSortFlag
    * @return the number of genes found
-   * @see Gene#setGeneDist
-   * @see Gene#sortGeneList
+   * @see GeneResultSet#set
+   * @see GeneResultSet#sortGeneList
    * @see GeneList#copy
    * @see GeneGeneDist#clusterDistance
    * @see GeneList
@@ -1220,6 +1231,8 @@ class ClusterGenes
     }
     else
       curClusterCL.clear();
+    if(clusterRS==null || clusterRS.maxGenes!=mae.mp.maxGenes)
+      clusterRS= new GeneResultSet("gene clusters", mae.mp.maxGenes);
     
     GeneList sourceCL= fc.workingCL;      /* could use mae.gct.allGenesCL */
     Gene
@@ -1240,15 +1253,14 @@ class ClusterGenes
       if(cDist <= clusterDistThr)
       { /* use it */
         curClusterCL.addGene(geneJ);
-        geneJ.setGeneDist(cDist);
-        geneJ.setGeneData(cDist);
+        clusterRS.set(GeneResultSet.DISTANCE, geneJ.mid, cDist);
       }
     } /* test against gene J */
     
-    /* Sort the curClusterCL.mList[] by minimum geneDist */
+    /* Sort the curClusterCL.mList[] by minimum distance */
     if(doSortFlag)
-      Gene.sortGeneList(curClusterCL.mList, curClusterCL.length,
-                        true /* ASCENDING*/);
+      clusterRS.sortGeneList(curClusterCL.mList, curClusterCL.length,
+                             GeneResultSet.DISTANCE, true /* ASCENDING*/);
     
     /* Side-effect! copy cluster into E.G.L. */
     gct.editedCL.copy(gct.editedCL, curClusterCL);
@@ -1267,7 +1279,7 @@ class ClusterGenes
    */
   static void updateGeneClustersOfCurrentGeneReport()
   { /* updateGeneClustersOfCurrentGeneReport */
-    if(curClusterCL==null || geneClustersPopup==null)
+    if(curClusterCL==null || clusterRS==null || geneClustersPopup==null)
     {
       mae.logDRYROTerr("[CC-UCCOFCR] curClusterCL or geneClustersPopup is null.");
       return;
@@ -1284,7 +1296,9 @@ class ClusterGenes
       sSimilarity,
       str;
     StringBuffer sBuf= new StringBuffer(60*nTest);
-    float maxGeneDist= 0.0F;
+    float
+      geneDist,
+      maxGeneDist= 0.0F;
     
     for(int k=0;k<nTest;k++)
     {
@@ -1292,7 +1306,8 @@ class ClusterGenes
       if(gene==null || (gene.properties & Gene.C_BAD_SPOT)!=0)
         continue;            /* ignore bogus spots */
       
-      maxGeneDist= Math.max(gene.geneDist, maxGeneDist);
+      geneDist= clusterRS.get(GeneResultSet.DISTANCE, gene.mid);
+      maxGeneDist= Math.max(geneDist, maxGeneDist);
     }
     
     for(int k=0;k<nTest;k++)
@@ -1301,14 +1316,15 @@ class ClusterGenes
       if(gene==null || (gene.properties & Gene.C_BAD_SPOT)!=0)
         continue;            /* ignore bogus spots */
       
-      sSimilarity= Util.cvtValueToStars(gene.geneDist,
+      geneDist= clusterRS.get(GeneResultSet.DISTANCE, gene.mid);
+      sSimilarity= Util.cvtValueToStars(geneDist,
                                         maxGeneDist,
                                         15, /*maxStars [1:30] */
                                         true /* right fill with spaces */);
       s= ("#" + (++n)) +
           "\t" + gene.Master_ID+
           "\t"+ sSimilarity+
-          "\t"+ Util.cvf2s(gene.geneDist,4) +
+          "\t"+ Util.cvf2s(geneDist,4) +
           "\t"+gene.MasterGeneName+ "\n";
       sBuf.append(s);
     }
@@ -1318,7 +1334,7 @@ class ClusterGenes
     
     String
       title=  n+" genes in cluster for gene ["+curGene.Master_ID+"] "+
-              curGene.Gene_Name,
+              curGene.getGene_Name(),
       fields= "\nNbr \t"+mae.masterIDname+"\tSimilarity\tDistance\t"+mae.masterGeneName+
               "\n----\t-------\t----------\t--------\t---------\n";
     
@@ -1331,14 +1347,14 @@ class ClusterGenes
   /**
    * updateAllClustersGeneReport() - update all filtered clusters gene report
    * @see Gene
-   * @see Gene#setGeneData
-   * @see Gene#sortGeneList
+   * @see GeneResultSet#set
+   * @see GeneResultSet#sortGeneList
    * @see MAExplorer#logDRYROTerr
    * @see ShowStringPopup#updateText
    */
   static void updateAllClustersGeneReport()
   { /* updateAllClustersGeneReport */
-    if(fc.workingCL==null || geneClustersPopup==null)
+    if(fc.workingCL==null || clusterRS==null || geneClustersPopup==null)
     {
       mae.logDRYROTerr("[CC-UACCR] null workingCL or geneClustersPopup");
       return;
@@ -1364,14 +1380,15 @@ class ClusterGenes
     
     /* Sort genes by count count in assending order */
     for(int k=0;k<nTest;k++)
-    { /* set data field in genes to gene count */
+    { /* set the cluster count of the genes to the gene count */
       gene= mList[k];
       if(gene==null || (gene.properties & Gene.C_BAD_SPOT)!=0)
         continue;            /* ignore bogus spots */
-      gene.setGeneData((float)gene.nGeneClustersCnt);
+      clusterRS.set(GeneResultSet.CLUSTER_COUNT, gene.mid,
+                    (float)gene.nGeneClustersCnt);
     }
-    Gene.sortGeneList(fc.workingCL.mList, fc.workingCL.length,
-                      true /* ASCENDING*/);
+    clusterRS.sortGeneList(fc.workingCL.mList, fc.workingCL.length,
+                           GeneResultSet.CLUSTER_COUNT, true /* ASCENDING*/);
     
     for(int k=0;k<nTest;k++)
     { /* build string row by row of sorted genes */
@@ -1793,6 +1810,8 @@ class ClusterGenes
   { /* assignGeneListToBestKmeansNodes */
     /* [1] Do any (re)allocation required */
     bestKmeansForGene= new int[nClist]; /* for assigning best node to each gene */
+    if(kMeansRS==null || kMeansRS.maxGenes!=mae.mp.maxGenes)
+      kMeansRS= new GeneResultSet("K-means clusters", mae.mp.maxGenes);
     
    /* [2] Clear all cluster counts. Only nodes can have
     * non-zero counts.
@@ -1813,7 +1832,9 @@ class ClusterGenes
       sk,
       sm;
     Gene geneN;
-    float distKtoN;
+    float
+      distKtoN,
+      distToNode;
     
     for(int n=1;n<=nKmeansNodes;n++)
     { /* set counts in primary Nodes to 1 and other data*/
@@ -1823,12 +1844,11 @@ class ClusterGenes
         continue;
       geneN.nGeneClustersCnt= 1;       /* ++ for assigned genes*/
       geneN.clusterNodeNbr= n;         /* save node # to itself */
-      geneN.data= kMeansDist[n];       /* dist to nearest Kmeans */
       bestKmeansForGene[sk]= n;        /* point to itself! */
       geneN.setGeneProperty(Gene.C_IS_KMEANS);
       
       /* Set distance to nearest other Kmeans */
-      geneN.data= 100000000.0F;        /* dist to nearest Kmeans node */
+      distToNode= 100000000.0F;        /* dist to nearest Kmeans node */
       for(m=1;m<=nKmeansNodes;m++)
         if(n!=m)
         { /* find nearest dist. */
@@ -1837,8 +1857,9 @@ class ClusterGenes
             distKtoN= calcMeanClusterClusterDist(n,m);
           else
             distKtoN= ccDist1D[addr1D(sk,sm)];
-          geneN.data= Math.min(geneN.data, distKtoN);
+          distToNode= Math.min(distToNode, distKtoN);
         } /* find nearest dist. */
+      kMeansRS.set(GeneResultSet.DISTANCE, geneN.mid, distToNode);
     } /* set counts in primary Nodes to 1 and other data*/
     
     /* [4] Find best Kmeans node for each gene fk which is not
@@ -1869,7 +1890,8 @@ class ClusterGenes
             bestN= n;
             distKtoN= ccDist1D[addr1D(sk,fk)]; /* set to best one*/
             bestKmeansForGene[fk]= bestN;
-            geneK.data= distKtoN;        /* save distance */
+            kMeansRS.set(GeneResultSet.DISTANCE, geneK.mid,
+                         distKtoN);      /* save distance */
             geneK.clusterNodeNbr= bestN; /* save node # */
             geneK.nGeneClustersCnt= 0;  /* MUST be 0 which
              * implies it is not a node*/
@@ -1907,7 +1929,7 @@ class ClusterGenes
    * @see GeneList#addGene
    * @see GeneList#clear
    * @see GeneList#clearNull
-   * @see Gene#sortGeneList
+   * @see GeneResultSet#sortGeneList
    */
   void sortKmeansClusterList(GeneList srcCL,  GeneList dstCL)
   { /* sortKmeansClusterList */
@@ -1945,7 +1967,9 @@ class ClusterGenes
         else
         {
           tmpSortCL.addGene(gene); /* list of other genes*/
-          maxWithinDist= Math.max(maxWithinDist,gene.data);
+          maxWithinDist= Math.max(maxWithinDist,
+                                  kMeansRS.get(GeneResultSet.DISTANCE,
+                                               gene.mid));
         }
       } /* find best Kmeans node for each gene fk*/
       
@@ -1953,7 +1977,8 @@ class ClusterGenes
       maxGlobalDist= Math.max(maxGlobalDist,maxWithinDist);
             
       /* [2] Sort gene list by distance to Kmeans node */
-      Gene.sortGeneList(tmpSortCL.mList, tmpSortCL.length, true /* ascending */);
+      kMeansRS.sortGeneList(tmpSortCL.mList, tmpSortCL.length,
+                            GeneResultSet.DISTANCE, true /* ascending */);
       
      /* [3] Append tmpSortCL to dstCL to make sorted list
       * for Report.
@@ -1992,7 +2017,8 @@ class ClusterGenes
       if(geneK==null)
         continue;
       nNodesInCluster[n]++;
-      mnWithinClusterDist[n] += geneK.data;
+      mnWithinClusterDist[n] += kMeansRS.get(GeneResultSet.DISTANCE,
+                                             geneK.mid);
     }
     
     for(n=1;n<=nKmeansNodes;n++)
@@ -2007,7 +2033,8 @@ class ClusterGenes
       geneK= mList[fk];
       if(geneK==null)
         continue;
-      diff= (mnWithinClusterDist[n] - geneK.data);
+      diff= (mnWithinClusterDist[n] -
+             kMeansRS.get(GeneResultSet.DISTANCE, geneK.mid));
       sumDiffSq[n] += diff*diff;
     }
     
@@ -2099,7 +2126,7 @@ class ClusterGenes
         " genes being clustered.\n"+
         "The seed gene is ["+
         initialSeedGene.Master_ID+"] "+
-        initialSeedGene.Gene_Name+ ".\n\n",
+        initialSeedGene.getGene_Name()+ ".\n\n",
     fields=
       mae.masterIDname+"  Similarity      Cluster-#  Distance-to-cluster  Gene-Name\n"+
       "--------  --------------  ---------  -------------------  ----------------\n\n",
@@ -2130,7 +2157,7 @@ class ClusterGenes
       
       nB= gene.clusterNodeNbr;
       
-      distKN= gene.data;
+      distKN= kMeansRS.get(GeneResultSet.DISTANCE, gene.mid);
       sDistKN= Util.cvf2s(distKN,3);
       
       /* compute similarity graphic '******'based on distance */
@@ -2159,7 +2186,7 @@ class ClusterGenes
                     Util.cvf2s(mnWCD,3) + "+-"+
                     Util.cvf2s(sdWCD,3)+
                     " CV="+Util.cvf2s(cvWCD,3))
-                 : sDistKN)+ "  "+gene.Gene_Name+"\n";
+                 : sDistKN)+ "  "+gene.getGene_Name()+"\n";
       
       sBuf.append(sGene);
     } /* make report string */
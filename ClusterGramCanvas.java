@@ -452,14 +452,16 @@ class ClusterGramCanvas extends Canvas
        */      
       if(gene!=null)
       { /* use the gene */
-        geneName= gene.Gene_Name;
+        geneName= gene.getGene_Name();
         masterID= gene.Master_ID;
         mid= gene.mid;
         if(addKmeansDataFlag)
         { /* use ClusterGram for Kmeans-clustering */
           /* [CHECK] verify that this is working correctly */
           nB= gene.clusterNodeNbr;
-          distKN= gene.data;
+          distKN= (mae.clg.kMeansRS==null)
+                    ? 0.0F
+                    : mae.clg.kMeansRS.get(GeneResultSet.DISTANCE, mid);
           isKmeansNode= gene.isGeneProperty(Gene.C_IS_KMEANS);
           /* compute similarity graphic '******'based on distance */
           //valMax= maxGlobalDist;
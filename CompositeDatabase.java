@@ -114,6 +114,24 @@ class CompositeDatabase
   private GeneList 
     tempCD_CL;                
      
+  /** normalization generation, incremented each time recalcNorms() changes
+   * the normalization so cached results derived from normalized data
+   * (e.g. Filter stage results) can tell they are stale.
+   */
+  int
+    normGeneration= 0;
+  /** current HP-X 'set' vs HP-Y 'set' t-test batch, null if not built */
+  private StatBatch
+    xySetsStatBatch= null;
+  /** current Ordered Condition List F-test batch, null if not built */
+  private StatBatch
+    oclFstatBatch= null;
+  /** normalized spot data by sample and GID, rebuilt for each
+   * normGeneration.
+   */
+  NormDataCache
+    normData;
+    
   /** grand mean HP 'User Filter Gene Set' means for normalization. */
   float
     grandMeanUseGeneSet= 0.0F;     
@@ -201,6 +219,7 @@ class CompositeDatabase
      map= mae.mp;
      fc= mae.fc;
      hps= mae.hps;
+     normData= new NormDataCache(mae);
      
      maxTextItems= (mae.cfg.maxFIELDS*mae.cfg.maxGRIDS+4);
      nTextItems= 0;             /** # of labels to draw in image */
@@ -449,7 +468,7 @@ class CompositeDatabase
        if(!ok)
          continue;
        gid= map.mid2gid[mid];
-       intens= ms.getDataByGID(gid,mae.useRatioDataFlag,type);
+       intens= normData.getDataByGID(ms, gid,mae.useRatioDataFlag,type);
        isInsideFlag= (intens>=intensLB && intens<=intensUB);
        if((isInsideFlag && !outsideRangeFlag) ||
           (!isInsideFlag && outsideRangeFlag))
@@ -689,10 +708,10 @@ class CompositeDatabase
     */
    void setOBJtoGID(int gid, MaHybridSample ms)
    { /* setOBJtoGID */
-     objField= map.gid2fgrc[gid].f;  /* save optimal spot */
-     objGrid= map.gid2fgrc[gid].g;
-     objRow= map.gid2fgrc[gid].r;
-     objCol= map.gid2fgrc[gid].c;
+     objField= map.gid2f[gid];  /* save optimal spot */
+     objGrid= map.gid2g[gid];
+     objRow= map.gid2r[gid];
+     objCol= map.gid2c[gid];
      objGID= gid;
      
      /* Lookup and save the Gang gid and mid */
@@ -746,10 +765,10 @@ class CompositeDatabase
      objMID= mid;
      objGID= gid;
      objGIDG= map.gidToGangGid[gid];
-     objField= map.gid2fgrc[gid].f;  /* save optimal spot */
-     objGrid= map.gid2fgrc[gid].g;
-     objRow= map.gid2fgrc[gid].r;
-     objCol= map.gid2fgrc[gid].c;
+     objField= map.gid2f[gid];  /* save optimal spot */
+     objGrid= map.gid2g[gid];
+     objRow= map.gid2r[gid];
+     objCol= map.gid2c[gid];
      
      /* Latch it to PseudoImage coordinante */
      objX= ms.xyCQ[gid].x;
@@ -894,17 +913,17 @@ class CompositeDatabase
        if(maxFIELDS>1)
        { /* has replicate spots/gene */
          /* normalized (totQ - bkgrdQ) */
-         gX= msX.getDataByGID(gid, mae.useRatioDataFlag,
-                              msX.DATA_MEAN_F1F2TOT);
+         gX= normData.getDataByGID(msX, gid, mae.useRatioDataFlag,
+                                   msX.DATA_MEAN_F1F2TOT);
          if(getYvaluesFlag)
-           gY= msY.getDataByGID(gid,mae.useRatioDataFlag,
-                                msY.DATA_MEAN_F1F2TOT);
+           gY= normData.getDataByGID(msY, gid,mae.useRatioDataFlag,
+                                     msY.DATA_MEAN_F1F2TOT);
        }
        else
        { /* use single spot or ratio data */
-         gX= msX.getDataByGID(gid, mae.useRatioDataFlag, type);
+         gX= normData.getDataByGID(msX, gid, mae.useRatioDataFlag, type);
          if(getYvaluesFlag)
-           gY= msY.getDataByGID(gid, mae.useRatioDataFlag, type);
+           gY= normData.getDataByGID(msY, gid, mae.useRatioDataFlag, type);
        }
        
        if(gX<minDataHP_X)
@@ -1334,6 +1353,7 @@ class CompositeDatabase
     * @return true if successful.
     * @see MaHybridSample#calcMeanCalDNA
     * @see MaHybridSample#calcMeanUseNormGeneSet
+    * @see SampleWorker#runTask
     */
    boolean calAllSamples()
    { /* calAllSamples */
@@ -1345,9 +1365,8 @@ class CompositeDatabase
        nUsed= 0;
      MaHybridSample ms;
      
-    /* [1] Compute calibration means,std-dev, # used and index array
-     * to access them.
-     */
+    /* [1] Compute # used and index array to access them. */
+     MaHybridSample msUsed[]= new MaHybridSample[hps.nHP];
      for(int i=1;i<=hps.nHP;i++)
      {
        ms= hps.msList[i];
@@ -1355,21 +1374,30 @@ class CompositeDatabase
           !ms.hasValidDataFlag)
          continue;                   /* ignore it */
        
+       msUsed[nUsed]= ms;
+       hpIndex[nUsed]= i;
+       nUsed++;
+     }
+     
+    /* [1.1] Compute calibration means and std-dev of the samples
+     * (in parallel if enabled), then sum them in sample order.
+     */
+     if(mae.normByCalDNAflag || mae.normByGeneSetFlag)
+       SampleWorker.runTask(mae, SampleWorker.CAL_MEANS, msUsed, nUsed);
+     
+     for(int r=0;r<nUsed;r++)
+     {
+       ms= msUsed[r];
        if(mae.normByCalDNAflag)
        {
-         ms.calcMeanCalDNA();      /* compute mean and std-dev */
          sumMeanCalDNA += ms.meanCalDNA;
          ms.scaleCalDNA= 1.0F;
        }
        if(mae.normByGeneSetFlag)
        {
-         ms.calcMeanUseNormGeneSet();  /* compute mean and std-dev */
          sumMeanUseGeneSet += ms.meanUseGeneSet;
          ms.scaleUseGeneSet= 1.0F;
        }
-       
-       hpIndex[nUsed]= i;
-       nUsed++;
      }
      
      /* [2] Compute grand mean and scale to that for basic scale
@@ -1462,6 +1490,7 @@ class CompositeDatabase
     * @see PopupRegistry#updateFilter
     * @see StateScrollers#regenerateScrollers
     * @see StateScrollers#setRangeMaps
+    * @see SampleWorker#runTask
     * @see Util#showMsg
     * @see #calAllSamples
     */
@@ -1512,6 +1541,9 @@ class CompositeDatabase
                           : "none");
      Util.showMsg(mae.normNameDisp);
      
+     /* [3.1] Any data derived from the old normalization is now stale */
+     normGeneration++;
+     
      /* [4] Recompute normalization extrema and perform any specific 
       * updates for the method.
       */
@@ -1580,9 +1612,22 @@ class CompositeDatabase
          }
          
          /* [TODO] [2.1] possibly recalc other parameters */
-         hps.msList[h].calcIntensScaleExtrema();
        }
      
+     /* [4.1] Recompute the intensity scale extrema of the samples
+      * (in parallel if enabled and no NormalizationPlugin is active)
+      * after the global scale factors are set.
+      */
+     if(recomputeNormalizationExtremaFlag)
+     {
+       MaHybridSample msAll[]= new MaHybridSample[hps.nHP];
+       int nAll= 0;
+       for(int h=1;h<=hps.nHP;h++)
+         if(hps.msList[h]!=null)
+           msAll[nAll++]= hps.msList[h];
+       SampleWorker.runTask(mae, SampleWorker.SCALE_EXTREMA, msAll, nAll);
+     }
+     
      /* [5] Set normalization dependent scrollers based normalization
       * method and regenerate the scrollers if need be.
       */
@@ -1934,6 +1979,37 @@ class CompositeDatabase
    } /* recalcGlobalStats */
    
    
+   /**
+    * getXYsetsStatBatch() - get the HP-X 'set' vs HP-Y 'set' t-test results
+    * for all genes. It is rebuilt only if the normalization, data modes or
+    * samples changed since it was last built.
+    * @return the batch of results indexed by MID
+    * @see StatBatch#getXYsetsBatch
+    */
+   synchronized StatBatch getXYsetsStatBatch()
+   { /* getXYsetsStatBatch */
+     xySetsStatBatch= StatBatch.getXYsetsBatch(mae, xySetsStatBatch);
+     return(xySetsStatBatch);
+   } /* getXYsetsStatBatch */
+   
+   
+   /**
+    * getOCL_FstatBatch() - get the current Ordered Condition List F-test
+    * results for all genes. It is rebuilt only if the normalization, data
+    * modes, OCL or its samples changed since it was last built.
+    * @return the batch of results indexed by MID, or null if there is
+    *         no current OCL.
+    * @see StatBatch#getOCL_Fbatch
+    */
+   synchronized StatBatch getOCL_FstatBatch()
+   { /* getOCL_FstatBatch */
+     StatBatch sb= StatBatch.getOCL_Fbatch(mae, oclFstatBatch);
+     if(sb!=null)
+       oclFstatBatch= sb;
+     return(sb);
+   } /* getOCL_FstatBatch */
+   
+   
    /**
     * cleanup() - cleanup global static allocated variables in this class.
     * If statics are added later to this class, then set them to
@@ -1003,6 +1003,7 @@ class Config
     mae.tTestXYsetsFilterFlag= gp.setDefParam("tTestXYsetsFilterFlag", mae.tTestXYsetsFilterFlag);
     mae.KS_TestXYsetsFilterFlag= gp.setDefParam("KS_TestXYsetsFilterFlag", mae.KS_TestXYsetsFilterFlag);
     mae.F_TestOCLFilterFlag= gp.setDefParam("F_TestOCLFilterFlag", mae.F_TestOCLFilterFlag);
+    mae.pValueThrMode= gp.setDefParam("pValueThrMode", mae.pValueThrMode);
     mae.clusterHP_EfilterFlag= gp.setDefParam("clusterHP_EfilterFlag", mae.clusterHP_EfilterFlag);
     mae.useDiffFilterFlag= gp.setDefParam("useDiffFilterFlag", mae.useDiffFilterFlag);
     mae.useHighRatiosFilterFlag= gp.setDefParam("useHighRatiosFilterFlag", mae.useHighRatiosFilterFlag);
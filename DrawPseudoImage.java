@@ -727,12 +727,12 @@ class DrawPseudoImage
    * @param piHeight is height of image
    * @param plotMode is type of image
    * @param ms is sample being plotted
+   * @see CompositeDatabase#getXYsetsStatBatch
    * @see HPxyData#updateDataAndStat
    * @see MaHybridSample#computeMinMaxF1F2Data
    * @see MaHybridSample#getDataByGID
    * @see MaHybridSample#getSpotDataStatic
    * @see MaHybridSample#getSpotData12Static
-   * @see Statistics#calcTandPvalues
    * @see Util#setRatioColor
    * @see #drawFilledColoredCircle
    * @see #drawGridLabelsInImage
@@ -745,7 +745,6 @@ class DrawPseudoImage
     MaHybridSample
       msX= mae.msX,
       msY= mae.msY;
-    Statistics stat= mae.stat;
     HPxyData hpXYdata= mae.cdb.hpXYdata;
     SpotData sd;
     int
@@ -797,6 +796,8 @@ class DrawPseudoImage
       changeData;
     Point p;
     Color color;
+    /* t-test p-values of all genes for the p-value image */
+    StatBatch sb= (isXY_pValue) ? mae.cdb.getXYsetsStatBatch() : null;
     
     if(isRYGratioXY || isXY_pValue)
     { /* HP-X and HP-Y */
@@ -905,12 +906,11 @@ class DrawPseudoImage
         
         if(mae.CANVAS_WRAPAROUND_BUG)
         { // debug code to look at (x,y) data from last grid
-          GridCoords grc= mae.mp.gid2fgrc[gid];            
           p= SpotData.xyS; 
           int
-            grcG= grc.g,
-            grcR= grc.r,
-            grcC= grc.c;  
+            grcG= mae.mp.gid2g[gid],
+            grcR= mae.mp.gid2r[gid],
+            grcC= mae.mp.gid2c[gid];  
           if((grcG==(mae.cfg.maxGRIDS/2) || grcG>=(mae.cfg.maxGRIDS-1)) && grcR==1)
             System.out.println("DPI-DPI pi(Width,Height)=("+piWidth+","+piHeight+
                                ") p[G,R,C])["+grcG+","+grcR+","+grcC+
@@ -920,18 +920,20 @@ class DrawPseudoImage
         if(plotMode==mae.PLOT_PSEUDOIMG || isXY_pValue || isEP_CVvalue)
         { /* draw pseudograyscale current HP image */
           /* plot each single spot or ratio data */
-          gData= ms.getDataByGID(gid, mae.useRatioDataFlag,
-                                 ms.DATA_F1TOT);
+          gData= mae.cdb.normData.getDataByGID(ms, gid, mae.useRatioDataFlag,
+                                               ms.DATA_F1TOT);
           /* this gets intensity and XY coords */
           p= SpotData.xyS; 
           if(mae.dualXYpseudoPlotFlag && !mae.useHPxySetDataFlag)
           { /* overide intensity  with HP-X in f1 & HP-Y in F2*/
             if(f==1)
-              gData= msX.getDataByGID(gid, mae.useRatioDataFlag,
-                                      ms.DATA_MEAN_F1F2TOT);
+              gData= mae.cdb.normData.getDataByGID(msX, gid,
+                                                   mae.useRatioDataFlag,
+                                                   ms.DATA_MEAN_F1F2TOT);
             else
-              gData= msY.getDataByGID(gid, mae.useRatioDataFlag,
-                                      ms.DATA_MEAN_F1F2TOT);
+              gData= mae.cdb.normData.getDataByGID(msY, gid,
+                                                   mae.useRatioDataFlag,
+                                                   ms.DATA_MEAN_F1F2TOT);
           }
           if(mae.useHPxySetDataFlag)
           { /* may overide with 'set' HP-X and HP-Y data */
@@ -946,14 +948,7 @@ class DrawPseudoImage
           /* Scale it to 8-bits for drawing depending on the mode */
           if(isXY_pValue)
           { /* scale the pseudocolorgray value from the p-Value */
-            double
-              mn1= (double)hpXYdata.mnXdata,
-              mn2= (double)hpXYdata.mnYdata,
-              sd1= (double)hpXYdata.stdDevXdata,
-              sd2= (double)hpXYdata.stdDevYdata;
-            boolean ok= stat.calcTandPvalues(hpXYdata.nX, hpXYdata.nY,
-                                             mn1,mn2,sd1,sd2);
-            gene.pValue= (float)stat.pT;
+            gene.pValue= sb.pValues[mid];
             int ipv= MAX_COLORS-1;
             float pValue= gene.pValue;
             
@@ -1012,8 +1007,10 @@ class DrawPseudoImage
           }
           else
           { /* get single sample HP-X and HP-Y data */
-            xF= msX.getDataByGID(gid,mae.useRatioDataFlag,type) - minIX;
-            yF= msY.getDataByGID(gid,mae.useRatioDataFlag,type) - minIY;
+            xF= mae.cdb.normData.getDataByGID(msX, gid,
+                                              mae.useRatioDataFlag,type) - minIX;
+            yF= mae.cdb.normData.getDataByGID(msY, gid,
+                                              mae.useRatioDataFlag,type) - minIY;
           }
           
           mae.ms.getSpotDataStatic(gid,mae.useRatioDataFlag);
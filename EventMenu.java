@@ -259,6 +259,28 @@ class EventMenu implements FilenameFilter
   } /* setRatioRangeState */
   
   
+  /**
+   * setPvalueThrModeState() - set the p-Value threshold mode checkbox state.
+   * Also revalidate the selected genes since the state is changed.
+   * @param item is a CheckboxMenuItem item for this radio group
+   * @see Filter#computeWorkingGeneList
+   */
+  private static void setPvalueThrModeState(CheckboxMenuItem item)
+  { /* setPvalueThrModeState */
+    /* [1] turn off all states */
+    mbf.miFRMpValRaw.setState(false);
+    mbf.miFRMpValFDR.setState(false);
+    mbf.miFRMpValBonf.setState(false);
+    
+    /* [2] Turn on selected state*/
+    if(item!=null)
+      item.setState(true);
+    
+    fc.computeWorkingGeneList();    
+    mae.madeChangesFlag= true;   /* made DB changes, so should SAVE DB*/
+  } /* setPvalueThrModeState */
+  
+  
   /**
    * setCy3Cy5RatioRangeState() - set the Cy3/Cy5 Ratio Range checkbox state.
    * Also revalidate the selected genes since the state is changed.
@@ -1627,10 +1649,14 @@ class EventMenu implements FilenameFilter
    * @see Condition#union
    * @see ExprProfilePopup
    * @see Filter#computeWorkingGeneList
+   * @see FilterStageCache#showStats
+   * @see #showPerformanceStats
    * @see GeneBitSet#assignCLtoUserBS
+   * @see GeneBitSet#assignCSexprToUserBS
    * @see GeneBitSet#getGBSnames
    * @see GeneBitSet#lookupGeneSetByName
    * @see GeneBitSet#listGeneBitSets
+   * @see GeneBitSet#listGeneBitSetsMemory
    * @see GeneBitSet#removeUserBS
    * @see GeneBitSet#updateListGeneBitSets
    * @see GeneBitSet#useGeneSetBS
@@ -2329,6 +2355,25 @@ class EventMenu implements FilenameFilter
       wkCLbitSet.listGeneBitSets(null);
     }
     
+    else if(actCmd.equals("GeneSet:listMem"))
+    {
+      Util.saveCmdHistory("Listing Gene Sets memory usage");
+      wkCLbitSet.listGeneBitSetsMemory();
+    }
+    
+    else if(actCmd.equals("Filter:cacheStats"))
+    {
+      Util.saveCmdHistory("Show Filter stage cache hit/miss counts");
+      if(fc.stageCache!=null)
+        fc.stageCache.showStats();
+    }
+    
+    else if(actCmd.startsWith("Stats:"))
+    {
+      Util.saveCmdHistory("Show performance statistics: "+actCmd.substring(6));
+      showPerformanceStats(actCmd.substring(6));
+    }
+    
     else if(actCmd.equals("GeneSet:assWorkCL"))
     {
       String
@@ -2495,6 +2540,27 @@ class EventMenu implements FilenameFilter
       }
     }
     
+    else if(actCmd.equals("GeneSet:expr"))
+    { /* Boolean expression of gene sets */
+      String
+        exprStr= (nArgs>=2)
+                   ? argList[0]
+                   : mbf.pdq.dialogQuery(
+         "gene set expression e.g. (A & B & !C) | D, quote names with blanks, then press OK",
+                                         ""),
+        userSetName= (nArgs>=2)
+                       ? argList[1]
+                       : mbf.pdq.dialogQuery(
+         "new gene set (from list or type it) to save result, then press OK",
+                                             "", wkCLbitSet.getGBSnames(),
+                                             wkCLbitSet.nUserBS);
+      if(wkCLbitSet.assignCSexprToUserBS(exprStr, userSetName))
+      {
+        Util.saveCmdHistory("Gene set ["+userSetName+"] is ("+exprStr+")");
+        wkCLbitSet.updateListGeneBitSets();
+      }
+    }
+    
     else if(actCmd.equals("GeneSet:reName"))
     { /* Rename gene set */
       String
@@ -3808,6 +3874,7 @@ class EventMenu implements FilenameFilter
    * @see #setNormalizationState
    * @see #setPlotState
    * @see #setRatioRangeState
+   * @see #setPvalueThrModeState
    * @see #setReportFontSizeState
    * @see #setReportFontSizeState
    * @see #setSIrangeState
@@ -4773,6 +4840,33 @@ class EventMenu implements FilenameFilter
       mae.repaint();
     }
     
+    else if(mbf.miFRMpValRaw==item)
+    {
+      mae.pValueThrMode= mae.PVALUE_MODE_RAW;
+      setPvalueThrModeState(item);
+      Util.saveCmdHistory("p-Value Filter - test raw p-Values");
+      fc.computeWorkingGeneList();
+      mae.repaint();
+    }
+    
+    else if(mbf.miFRMpValFDR==item)
+    {
+      mae.pValueThrMode= mae.PVALUE_MODE_FDR_BH;
+      setPvalueThrModeState(item);
+      Util.saveCmdHistory("p-Value Filter - test Benjamini-Hochberg FDR q-Values");
+      fc.computeWorkingGeneList();
+      mae.repaint();
+    }
+    
+    else if(mbf.miFRMpValBonf==item)
+    {
+      mae.pValueThrMode= mae.PVALUE_MODE_BONFERRONI;
+      setPvalueThrModeState(item);
+      Util.saveCmdHistory("p-Value Filter - test Bonferroni adjusted p-Values");
+      fc.computeWorkingGeneList();
+      mae.repaint();
+    }
+    
     else if(mbf.miFRMratioRngIn==item)
     {
       mae.ratioRangeMode= mae.RANGE_INSIDE;
@@ -5599,6 +5693,83 @@ class EventMenu implements FilenameFilter
   } /* processCheckboxMenuItemStateChangedByitem */
   
   
+  /**
+   * getPerformanceStatsStr() - get the status of one subsystem, or of all
+   * of them, from its own getStatusStr().
+   * @param which is "all", "stageCache", "filter", "filterPlugins",
+   *        "statBatch", "normData", "samples", "annot" or "sort"
+   * @return status string, "" if the subsystem has nothing to report
+   * @see FilterStageCache#getStatsStr
+   * @see FilterScheduler#getStatusStr
+   * @see FilterWorker#getStatusStr
+   * @see FilterPluginRunner#getStatusStr
+   * @see StatBatch#getStatusStr
+   * @see NormDataCache#getStatusStr
+   * @see SampleWorker#getStatusStr
+   * @see SampleLoader#getStatusStr
+   * @see QuantDataCache#getStatusStr
+   * @see SampleDataManager#getStatusStr
+   * @see GeneAnnotationStore#getStatusStr
+   * @see IndexSort#getStatusStr
+   */
+  static String getPerformanceStatsStr(String which)
+  { /* getPerformanceStatsStr */
+    boolean allFlag= which.equals("all");
+    String sR= "";
+    
+    if((allFlag || which.equals("stageCache")) && fc.stageCache!=null)
+      sR += fc.stageCache.getStatsStr() + "\n";
+    if(allFlag || which.equals("filter"))
+    {
+      if(mae.fsch!=null)
+        sR += mae.fsch.getStatusStr();
+      sR += FilterWorker.getStatusStr();
+    }
+    if(allFlag || which.equals("filterPlugins"))
+      sR += FilterPluginRunner.getStatusStr();
+    if(allFlag || which.equals("statBatch"))
+      sR += StatBatch.getStatusStr();
+    if((allFlag || which.equals("normData")) &&
+       mae.cdb!=null && mae.cdb.normData!=null)
+      sR += mae.cdb.normData.getStatusStr();
+    if(allFlag || which.equals("samples"))
+    {
+      sR += SampleWorker.getStatusStr() + SampleLoader.getStatusStr() +
+            QuantDataCache.getStatusStr();
+      if(mae.hps!=null && mae.hps.sdm!=null)
+        sR += mae.hps.sdm.getStatusStr();
+    }
+    if((allFlag || which.equals("annot")) &&
+       mae.mp!=null && mae.mp.annot!=null)
+      sR += mae.mp.annot.getStatusStr();
+    if(allFlag || which.equals("sort"))
+      sR += IndexSort.getStatusStr();
+    
+    return(sR);
+  } /* getPerformanceStatsStr */
+  
+  
+  /**
+   * showPerformanceStats() - popup a text window with the status of one
+   * subsystem, or of all of them.
+   * @param which is the subsystem, see getPerformanceStatsStr()
+   * @see ShowStringPopup
+   * @see #getPerformanceStatsStr
+   */
+  static void showPerformanceStats(String which)
+  { /* showPerformanceStats */
+    String sR= getPerformanceStatsStr(which);
+    if(sR.length()==0)
+      sR= "No statistics yet.\n";
+    
+    ShowStringPopup t= new ShowStringPopup(mae, sR, 20,70,
+                                           mae.rptFontSize,
+                                           "Performance statistics", 0, 0,
+                                           "PerformanceStats", pur.UNIQUE,
+                                           "maePerformanceStats.txt");
+  } /* showPerformanceStats */
+  
+  
   /**
    * cleanup() - cleanup global static allocated variables in this class.
    * If statics are added later to this class, then set them to
@@ -238,12 +238,14 @@ class ExprProfile
           if(maxFIELDS>1)
           { /* has replicate spots/gene */
             /* normalized (totQ - bkgrdQ) */
-            g1= ms.getDataByGID(gid1, mae.useRatioDataFlag, ms.DATA_F1TOT);
-            g2= ms.getDataByGID(gid1, mae.useRatioDataFlag, ms.DATA_F2TOT);
+            g1= mae.cdb.normData.getDataByGID(ms, gid1,
+                                              mae.useRatioDataFlag, ms.DATA_F1TOT);
+            g2= mae.cdb.normData.getDataByGID(ms, gid1,
+                                              mae.useRatioDataFlag, ms.DATA_F2TOT);
           }
           else
           { /* use single spot or ratio data */
-            g1= ms.getDataByGID(gid1, mae.useRatioDataFlag,
+            g1= mae.cdb.normData.getDataByGID(ms, gid1, mae.useRatioDataFlag,
             type);
             g2= g1;                  /* so CV= 0.0 */
           }
@@ -597,7 +597,10 @@ class ExprProfileCanvas extends Canvas
       
       if(showKmeansDataFlag && nodeNbr>0)
       { /* is member of a cluster */
-        float dist= gene.data;
+        GeneResultSet kMeansRS= mae.clg.kMeansRS;
+        float dist= (kMeansRS==null)
+                      ? 0.0F
+                      : kMeansRS.get(GeneResultSet.DISTANCE, gene.mid);
         String distStr= (dist<100.0) ? Util.cvf2s(dist,4) : (""+(int)dist);
         if(ncCnt>0)
         { /* is Kmeans medoid node */
@@ -615,11 +618,11 @@ class ExprProfileCanvas extends Canvas
         else
         {
           msg += ", cluster#" + nodeNbr + ", distToClstr=" + distStr;
-          msg2= gene.Gene_Name;
+          msg2= gene.getGene_Name();
         }
       }	/* is member of a cluster */
       else
-        msg2= gene.Gene_Name;
+        msg2= gene.getGene_Name();
       
       if(msg!=null)
       { /* draw title */
@@ -412,7 +412,7 @@ class ExprProfileScrollPane extends Panel implements AdjustmentListener
         Gene gene= mae.mp.midStaticCL.mList[mid];
         if(gene!=null)
           sepp.epspStatusLabel.setText("Current gene "+titleI +
-                                       ", "+gene.Gene_Name);
+                                       ", "+gene.getGene_Name());
       }
     } /* update ExprProfile only for genes in range */
   } /* paint */
@@ -64,6 +64,12 @@ class FileIO
   /** size of standalone log file data buff */
   private int
     logDataBufSize;
+  /** file data read ahead by prefetchData(), by file name */
+  private Hashtable
+    prefetchedData= new Hashtable();
+  /** if not null, the names of the files read by readData() are added */
+  Vector
+    readLog= null;
     
   
   /**
@@ -80,21 +86,90 @@ class FileIO
   
   /**
    * readData() - read data from URL or local file depending on prefix.
+   * If the file was read ahead by prefetchData(), that data is returned
+   * and dropped.
    * @param fileName is the full path filename to read the data. If it starts with
    *         "http://" then it should be a URL.
    * @param msg to display while reading the file
    * @return string data for entire file if succeed, else null if fail.
+   * @see #readDataNow
+   * @see #prefetchData
+   */
+  String readData(String fileName, String msg)
+  { /* readData */
+    if(fileName==null)
+      return(null);
+    
+    String sR= (String)prefetchedData.remove(fileName);
+    if(sR!=null)
+    { /* read ahead */
+      Util.showMsg(msg);
+      return(sR);
+    }
+    if(readLog!=null)
+      readLog.addElement(fileName);
+    
+    return(readDataNow(fileName, msg));
+  } /* readData */
+  
+  
+  /**
+   * prefetchData() - read the data of a file ahead, e.g. on a sample
+   * loader thread, for the next readData() of the file. The data is
+   * kept until it is read or clearPrefetchedData() is called.
+   * @param fileName is the full path filename to read the data
+   * @return true if it was read
+   * @see SampleLoader
+   * @see #readDataNow
+   */
+  boolean prefetchData(String fileName)
+  { /* prefetchData */
+    if(fileName==null)
+      return(false);
+    
+    String sR= readDataNow(fileName, null);
+    if(sR==null)
+      return(false);
+    prefetchedData.put(fileName, sR);
+    return(true);
+  } /* prefetchData */
+  
+  
+  /**
+   * dropPrefetchedData() - drop the data of a file read ahead
+   * @param fileName is the full path filename
+   * @return true if it was read ahead and not used yet
+   */
+  boolean dropPrefetchedData(String fileName)
+  { /* dropPrefetchedData */
+    return(fileName!=null && prefetchedData.remove(fileName)!=null);
+  } /* dropPrefetchedData */
+  
+  
+  /**
+   * clearPrefetchedData() - drop the data of all files read ahead
+   */
+  void clearPrefetchedData()
+  { /* clearPrefetchedData */
+    prefetchedData.clear();
+  } /* clearPrefetchedData */
+  
+  
+  /**
+   * readDataNow() - read data from URL or local file depending on prefix.
+   * @param fileName is the full path filename to read the data. If it starts with
+   *         "http://" then it should be a URL.
+   * @param msg to display while reading the file, null if none
+   * @return string data for entire file if succeed, else null if fail.
    * @see Util#showMsg
    * @see #cacheRead
    * @see #cacheWrite
    * @see #readFileFromDisk
    * @see #readFileFromUrl
    */
-  String readData(String fileName, String msg)
-  { /* readData */
+  private String readDataNow(String fileName, String msg)
+  { /* readDataNow */
     String sR= null;
-    if(fileName==null)
-      return(null);
     
     /*
     if(mae.CONSOLE_FLAG)
@@ -103,7 +178,8 @@ class FileIO
     
     if(fileName.startsWith("http://"))
     { /* Read from URL if it is a http address */
-      Util.showMsg(msg);
+      if(msg!=null)
+        Util.showMsg(msg);
       if(mae.cacheFIOflag)
         sR= cacheRead(fileName);             /* try to get from cache */
       boolean notInCacheFlag= (sR==null);
@@ -116,14 +192,15 @@ class FileIO
     }
     else
     { /* read from disk */
-      Util.showMsg(msg);
+      if(msg!=null)
+        Util.showMsg(msg);
       //Util.printCurrentMemoryUsage("Before fio.readFileFromDisk["+fileName+"]");
       sR= readFileFromDisk(fileName);
       //Util.printCurrentMemoryUsage("After fio.readFileFromDisk["+fileName+"]");
     }
     
     return(sR);
-  } /* readData */
+  } /* readDataNow */
   
   
   /**
@@ -158,11 +235,14 @@ class FileIO
   
   
   /**
-   * readFileFromDisk() - read file from disk and return entire file as String
+   * readFileFromDisk() - read file from disk and return entire file as String.
+   * Large tab-delimited data files should be read with TabFileReader,
+   * which does not make the String.
    * @param fileName is the full path filename to read the data
    * @return string data for entire file if succeed, else null if fail.
    * @see #logMsgln
    * @see #readZipFileFromDisk
+   * @see TabFileReader
    */
   String readFileFromDisk(String fileName)
   { /* readFileFromDisk */
@@ -225,13 +305,9 @@ class FileIO
       
       rin.close();                    /* done reading */
       f= null;
-      System.runFinalization();
-      System.gc();
       
       sR= new String(dataB);          /* convert String from char[]*/
       dataB= null;
-      System.runFinalization();
-      System.gc();
       return(sR);
     }
     
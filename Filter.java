@@ -3,7 +3,6 @@
 import java.awt.*;
 import java.io.*;
 import java.util.*;
-import java.lang.reflect.*;
 
  /**
   * The class computes the intersection of selected data filter gene list.
@@ -193,6 +192,48 @@ class Filter
   /** list of Mids used in passing data back and forth to FilterPlugins */
   int
     midList[];
+  /** memoized Filter stage results reused if a stage's inputs did not change */
+  FilterStageCache
+    stageCache;
+  /** flag: set to abort an abortable Filter run (see FilterScheduler) */
+  volatile boolean
+    abortRunFlag;
+  /** flag: the current Filter run may be aborted by abortRunFlag */
+  private boolean
+    abortableRunFlag;
+  /** # of the last Filter run started */
+  private int
+    runNbr;
+  /** # of the Filter run last published as workingCL */
+  private int
+    publishedRunNbr;
+  /** Gene data set by the background Filter run in progress. It is set in
+   * the Genes when the run is published. null if not in a background run */
+  private GeneResultSet
+    bgGeneDataRS;
+  /** [0:maxGenes-1] # of Gene data fields set in bgGeneDataRS by MID:
+   * 0 if none, 3 if (data,data1,data2) and 4 if also pValue */
+  private byte
+    bgNbrFields[];
+  /** working HP-X/Y set object of the background Filter run in progress */
+  private HPxyData
+    bgHPxyData;
+  /** ratioThrCL of a background run, swapped in when it is published */
+  private GeneList
+    bgRatioThrCL;
+  /** gcMemberCL of a background run, swapped in when it is published */
+  private GeneList
+    bgGcMemberCL;
+  /** flag: the background run computed bgRatioThrCL */
+  private boolean
+    bgRatioThrFlag;
+  /** flag: the background run computed bgGcMemberCL */
+  private boolean
+    bgGcMemberFlag;
+  /** [0:nStageLists-1] copies of the bit sets of the stage gene lists of
+   * getStageGeneLists() as of the last published run, null if none */
+  private GeneBitSet
+    publishedStageBS[];
            
     
 	      
@@ -256,6 +297,9 @@ class Filter
     KmeansNodesCL= null;            /* allocated in ClusterGene */
     ratioHistCL= null;
     intensHistCL= null;
+    bgRatioThrCL= null;
+    bgGcMemberCL= null;
+    publishedStageBS= null;
   } /*Filter */
 
 
@@ -275,6 +319,7 @@ class Filter
     if(workingCL==null)
     { /* create initial gene lists */
       midList= new int[maxGenes];  /* used in FilterPlugins */   
+      stageCache= new FilterStageCache(mae);
       
       tmpCL=  new GeneList(mae,maxGenes,"tmpCL", true);      
       workingCL= new GeneList(mae,maxGenes,"workingCL", true); /*i.e. filtered*/
@@ -314,13 +359,117 @@ class Filter
   } /* allocateGeneLists */
        
       
+  /**
+   * getStageGeneLists() - get the gene lists that the Filter stages
+   * compute in place. A background run changes them on its worker thread.
+   * @return list of the stage gene lists
+   */
+  private GeneList[] getStageGeneLists()
+  { /* getStageGeneLists */
+    GeneList
+      stageCLlist[]= { HP_XY_t_TestCL, HP_XYsets_t_TestCL,
+                       HP_XYsets_KS_TestCL, OCL_F_TestCL, spotCVCL,
+                       spotIntensThrCL, intensityThrCL, ratioCy3Cy5ThrCL,
+                       HP_EclustersCL, DiffHP_XYCL, posQuantDataCL,
+                       goodSpotQualChkCL, detValueSpotDataCL,
+                       nonZeroSpotDataCL, highestRatiosCL, lowestRatiosCL };
+    
+    return(stageCLlist);
+  } /* getStageGeneLists */
+  
+  
+  /**
+   * savePublishedStageSets() - copy the bit sets of the stage gene lists
+   * for lookupFilterGeneSetByName(). It is called when a run is published,
+   * so the copies are only changed on the AWT event thread.
+   * @see GeneBitSet#copyBStoBS
+   * @see #getStageGeneLists
+   */
+  private void savePublishedStageSets()
+  { /* savePublishedStageSets */
+    GeneList
+      ml,
+      stageCLlist[]= getStageGeneLists();
+    GeneBitSet bs;
+    
+    if(publishedStageBS==null)
+      publishedStageBS= new GeneBitSet[stageCLlist.length];
+    
+    for(int i=0;i<stageCLlist.length;i++)
+    { /* copy stage list i */
+      ml= stageCLlist[i];
+      if(ml==null || ml.bitSet==null)
+      {
+        publishedStageBS[i]= null;
+        continue;
+      }
+      bs= publishedStageBS[i];
+      if(bs==null || bs.maxItems!=ml.bitSet.maxItems)
+        bs= new GeneBitSet(mae, ml.bitSet.maxItems, ml.cName, null);
+      GeneBitSet.copyBStoBS(bs, ml.bitSet);
+      publishedStageBS[i]= bs;
+    }
+  } /* savePublishedStageSets */
+  
+  
+  /**
+   * lookupFilterGeneSetByName() - lookup the gene bit set of a data Filter
+   * gene list by its name. This includes the GeneClass gene lists used by
+   * the Filter. Matching ignores case. Only published lists are read: a
+   * stage gene list gets the copy saved when the last run was published,
+   * since a background run may be changing the list itself.
+   * @param name is the GeneList name (e.g. "HP_XY_t_TestCL")
+   * @return the GeneBitSet if found, else null.
+   * @see #savePublishedStageSets
+   */
+  GeneBitSet lookupFilterGeneSetByName(String name)
+  { /* lookupFilterGeneSetByName */
+    if(name==null || workingCL==null)
+      return(null);
+    
+    GeneList
+      ml,
+      stageCLlist[]= getStageGeneLists(),
+      filterCLlist[]= { workingCL, gcMemberCL, ratioThrCL,
+                        clusteredGenesCL, displayCL, KmeansNodesCL,
+                        ratioHistCL, intensHistCL,
+                        gct.editedCL, gct.userFilterGeneSetCL,
+                        gct.normCL, gct.goodGenesCL, gct.replicateGenesCL,
+                        gct.allGenesCL };
+    GeneBitSet pubBS[]= publishedStageBS;
+    int i;
+    
+    for(i=0;i<stageCLlist.length;i++)
+    { /* stage lists as of the last published run */
+      ml= stageCLlist[i];
+      if(ml!=null && ml.cName!=null && ml.cName.equalsIgnoreCase(name))
+        return((pubBS!=null) ? pubBS[i] : null);
+    }
+    
+    for(i=0;i<filterCLlist.length;i++)
+    { /* lists only changed on the AWT event thread */
+      ml= filterCLlist[i];
+      if(ml!=null && ml.cName!=null && ml.cName.equalsIgnoreCase(name))
+        return(ml.bitSet);
+    }
+    
+    return(null);
+  } /* lookupFilterGeneSetByName */
+  
+  
   /** 
    * showNbrFilteredGenes() - update Msg3 status line with the number of genes passing filter
+   * and the time of each FilterPlugin in the last run.
+   * @see FilterPluginRunner#lastTimingStr
    * @see Util#showMsg3
    */
   void showNbrFilteredGenes()
   { /* showNbrFilteredGenes */
-    Util.showMsg3("There are "+ workingCL.length + " genes passing the Filter.");
+    String timingStr= FilterPluginRunner.lastTimingStr;
+    
+    Util.showMsg3("There are "+ workingCL.length + " genes passing the Filter."+
+                  ((timingStr.length()>0)
+                     ? (" Plugins: " + timingStr) : ""));
   } /* showNbrFilteredGenes */     
   
   
@@ -338,7 +487,7 @@ class Filter
     
     if(MAEPlugin.analysis.FilterPlugin.getFilterState())
     { /* operate on all active MAEPlugin.analysis.FilterPlugins */
-      Object argList[]= new Object[] {new Integer(argVal)};
+      boolean isResetFlag= pipelineInitOpr.equals("resetPipeline");
       Vector filters= MAEPlugin.analysis.FilterPlugin.getActiveFilterPluginList();
       int nFilters= (filters!=null) ? filters.size() : 0;
       if(nFilters==0)
@@ -367,17 +516,17 @@ class Filter
         }
         
         try
-        { /* invoke method instance of FitlerPlugin.setOperation() */
-          Class classTypes[]= new Class[] { int.class };
-          Method m= fp.getClass().getMethod(pipelineInitOpr, classTypes);
-          Object result= m.invoke((Object)fp, argList);
-          didOprFlag= ((Boolean)result).booleanValue();
+        { /* call FilterPlugin.resetPipeline() or finishPipeline() */
+          if(isResetFlag)
+            didOprFlag= fp.resetPipeline(argVal);
+          else
+            didOprFlag= fp.finishPipeline(argVal);
           /* [TODO] could use the returned value */
         }
         catch(Exception em)
         {
           System.out.println("F-CWGL "+pipelineInitOpr+
-                             " FilterPlugin invoke() Exception \n em='"+em+"'");          
+                             " FilterPlugin Exception \n em='"+em+"'");          
           em.printStackTrace();
           continue;
         }
@@ -390,92 +539,192 @@ class Filter
   
   /**
    * doFilterPluginPipelineOpr() - do pipeline operation on all active FilterPlugin's.
+   * Plugins that implement filterBits() test the tmpCL.bitSet words in
+   * place and tmpCL.mList[] is rebuilt once from the bits at the end.
+   * Consecutive thread-safe plugins that are independent of the upstream
+   * results are run in parallel on copies of the same words and their results
+   * are intersected. Other plugins get the MID list with setOperation()
+   * and tmpCL is rebuilt from the MIDs they return.
+   * The time of each plugin is saved for the Filter status line.
    * @return true if succeed
+   * @see FilterPluginRunner#runAll
+   * @see GeneBitSet#expand
+   * @see GeneBitSet#findCountAndhighMID
+   * @see MAEPlugin.analysis.FilterPlugin#filterBits
+   * @see FilterPluginRunner#isParallelOK
+   * @see #doFilterPluginMidListOpr
    */
   boolean doFilterPluginPipelineOpr()
   { /* doFilterPluginPipelineOpr */
+    FilterPluginRunner.lastTimingStr= "";
     if (!MAEPlugin.analysis.FilterPlugin.getFilterState())
       return(true);
     
-    boolean flag= true;
+    boolean
+      flag= true,
+      bitsChangedFlag= false;  /* tmpCL.mList[] is behind tmpCL.bitSet */
     
-    /* Call all MAEPlugin.analysis.FilterPlugins */
+    /* Get all active MAEPlugin.analysis.FilterPlugins */
     Vector filters= MAEPlugin.analysis.FilterPlugin.getActiveFilterPluginList();
-    int nFilters= (filters!=null) ? filters.size() : 0;
+    int
+      nFilters= (filters!=null) ? filters.size() : 0,
+      nFP= 0,
+      nGroup,
+      nFiltered;
+    MAEPlugin.analysis.FilterPlugin
+      fp,
+      fpList[]= new MAEPlugin.analysis.FilterPlugin[nFilters];
     for(int i= 0; i < nFilters; i++)
-    { /* process the nFilters */
-      int
-        j= 0,                /* # of active genes in midList[] */
-        nFiltered= 0;        /* # of genes computed by filter */
-      
-      /* NOTE: work with MID list not clone bitset */
-      flag &= tmpCL.bitSet.copyBStoCL(tmpCL,tmpCL.bitSet);
-      Gene geneFP;
-      for(int n=0;n<tmpCL.length;n++)
-      {
-        geneFP= tmpCL.mList[n];
-        if(geneFP!=null)
-          midList[j++]= geneFP.mid;
-      }
-      
-      Object 
-        argList[]= new Object[] {midList, new Integer(j)},
-        cObj= filters.elementAt(i);
-      
-      /* fp is the MAEPlugin.analysis.FilterPlugin instance */
-      MAEPlugin.analysis.FilterPlugin  fp= null;
-      try
-      { /* cast it but check for bogus class type */
-        fp= (MAEPlugin.analysis.FilterPlugin)cObj;
-      }
-      catch(Exception em)
+    { /* check for bogus class type */
+      Object cObj= filters.elementAt(i);
+      if(cObj instanceof MAEPlugin.analysis.FilterPlugin)
+        fpList[nFP++]= (MAEPlugin.analysis.FilterPlugin)cObj;
+      else
       {
         Util.showMsg("Can't invoke Filter Plugin - it is not a FilterPlugin class.");        
-        Util.showMsg2("Exception: "+em.toString(),Color.red,Color.white);
         Util.popupAlertMsg("Can't invoke Filter Plugin",
-                           "Can't invoke Filter Plugin - it is not a FilterPlugin class.\n"+
-                           "Exception: "+em.toString(),
+                           "Can't invoke Filter Plugin - it is not a FilterPlugin class.",
                            4, 60);
-        continue;
-      }
-      
-      try
-      { /* invoke method instance of FitlerPlugin.setOperation() */
-        Class classTypes[]= new Class[] { int[].class, int.class };
-        Method m= fp.getClass().getMethod("setOperation", classTypes);
-        Object result= m.invoke((Object)fp, argList);
-        nFiltered= ((Integer)result).intValue();
-      }
-      catch(Exception em)
-      {
-        System.out.println("F-DFPPO FilterPlugin invoke() Exception em='"+em+"'");        
-        em.printStackTrace();
-        continue;
       }
+    }
+    
+    FilterPluginRunner
+      r,
+      group[]= new FilterPluginRunner[nFP];
+    GeneBitSet bs;
+    long
+      inWords[],
+      words[],
+      startTime;
+    String timingStr= "";
+    
+    for(int i= 0; i < nFP && flag; i += nGroup)
+    { /* process the next plugin or group of independent plugins */
+      /* [1] Find consecutive thread-safe plugins independent of upstream
+       * results.
+       */
+      nGroup= 1;
+      if(FilterPluginRunner.isParallelOK(fpList[i]))
+        while(i+nGroup < nFP &&
+              FilterPluginRunner.isParallelOK(fpList[i+nGroup]))
+          nGroup++;
       
-      //nFiltered= filters.elementAt(i).setOperation(midList, j);
+      /* [2] Run their bit set tests on the same input, a single plugin
+       * tests the tmpCL.bitSet words in place.
+       */
+      bs= tmpCL.bitSet;
+      inWords= bs.expand();
+      for(int g=0;g<nGroup;g++)
+        group[g]= new FilterPluginRunner(fpList[i+g],
+                                         ((nGroup==1)
+                                            ? inWords : (long[])inWords.clone()),
+                                         bs.maxWords);
+      FilterPluginRunner.runAll(group, nGroup);
       
-      if(nFiltered>0)
-      { /* rebuild the tmpCL gene list */
-        tmpCL.clear();
-        int mid;
-        Gene gene;
-        for(int n=0; n<nFiltered;n++)
-        { /* add gene to tmpCL gene list */
-          mid= midList[n];
-          gene= mae.mp.midStaticCL.mList[mid];
-          tmpCL.addGene(gene);
+      /* [3] Intersect the results */
+      for(int g=0;g<nGroup && flag;g++)
+      { /* merge each plugin */
+        r= group[g];
+        fp= r.fp;
+        if(r.errMsg!=null)
+        {
+          System.out.println("F-DFPPO FilterPlugin filterBits() Exception em='"+
+                             r.errMsg+"'");        
+          if(nGroup==1)
+            bitsChangedFlag= true;   /* it may have changed the words */
+          continue;
         }
-      } /* rebuild the tmpCL gene list */
-      else
-      { /* abort processing since a filter failed[ CHECK] */
-        flag= false;
-        break;
-      }
-    } /* process the nFilters */
+        
+        if(r.nFiltered==MAEPlugin.analysis.FilterPlugin.NOT_BIT_SET_NATIVE)
+        { /* legacy plugin: use the MID list */
+          startTime= System.currentTimeMillis();
+          nFiltered= doFilterPluginMidListOpr(fp);
+          timingStr += ((timingStr.length()>0) ? ", " : "") +
+                       FilterPluginRunner.getTimingStr(fp, r.msec +
+                                    System.currentTimeMillis()-startTime,
+                                    false);
+          if(nFiltered==-2)
+            continue;         /* plugin failed, ignore it */
+          bitsChangedFlag= false;
+          flag= (nFiltered>0);  /* abort processing since a filter failed[ CHECK] */
+          continue;
+        }
+        
+        timingStr += ((timingStr.length()>0) ? ", " : "") +
+                     FilterPluginRunner.getTimingStr(fp, r.msec,
+                                                     r.parallelFlag);
+        bs= tmpCL.bitSet;
+        if(nGroup>1)
+        { /* intersect this plugin's words with the result */
+          words= bs.expand();
+          for(int w=0;w<bs.maxWords;w++)
+            words[w] &= r.bitWords[w];
+        }
+        bitsChangedFlag= true;
+        flag= (bs.findCountAndhighMID(null)>0); /* abort if a filter failed[ CHECK] */
+      } /* merge each plugin */
+    } /* process the next plugin or group of independent plugins */
+    
+    if(bitsChangedFlag)
+      tmpCL.bitSet.findCountAndhighMID(tmpCL);  /* rebuild tmpCL.mList[] */
+    FilterPluginRunner.lastTimingStr= timingStr;
                                    
     return(flag);                             
   } /* doFilterPluginPipelineOpr */
+  
+  
+  /**
+   * doFilterPluginMidListOpr() - do the pipeline operation of a legacy
+   * FilterPlugin that does not implement filterBits(). It is passed
+   * the MID list of tmpCL with setOperation() and tmpCL is rebuilt from
+   * the MIDs it returns.
+   * @param fp is the FilterPlugin
+   * @return # of genes returned by setOperation(), or -2 if it failed
+   * @see GeneBitSet#copyBStoCL
+   * @see MAEPlugin.analysis.FilterPlugin#setOperation
+   */
+  private int doFilterPluginMidListOpr(MAEPlugin.analysis.FilterPlugin fp)
+  { /* doFilterPluginMidListOpr */
+    int
+      j= 0,                /* # of active genes in midList[] */
+      nFiltered= 0;        /* # of genes computed by filter */
+    
+    /* NOTE: work with MID list not clone bitset */
+    tmpCL.bitSet.copyBStoCL(tmpCL,tmpCL.bitSet);
+    Gene geneFP;
+    for(int n=0;n<tmpCL.length;n++)
+    {
+      geneFP= tmpCL.mList[n];
+      if(geneFP!=null)
+        midList[j++]= geneFP.mid;
+    }
+    
+    try
+    { /* call FilterPlugin.setOperation() */
+      nFiltered= fp.setOperation(midList, j);
+    }
+    catch(Exception em)
+    {
+      System.out.println("F-DFPPO FilterPlugin setOperation() Exception em='"+em+"'");        
+      em.printStackTrace();
+      return(-2);
+    }
+    
+    if(nFiltered>0)
+    { /* rebuild the tmpCL gene list */
+      tmpCL.clear();
+      int mid;
+      Gene gene;
+      for(int n=0; n<nFiltered;n++)
+      { /* add gene to tmpCL gene list */
+        mid= midList[n];
+        gene= mae.mp.midStaticCL.mList[mid];
+        tmpCL.addGene(gene);
+      }
+    } /* rebuild the tmpCL gene list */
+    
+    return(nFiltered);
+  } /* doFilterPluginMidListOpr */
 
      
    /**
@@ -483,24 +732,328 @@ class Filter
     * This data filter computes the successive intersections of all genes
     * with GeneLists from all active restrictive filters.
     * The restrictive filters are recomputed before the intersection
-    * is done.
+    * is done. A stage whose parameters, samples, normalization and upstream
+    * gene set are the same as when it was last computed reuses its saved
+    * result from stageCache rather than being recomputed.
     * NOTE: this is expensive, so don't call every repaint() cycle!!!
+    * It is run synchronously and any background Filter run in progress
+    * (see FilterScheduler) is aborted.
     *
     * @return FALSE if there is no filter setting workingCL to all genes.
     * Otherwise, the filter is in workingCL.
     * If we return true, we may want to mae.repaint() since we may need
     * to update the display from workingCL.
+    * @see #allocateGeneLists
+    * @see #makeGeneInListTable
+    * @see #publishWorkingGeneList
+    * @see #runFilterStages
+    *
+    */
+   boolean computeWorkingGeneList()
+   { /* computeWorkingGeneList */
+     /* A foreground run supersedes any background run in progress */
+     abortRunFlag= true;
+     
+     synchronized(this)
+     { /* run it and publish the result in place */
+       /* [1] Do NOT run the filter if there is no data in the database
+        * which would be the case if no samples were loaded when you
+        * run it from the Start menu rather than clicking on a .mae file.
+        */
+       if(mae.hps.nHP<=0)
+         return(false);      /* can't run the filter if there is no data */
+       
+       /* [1.1] Create GeneLists if never done before... */
+       if(workingCL==null)
+         allocateGeneLists();  /* create initial gene lists if needed */
+       
+       boolean flag= runFilterStages(workingCL, false,
+                                     new FilterInputs(mae, false));
+       publishWorkingGeneList(workingCL, makeGeneInListTable(workingCL),
+                              flag, runNbr);
+       
+       return(flag);
+     } /* run it and publish the result in place */
+   } /* computeWorkingGeneList */
+   
+   
+   /**
+    * computeBackgroundGeneList() - run the data Filter into a new gene list
+    * without changing workingCL. This is called by the FilterScheduler worker
+    * thread. The run is aborted between stages if abortRunFlag is set.
+    * The run does not change state that is read on the AWT event thread:
+    * the Gene data (data, data1, data2, pValue) the stages set are saved
+    * in fr.geneDataRS, the stages use their own HPxyData and Statistics
+    * instances, and ratioThrCL and gcMemberCL are computed into private
+    * gene lists. These are set when the result is published with
+    * publishBackgroundResult(). The other stage lists and tmpCL are only
+    * used by the Filter while it holds its lock. The gene set membership
+    * flags and gene sets are read from the inputs snapshot that was taken
+    * on the AWT event thread.
+    * @param fr is the result to fill in for publishing
+    * @param in is the snapshot of the Filter inputs
+    * @return false if the run was aborted, else true and the result is in fr.
+    *         If there is no data, fr.resultCL is null.
+    * @see GeneResultSet#allocColumn
+    * @see HPxyData#setupDataStruct
+    * @see #makeGeneInListTable
+    * @see #publishBackgroundResult
+    * @see #runFilterStages
+    */
+   synchronized boolean computeBackgroundGeneList(FilterResult fr,
+                                                  FilterInputs in)
+   { /* computeBackgroundGeneList */
+     fr.resultCL= null;
+     if(mae.hps.nHP<=0)
+       return(true);         /* can't run the filter if there is no data */
+     
+     if(workingCL==null)
+       allocateGeneLists();
+     if(bgRatioThrCL==null)
+     { /* private copies of the stage lists read by other classes */
+       bgRatioThrCL= new GeneList(mae,maxGenes,"ratioThrCL",true);
+       bgGcMemberCL= new GeneList(mae,maxGenes,"gcMemberCL", false);
+     }
+     
+     /* [1] Set up the private state of the run */
+     GeneList resultCL= new GeneList(mae,maxGenes,"workingCL", true);
+     GeneResultSet geneDataRS= new GeneResultSet("Filter", maxGenes);
+     geneDataRS.allocColumn(GeneResultSet.RATIO);
+     geneDataRS.allocColumn(GeneResultSet.MEAN1);
+     geneDataRS.allocColumn(GeneResultSet.MEAN2);
+     geneDataRS.allocColumn(GeneResultSet.P_VALUE);
+     byte nbrFields[]= new byte[maxGenes];
+     boolean flag;
+     
+     bgGeneDataRS= geneDataRS;
+     bgNbrFields= nbrFields;
+     bgHPxyData= new HPxyData(mae, -1, mae.useHPxySetDataFlag);
+     bgHPxyData.setupDataStruct(mae.useHPxySetDataFlag);
+     bgRatioThrFlag= false;
+     bgGcMemberFlag= false;
+     
+     /* [2] Run it */
+     try
+     {
+       flag= runFilterStages(resultCL, true, in);
+     }
+     finally
+     {
+       bgGeneDataRS= null;
+       bgNbrFields= null;
+       bgHPxyData= null;
+     }
+     if(isRunAborted())
+       return(false);        /* partial result, discard it */
+     
+     fr.resultCL= resultCL;
+     fr.inResultCL= makeGeneInListTable(resultCL);
+     fr.okFlag= flag;
+     fr.runNbr= runNbr;
+     fr.geneDataRS= geneDataRS;
+     fr.nbrGeneDataFields= nbrFields;
+     fr.ratioThrCL= (bgRatioThrFlag) ? bgRatioThrCL : null;
+     fr.gcMemberCL= (bgGcMemberFlag) ? bgGcMemberCL : null;
+     
+     return(true);
+   } /* computeBackgroundGeneList */
+   
+   
+   /**
+    * isBackgroundRun() - test if a background Filter run is in progress.
+    * Its stages must not change state read on the AWT event thread.
+    * @return true if in a background run
+    * @see #computeBackgroundGeneList
+    */
+   final boolean isBackgroundRun()
+   { /* isBackgroundRun */
+     return(bgGeneDataRS!=null);
+   } /* isBackgroundRun */
+   
+   
+   /**
+    * getHPxyData() - get the HP-X/Y set object for the Filter stages.
+    * A background run uses its own instance.
+    * @return the HP-X/Y set object
+    */
+   final HPxyData getHPxyData()
+   { /* getHPxyData */
+     return((bgHPxyData!=null) ? bgHPxyData : mae.cdb.hpXYdata);
+   } /* getHPxyData */
+   
+   
+   /**
+    * setGeneData() - set the quantified data, data1 and data2 of a gene
+    * for a Filter stage. In a background run they are saved and are set
+    * in the Gene when the run is published.
+    * @param gene to set
+    * @param data is computed data for this gene
+    * @param data1 is data for channel 1 for this gene
+    * @param data2 is data for channel 2 for this gene
+    * @see Gene#setGeneData
+    */
+   final void setGeneData(Gene gene, float data, float data1, float data2)
+   { /* setGeneData */
+     if(bgGeneDataRS==null)
+       gene.setGeneData(data, data1, data2);
+     else
+     { /* save it for publishing */
+       int mid= gene.mid;
+       bgGeneDataRS.setData(mid, data, data1, data2);
+       if(bgNbrFields[mid]<3)
+         bgNbrFields[mid]= 3;
+     }
+   } /* setGeneData */
+   
+   
+   /**
+    * setGeneData() - set the quantified data, data1, data2 and pValue of a
+    * gene for a Filter stage. In a background run they are saved and are set
+    * in the Gene when the run is published.
+    * @param gene to set
+    * @param data is computed data for this gene
+    * @param data1 is data for channel 1 for this gene
+    * @param data2 is data for channel 2 for this gene
+    * @param pValue data for this gene
+    * @see Gene#setGeneData
+    */
+   final void setGeneData(Gene gene, float data, float data1, float data2,
+                          float pValue)
+   { /* setGeneData */
+     if(bgGeneDataRS==null)
+       gene.setGeneData(data, data1, data2, pValue);
+     else
+     { /* save it for publishing */
+       int mid= gene.mid;
+       bgGeneDataRS.setData(mid, data, data1, data2);
+       bgGeneDataRS.set(GeneResultSet.P_VALUE, mid, pValue);
+       bgNbrFields[mid]= 4;
+     }
+   } /* setGeneData */
+   
+   
+   /**
+    * getGeneData() - get a quantified data field of a gene as the current
+    * Filter run sees it.
+    * @param gene to get
+    * @param col is GeneResultSet.RATIO (data), MEAN1 (data1), MEAN2 (data2)
+    *        or P_VALUE (pValue)
+    * @return the value
+    */
+   final float getGeneData(Gene gene, int col)
+   { /* getGeneData */
+     int mid= gene.mid;
+     if(bgGeneDataRS!=null &&
+        bgNbrFields[mid]>=((col==GeneResultSet.P_VALUE) ? 4 : 3))
+       return(bgGeneDataRS.get(col, mid));
+     
+     switch(col)
+     {
+       case GeneResultSet.RATIO:
+         return(gene.data);
+       case GeneResultSet.MEAN1:
+         return(gene.data1);
+       case GeneResultSet.MEAN2:
+         return(gene.data2);
+       case GeneResultSet.P_VALUE:
+         return(gene.pValue);
+     }
+     return(0.0F);
+   } /* getGeneData */
+   
+   
+   /**
+    * publishBackgroundResult() - publish a result computed by
+    * computeBackgroundGeneList(). The Gene data it saved are set in the
+    * Genes and its ratioThrCL and gcMemberCL are swapped in before it is
+    * made the workingCL. A result from an older run than the one already
+    * published is ignored. This must be called on the AWT event thread.
+    * @param fr is the finished Filter result
+    * @return true if it was published
+    * @see Gene#setGeneData
+    * @see #publishWorkingGeneList
+    */
+   synchronized boolean publishBackgroundResult(FilterResult fr)
+   { /* publishBackgroundResult */
+     if(fr.resultCL==null || fr.runNbr<publishedRunNbr)
+       return(false);          /* nothing or stale */
+     
+     /* [1] Set the Gene data computed by the run */
+     GeneResultSet rs= fr.geneDataRS;
+     byte nbrFields[]= fr.nbrGeneDataFields;
+     Gene
+       gene,
+       midStaticList[]= mae.mp.midStaticCL.mList;
+     int n= (nbrFields==null) ? 0 : Math.min(nbrFields.length,
+                                             midStaticList.length);
+     for(int mid=0;mid<n;mid++)
+     { /* set data */
+       gene= midStaticList[mid];
+       if(gene==null || nbrFields[mid]==0)
+         continue;
+       if(nbrFields[mid]==4)
+         gene.setGeneData(rs.get(GeneResultSet.RATIO, mid),
+                          rs.get(GeneResultSet.MEAN1, mid),
+                          rs.get(GeneResultSet.MEAN2, mid),
+                          rs.get(GeneResultSet.P_VALUE, mid));
+       else
+         gene.setGeneData(rs.get(GeneResultSet.RATIO, mid),
+                          rs.get(GeneResultSet.MEAN1, mid),
+                          rs.get(GeneResultSet.MEAN2, mid));
+     }
+     
+     /* [2] Swap in the stage lists read by other classes */
+     GeneList oldCL;
+     if(fr.ratioThrCL!=null && fr.ratioThrCL==bgRatioThrCL)
+     {
+       oldCL= ratioThrCL;
+       ratioThrCL= bgRatioThrCL;
+       bgRatioThrCL= oldCL;
+     }
+     if(fr.gcMemberCL!=null && fr.gcMemberCL==bgGcMemberCL)
+     {
+       oldCL= gcMemberCL;
+       gcMemberCL= bgGcMemberCL;
+       bgGcMemberCL= oldCL;
+     }
+     
+     /* [3] Make it the workingCL */
+     return(publishWorkingGeneList(fr.resultCL, fr.inResultCL, fr.okFlag,
+                                   fr.runNbr));
+   } /* publishBackgroundResult */
+   
+   
+   /**
+    * isRunAborted() - test if the current abortable Filter run was aborted
+    * @return true if aborted
+    */
+   private boolean isRunAborted()
+   { /* isRunAborted */
+     return(abortableRunFlag && abortRunFlag);
+   } /* isRunAborted */
+   
+   
+   /**
+    * runFilterStages() - run the chain of data filter stages starting with
+    * all genes and put the result in resultCL. The intermediate results are
+    * computed in tmpCL.
+    * @param resultCL is the gene list to get the result
+    * @param abortableFlag if the run may be aborted by abortRunFlag
+    * @param in is the gene set membership flags and gene sets to use
+    * @return false if there is no filter or it failed
+    * @see #computeWorkingGeneList
     * @see GeneBitSet#copyBStoCL
     * @see GeneClass#getGeneListOfCurrentGeneClass
     * @see GeneList#addGene
     * @see GeneList#clear
     * @see GeneList#copy
     * @see GeneList#intersection
-    * @see PopupRegistry#updateFilter
+    * @see FilterStageCache#lookup
+    * @see FilterStageCache#store
+    * @see GeneSetExpr#intersectAll
     * @see Util#showMsg
     * @see Util#showMsg2
     * @see Util#showMsg3
-    * @see #allocateGeneLists
     * @see #doFilterPluginPipelineOpr
     * @see #setCy3Cy5RatiosCL
     * @see #setGeneListBySpotCV
@@ -512,12 +1065,12 @@ class Filter
     * @see #setPostiveQuantData
     * @see #setRatiosGeneList
     * @see #setSIthresholdsCL
+    * @see #setStageKey
     * @see #setThresholdsCL
-    * @see #showNbrFilteredGenes
-    *
     */
-   boolean computeWorkingGeneList()
-   { /* computeWorkingGeneList */
+   private boolean runFilterStages(GeneList resultCL, boolean abortableFlag,
+                                   FilterInputs in)
+   { /* runFilterStages */
      boolean
        useHP_XYratio= true, /* set false if want to do F1/F2 ratio */
        flagGen= false,      /* set when do a compultation to gene set */
@@ -529,23 +1082,15 @@ class Filter
          fio.logMsgln("FILTER-CWCL.1 StartTime="+ Util.dateStr());
        */
      
-      /* [1] Do NOT run the filter if there is no data in the database
-       * which would be the case if no samples were loaded when you
-       * run it from the Start menu rather than clicking on a .mae file.
-       */
-     if(mae.hps.nHP<=0)
-       return(false);        /* can't run the filter if there is no data */
-     
-     /* [1.1] Create GeneLists if never done before... */
-     if(workingCL==null)
-       allocateGeneLists();    /* create initial gene lists if needed */
+     abortableRunFlag= abortableFlag;
+     runNbr++;
      nActiveFilters= 0;
      
      /* [2] if any GeneList.operation() fails, it returns false!
       * Start with tmpCL with all genes set.
       */
      flagGen= tmpCL.copy(tmpCL, mae.gct.allGenesCL);
-     flag &= workingCL.clear();
+     flag &= resultCL.clear();
      
      if(tmpCL.length==0 || gcMemberCL==null || HP_XY_t_TestCL==null ||
         HP_XYsets_t_TestCL==null || HP_XYsets_KS_TestCL==null || OCL_F_TestCL==null ||
@@ -554,7 +1099,7 @@ class Filter
         ratioThrCL==null || ratioCy3Cy5ThrCL==null ||
         HP_EclustersCL==null || ratioHistCL==null || intensHistCL==null)
      { /* failed, just return a list of all genes */
-       workingCL.copy(workingCL, mae.gct.allGenesCL);
+       resultCL.copy(resultCL, mae.gct.allGenesCL);
        return(false);
      }     
      
@@ -565,51 +1110,50 @@ class Filter
       * is any problems, then abort the computations an just return the
       * set of all genes.
       */
-     if(tmpCL.length>0 && mae.geneClassMbrFilterFlag)
+     /* [3.0] The gene set membership filters do not depend on tmpCL, so
+      * intersect them all with tmpCL in a single pass rather than by a
+      * chain of two-operand intersections.
+      */
+     GeneBitSet memberBS[]= new GeneBitSet[8];
+     int nMemberBS= 0;
+     memberBS[nMemberBS++]= tmpCL.bitSet;
+     
+     if(tmpCL.length>0 && in.geneClassMbrFilterFlag)
      { /* "Filter by GeneClass membership" */
        activeFilterNames[nActiveFilters++]= "Gene Class";
        /* recompute gcMemberCL */
-       gcMemberCL.copy(gcMemberCL,
-       mae.gct.getGeneListOfCurrentGeneClass() );
-       flag &= tmpCL.intersection(tmpCL, gcMemberCL, /* ARGS */
-                                  tmpCL              /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       GeneList memberCL= (isBackgroundRun()) ? bgGcMemberCL : gcMemberCL;
+       memberCL.copy(memberCL, in.geneClassCL);
+       bgGcMemberFlag= isBackgroundRun();
+       memberBS[nMemberBS++]= memberCL.bitSet;
      } /* "Filter by GeneClass membership" */
      
-     if(flag && mae.useGeneSetFilterFlag)
+     if(in.useGeneSetFilterFlag)
      { /*"Filter by useGeneSet membership"*/
        activeFilterNames[nActiveFilters++]= "Use Filter Gene Set";
-       flag= tmpCL.intersection(tmpCL, gct.userFilterGeneSetCL, /* ARGS */
-                                tmpCL                    /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       memberBS[nMemberBS++]= in.userFilterGeneSetBS;
      } /*"Filter by useGeneSet membership"*/
      
-     if(flag && mae.useGoodGeneCLflag)
+     if(in.useGoodGeneCLflag)
      { /* "Filter by goodGenesSet membership" */
        activeFilterNames[nActiveFilters++]= "Good Genes";
-       flag= tmpCL.intersection(tmpCL, gct.goodGenesCL, /* ARGS */
-                                tmpCL            /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       memberBS[nMemberBS++]= in.goodGenesBS;
      } /* "Filter by goodGenesSet membership" */
      
-     if(flag && mae.useReplicateGenesFlag)
+     if(in.useReplicateGenesFlag)
      { /* "Filter by genes with replicates" */
        activeFilterNames[nActiveFilters++]= "Replicate Genes";
-       flag= tmpCL.intersection(tmpCL, gct.replicateGenesCL, /* ARGS */
-                                tmpCL             /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       memberBS[nMemberBS++]= in.replicateGenesBS;
      } /* "Filter by genes with replicates" */
      
-     if(flag && mae.useRatioHistCLflag)
+     if(in.useRatioHistCLflag)
      { /* "Ratio histogram selected genes" */
        activeFilterNames[nActiveFilters++]= "Ratio hist bin";
        /* This is set by clicking on a bin in a ratio histogram */
-       flag= tmpCL.intersection(tmpCL, ratioHistCL, /* ARGS */
-                                tmpCL         /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       memberBS[nMemberBS++]= in.ratioHistBS;
      } /* "Ratio histogram selected genes" */
      
-     if(flag && mae.useIntensHistCLflag)
+     if(in.useIntensHistCLflag)
      { /* "Intensity histogram selected genes" */
        String
          sf1= mae.cfg.fluoresLbl1,
@@ -629,19 +1173,23 @@ class Filter
          ss= (mae.useRatioDataFlag) ? "Ratio" : "Intens.";
        activeFilterNames[nActiveFilters++]= ss+" hist bin";
        /* This is set by clicking on a bin in a intensity histogram */
-       flag= tmpCL.intersection(tmpCL, intensHistCL, /* ARGS */
-                                tmpCL         /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       memberBS[nMemberBS++]= in.intensHistBS;
      } /* "Intensity histogram selected genes" */
      
-     if(flag && mae.useEditedCLflag)
+     if(in.useEditedCLflag)
      { /* "edited selected genes" */
        activeFilterNames[nActiveFilters++]= "E.G.L.";
-       flag= tmpCL.intersection(tmpCL, gct.editedCL, /* ARGS */
-                                tmpCL         /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       memberBS[nMemberBS++]= in.editedBS;
      } /* "edited genes" */
      
+     if(nMemberBS>1)
+     { /* (tmpCL & member1 & member2 ...) ==> tmpCL */
+       flag &= GeneSetExpr.intersectAll(mae, memberBS, nMemberBS,
+                                        tmpCL.bitSet);
+       flag &= tmpCL.bitSet.cvtBStoCL(tmpCL);
+       flag &= (tmpCL.bitSet.count>0 && !isRunAborted());
+     }
+     
      if(flag && mae.useSpotCVfilterFlag)
      { /* "Spot CV filter" */
        activeFilterNames[nActiveFilters++]= "CV of spots";
@@ -655,12 +1203,20 @@ class Filter
         *     mae.ListE                 "Filter F1F2 all HP-E"
         */
        /* could do it with Threshold filtering with wide open limits */
-       flagGen= setGeneListBySpotCV(spotCVCL, tmpCL,
-                                    mae.cfg.spotCVthr, mae.cvTestMode);
+       setStageKey(FilterStageCache.SPOT_CV);
+       flagGen= stageCache.lookup(FilterStageCache.SPOT_CV,
+                                  tmpCL, spotCVCL);
+       if(!flagGen)
+       { /* inputs changed, recompute it */
+         flagGen= setGeneListBySpotCV(spotCVCL, tmpCL,
+                                      mae.cfg.spotCVthr, mae.cvTestMode);
+         stageCache.store(FilterStageCache.SPOT_CV, tmpCL, spotCVCL,
+                          flagGen, 0);
+       }
        if(flagGen)
          flag= tmpCL.intersection(tmpCL, spotCVCL,   /* ARGS */
                                   tmpCL       /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       flag &= (tmpCL.bitSet.count>0 && !isRunAborted());
      } /* "Spot CV filter" */
      
      if(flag && mae.spotIntensFilterFlag)
@@ -674,12 +1230,20 @@ class Filter
         * The dataType is mae.DATA_TOT, DATA_AVG.
         * The rangeTypeOveride is mae.RANGE_TYPE_INTENSITY.
         */
-       flagGen= setSIthresholdsCL(tmpCL, /* ARGS */
-                                  spotIntensThrCL /* RTN */ );
+       setStageKey(FilterStageCache.SI_THR);
+       flagGen= stageCache.lookup(FilterStageCache.SI_THR,
+                                  tmpCL, spotIntensThrCL);
+       if(!flagGen)
+       { /* inputs changed, recompute it */
+         flagGen= setSIthresholdsCL(tmpCL, /* ARGS */
+                                    spotIntensThrCL /* RTN */ );
+         stageCache.store(FilterStageCache.SI_THR, tmpCL, spotIntensThrCL,
+                          flagGen, 0);
+       }
        if(flagGen)
          flag= tmpCL.intersection(tmpCL, spotIntensThrCL, /* ARGS */
                                   tmpCL            /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       flag &= (tmpCL.bitSet.count>0 && !isRunAborted());
      } /* "Threshold: rawIntensity [RI1:RI2]" */
      
      if(flag && mae.intensFilterFlag)
@@ -693,14 +1257,22 @@ class Filter
         * The dataType is mae.DATA_TOT, DATA_AVG.
         * The rangeTypeOveride is mae.RANGE_TYPE_INTENSITY.
         */
-       flagGen= setThresholdsCL(tmpCL, /* ARGS */
-                                intensityThrCL,   /* RTN */
-                                mae.msX, mae.msY,
-                                true  /* test gray range */);
+       setStageKey(FilterStageCache.INTENS_THR);
+       flagGen= stageCache.lookup(FilterStageCache.INTENS_THR,
+                                  tmpCL, intensityThrCL);
+       if(!flagGen)
+       { /* inputs changed, recompute it */
+         flagGen= setThresholdsCL(tmpCL, /* ARGS */
+                                  intensityThrCL,   /* RTN */
+                                  mae.msX, mae.msY,
+                                  true  /* test gray range */);
+         stageCache.store(FilterStageCache.INTENS_THR, tmpCL, intensityThrCL,
+                          flagGen, 3);
+       }
        if(flagGen)
          flag= tmpCL.intersection(tmpCL, intensityThrCL, /* ARGS */
                                   tmpCL           /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       flag &= (tmpCL.bitSet.count>0 && !isRunAborted());
      } /* "Threshold: intensity [I1:I2]" */
      
      if(flag && mae.ratioFilterFlag)
@@ -714,14 +1286,24 @@ class Filter
         * The dataType is mae.DATA_TOT, DATA_AVG.
         * The rangeTypeOveride is RANGE_TYPE_RATIO
         */
-       flagGen= setThresholdsCL(tmpCL, /* ARG */
-                                ratioThrCL,   /* RTN */
-                                mae.msX, mae.msY,
-                                false /* tests Ratio range */);       
+       GeneList thrCL= (isBackgroundRun()) ? bgRatioThrCL : ratioThrCL;
+       bgRatioThrFlag= isBackgroundRun();
+       setStageKey(FilterStageCache.RATIO_THR);
+       flagGen= stageCache.lookup(FilterStageCache.RATIO_THR,
+                                  tmpCL, thrCL);
+       if(!flagGen)
+       { /* inputs changed, recompute it */
+         flagGen= setThresholdsCL(tmpCL, /* ARG */
+                                  thrCL,   /* RTN */
+                                  mae.msX, mae.msY,
+                                  false /* tests Ratio range */);
+         stageCache.store(FilterStageCache.RATIO_THR, tmpCL, thrCL,
+                          flagGen, 3);
+       }       
        if(flagGen)
-         flag= tmpCL.intersection(tmpCL, ratioThrCL, /* ARGS */
+         flag= tmpCL.intersection(tmpCL, thrCL, /* ARGS */
                                   tmpCL       /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       flag &= (tmpCL.bitSet.count>0 && !isRunAborted());
      } /* "Threshold: ratio [R1:R2]" */
      
      if(flag && mae.ratioCy3Cy5FilterFlag)
@@ -733,65 +1315,105 @@ class Filter
         * Use msX.F1 (Cy3) and msX.F2 (Cy5).
         * [TODO] pick whether use HP-X, HP-Y, or HP-E for calcs.
         */
-       flagGen= setCy3Cy5RatiosCL(tmpCL, /* ARG */
-                                  ratioCy3Cy5ThrCL, /* RTN */
-                                  mae.msX, mae.useCy5OverCy3Flag);       
+       setStageKey(FilterStageCache.CY3CY5_THR);
+       flagGen= stageCache.lookup(FilterStageCache.CY3CY5_THR,
+                                  tmpCL, ratioCy3Cy5ThrCL);
+       if(!flagGen)
+       { /* inputs changed, recompute it */
+         flagGen= setCy3Cy5RatiosCL(tmpCL, /* ARG */
+                                    ratioCy3Cy5ThrCL, /* RTN */
+                                    mae.msX, mae.useCy5OverCy3Flag);
+         stageCache.store(FilterStageCache.CY3CY5_THR, tmpCL, ratioCy3Cy5ThrCL,
+                          flagGen, 0);
+       }       
        if(flagGen)
          flag= tmpCL.intersection(tmpCL, ratioCy3Cy5ThrCL, /* ARGS */
                                   tmpCL       /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       flag &= (tmpCL.bitSet.count>0 && !isRunAborted());
      } /* "Threshold: ratio [CR1:CR2]" */
      if(flag && mae.tTestXYfilterFlag)
      { /* "Filter genes by HP-X,HP-Y t-Test" mae.msX(Y) */
        activeFilterNames[nActiveFilters++]= "t-Test X,Y";
        /* Generate t-test set.  */
-       flagGen= setHP_XY_t_TestCL(HP_XY_t_TestCL, /* RTN */
-                                  tmpCL,      /* only test these*/
-                                  mae.msX, mae.msY,
-                                  mae.cfg.pValueThr);
+       setStageKey(FilterStageCache.T_TEST_XY);
+       flagGen= stageCache.lookup(FilterStageCache.T_TEST_XY,
+                                  tmpCL, HP_XY_t_TestCL);
+       if(!flagGen)
+       { /* inputs changed, recompute it */
+         flagGen= setHP_XY_t_TestCL(HP_XY_t_TestCL, /* RTN */
+                                    tmpCL,      /* only test these*/
+                                    mae.msX, mae.msY,
+                                    mae.cfg.pValueThr);
+         stageCache.store(FilterStageCache.T_TEST_XY, tmpCL, HP_XY_t_TestCL,
+                          flagGen, 4);
+       }
        if(flagGen)
          flag= tmpCL.intersection(tmpCL, HP_XY_t_TestCL, /* ARGS */
                                   tmpCL           /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       flag &= (tmpCL.bitSet.count>0 && !isRunAborted());
      } /* "Filter genes by HP-X,HP-Y t-Test" mae.msX(Y) */     
      
      if(flag && mae.tTestXYsetsFilterFlag)
      { /* "Filter genes by HP-X,HP-Y sets t-Test" mae.msListX(Y) */
        activeFilterNames[nActiveFilters++]= "t-Test X,Y 'sets'";
        /* Generate t-test set. */
-       flagGen= setHP_XYsets_t_TestCL(HP_XYsets_t_TestCL,
-                                      tmpCL,   /* only test these*/
-                                      mae.cfg.pValueThr);
+       setStageKey(FilterStageCache.T_TEST_XY_SETS);
+       flagGen= stageCache.lookup(FilterStageCache.T_TEST_XY_SETS,
+                                  tmpCL, HP_XYsets_t_TestCL);
+       if(!flagGen)
+       { /* inputs changed, recompute it */
+         flagGen= setHP_XYsets_t_TestCL(HP_XYsets_t_TestCL,
+                                        tmpCL,   /* only test these*/
+                                        mae.cfg.pValueThr);
+         stageCache.store(FilterStageCache.T_TEST_XY_SETS, tmpCL, HP_XYsets_t_TestCL,
+                          flagGen, 4);
+       }
        if(flagGen)
          flag= tmpCL.intersection(tmpCL, HP_XYsets_t_TestCL, /* ARGS */
                                   tmpCL               /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       flag &= (tmpCL.bitSet.count>0 && !isRunAborted());
      } /* "Filter genes by HP-X,HP-Y sets t-Test" mae.msListX(Y) */
           
      if(flag && mae.KS_TestXYsetsFilterFlag)
      { /* "Filter genes by HP-X,HP-Y sets t-Test" mae.msListX(Y) */
        activeFilterNames[nActiveFilters++]= "KS-Test X,Y 'sets'";
        /* Generate KS-test set. */
-       flagGen= setHP_XYsets_KS_TestCL(HP_XYsets_KS_TestCL,
-                                      tmpCL,   /* only test these*/
-                                      mae.cfg.pValueThr);
+       setStageKey(FilterStageCache.KS_TEST_XY_SETS);
+       flagGen= stageCache.lookup(FilterStageCache.KS_TEST_XY_SETS,
+                                  tmpCL, HP_XYsets_KS_TestCL);
+       if(!flagGen)
+       { /* inputs changed, recompute it */
+         flagGen= setHP_XYsets_KS_TestCL(HP_XYsets_KS_TestCL,
+                                        tmpCL,   /* only test these*/
+                                        mae.cfg.pValueThr);
+         stageCache.store(FilterStageCache.KS_TEST_XY_SETS, tmpCL, HP_XYsets_KS_TestCL,
+                          flagGen, 4);
+       }
        if(flagGen)
          flag= tmpCL.intersection(tmpCL, HP_XYsets_KS_TestCL, /* ARGS */
                                   tmpCL               /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       flag &= (tmpCL.bitSet.count>0 && !isRunAborted());
      } /* "Filter genes by HP-X,HP-Y sets KS-Test" mae.msListX(Y) */
                
      if(flag && mae.F_TestOCLFilterFlag)
      { /* "Filter genes current Ordered Condition List F-Test" cdList.curOCL */
        activeFilterNames[nActiveFilters++]= "F-Test cur OCL";
        /* Generate KS-test set. */
-       flagGen= setOCL_F_TestCL(OCL_F_TestCL,
-                                      tmpCL,   /* only test these*/
-                                      mae.cfg.pValueThr);
+       setStageKey(FilterStageCache.F_TEST_OCL);
+       flagGen= stageCache.lookup(FilterStageCache.F_TEST_OCL,
+                                  tmpCL, OCL_F_TestCL);
+       if(!flagGen)
+       { /* inputs changed, recompute it */
+         flagGen= setOCL_F_TestCL(OCL_F_TestCL,
+                                        tmpCL,   /* only test these*/
+                                        mae.cfg.pValueThr);
+         stageCache.store(FilterStageCache.F_TEST_OCL, tmpCL, OCL_F_TestCL,
+                          flagGen, 4);
+       }
        if(flagGen)
          flag= tmpCL.intersection(tmpCL, OCL_F_TestCL, /* ARGS */
                                   tmpCL               /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       flag &= (tmpCL.bitSet.count>0 && !isRunAborted());
      } /* "Filter genes current Ordered Condition List F-Test" cdList.curOCL */
      
      if(flag && mae.clusterHP_EfilterFlag)
@@ -803,19 +1425,27 @@ class Filter
        if(flagGen)
          flag= tmpCL.intersection(tmpCL, HP_EclustersCL, /* ARGS */
                                   tmpCL           /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       flag &= (tmpCL.bitSet.count>0 && !isRunAborted());
      } /* "Filter by HP-E clusters"  */
      
      if(flag && mae.useDiffFilterFlag)
      { /* "Filter by Diff(HP-X,HP-Y)" */
        activeFilterNames[nActiveFilters++]= "Diff(HP-X,HP-Y)";
-       flagGen= setDiffHP_XYCL(DiffHP_XYCL, /* RTN */
-                               tmpCL,        /* only test these*/
-                               mae.cfg.diffThr);
+       setStageKey(FilterStageCache.DIFF_XY);
+       flagGen= stageCache.lookup(FilterStageCache.DIFF_XY,
+                                  tmpCL, DiffHP_XYCL);
+       if(!flagGen)
+       { /* inputs changed, recompute it */
+         flagGen= setDiffHP_XYCL(DiffHP_XYCL, /* RTN */
+                                 tmpCL,        /* only test these*/
+                                 mae.cfg.diffThr);
+         stageCache.store(FilterStageCache.DIFF_XY, tmpCL, DiffHP_XYCL,
+                          flagGen, 0);
+       }
        if(flagGen)
          flag= tmpCL.intersection(tmpCL, DiffHP_XYCL, /* ARGS */
                                   tmpCL        /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       flag &= (tmpCL.bitSet.count>0 && !isRunAborted());
      } /* "Filter by Diff(HP-X,HP-Y)" */
      
      if(flag && mae.useHighRatiosFilterFlag)
@@ -828,11 +1458,11 @@ class Filter
         */
        flagGen= setRatiosGeneList(highestRatiosCL, tmpCL,
                                   mae.cfg.maxGenesToRpt,
-                                  useHP_XYratio, true /*sortBy Highest*/);
+                                  useHP_XYratio, true /* highest */);
        if(flagGen)
          flag= tmpCL.intersection(tmpCL, highestRatiosCL, /* ARGS */
                                   tmpCL            /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       flag &= (tmpCL.bitSet.count>0 && !isRunAborted());
      } /* "Use highest ratios filter" for each array involved... */
      
      if(flag && mae.useLowRatiosFilterFlag)
@@ -845,65 +1475,97 @@ class Filter
        */
        flagGen= setRatiosGeneList(lowestRatiosCL, tmpCL,
                                   mae.cfg.maxGenesToRpt,
-                                  useHP_XYratio, false /*sort By highest */);
+                                  useHP_XYratio, false /* lowest */);
        if(flagGen)
          flag= tmpCL.intersection(tmpCL, lowestRatiosCL,  /* ARGS */
                                   tmpCL            /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       flag &= (tmpCL.bitSet.count>0 && !isRunAborted());
      } /* "Use lowest ratios filter" for each array involved... */
      
      if(flag && mae.usePosQuantDataFlag)
      { /* "Filter out genes with negative quant values" */
        activeFilterNames[nActiveFilters++]= "Only quant. data > 0";
-       flagGen= setPostiveQuantData(posQuantDataCL, tmpCL,
-                                    mae.posQuantTestMode);
+       setStageKey(FilterStageCache.POS_QUANT);
+       flagGen= stageCache.lookup(FilterStageCache.POS_QUANT,
+                                  tmpCL, posQuantDataCL);
+       if(!flagGen)
+       { /* inputs changed, recompute it */
+         flagGen= setPostiveQuantData(posQuantDataCL, tmpCL,
+                                      mae.posQuantTestMode);
+         stageCache.store(FilterStageCache.POS_QUANT, tmpCL, posQuantDataCL,
+                          flagGen, 0);
+       }
        if(flagGen)
          flag= tmpCL.intersection(tmpCL, posQuantDataCL, /* ARGS */
                                   tmpCL           /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       flag &= (tmpCL.bitSet.count>0 && !isRunAborted());
      }
      
      if(flag && mae.useGoodSpotDataFlag)
      { /* "Filter by Good Spot(QualChk) Data" */
        activeFilterNames[nActiveFilters++]= "Good Spot data";
-       flagGen= setGoodSpotQuantData(goodSpotQualChkCL, tmpCL,
-                                     mae.goodSpotTestMode);
+       setStageKey(FilterStageCache.GOOD_SPOT);
+       flagGen= stageCache.lookup(FilterStageCache.GOOD_SPOT,
+                                  tmpCL, goodSpotQualChkCL);
+       if(!flagGen)
+       { /* inputs changed, recompute it */
+         flagGen= setGoodSpotQuantData(goodSpotQualChkCL, tmpCL,
+                                       mae.goodSpotTestMode);
+         stageCache.store(FilterStageCache.GOOD_SPOT, tmpCL, goodSpotQualChkCL,
+                          flagGen, 0);
+       }
        if(flagGen)
          flag= tmpCL.intersection(tmpCL, goodSpotQualChkCL, /* ARGS */
                                   tmpCL           /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       flag &= (tmpCL.bitSet.count>0 && !isRunAborted());
      }
      
      if(flag && mae.useDetValueSpotDataFlag)
      { /* "Filter by Spot (Detection Value) Data" */
        /* Note: only filter if the data exists */
        activeFilterNames[nActiveFilters++]= "Spot Detect Value data";
-       flagGen= setDetValueQuantData(detValueSpotDataCL, tmpCL,
-                                     mae.detValueSpotTestMode);
+       setStageKey(FilterStageCache.DET_VALUE);
+       flagGen= stageCache.lookup(FilterStageCache.DET_VALUE,
+                                  tmpCL, detValueSpotDataCL);
+       if(!flagGen)
+       { /* inputs changed, recompute it */
+         flagGen= setDetValueQuantData(detValueSpotDataCL, tmpCL,
+                                       mae.detValueSpotTestMode);
+         stageCache.store(FilterStageCache.DET_VALUE, tmpCL, detValueSpotDataCL,
+                          flagGen, 0);
+       }
        if(flagGen)
          flag= tmpCL.intersection(tmpCL, detValueSpotDataCL, /* ARGS */
                                   tmpCL           /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       flag &= (tmpCL.bitSet.count>0 && !isRunAborted());
      }
      
      if(flag && mae.useOnlyGenesWithNonZeroDensityFlag)
      { /* "Filter use only genes with non-zero intensity"" */
        /* Note: only filter if the non-zero data exists */
        activeFilterNames[nActiveFilters++]= "Use only non-zero data";
-       flagGen= setNonZeroQuantData(nonZeroSpotDataCL, tmpCL);
+       setStageKey(FilterStageCache.NON_ZERO);
+       flagGen= stageCache.lookup(FilterStageCache.NON_ZERO,
+                                  tmpCL, nonZeroSpotDataCL);
+       if(!flagGen)
+       { /* inputs changed, recompute it */
+         flagGen= setNonZeroQuantData(nonZeroSpotDataCL, tmpCL);
+         stageCache.store(FilterStageCache.NON_ZERO, tmpCL, nonZeroSpotDataCL,
+                          flagGen, 0);
+       }
        if(flagGen)
          flag= tmpCL.intersection(tmpCL, nonZeroSpotDataCL, /* ARGS */
                                   tmpCL           /* RTN */);
-       flag &= (tmpCL.bitSet.count>0);
+       flag &= (tmpCL.bitSet.count>0 && !isRunAborted());
      }
      
      /* [3.1] Do pipeline operation on all active FilterPlugin's. */
-     flag= flag && doFilterPluginPipelineOpr();     
+     flag= flag && !isRunAborted() && doFilterPluginPipelineOpr();     
      
      /* [3.2] Finish any active plugin pipelines */     
      doFilterPluginPipelineInitOpr("finishPipeline",0);
      
-     /* [4] Copy the final result from tmpCL to workingCL */
+     /* [4] Copy the final result from tmpCL to resultCL */
      /*
      if(mae.CONSOLE_FLAG)
        fio.logMsgln("F-CWCL.2     tmpCL.(length, bitSet.(count, highestMID))="+
@@ -913,8 +1575,8 @@ class Filter
                       GeneBitSet.cbsDbug= (editedCL.length > 0);
      */
      
-     /* [4.1] Convert bitset to GeneList workingCL both bitSet and mList[] */
-     flag &= tmpCL.bitSet.copyBStoCL(workingCL, tmpCL.bitSet);
+     /* [4.1] Convert bitset to GeneList resultCL both bitSet and mList[] */
+     flag &= tmpCL.bitSet.copyBStoCL(resultCL, tmpCL.bitSet);
      
       /*
       if(mae.CONSOLE_FLAG)
@@ -937,16 +1599,24 @@ class Filter
      
      /* [NOTE] If failed, just return a list of ALL genes */
      
-     /* [4.2] update the # of genes found by the filter in Msg3 */
-     showNbrFilteredGenes(); /* update Msg3 w/# genes passing filter */
-     
-     /* [4.3] Setup boolean table lookup for gene membership in workingCL */
-     geneInWorkingGeneList= new boolean[mae.mp.maxGenes]; /* clears all to false */
+     return(flag);
+   } /* runFilterStages */
+   
+   
+   /**
+    * makeGeneInListTable() - make boolean table lookup for gene membership
+    * in a gene list.
+    * @param ml is the gene list
+    * @return [0:maxGenes-1] table, true if gene mid is in ml
+    */
+   boolean[] makeGeneInListTable(GeneList ml)
+   { /* makeGeneInListTable */
+     boolean inListTbl[]= new boolean[mae.mp.maxGenes]; /* clears all to false */
      Gene
        gene,
-       mList[]= workingCL.mList;
+       mList[]= ml.mList;
      int
-       nGenes= workingCL.length,
+       nGenes= ml.length,
        idxMID;
      for(int i=0;i<nGenes;i++)
      { /* mark genes in boolean[] working gene list - for speedup */
@@ -957,15 +1627,159 @@ class Filter
          fio.logMsgln("F-CWCL i="+i+ " gene="+gene+ " idxMID="+idxMID);
        */
        if(idxMID>=0)
-         geneInWorkingGeneList[idxMID]= true;
+         inListTbl[idxMID]= true;
      } /* mark genes in boolean[] working gene list - for speedup */
      
-     /* [4.4] update other processes that need to see the new gene list */
+     return(inListTbl);
+   } /* makeGeneInListTable */
+   
+   
+   /**
+    * publishWorkingGeneList() - make a finished Filter result the workingCL.
+    * The gene list and its membership table are swapped in together before
+    * the other processes are told about it. A result from an older run than
+    * the one already published is ignored. This must be called on the AWT
+    * event thread if the result was computed in the background.
+    * @param resultCL is the new working gene list
+    * @param inResultCL is the gene membership table for resultCL
+    * @param flag is the value returned by the Filter run
+    * @param resultRunNbr is the # of the Filter run that computed it
+    * @return true if it was published
+    * @see PopupRegistry#updateFilter
+    * @see #savePublishedStageSets
+    * @see #showNbrFilteredGenes
+    */
+   boolean publishWorkingGeneList(GeneList resultCL, boolean inResultCL[],
+                                  boolean flag, int resultRunNbr)
+   { /* publishWorkingGeneList */
+     if(resultCL==null || resultRunNbr<publishedRunNbr)
+       return(false);          /* nothing or stale */
+     publishedRunNbr= resultRunNbr;
+     
+     /* [1] Swap in the new gene list and its membership table */
+     workingCL= resultCL;
+     geneInWorkingGeneList= inResultCL;
+     
+     /* [1.1] Save the stage gene sets for lookupFilterGeneSetByName() */
+     savePublishedStageSets();
+     
+     /* [2] update the # of genes found by the filter in Msg3 */
+     showNbrFilteredGenes(); /* update Msg3 w/# genes passing filter */
+     
+     /* [3] update other processes that need to see the new gene list */
      if(flag)
        mae.pur.updateFilter(workingCL);             
      
-     return(flag);
-   } /* computeWorkingGeneList */
+     return(true);
+   } /* publishWorkingGeneList */
+   
+   
+   /**
+    * setStageKey() - set the stageCache working key for a Filter stage from
+    * the parameters and samples the stage depends on. The normalization
+    * generation and global data modes are added by beginKey().
+    * The HP-E cluster and highest/lowest ratio stages are not cached.
+    * @param stage is the FilterStageCache stage number
+    * @see FilterStageCache#addKey
+    * @see FilterStageCache#addSample
+    * @see FilterStageCache#addSamples
+    * @see FilterStageCache#beginKey
+    */
+   private void setStageKey(int stage)
+   { /* setStageKey */
+     FilterStageCache sc= stageCache;
+     Config cfg= mae.cfg;
+     SampleSets hps= mae.hps;
+     
+     sc.beginKey();
+     sc.addKey(stage);
+     
+     switch(stage)
+     {
+       case FilterStageCache.SPOT_CV:
+         sc.addKey(cfg.spotCVthr);
+         sc.addKey(mae.cvTestMode);
+         break;
+       case FilterStageCache.SI_THR:
+         sc.addKey(mae.sit1);
+         sc.addKey(mae.sit2);
+         sc.addKey(cfg.pctOKthr);
+         sc.addKey(mae.spotIntensTestMode);
+         sc.addKey(mae.spotIntensRangeMode);
+         sc.addKey(mae.spotIntensCompareMode);
+         break;
+       case FilterStageCache.INTENS_THR:
+         sc.addKey(mae.t1);
+         sc.addKey(mae.t2);
+         sc.addKey(mae.sampleIntensityRangeMode);
+         break;
+       case FilterStageCache.RATIO_THR:
+         sc.addKey(mae.r1);
+         sc.addKey(mae.r2);
+         sc.addKey(mae.ratioRangeMode);
+         break;
+       case FilterStageCache.CY3CY5_THR:
+         sc.addKey(mae.cr1);
+         sc.addKey(mae.cr2);
+         sc.addKey(mae.ratioCy3Cy5RangeMode);
+         break;
+       case FilterStageCache.T_TEST_XY:
+       case FilterStageCache.KS_TEST_XY_SETS:
+         sc.addKey(cfg.pValueThr);
+         break;
+       case FilterStageCache.T_TEST_XY_SETS:
+         sc.addKey(cfg.pValueThr);
+         sc.addKey(mae.pValueThrMode);
+         break;
+       case FilterStageCache.F_TEST_OCL:
+         sc.addKey(cfg.pValueThr);
+         sc.addKey(mae.pValueThrMode);
+         Condition cdList= mae.cdList;
+         int curOCLidx= cdList.curOCLidx;
+         sc.addKey(curOCLidx);
+         if(curOCLidx!=-1)
+         { /* add the conditions and their samples */
+           Condition
+             cd,
+             ocl[]= cdList.orderedCondList[curOCLidx];
+           int nConditions= cdList.nOrderedCondList[curOCLidx];
+           for(int c=0;c<nConditions;c++)
+           {
+             cd= ocl[c];
+             sc.addKey((Object)cd);
+             if(cd!=null)
+               sc.addSamples(cd.getHPlist(), cd.nMScond);
+           }
+         }
+         break;
+       case FilterStageCache.DIFF_XY:
+         sc.addKey(cfg.diffThr);
+         break;
+       case FilterStageCache.POS_QUANT:
+         sc.addKey(mae.posQuantTestMode);
+         break;
+       case FilterStageCache.GOOD_SPOT:
+         sc.addKey(mae.goodSpotTestMode);
+         sc.addKey(mae.qualTypeMode);
+         sc.addKey(cfg.qualThr);
+         break;
+       case FilterStageCache.DET_VALUE:
+         sc.addKey(mae.detValueSpotTestMode);
+         sc.addKey(cfg.detValueSpotThr);
+         break;
+       case FilterStageCache.NON_ZERO:
+       default:
+         break;
+     }
+     
+     /* The samples the stages may use, depending on their modes */
+     sc.addSample(mae.ms);
+     sc.addSample(mae.msX);
+     sc.addSample(mae.msY);
+     sc.addSamples(hps.msListX, hps.nHP_X);
+     sc.addSamples(hps.msListY, hps.nHP_Y);
+     sc.addSamples(hps.msListE, hps.nHP_E);
+   } /* setStageKey */
  
         
    /**
@@ -1510,28 +2324,31 @@ class Filter
    
 	 
   /**     
-   * setRatiosGeneList() set ratiosCL by reportMode and sort by specified direction.
+   * setRatiosGeneList() set ratiosCL to the maxGenesToRpt genes with the
+   * highest (or lowest) ratios, in that order. They are selected with
+   * a bounded heap top-K selection rather than by sorting all of the genes.
    * @param ratiosCL is the gene list returned with a new set of genes
    * @param genesToTestCL list of genes to test   
    * @param maxGenesToRpt is the maximum number of genes to test in report 
    * @param useHP_XYratio is flag to use HP X/Y ratio else use F1/F2 ratio
-   * @param sortDirection as either ASSENDING or DESCENDING
+   * @param highestFlag to get the highest ratios, else the lowest ratios
    * @return true if succeed and results in ratiosCL, else
    * false if a problem.
-   * @see Gene#setGeneData
-   * @see Gene#sortGeneList
+   * @see #setGeneData
    * @see GeneList#clearNull
    * @see GeneList#addGene
-   * @see GeneList#compressGeneList
    * @see HPxyData#updateDataAndStat
+   * @see IndexSort#selectTopK
    * @see MaHybridSample#getDataByGID
    * @see Util#showMsg3
    */
    boolean setRatiosGeneList(GeneList ratiosCL, GeneList genesToTestCL,
                              int maxGenesToRpt, boolean useHP_XYratio,
-   boolean sortDirection )
+                             boolean highestFlag)
    { /* setRatiosGeneList */
-     int nTest= genesToTestCL.length;
+     int
+       nTest= genesToTestCL.length,
+       nRatios= 0;
      float
        g1= 0.0F,
        g2= 0.0F,
@@ -1540,7 +2357,7 @@ class Filter
        ms= mae.ms,
        msX= mae.msX,
        msY= mae.msY;
-     HPxyData hpXYdata= mae.cdb.hpXYdata;  /* generic HP-X/Y set object*/
+     HPxyData hpXYdata= getHPxyData();  /* generic HP-X/Y set object*/
      int
        nX= hpXYdata.nX,
        nY= hpXYdata.nY,
@@ -1549,7 +2366,9 @@ class Filter
      ratiosCL.clearNull();
      Gene
        gene,
-       mList[]= genesToTestCL.mList;
+       mList[]= genesToTestCL.mList,
+       ratioGenes[]= new Gene[nTest];  /* [0:nRatios-1] genes with ratios */
+     float ratios[]= new float[nTest];   /* [0:nRatios-1] their ratios */
      
      /* Copy genes which have a non-zero ratio */
      for(int k=0;k<nTest;k++)
@@ -1577,20 +2396,25 @@ class Filter
          method= (mae.useRatioDataFlag)
          ? ms.DATA_RATIO_F1F2TOT
          : ms.DATA_MEAN_F1F2TOT;
-         g1= msX.getDataByGID(gid, mae.useRatioDataFlag, method);
-         g2= msY.getDataByGID(gid, mae.useRatioDataFlag, method);
+         g1= mae.cdb.normData.getDataByGID(msX, gid,
+                                           mae.useRatioDataFlag, method);
+         g2= mae.cdb.normData.getDataByGID(msY, gid,
+                                           mae.useRatioDataFlag, method);
        }
        else
        { /* set data to ms.F1/ms.F2 */
-         g1= ms.getDataByGID(gid, mae.useRatioDataFlag, ms.DATA_F1TOT);
-         g2= ms.getDataByGID(gid, mae.useRatioDataFlag, ms.DATA_F2TOT);
+         g1= mae.cdb.normData.getDataByGID(ms, gid,
+                                           mae.useRatioDataFlag, ms.DATA_F1TOT);
+         g2= mae.cdb.normData.getDataByGID(ms, gid,
+                                           mae.useRatioDataFlag, ms.DATA_F2TOT);
        }
        
        /* Compute Zdiff or ratio */
        r= (mae.isZscoreFlag) ? (g1-g2) : g1/g2;
        
-       gene.setGeneData(r,g1,g2);
-       ratiosCL.addGene(gene);
+       setGeneData(gene, r,g1,g2);
+       ratioGenes[nRatios]= gene;
+       ratios[nRatios++]= r;
      } /* test each gene */
      
        /*
@@ -1602,24 +2426,61 @@ class Filter
     fio.logMsgln("Filter:SRCL nTest="+nTest);
         */
      
-     if(nTest>maxGenesToRpt)
-     { /* sort by ratio and then pick the maxGenesToRpt */
-       Util.showMsg3("Sorting genes...");
-       Gene.sortGeneList(ratiosCL.mList, ratiosCL.length,
-       sortDirection);
-    /* Then shorten the list by deleting [maxGenesToRpt:nTest]
-     * and changing the length.
-     */
-       for(int j=maxGenesToRpt-1; j<nTest; j++)
-         ratiosCL.mList[j]= null;
-       
-       ratiosCL.compressGeneList();
+     if(nRatios>maxGenesToRpt)
+     { /* pick the maxGenesToRpt highest (or lowest) ratios */
+       int topIdx[]= IndexSort.selectTopK(ratios, nRatios, maxGenesToRpt,
+                                          highestFlag);
+       int nTop= (topIdx==null) ? 0 : topIdx.length;
+       for(int j=0; j<nTop; j++)
+         ratiosCL.addGene(ratioGenes[topIdx[j]]);
+     }
+     else
+     { /* use all of the genes */
+       for(int j=0; j<nRatios; j++)
+         ratiosCL.addGene(ratioGenes[j]);
      }
      
      return(true);
    } /* setRatiosGeneList */
         
      
+   /**
+    * testGeneRange() - run the per-gene test of a FilterWorker for the
+    * genes in fw.mList[fw.lo:fw.hi-1]. This may be called on several
+    * worker threads at once, so the tests must only use the working
+    * context in fw.
+    * @param fw is the worker with the test parameters and working context
+    * @return true if succeed, false if a problem.
+    * @see FilterWorker#run
+    * @see #testSpotCVrange
+    * @see #testHP_XY_tRange
+    * @see #testHP_XYsets_tRange
+    * @see #testHP_XYsets_KSrange
+    * @see #testOCL_Frange
+    * @see #testThresholdsRange
+    */
+   boolean testGeneRange(FilterWorker fw)
+   { /* testGeneRange */
+     switch(fw.test)
+     {
+       case FilterWorker.SPOT_CV:
+         return(testSpotCVrange(fw));
+       case FilterWorker.HP_XY_T_TEST:
+         return(testHP_XY_tRange(fw));
+       case FilterWorker.HP_XYSETS_T_TEST:
+         return(testHP_XYsets_tRange(fw));
+       case FilterWorker.HP_XYSETS_KS_TEST:
+         return(testHP_XYsets_KSrange(fw));
+       case FilterWorker.OCL_F_TEST:
+         return(testOCL_Frange(fw));
+       case FilterWorker.THRESHOLDS:
+         return(testThresholdsRange(fw));
+       default:
+         return(false);
+     }
+   } /* testGeneRange */
+   
+   
    /**
     * setGeneListBySpotCV() - do test of coefficient of variation against threshold.
     * The mae.useCVmaxElseMeanFlag determines whether we use max 
@@ -1640,12 +2501,8 @@ class Filter
     * @param cvMode is the way to compute the CV (see SS_MODE_xxxx above)
     * @return true if succeed and results in cvResultsCL, else
     * false if a problem.
-    * @see ExprProfile#updateData
-    * @see GeneList#clearNull
-    * @see GeneList#addGene
-    * @see HPxyData#updateDataAndStat
-    * @see MaHybridSample#getSpotData12Static
-    * @see #calcF1F2CV
+    * @see FilterWorker#testGenes
+    * @see #testSpotCVrange
     */ 
    boolean setGeneListBySpotCV(GeneList cvResultCL, GeneList genesToTestCL,
                                float spotCVthr, int cvTestMode)
@@ -1653,27 +2510,50 @@ class Filter
      if(cvResultCL==null)
        return(false);
      
-     ExprProfile ep= null;
+     FilterWorker fw= new FilterWorker(mae, this, FilterWorker.SPOT_CV);
      if(mae.cvTestMode==mae.SS_MODE_ELIST)
-       ep= new ExprProfile(mae,-1, false);
-     HPxyData hpxy= mae.cdb.hpXYdata;
+       fw.ep= new ExprProfile(mae,-1, false);
+     fw.thr= spotCVthr;
+     fw.mode= cvTestMode;
+     
+     /* The current HP and HP-X/HP-Y modes use getSpotData12Static()
+      * which returns a shared SpotData, so only run the others in parallel.
+      */
+     boolean parallelOKflag= (cvTestMode!=mae.SS_MODE_MS &&
+                              cvTestMode!=mae.SS_MODE_XY);
+     
+     return(fw.testGenes(genesToTestCL, cvResultCL, parallelOKflag));
+   } /* setGeneListBySpotCV */
+   
+   
+   /**
+    * testSpotCVrange() - do the coefficient of variation test for the genes
+    * in fw.mList[fw.lo:fw.hi-1] and set fw.passed[] for those that pass.
+    * @param fw is the worker with the test parameters and working context
+    * @return true if succeed, false if a problem.
+    * @see ExprProfile#updateData
+    * @see HPxyData#updateDataAndStat
+    * @see MaHybridSample#getSpotData12Static
+    * @see #calcF1F2CV
+    * @see #setGeneListBySpotCV
+    */
+   private boolean testSpotCVrange(FilterWorker fw)
+   { /* testSpotCVrange */
+     ExprProfile ep= fw.ep;
+     HPxyData hpxy= fw.hpxy;
      boolean
       testXYflag= false,
       singleFlag= false,
-      doubleFlag= false;
+      doubleFlag= false,
+      passed[]= fw.passed;
      MaHybridSample
        ms= mae.ms,
        msX= mae.msX,
-       msY= mae.msY,
-       msListX[]= hps.msListX,
-       msListY[]= hps.msListY;
+       msY= mae.msY;
      int
-       nTest=genesToTestCL.length,
-       nX= hps.nHP_X,
-       nY= hps.nHP_Y,
+       cvTestMode= fw.mode,
        nE= hps.nHP_E;
-     
-     cvResultCL.clearNull();
+     float spotCVthr= fw.thr;
      SpotData sd;
      float
        sumCV,        /* compute both and then pick one want */
@@ -1683,18 +2563,16 @@ class Filter
        cvI;
      Gene
        gene,
-       mList[]= genesToTestCL.mList;
+       mList[]= fw.mList;
      int
        mid,
        gid1, gid2,
-       maxFIELDS= mae.cfg.maxFIELDS,
-       type= (mae.useRatioDataFlag)
-                ? mae.ms.DATA_RATIO_F1F2TOT : mae.ms.DATA_F1TOT;
+       maxFIELDS= mae.cfg.maxFIELDS;
      float
        g1, g2;
      
-     /* Copy genes which pass the t-test */
-     for(int k=0;k<nTest;k++)
+     /* Mark genes which pass the CV test */
+     for(int k=fw.lo;k<fw.hi;k++)
      { /* process mid */
        gene= mList[k];
        if(gene==null || (gene.properties & Gene.C_BAD_SPOT)!=0)
@@ -1815,12 +2693,12 @@ class Filter
        
        if(singleFlag || doubleFlag)
        { /* add it to result list */
-         cvResultCL.addGene(gene);
+         passed[k]= true;
        }
      } /* process mid */
      
      return(true);
-   } /* setGeneListBySpotCV */     
+   } /* testSpotCVrange */     
     
     
    /**
@@ -1835,20 +2713,49 @@ class Filter
     * @param pValueThr is the p-value threshold to use
     * @return true if succeed and results in t_TestResultsCL, else
     * false if a problem.
-    * @see Gene#setGeneData
-    * @see GeneList#clearNull
-    * @see GeneList#addGene
-    * @see MaHybridSample#getDataByGID
-    * @see Statistics#calcTandPvalues
+    * @see FilterWorker#testGenes
+    * @see #testHP_XY_tRange
     */
    boolean setHP_XY_t_TestCL(GeneList t_TestResultCL, GeneList genesToTestCL,
                              MaHybridSample msX, MaHybridSample msY,
                              float pValueThr)
    { /* setHP_XY_t_TestCL */
+     /* [CHECK] do we add the following? Probably do NOT need
+      * since MnuBarFrame menu entry is should be disabled and
+      * we should never get here.
+      */
+     //if(cfg.maxFIELDS==1)
+     //  return(false);
+     
+     FilterWorker fw= new FilterWorker(mae, this, FilterWorker.HP_XY_T_TEST);
+     fw.msX= msX;
+     fw.msY= msY;
+     fw.thr= pValueThr;
+     
+     return(fw.testGenes(genesToTestCL, t_TestResultCL, true));
+   } /* setHP_XY_t_TestCL */
+   
+   
+   /**
+    * testHP_XY_tRange() - do the HP-X,HP-Y t-Test for the genes in
+    * fw.mList[fw.lo:fw.hi-1] and set fw.passed[] for those that pass.
+    * @param fw is the worker with the test parameters and working context
+    * @return true if succeed
+    * @see #setGeneData
+    * @see MaHybridSample#getDataByGID
+    * @see Statistics#calcTandPvalues
+    * @see #setHP_XY_t_TestCL
+    */
+   private boolean testHP_XY_tRange(FilterWorker fw)
+   { /* testHP_XY_tRange */
+     MaHybridSample
+       msX= fw.msX,
+       msY= fw.msY;
+     Statistics stat= fw.stat;
+     float pValueThr= fw.thr;
      int
        mid,
-       gid,
-       nTest= genesToTestCL.length;
+       gid;
      float
        g11, g12,
        g21, g22,
@@ -1857,19 +2764,10 @@ class Filter
        pValue;
      Gene 
        gene,
-       mList[]= genesToTestCL.mList;
-     
-     /* [CHECK] do we add the following? Probably do NOT need
-      * since MnuBarFrame menu entry is should be disabled and
-      * we should never get here.
-      */
-     //if(cfg.maxFIELDS==1)
-     //  return(false);
+       mList[]= fw.mList;
      
-     t_TestResultCL.clearNull();
-     
-     /* Copy genes which have a nonzero ratio */
-     for(int k=0;k<nTest;k++)
+     /* Mark genes which pass the t-test */
+     for(int k=fw.lo;k<fw.hi;k++)
      { /* test each gene */
        gene= mList[k];
        if(gene==null || (gene.properties & Gene.C_BAD_SPOT)!=0)
@@ -1879,10 +2777,14 @@ class Filter
        gid= gene.gid;
        
        /* set data to ms.X/ms.Y*/
-       g11= msX.getDataByGID(gid, mae.useRatioDataFlag, msX.DATA_F1TOT);
-       g12= msX.getDataByGID(gid, mae.useRatioDataFlag, msX.DATA_F2TOT);
-       g21= msY.getDataByGID(gid, mae.useRatioDataFlag, msY.DATA_F1TOT);
-       g22= msY.getDataByGID(gid, mae.useRatioDataFlag, msY.DATA_F2TOT);
+       g11= mae.cdb.normData.getDataByGID(msX, gid,
+                                          mae.useRatioDataFlag, msX.DATA_F1TOT);
+       g12= mae.cdb.normData.getDataByGID(msX, gid,
+                                          mae.useRatioDataFlag, msX.DATA_F2TOT);
+       g21= mae.cdb.normData.getDataByGID(msY, gid,
+                                          mae.useRatioDataFlag, msY.DATA_F1TOT);
+       g22= mae.cdb.normData.getDataByGID(msY, gid,
+                                          mae.useRatioDataFlag, msY.DATA_F2TOT);
        
        mn1= (g11+g12)/2.0F;
        mn2= (g21+g22)/2.0F;
@@ -1940,117 +2842,107 @@ class Filter
          }
         */
   
-         gene.setGeneData(ratio,mn1,mn2,pValue);
-         t_TestResultCL.addGene(gene);
+         setGeneData(gene, ratio,mn1,mn2,pValue);
+         fw.passed[k]= true;
        }
      } /* test each gene */
      
      return(true);
-   } /* setHP_XY_t_TestCL */  
+   } /* testHP_XY_tRange */  
     
     
    /**
     * setHP_XYsets_t_TestCL() - set GeneList of genes passing HP-X,HP-Y sets t-Test
-    * with a pValue better than pValueThr.<BR>
+    * with a pValue better than pValueThr. The t-test p-values for all genes
+    * are computed (or reused) as a batch by CompositeDatabase.
+    * If mae.pValueThrMode is PVALUE_MODE_FDR_BH or PVALUE_MODE_BONFERRONI,
+    * the threshold is applied to the adjusted p-values instead.<BR>
     * [CHECK] how do we handle this if not in HP-XY 'set' mode?GeneList
     * @param t_TestResultCL is the gene list returned with a new set of genes
     * @param genesToTestCL list of genes to test
     * @param pValueThr is the p-value threshold to use
     * @return true if succeed and results in t_TestResultsCL, else
     * false if a problem.
-    * @see Gene#setGeneData
+    * @see CompositeDatabase#getXYsetsStatBatch
+    * @see StatBatch#getPassRankLimit
+    * @see FilterWorker#testGenes
     * @see GeneList#clearNull
-    * @see GeneList#addGene
     * @see HPxyData#setupDataStruct
-    * @see HPxyData#updateDataAndStat
-    * @see Statistics#calcTandPvalues
+    * @see #testHP_XYsets_tRange
     */
    boolean setHP_XYsets_t_TestCL(GeneList t_TestResultCL, GeneList genesToTestCL,
                                  float pValueThr)
    { /* setHP_XYsets_t_TestCL */
-     int
-       mid,
-       nTest= genesToTestCL.length;
-     float pValue= 0.0F;
-     Gene
-       gene,
-       mList[]= genesToTestCL.mList;
-     HPxyData hpxy= mae.cdb.hpXYdata;
+     HPxyData hpxy= getHPxyData();
      hpxy.setupDataStruct(mae.useHPxySetDataFlag);
      
      t_TestResultCL.clearNull();
      
-     if(hpxy.nX<2 || hpxy.nY<2)
+     StatBatch sb= mae.cdb.getXYsetsStatBatch();
+     if(sb.nX<2 || sb.nY<2)
        return(false);
      
-     /* Copy genes which pass the Sets t-test */
-     for(int k=0;k<nTest;k++)
+     FilterWorker fw= new FilterWorker(mae, this,
+                                       FilterWorker.HP_XYSETS_T_TEST);
+     fw.thr= pValueThr;
+     fw.sb= sb;
+     fw.rankLimit= sb.getPassRankLimit(mae.pValueThrMode, pValueThr);
+     
+     return(fw.testGenes(genesToTestCL, t_TestResultCL, true));
+   } /* setHP_XYsets_t_TestCL */
+   
+   
+   /**
+    * testHP_XYsets_tRange() - do the HP-X,HP-Y sets t-Test for the genes in
+    * fw.mList[fw.lo:fw.hi-1] and set fw.passed[] for those that pass.
+    * The t-test was already computed for all genes in fw.sb.
+    * @param fw is the worker with the test parameters and working context
+    * @return true if succeed
+    * @see #setGeneData
+    * @see StatBatch#passes
+    * @see StatBatch#isRankedBelow
+    * @see #setHP_XYsets_t_TestCL
+    */
+   private boolean testHP_XYsets_tRange(FilterWorker fw)
+   { /* testHP_XYsets_tRange */
+     int mid;
+     float
+       pValueThr= fw.thr,
+       pValue,
+       mnX,
+       mnY;
+     Gene
+       gene,
+       mList[]= fw.mList;
+     StatBatch sb= fw.sb;
+     float pValues[]= sb.pValues;
+     
+     /* Mark genes which pass the Sets t-test */
+     for(int k=fw.lo;k<fw.hi;k++)
      { /* test each gene */
        gene= mList[k];
        if(gene==null || (gene.properties & Gene.C_BAD_SPOT)!=0)
          continue;            /* ignore bogus spots */
        
        mid= gene.mid;   
-       /* get (means, std-dev, n) data to compute p-value */
-       if(!hpxy.updateDataAndStat(mid))
-         continue;
-       
-    /* Calc t and p-values given (n1,m1,s1) and (n2,m2,s2),
-     * calc f, t, p, dF.
-     * It computes:
-     *    f - calculated f statistic
-     *    t - t or t' statistic
-     *    pT - t-test p-value w/NULL hypoth
-     *    pF - f-test p-value w/NULL hypoth
-     *    dF - degrees of freedom
-     *
-     * Returns false if any of the data is invalid or the beta fct fails.
-     */
-       double
-         mn1= (double)hpxy.mnXdata,
-         mn2= (double)hpxy.mnYdata,
-         sd1= (double)hpxy.stdDevXdata,
-         sd2= (double)hpxy.stdDevYdata;
-       boolean ok= stat.calcTandPvalues(hpxy.nX, hpxy.nY, mn1,mn2,sd1,sd2);
+       pValue= pValues[mid];
        
-       pValue= (float)stat.pT;
-       
-       if(ok && (pValue<=pValueThr))
+       if((fw.rankLimit<0) ? sb.passes(mid, pValueThr)
+                           : sb.isRankedBelow(mid, fw.rankLimit))
        { /* use it */
+         mnX= sb.mnX[mid];
+         mnY= sb.mnY[mid];
          float ratio= 0.0F;
-         if(hpxy.mnYdata>0.0F)
-           ratio= hpxy.mnXdata/hpxy.mnYdata;
-        /*
-         if(mae.CONSOLE_FLAG)
-         {
-           float t= (float)stat.t;
-           float f= (float)stat.f;
-           float fStat= (float)stat.fStat;
-           float dF= (float)stat.dF;
-           float pT= (float)stat.pT;
-           float pF= (float)stat.pF;
-           fio.logMsgln("F-CTPV mid="+mid +
-                        " mn12=("+Util.cvd2s(mn1,1)+
-                        ","+Util.cvd2s(mn2,1)+")"+
-                        " sd12=("+Util.cvd2s(sd12,1)+
-                        " (sd1,sd2)=("+Util.cvd2s(sd1,1)+
-                        ","+Util.cvd2s(sd2,1)+")"+
-                        " t="+Util.cvd2s(t,3)+
-                        " f="+Util.cvd2s(f,3)+
-                        " pT="+Util.cvd2s(pT,3)+
-                        " pF="+Util.cvd2s(pF,3)+
-                        " dF="+Util.cvd2s(dF,1)+
-                        " fStat="+ Util.cvd2s(fStat,3));
-         }
-        */
+         if(mnY>0.0F)
+           ratio= mnX/mnY;
          
-         gene.setGeneData(ratio, hpxy.mnXdata, hpxy.mnYdata, pValue);
-         t_TestResultCL.addGene(gene);
+         setGeneData(gene, ratio, mnX, mnY, pValue);
+         fw.passed[k]= true;
        }
      } /* test each gene */
      
      return(true);
-   } /* setHP_XYsets_t_TestCL */      
+   } /* testHP_XYsets_tRange */      
     
    /**
     * setHP_XYsets_KS_TestCL() - set GeneList of genes passing HP-X,HP-Y sets KS-Test
@@ -2061,43 +2953,64 @@ class Filter
     * @param pValueThr is the p-value threshold to use
     * @return true if succeed and results in KS_TestResultsCL, else
     * false if a problem.
-    * @see Gene#setGeneData
+    * @see FilterWorker#testGenes
     * @see GeneList#clearNull
-    * @see GeneList#addGene
     * @see HPxyData#setupDataStruct
-    * @see Statistics#calcKStestStat
+    * @see #testHP_XYsets_KSrange
     */
    boolean setHP_XYsets_KS_TestCL(GeneList KS_TestResultCL, GeneList genesToTestCL,
                                   float pValueThr)
    { /* setHP_XYsets_KS_TestCL */
-     HPxyData hpxy= mae.cdb.hpXYdata;
+     HPxyData hpxy= getHPxyData();
+     
+     hpxy.setupDataStruct(mae.useHPxySetDataFlag);
+     
+     KS_TestResultCL.clearNull();
+     
+     if(hpxy.nX<2 || hpxy.nY<2)
+       return(false);
+     
+     FilterWorker fw= new FilterWorker(mae, this,
+                                       FilterWorker.HP_XYSETS_KS_TEST);
+     fw.thr= pValueThr;
+     
+     return(fw.testGenes(genesToTestCL, KS_TestResultCL, true));
+   } /* setHP_XYsets_KS_TestCL */
+   
+   
+   /**
+    * testHP_XYsets_KSrange() - do the HP-X,HP-Y sets KS-Test for the genes
+    * in fw.mList[fw.lo:fw.hi-1] and set fw.passed[] for those that pass.
+    * @param fw is the worker with the test parameters and working context
+    * @return true if succeed
+    * @see #setGeneData
+    * @see HPxyData#updateDataAndStat
+    * @see Statistics#calcKStestStat
+    * @see #setHP_XYsets_KS_TestCL
+    */
+   private boolean testHP_XYsets_KSrange(FilterWorker fw)
+   { /* testHP_XYsets_KSrange */
+     HPxyData hpxy= fw.hpxy;
+     Statistics stat= fw.stat;
      int
        mid,
        s,
        nX= hpxy.nX,
-       nY= hpxy.nY,
-       nTest= genesToTestCL.length;
+       nY= hpxy.nY;
      float
+       pValueThr= fw.thr,
        ratio,
        pValue;
      Gene
        gene,
-       mList[]= genesToTestCL.mList;
+       mList[]= fw.mList;
      boolean ok;
-     
-     hpxy.setupDataStruct(mae.useHPxySetDataFlag);
-     
-     KS_TestResultCL.clearNull();
-     
-     if(nX<2 || nY<2)
-       return(false);
-     
      double
-       dataX[]= new double[nX],
-       dataY[]= new double[nY];
+       dataX[]= fw.dataX,
+       dataY[]= fw.dataY;
      
-     /* Copy genes which pass the KS-test */
-     for(int k=0;k<nTest;k++)
+     /* Mark genes which pass the KS-test */
+     for(int k=fw.lo;k<fw.hi;k++)
      { /* test each gene */
        gene= mList[k];
        if(gene==null || (gene.properties & Gene.C_BAD_SPOT)!=0)
@@ -2142,104 +3055,82 @@ class Filter
          }
         */
          
-         gene.setGeneData(ratio, hpxy.mnXdata, hpxy.mnYdata, pValue);
-         KS_TestResultCL.addGene(gene);
+         setGeneData(gene, ratio, hpxy.mnXdata, hpxy.mnYdata, pValue);
+         fw.passed[k]= true;
        }
      } /* test each gene */
      
      return(true);
-   } /* setHP_XYsets_KS_TestCL */ 
+   } /* testHP_XYsets_KSrange */ 
     
     
    /**
     * setOCL_F_TestCL() - set GeneList of genes passing F-test on current OCL
     * (Ordered Condition List) with a pValue better than pValueThr.
-    * The current OCL MUST be defined else return true.
+    * The current OCL MUST be defined else return false. The F-test p-values
+    * for all genes are computed (or reused) as a batch by CompositeDatabase.
+    * If mae.pValueThrMode is PVALUE_MODE_FDR_BH or PVALUE_MODE_BONFERRONI,
+    * the threshold is applied to the adjusted p-values instead.
     * @param OCL_F_TestResultCL is the gene list returned with a new set of genes
     * @param genesToTestCL list of genes to test
     * @param pValueThr is the p-value threshold to use
     * @return true if succeed and results in OCL_F_TestResultsCL, else
     * false if a problem.
-    * @see Gene#setGeneData
+    * @see CompositeDatabase#getOCL_FstatBatch
+    * @see StatBatch#getPassRankLimit
+    * @see FilterWorker#testGenes
     * @see GeneList#clearNull
-    * @see GeneList#addGene
-    * @see Condition#getSampleNamesInCondList
-    * @see Condition#getConditionsInOrderedCondList    
-    * @see Condition#getSamplesInCondList
-    * @see Statistics#calcNCondFtestStat
+    * @see #testOCL_Frange
     */
    boolean setOCL_F_TestCL(GeneList OCL_F_TestResultCL,
                                   GeneList genesToTestCL,
                                   float pValueThr)
    { /* setOCL_F_TestCL */
-     Condition cdList= mae.cdList;
-     MJAsample mjaSample= mae.mja.mjaSample;
-     HPxyData hpxy= mae.cdb.hpXYdata;
-     int
-       mid,
-       nTest= genesToTestCL.length;
-     float pValue= 0.0F;
-     Gene
-       gene,
-       mList[]= genesToTestCL.mList;
-  
-     /* [1] Get lists of samples from the current Ordered Condition List */
-     int curOCLidx= cdList.curOCLidx;
-     if(cdList.curOCLidx==-1)
+     /* [1] Get the F-test of the current Ordered Condition List */
+     StatBatch sb= mae.cdb.getOCL_FstatBatch();
+     if(sb==null)
        return(false);    /* There is no current OCL */
-     
-     /* [1.1] Get the list of conditions in the OCL */
-     Condition 
-       cd,               /* working condition */
-       ocl[]= cdList.orderedCondList[cdList.curOCLidx];
-     int
-       nConditions= cdList.nOrderedCondList[curOCLidx],
-       nCondData[]= new int[nConditions]; /* # of samples in each condition */ 
-       
-     /* [1.2] Get lists of samples from the current Ordered Condition List.
-      * Current set of sample indexes for samples in the Conditions in the
-      * Ordered Condition List to test. [nConditions][nsamples per condition]
-      */
-     int  
-       allSamplesIndex[][]= new int[nConditions][],
-       nCondSamples,        /* # of samples/condition */
-       nSamples,            /* working # of samples */ 
-       samplesIndex[],      /* Working sample indexes in working condition */  
-       sampleNbrList[];     /* working list of samples/condition */ 
-     MaHybridSample msList[];
-     
-     /* Working current set of data for gene mid for samples in the 
-      * Conditions in the Ordered Condition List to test.
-      * [nConditions][nsamples per condition]
-      */
-     float condData[][]= new float[nConditions][];
-     
-     for(int c=0;c<nConditions;c++)
-     { /* get sample indices for all conditions */
-       cd= ocl[c];                /* get the working condition */
-       msList= cd.getHPlist();    /* get list of samples */
-       if(msList==null)
-         return(false);           /* fatal error */
-       nSamples= cd.nMScond;
-       nCondData[c]= nSamples;
-       sampleNbrList= new int[cd.nMScond];  /* make a new list */
-       for(int i=1;i<=nSamples;i++)
-         sampleNbrList[i-1]= MJAbase.lookupHPsampleNbr(msList[i]);
-       allSamplesIndex[c]= sampleNbrList;
-       condData[c]= new float[nSamples];
-     } /* get sample indices for all conditions */
       
-     /* Working normalized sample data for gene mid for working 
-      * data [nCondSamples]
-      */
-     float
-       dataS[]; 
-     
-     /* [1.3] Clear the results set */
+     /* [1.1] Clear the results set */
      OCL_F_TestResultCL.clearNull();
      
      /* [2] Generate the set of genes passing the F-test on OCL data. */
-     for(int k=0;k<nTest;k++)
+     FilterWorker fw= new FilterWorker(mae, this, FilterWorker.OCL_F_TEST);
+     fw.thr= pValueThr;
+     fw.sb= sb;
+     fw.rankLimit= sb.getPassRankLimit(mae.pValueThrMode, pValueThr);
+     
+     return(fw.testGenes(genesToTestCL, OCL_F_TestResultCL, true));
+   } /* setOCL_F_TestCL */
+   
+   
+   /**
+    * testOCL_Frange() - do the F-test on the current OCL for the genes in
+    * fw.mList[fw.lo:fw.hi-1] and set fw.passed[] for those that pass.
+    * The F-test was already computed for all genes in fw.sb.
+    * @param fw is the worker with the test parameters and working context
+    * @return true if succeed
+    * @see #setGeneData
+    * @see HPxyData#updateDataAndStat
+    * @see StatBatch#passes
+    * @see StatBatch#isRankedBelow
+    * @see #setOCL_F_TestCL
+    */
+   private boolean testOCL_Frange(FilterWorker fw)
+   { /* testOCL_Frange */
+     HPxyData hpxy= fw.hpxy;
+     int mid;
+     float
+       pValueThr= fw.thr,
+       pValue;
+     Gene
+       gene,
+       mList[]= fw.mList;
+     StatBatch sb= fw.sb;
+     float pValues[]= sb.pValues;
+     
+     /* [2] Mark the genes passing the F-test on OCL data. */
+     for(int k=fw.lo;k<fw.hi;k++)
      { /* test each gene */
        gene= mList[k];
        if(gene==null || (gene.properties & Gene.C_BAD_SPOT)!=0)
@@ -2247,40 +3138,15 @@ class Filter
        
        mid= gene.mid;  
        
-       /* [2.1] Get the condData sample data[c][nCondData[c]] for
-        * conditions c in [0:nCondition-1] for the mid and the
-        * current normalization and ratio mode.
-        */
-       for(int c=0;c<nConditions;c++)
-       { /* get the data for each set of samples in condition c */
-         samplesIndex= allSamplesIndex[c];
-         /* Build the working set of condition data for gene mid.
-         * Lookup the data for samples in the list and save it in
-         * the precomputed condData[] array of 1D vectors.
-         */
-         mjaSample.getSamplesDataVector(condData[c], samplesIndex, mid);
-       } /* get the data for each set of samples in condition c */
-           
-       /* [2.2] Compute the F-test on the OCL data computes:
-        *    pFnConds - p value
-        *    fStatNconds - f statistic
-        *    mnSqWithin - mean within class variance
-        *    mnSqBetween - mean between class variance
-        *    dfWithin - degrees of freedom Within conditions
-        *    dfBetween - degrees of freedom Between conditions
-        *
-        * Returns false if any of the data is invalid or the beta fct fails.
-        */
-       boolean ok= stat.calcNCondFtestStat(condData, nCondData, nConditions);
-    
       /* [3] Test the p-value computed in the F-test against the pValue 
        * slider threshold. This tests the Null-hypothesis that
        * there is no difference between the means as there is 
        * significant different variance between the conditions
        */    
-       pValue= (float)stat.pFnConds;
+       pValue= pValues[mid];
        
-       if(ok && (pValue<=pValueThr))
+       if((fw.rankLimit<0) ? sb.passes(mid, pValueThr)
+                           : sb.isRankedBelow(mid, fw.rankLimit))
        { /* use it */
          /* get (means, std-dev, n) data to compute p-value */
          if(!hpxy.updateDataAndStat(mid))
@@ -2288,32 +3154,14 @@ class Filter
          float ratio= 0.0F;
          if(hpxy.mnYdata>0.0F)
            ratio= hpxy.mnXdata/hpxy.mnYdata;
-         /*
-         if(mae.CONSOLE_FLAG)
-         {
-           float dfWithin= (float)stat.dfWithin;
-           float dfBetween= (float)stat.dfBetween;
-           float mnSqWithin= = (float)stat.mnSqWithin;
-           float mnSqBetween= = (float)stat.mnSqBetween;
-           float p= (float)stat.pFnConds;
-           float f= (float)stat.fStatNconds;
-           fio.logMsgln("F-CTPV mid="+mid +
-                        " pT="+Util.cvd2s(pT,4)+
-                        " f="+ Util.cvd2s(f,4)+
-                        " mnSqWithin="+ Util.cvd2s(mnSqWithin,4)+
-                        " mnSqBetween="+ Util.cvd2s(mnSqBetween,4)+
-                        " dfWithin="+Util.cvd2s(dfWithin,1)+
-                        " dfBetween="+Util.cvd2s(dfBetween,1));
-          }
-         */
          
-         gene.setGeneData(ratio, hpxy.mnXdata, hpxy.mnYdata, pValue);
-         OCL_F_TestResultCL.addGene(gene);
+         setGeneData(gene, ratio, hpxy.mnXdata, hpxy.mnYdata, pValue);
+         fw.passed[k]= true;
        }
      } /* test each gene */
      
      return(true);
-   } /* setOCL_F_TestCL */ 
+   } /* testOCL_Frange */ 
      
      
    /**
@@ -2414,15 +3262,17 @@ class Filter
        if(maxFIELDS>1)
        { /* has replicate spots/gene */
          /* normalized (totQ - bkgrdQ) */
-         gX= msX.getDataByGID(gid1, mae.useRatioDataFlag,
+         gX= mae.cdb.normData.getDataByGID(msX, gid1, mae.useRatioDataFlag,
          msX.DATA_MEAN_F1F2TOT);
-         gY= msY.getDataByGID(gid1, mae.useRatioDataFlag,
+         gY= mae.cdb.normData.getDataByGID(msY, gid1, mae.useRatioDataFlag,
          msY.DATA_MEAN_F1F2TOT);
        }
        else
        { /* use single spot or ratio data */
-         gX= msX.getDataByGID(gid1, mae.useRatioDataFlag, type);
-         gY= msY.getDataByGID(gid1, mae.useRatioDataFlag, type);
+         gX= mae.cdb.normData.getDataByGID(msX, gid1,
+                                           mae.useRatioDataFlag, type);
+         gY= mae.cdb.normData.getDataByGID(msY, gid1,
+                                           mae.useRatioDataFlag, type);
        }
        absDiff= (gX-gY);
        if(absDiff<0.0F)
@@ -2918,12 +3768,9 @@ class Filter
    * @param msY is the Y sample with F1 and F2 duplicates
    * @return true if succeed and results in passedCL, else
    * false if a problem.
-   * @see Gene#setGeneData
+   * @see FilterWorker#testGenes
    * @see GeneList#clearNull
-   * @see GeneList#addGene
-   * @see HPxyData#updateDataAndStat
-   * @see MaHybridSample#getDataByGID
-   * @see #checkSamplesRange
+   * @see #testThresholdsRange
    */
    boolean setThresholdsCL(GeneList genesToTestCL, GeneList passedCL,
                            MaHybridSample msX, MaHybridSample msY,
@@ -2937,18 +3784,47 @@ class Filter
      boolean useF1F2data= (msY==null);
      if(useF1F2data)
        msY= msX;
+     
+     FilterWorker fw= new FilterWorker(mae, this, FilterWorker.THRESHOLDS);
+     fw.msX= msX;
+     fw.msY= msY;
+     fw.useF1F2dataFlag= useF1F2data;
+     fw.testGrayFlag= testGrayFlag;
+     
+     return(fw.testGenes(genesToTestCL, passedCL, true));
+   } /* setThresholdsCL */
+   
+   
+   /**
+    * testThresholdsRange() - do the intensity or ratio range test for the
+    * genes in fw.mList[fw.lo:fw.hi-1] and set fw.passed[] for those that pass.
+    * @param fw is the worker with the test parameters and working context
+    * @return true if succeed
+    * @see #setGeneData
+    * @see HPxyData#updateDataAndStat
+    * @see MaHybridSample#getDataByGID
+    * @see #checkSamplesRange
+    * @see #setThresholdsCL
+    */
+   private boolean testThresholdsRange(FilterWorker fw)
+   { /* testThresholdsRange */
+     MaHybridSample
+       msX= fw.msX,
+       msY= fw.msY;
+     boolean
+       useF1F2data= fw.useF1F2dataFlag,
+       testGrayFlag= fw.testGrayFlag;
      int
        mid,
        gid1,
        gid2,
-       nGenes= genesToTestCL.length,
        maxFIELDS= mae.cfg.maxFIELDS,
        type= (mae.useRatioDataFlag)
                 ? msX.DATA_RATIO_F1F2TOT : msX.DATA_F1TOT;
-     HPxyData  hpXYdata= mae.cdb.hpXYdata;  /* generic HP-X/Y set object*/
+     HPxyData  hpXYdata= fw.hpxy;  /* generic HP-X/Y set object*/
      Gene
        gene,
-       mList[]= genesToTestCL.mList;
+       mList[]= fw.mList;
      SpotData sd;
      float
        tot1X,
@@ -2957,7 +3833,7 @@ class Filter
        tot2Y,
        gX, gY;		            /* estimated gray values */
      
-     for(int k=0; k<nGenes; k++)
+     for(int k=fw.lo; k<fw.hi; k++)
      { /* get data for F1 side only */
        gene= mList[k];
        if(gene==null || (gene.properties & Gene.C_BAD_SPOT)!=0)
@@ -2981,8 +3857,10 @@ class Filter
        else if(maxFIELDS>1)
        { /* has replicate spots/gene */
          /* normalized (totQ - bkgrdQ) */
-         tot1X= msX.getDataByGID(gid1, mae.useRatioDataFlag,msX.DATA_F1TOT);
-         tot2X= msX.getDataByGID(gid1, mae.useRatioDataFlag,msY.DATA_F2TOT);
+         tot1X= mae.cdb.normData.getDataByGID(msX, gid1,
+                                              mae.useRatioDataFlag,msX.DATA_F1TOT);
+         tot2X= mae.cdb.normData.getDataByGID(msX, gid1,
+                                              mae.useRatioDataFlag,msY.DATA_F2TOT);
          if(useF1F2data)
          { /* multiple spots in same sample */
            gX= tot1X;
@@ -2990,16 +3868,20 @@ class Filter
          }
          else
          { /* separate samples */
-           tot1Y= msY.getDataByGID(gid1, mae.useRatioDataFlag,msY.DATA_F1TOT);
-           tot2Y= msY.getDataByGID(gid1, mae.useRatioDataFlag,msY.DATA_F2TOT);
+           tot1Y= mae.cdb.normData.getDataByGID(msY, gid1,
+                                                mae.useRatioDataFlag,msY.DATA_F1TOT);
+           tot2Y= mae.cdb.normData.getDataByGID(msY, gid1,
+                                                mae.useRatioDataFlag,msY.DATA_F2TOT);
            gX= (tot1X + tot2X)/2;
            gY= (tot1Y + tot2Y)/2;
          }
        }
        else
        { /* use single spot or ratio data */
-         gX= msX.getDataByGID(gid1, mae.useRatioDataFlag,type);
-         gY= msY.getDataByGID(gid1, mae.useRatioDataFlag,type);
+         gX= mae.cdb.normData.getDataByGID(msX, gid1,
+                                           mae.useRatioDataFlag,type);
+         gY= mae.cdb.normData.getDataByGID(msY, gid1,
+                                           mae.useRatioDataFlag,type);
        }
        
        /* clip to stay out of trouble */
@@ -3015,13 +3897,13 @@ class Filter
          float ratio= (gX>0) ? ((float)gX)/((float)gY) : 0.0F;
          
          /* force it into position so can use with graphics */
-         gene.setGeneData(ratio, (float)gX, (float)gY);
-         passedCL.addGene(gene);
+         setGeneData(gene, ratio, (float)gX, (float)gY);
+         fw.passed[k]= true;
        } /* only return spots within range constraints*/
      } /* get data for F1 side only */
      
      return(true);
-   } /* setThresholdsCL */
+   } /* testThresholdsRange */
    
                       
   /**
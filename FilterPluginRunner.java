@@ -0,0 +1,203 @@
+/** File: FilterPluginRunner.java */
+
+/**
+ * The class runs the bit set test of one active FilterPlugin
+ * (FilterPlugin.filterBits()) and records how long it took.
+ * Filter.doFilterPluginPipelineOpr() runs the plugins in the order they
+ * were activated, each on the genes passed by the previous ones. But
+ * consecutive plugins that declare they are independent of the upstream
+ * results (FilterPlugin.isIndependentFilter()) and thread-safe
+ * (FilterPlugin.isThreadSafe()) are run as a group, each on its own copy
+ * of the same input words and on its own thread, and the genes they pass
+ * are intersected. Since each is a per-gene test, the result is the same
+ * as running them one after another.
+ *<P>
+ * The time of each plugin in the last Filter run is shown on the Filter
+ * status line so a slow plugin can be found.
+ *<P>
+ * This file is part of MAExplorer. It is offered as open source software
+ * under the Mozilla Public License (version 1.1) subject to the
+ * limitations noted in the accompanying LEGAL file. This notice must be
+ * included with the code. The MAExplorer Mozilla and Legal files are
+ * available on http://maexplorer.sourceforge.net/.
+ *<P>
+ * @author P. Lemkin (NCI), G. Thornwall (SAIC), NCI-Frederick, Frederick, MD
+ * @version $Date$   $Revision$
+ * @see <A HREF="http://maexplorer.sourceforge.net/">MAExplorer Home</A>
+ * @see Filter#doFilterPluginPipelineOpr
+ * @see MAEPlugin.analysis.FilterPlugin#filterBits
+ * @see MAEPlugin.analysis.FilterPlugin#isIndependentFilter
+ * @see MAEPlugin.analysis.FilterPlugin#isThreadSafe
+ */
+
+class FilterPluginRunner implements Runnable
+{
+  /** flag: run groups of independent FilterPlugins in parallel */
+  static boolean
+    useParallelPluginsFlag= true;
+  /** # of groups of plugins run in parallel */
+  static int
+    nParallelGroups= 0;
+  /** # of plugin runs */
+  static int
+    nPluginRuns= 0;
+  /** plugin names and times of the last Filter run, "" if none */
+  static volatile String
+    lastTimingStr= "";
+
+  /** plugin to run */
+  MAEPlugin.analysis.FilterPlugin
+    fp;
+  /** [0:nWords-1] gene set bit words the plugin tests in place */
+  long
+    bitWords[];
+  /** # of words in bitWords[] */
+  int
+    nWords;
+  /** flag: run as part of a parallel group */
+  boolean
+    parallelFlag;
+
+  /** RTN: # of genes passing, or FilterPlugin.NOT_BIT_SET_NATIVE */
+  int
+    nFiltered;
+  /** RTN: elapsed time (msec) */
+  long
+    msec;
+  /** RTN: exception message if the plugin failed, else null */
+  String
+    errMsg;
+
+
+  /**
+   * FilterPluginRunner() - constructor
+   * @param fp is the plugin to run
+   * @param bitWords is the gene set bit words to test in place
+   * @param nWords is the # of words in bitWords[]
+   */
+  FilterPluginRunner(MAEPlugin.analysis.FilterPlugin fp, long bitWords[],
+                     int nWords)
+  { /* FilterPluginRunner */
+    this.fp= fp;
+    this.bitWords= bitWords;
+    this.nWords= nWords;
+  } /* FilterPluginRunner */
+
+
+  /**
+   * isParallelOK() - test if the plugin may be run in a parallel group.
+   * It must be independent of the upstream results and thread-safe.
+   * @param fp is the plugin
+   * @return true if parallel groups are enabled and the plugin opts in
+   * @see MAEPlugin.analysis.FilterPlugin#isIndependentFilter
+   * @see MAEPlugin.analysis.FilterPlugin#isThreadSafe
+   */
+  static boolean isParallelOK(MAEPlugin.analysis.FilterPlugin fp)
+  { /* isParallelOK */
+    return(useParallelPluginsFlag && fp.isIndependentFilter() &&
+           fp.isThreadSafe());
+  } /* isParallelOK */
+
+
+  /**
+   * run() - run the plugin's filterBits() test and time it. This is
+   * called on the worker thread.
+   * @see MAEPlugin.analysis.FilterPlugin#filterBits
+   */
+  public void run()
+  { /* run */
+    long startTime= System.currentTimeMillis();
+
+    try
+    {
+      nFiltered= fp.filterBits(bitWords, nWords);
+    }
+    catch(Exception e)
+    {
+      errMsg= e.toString();
+    }
+
+    msec= System.currentTimeMillis() - startTime;
+  } /* run */
+
+
+  /**
+   * runAll() - run the plugins runners[0:n-1]. If there is more than one,
+   * runners[1:n-1] are run on their own threads and runners[0] on the
+   * calling thread, then wait for all of them to finish.
+   * @param runners is the list of plugins to run
+   * @param n is the # of runners
+   */
+  static void runAll(FilterPluginRunner runners[], int n)
+  { /* runAll */
+    nPluginRuns += n;
+    if(n<=1)
+    {
+      if(n==1)
+        runners[0].run();
+      return;
+    }
+
+    nParallelGroups++;
+    Thread threads[]= new Thread[n];
+
+    for(int r=1;r<n;r++)
+    { /* start the other plugins */
+      runners[r].parallelFlag= true;
+      threads[r]= new Thread(runners[r], "FilterPlugin-"+r);
+      threads[r].setDaemon(true);
+      threads[r].start();
+    }
+    runners[0].parallelFlag= true;
+    runners[0].run();              /* run the first on this thread */
+
+    for(int r=1;r<n;r++)
+    { /* wait for the other plugins */
+      try
+      { threads[r].join(); }
+      catch(InterruptedException e)
+      { runners[r].errMsg= e.toString(); }
+    }
+  } /* runAll */
+
+
+  /**
+   * getTimingStr() - get the plugin name and elapsed time of a run
+   * @param fp is the plugin
+   * @param msec is the elapsed time
+   * @param parallelFlag if it was run in a parallel group
+   * @return string "name msec" with "||" appended if parallel
+   */
+  static String getTimingStr(MAEPlugin.analysis.FilterPlugin fp, long msec,
+                             boolean parallelFlag)
+  { /* getTimingStr */
+    String name= fp.getPluginName();
+    if(name==null)
+      name= fp.getClass().getName();
+
+    return(name + " " + msec + " msec" + ((parallelFlag) ? " ||" : ""));
+  } /* getTimingStr */
+
+
+  /**
+   * getStatusStr() - get the plugin run counts and the plugin times of
+   * the last Filter run.
+   * @return status string
+   */
+  static String getStatusStr()
+  { /* getStatusStr */
+    if(nPluginRuns==0)
+      return("");
+
+    String sR= "Filter plugins (" +
+               ((useParallelPluginsFlag) ? "parallel groups enabled"
+                                         : "parallel groups disabled") +
+               "): " + nPluginRuns + " runs, " + nParallelGroups +
+               " parallel groups\n";
+    if(lastTimingStr.length()>0)
+      sR += "Last run: " + lastTimingStr + "\n";
+
+    return(sR);
+  } /* getStatusStr */
+
+} /* end of class FilterPluginRunner */
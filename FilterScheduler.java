@@ -0,0 +1,558 @@
+/** File: FilterScheduler.java */
+
+import java.awt.*;
+
+/**
+ * The class recomputes the data Filter working gene list (and any cluster
+ * analysis or pseudoarray image optimization that depends on it) on a
+ * background worker thread rather than on the AWT event thread. It is used
+ * by StateScrollers so that dragging a threshold slider does not freeze the
+ * user interface while a queue of stale recomputations plays out.
+ *<P>
+ * Requests are coalesced: while a recomputation is running, newer requests
+ * are merged into a single pending request and only the latest state is
+ * computed next. If the newer request also needs the Filter, the Filter run
+ * in progress is aborted between stages (see Filter.abortRunFlag) and its
+ * partial result is discarded.
+ *<P>
+ * The Filter builds each result into a new GeneList off-screen. The finished
+ * result is then published on the AWT event thread by swapping it in as
+ * Filter.workingCL (with its gene membership table) in one step, before
+ * PopupRegistry.updateFilter() is called. So readers of fc.workingCL never
+ * see a partially computed gene list. The cluster analysis and image
+ * optimization reruns create and update popups, so they are run on the
+ * AWT event thread in the same step, after the result is published.
+ *<P>
+ * The gene set membership flags and gene sets the Filter reads are changed
+ * on the AWT event thread. So requestUpdate() takes a FilterInputs
+ * snapshot of them when the request is made, and the worker runs the
+ * Filter with the latest snapshot.
+ *<P>
+ * This file is part of MAExplorer. It is offered as open source software
+ * under the Mozilla Public License (version 1.1) subject to the
+ * limitations noted in the accompanying LEGAL file. This notice must be
+ * included with the code. The MAExplorer Mozilla and Legal files are
+ * available on http://maexplorer.sourceforge.net/.
+ *<P>
+ * @author P. Lemkin (NCI), G. Thornwall (SAIC), NCI-Frederick, Frederick, MD
+ * @version $Date$   $Revision$
+ * @see <A HREF="http://maexplorer.sourceforge.net/">MAExplorer Home</A>
+ * @see Filter
+ * @see StateScrollers
+ */
+
+class FilterScheduler implements Runnable
+{
+  /** link to global MAExplorer instance */
+  private MAExplorer
+    mae;
+
+  /** flag: recompute slider changes in the background, else synchronously */
+  static boolean
+    useBackgroundFilterFlag= true;
+
+  /** worker thread, started on the first request */
+  private Thread
+    workerT;
+  /** flag: a request is pending */
+  private boolean
+    pendingFlag;
+  /** pending request: recompute the Filter */
+  private boolean
+    runFilterReq;
+  /** pending request: rerun cluster analysis */
+  private boolean
+    runClusterReq;
+  /** pending request: rerun pseudoarray image optimization */
+  private boolean
+    runImageOptReq;
+  /** Filter inputs of the pending request, null if no Filter request */
+  private FilterInputs
+    pendingInputs;
+  /** flag: the worker is processing a request */
+  private boolean
+    runningFlag;
+  /** flag: stop the worker thread */
+  private boolean
+    stopFlag;
+
+  /** # of requests made */
+  int
+    nRequests;
+  /** # of requests merged into an already pending request */
+  int
+    nCoalesced;
+  /** # of runs aborted by a newer request */
+  int
+    nAborted;
+  /** # of Filter results published */
+  int
+    nPublished;
+
+
+  /**
+   * FilterScheduler() - constructor for the Filter scheduler. The worker
+   * thread is not started until the first request.
+   * @param mae is the MAExplorer instance
+   */
+  FilterScheduler(MAExplorer mae)
+  { /* FilterScheduler */
+    this.mae= mae;
+  } /* FilterScheduler */
+
+
+  /**
+   * requestUpdate() - request a background recomputation. It returns
+   * immediately. If a request is already pending, this one is merged with
+   * it. If the Filter is being recomputed and this request needs the Filter,
+   * the run in progress is aborted. It must be called on the AWT event
+   * thread, since it takes the snapshot of the Filter inputs.
+   * @param runFilterFlag recompute the Filter working gene list
+   * @param runClusterFlag rerun cluster analysis
+   * @param runImageOptFlag rerun pseudoarray image optimization
+   */
+  synchronized void requestUpdate(boolean runFilterFlag, boolean runClusterFlag,
+                                  boolean runImageOptFlag)
+  { /* requestUpdate */
+    if(!runFilterFlag && !runClusterFlag && !runImageOptFlag)
+      return;                   /* nothing to do */
+
+    nRequests++;
+    if(pendingFlag)
+      nCoalesced++;
+
+    runFilterReq |= runFilterFlag;
+    if(runFilterFlag)
+      pendingInputs= new FilterInputs(mae, true);
+    runClusterReq |= runClusterFlag;
+    runImageOptReq |= runImageOptFlag;
+    pendingFlag= true;
+
+    if(runningFlag && runFilterFlag && mae.fc!=null)
+      mae.fc.abortRunFlag= true;   /* the running Filter is now stale */
+
+    if(workerT==null)
+    { /* start the worker */
+      workerT= new Thread(this, "FilterScheduler");
+      workerT.setDaemon(true);
+      workerT.start();
+    }
+
+    notifyAll();
+  } /* requestUpdate */
+
+
+  /**
+   * stop() - abort any run in progress and stop the worker thread.
+   */
+  synchronized void stop()
+  { /* stop */
+    stopFlag= true;
+    pendingFlag= false;
+    pendingInputs= null;
+    if(runningFlag && mae.fc!=null)
+      mae.fc.abortRunFlag= true;
+    notifyAll();
+  } /* stop */
+
+
+  /**
+   * isBusy() - test if a request is pending or being processed
+   * @return true if busy
+   */
+  synchronized boolean isBusy()
+  { /* isBusy */
+    return(pendingFlag || runningFlag);
+  } /* isBusy */
+
+
+  /**
+   * run() - worker thread loop. Wait for a request, take the latest
+   * merged request and process it. If it is aborted by a newer request,
+   * the work it did not finish is merged back into the pending request.
+   * @see Filter#computeBackgroundGeneList
+   * @see StateScrollers#reRunClusterAnalysis
+   * @see StateScrollers#reRunImageOptimizer
+   * @see #publish
+   */
+  public void run()
+  { /* run */
+    boolean
+      doFilter,
+      doCluster,
+      doImageOpt,
+      filterDone,
+      abortedFlag,
+      repaintFlag;
+    Filter fc;
+    FilterInputs in;
+
+    while(true)
+    { /* process requests */
+      /* [1] Wait for and take the latest request */
+      synchronized(this)
+      {
+        while(!pendingFlag && !stopFlag)
+        {
+          try
+          { wait(); }
+          catch(InterruptedException e)
+          { return; }
+        }
+        if(stopFlag)
+        {
+          workerT= null;
+          return;
+        }
+
+        doFilter= runFilterReq;
+        doCluster= runClusterReq;
+        doImageOpt= runImageOptReq;
+        in= pendingInputs;
+        pendingInputs= null;
+        runFilterReq= false;
+        runClusterReq= false;
+        runImageOptReq= false;
+        pendingFlag= false;
+        runningFlag= true;
+        fc= mae.fc;
+        if(fc!=null)
+          fc.abortRunFlag= false;
+      }
+
+      filterDone= !doFilter;
+      repaintFlag= false;
+
+      try
+      { /* do the work */
+        FilterResult fr= new FilterResult(fc);
+
+        /* [2] Recompute the Filter off-screen */
+        if(doFilter && fc!=null && in!=null &&
+           fc.computeBackgroundGeneList(fr, in))
+        {
+          filterDone= true;
+          fr.resultReadyFlag= true;
+        }
+
+        /* [3] Rerun analyses that depend on the Filter unless
+         * it is going to be recomputed again anyway.
+         */
+        if(filterDone && !isFilterPending())
+        {
+          fr.stateScr= mae.stateScr;
+          fr.reRunClusterFlag= doCluster;
+          fr.reRunImageOptFlag= doImageOpt;
+          doCluster= false;
+          doImageOpt= false;
+        }
+
+        /* [4] Publish the result and do the reruns on the AWT thread */
+        if((fr.resultReadyFlag || fr.stateScr!=null) && publish(fr))
+          repaintFlag= fr.repaintFlag;
+      } /* do the work */
+      catch(Exception e)
+      {
+        Util.showMsg("Background Filter failed: " + e);
+        filterDone= true;
+        doCluster= false;
+        doImageOpt= false;
+      }
+
+      if(repaintFlag)
+        mae.repaint();
+
+      /* [5] Merge anything not done back into the pending request */
+      synchronized(this)
+      {
+        runningFlag= false;
+        abortedFlag= (!filterDone || doCluster || doImageOpt);
+        if(abortedFlag && !stopFlag)
+        {
+          nAborted++;
+          runFilterReq |= !filterDone;
+          if(!filterDone && pendingInputs==null)
+            pendingInputs= in;     /* rerun it with the same inputs */
+          runClusterReq |= doCluster;
+          runImageOptReq |= doImageOpt;
+          pendingFlag= true;
+        }
+      }
+    } /* process requests */
+  } /* run */
+
+
+  /**
+   * isFilterPending() - test if a newer request to recompute the Filter
+   * is pending.
+   * @return true if pending
+   */
+  private synchronized boolean isFilterPending()
+  { /* isFilterPending */
+    return(pendingFlag && runFilterReq);
+  } /* isFilterPending */
+
+
+  /**
+   * publish() - publish the Filter result and do the reruns that depend
+   * on it on the AWT event thread, and wait until it is done.
+   * @param fr is the finished Filter result and the reruns to do
+   * @return true if it ran without an error
+   * @see FilterResult#run
+   */
+  private boolean publish(FilterResult fr)
+  { /* publish */
+    try
+    {
+      EventQueue.invokeAndWait(fr);
+    }
+    catch(java.lang.reflect.InvocationTargetException e)
+    {
+      Util.showMsg("Background Filter failed: " + e.getTargetException());
+      return(false);
+    }
+    catch(Exception e)
+    {
+      return(false);
+    }
+
+    if(fr.publishedFlag)
+      nPublished++;
+
+    return(true);
+  } /* publish */
+
+
+  /**
+   * getStatusStr() - get the scheduler request counts
+   * @return status string
+   */
+  String getStatusStr()
+  { /* getStatusStr */
+    return("Background Filter: " + nRequests + " requests, " +
+           nCoalesced + " coalesced, " + nAborted + " aborted, " +
+           nPublished + " published\n");
+  } /* getStatusStr */
+
+} /* end of class FilterScheduler */
+
+
+
+/**
+ * The class holds a Filter result computed by the FilterScheduler worker
+ * thread and the reruns that depend on it. Its run() method publishes the
+ * result, then does the reruns, and is called on the AWT event thread.
+ */
+class FilterResult implements Runnable
+{
+  /** link to global Filter instance */
+  private Filter
+    fc;
+
+  /** new working gene list */
+  GeneList
+    resultCL;
+  /** [0:maxGenes-1] gene membership table for resultCL */
+  boolean
+    inResultCL[];
+  /** flag: Filter succeeded */
+  boolean
+    okFlag;
+  /** Filter run number this result is from */
+  int
+    runNbr;
+  /** Gene data set by the run, set in the Genes when it is published */
+  GeneResultSet
+    geneDataRS;
+  /** [0:maxGenes-1] # of Gene data fields set in geneDataRS by MID */
+  byte
+    nbrGeneDataFields[];
+  /** new ratioThrCL computed by the run, null if not computed */
+  GeneList
+    ratioThrCL;
+  /** new gcMemberCL computed by the run, null if not computed */
+  GeneList
+    gcMemberCL;
+  /** flag: the Filter result is ready to be published */
+  boolean
+    resultReadyFlag;
+  /** flag: set if the result was published */
+  boolean
+    publishedFlag;
+  /** state scrollers to do the reruns, null if no reruns */
+  StateScrollers
+    stateScr;
+  /** flag: rerun cluster analysis */
+  boolean
+    reRunClusterFlag;
+  /** flag: rerun pseudoarray image optimization */
+  boolean
+    reRunImageOptFlag;
+  /** flag: set if the display must be repainted */
+  boolean
+    repaintFlag;
+
+
+  /**
+   * FilterResult() - constructor for an empty Filter result
+   * @param fc is the Filter instance
+   */
+  FilterResult(Filter fc)
+  { /* FilterResult */
+    this.fc= fc;
+  } /* FilterResult */
+
+
+  /**
+   * run() - publish the result as the Filter working gene list, then
+   * rerun the cluster analysis and image optimization if requested.
+   * @see Filter#publishBackgroundResult
+   * @see StateScrollers#reRunClusterAnalysis
+   * @see StateScrollers#reRunImageOptimizer
+   */
+  public void run()
+  { /* run */
+    if(resultReadyFlag)
+    {
+      publishedFlag= fc.publishBackgroundResult(this);
+      repaintFlag= publishedFlag;
+    }
+
+    if(stateScr!=null)
+    { /* reruns that depend on the Filter */
+      if(reRunClusterFlag && stateScr.reRunClusterAnalysis())
+        repaintFlag= true;
+      if(reRunImageOptFlag && stateScr.reRunImageOptimizer())
+        repaintFlag= true;
+    }
+  } /* run */
+
+} /* end of class FilterResult */
+
+
+
+/**
+ * The class holds the Filter inputs that are changed on the AWT event
+ * thread: the gene set membership flags and the gene sets they select.
+ * For a background run it is made on the AWT event thread and the gene
+ * sets are copied, so the worker thread never reads the lists the user
+ * may be changing. For a run on the AWT event thread the gene sets are
+ * not copied.
+ */
+class FilterInputs
+{
+  /** "Filter by GeneClass membership" */
+  final boolean
+    geneClassMbrFilterFlag;
+  /** "Filter by useGeneSet membership" */
+  final boolean
+    useGeneSetFilterFlag;
+  /** "Filter by goodGenesSet membership" */
+  final boolean
+    useGoodGeneCLflag;
+  /** "Filter by genes with replicates" */
+  final boolean
+    useReplicateGenesFlag;
+  /** "Ratio histogram selected genes" */
+  final boolean
+    useRatioHistCLflag;
+  /** "Intensity histogram selected genes" */
+  final boolean
+    useIntensHistCLflag;
+  /** "edited selected genes" */
+  final boolean
+    useEditedCLflag;
+
+  /** genes of the current gene class, if geneClassMbrFilterFlag */
+  final GeneList
+    geneClassCL;
+  /** gct.userFilterGeneSetCL genes, if useGeneSetFilterFlag */
+  final GeneBitSet
+    userFilterGeneSetBS;
+  /** gct.goodGenesCL genes, if useGoodGeneCLflag */
+  final GeneBitSet
+    goodGenesBS;
+  /** gct.replicateGenesCL genes, if useReplicateGenesFlag */
+  final GeneBitSet
+    replicateGenesBS;
+  /** fc.ratioHistCL genes, if useRatioHistCLflag */
+  final GeneBitSet
+    ratioHistBS;
+  /** fc.intensHistCL genes, if useIntensHistCLflag */
+  final GeneBitSet
+    intensHistBS;
+  /** gct.editedCL genes, if useEditedCLflag */
+  final GeneBitSet
+    editedBS;
+
+
+  /**
+   * FilterInputs() - constructor to get the current Filter inputs.
+   * Only the gene sets of the membership filters in use are kept.
+   * @param mae is the MAExplorer instance
+   * @param copyFlag copy the gene sets, else use the lists themselves
+   * @see GeneClass#getGeneListOfCurrentGeneClass
+   * @see GeneList#copy
+   * @see #getBS
+   */
+  FilterInputs(MAExplorer mae, boolean copyFlag)
+  { /* FilterInputs */
+    Filter fc= mae.fc;
+
+    geneClassMbrFilterFlag= mae.geneClassMbrFilterFlag;
+    useGeneSetFilterFlag= mae.useGeneSetFilterFlag;
+    useGoodGeneCLflag= mae.useGoodGeneCLflag;
+    useReplicateGenesFlag= mae.useReplicateGenesFlag;
+    useRatioHistCLflag= mae.useRatioHistCLflag;
+    useIntensHistCLflag= mae.useIntensHistCLflag;
+    useEditedCLflag= mae.useEditedCLflag;
+
+    GeneList gcCL= (geneClassMbrFilterFlag && mae.gct!=null)
+                     ? mae.gct.getGeneListOfCurrentGeneClass() : null;
+    if(copyFlag && gcCL!=null)
+    { /* copy it */
+      GeneList cl= new GeneList(mae, mae.mp.maxGenes, "geneClassCL", false);
+      cl.copy(cl, gcCL);
+      gcCL= cl;
+    }
+    geneClassCL= gcCL;
+
+    userFilterGeneSetBS=
+      getBS(mae, (useGeneSetFilterFlag && mae.gct!=null)
+                   ? mae.gct.userFilterGeneSetCL : null, copyFlag);
+    goodGenesBS= getBS(mae, (useGoodGeneCLflag && mae.gct!=null)
+                              ? mae.gct.goodGenesCL : null, copyFlag);
+    replicateGenesBS= getBS(mae, (useReplicateGenesFlag && mae.gct!=null)
+                                   ? mae.gct.replicateGenesCL : null, copyFlag);
+    ratioHistBS= getBS(mae, (useRatioHistCLflag && fc!=null)
+                              ? fc.ratioHistCL : null, copyFlag);
+    intensHistBS= getBS(mae, (useIntensHistCLflag && fc!=null)
+                               ? fc.intensHistCL : null, copyFlag);
+    editedBS= getBS(mae, (useEditedCLflag && mae.gct!=null)
+                           ? mae.gct.editedCL : null, copyFlag);
+  } /* FilterInputs */
+
+
+  /**
+   * getBS() - get the gene bit set of a gene list, or a copy of it
+   * @param mae is the MAExplorer instance
+   * @param ml is the gene list, may be null
+   * @param copyFlag copy the gene bit set
+   * @return the gene bit set, else null if there is none
+   * @see GeneBitSet#copyBStoBS
+   */
+  private static GeneBitSet getBS(MAExplorer mae, GeneList ml,
+                                  boolean copyFlag)
+  { /* getBS */
+    if(ml==null || ml.bitSet==null)
+      return(null);
+    if(!copyFlag)
+      return(ml.bitSet);
+
+    GeneBitSet bs= new GeneBitSet(mae, ml.bitSet.maxItems, ml.cName, null);
+    GeneBitSet.copyBStoBS(bs, ml.bitSet);
+
+    return(bs);
+  } /* getBS */
+
+} /* end of class FilterInputs */
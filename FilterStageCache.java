@@ -0,0 +1,533 @@
+/** File: FilterStageCache.java */
+
+/**
+ * The class memoizes the results of the individual data Filter stages
+ * computed in Filter.computeWorkingGeneList(). Each stage result (e.g.
+ * the t-test, KS-test, OCL F-test, spot CV and threshold gene lists) is
+ * saved with the key it was computed from: the stage parameters (slider
+ * thresholds, test modes), the identities of the samples it used, the
+ * CompositeDatabase normalization generation and the exact upstream gene
+ * set it tested. When the Filter is rerun and a stage's key has not changed,
+ * the saved result is copied back to the stage's gene list instead of
+ * recomputing it. So moving one slider only recomputes the stages whose
+ * inputs changed (and the stages downstream of them if their upstream gene
+ * set changed).
+ *<P>
+ * Some stages also set Gene.data, data1, data2 (and pValue) for the genes they
+ * pass as a side effect. For those stages the values are saved with the
+ * result and are restored when the result is reused.
+ *<P>
+ * The key is built by the Filter for each stage with beginKey() and the
+ * addKey() methods, then tested with lookup() and saved with store().
+ *<P>
+ * This file is part of MAExplorer. It is offered as open source software
+ * under the Mozilla Public License (version 1.1) subject to the
+ * limitations noted in the accompanying LEGAL file. This notice must be
+ * included with the code. The MAExplorer Mozilla and Legal files are
+ * available on http://maexplorer.sourceforge.net/.
+ *<P>
+ * @author P. Lemkin (NCI), G. Thornwall (SAIC), NCI-Frederick, Frederick, MD
+ * @version $Date$   $Revision$
+ * @see <A HREF="http://maexplorer.sourceforge.net/">MAExplorer Home</A>
+ * @see Filter
+ */
+
+class FilterStageCache
+{
+  /** link to global MAExplorer instance */
+  private MAExplorer
+    mae;
+
+  /** stage: "Spot CV filter" */
+  final static int
+    SPOT_CV= 0;
+  /** stage: "Threshold: spot intensity [SI1:SI2]" */
+  final static int
+    SI_THR= 1;
+  /** stage: "Threshold: intensity [I1:I2]" */
+  final static int
+    INTENS_THR= 2;
+  /** stage: "Threshold: ratio [R1:R2]" */
+  final static int
+    RATIO_THR= 3;
+  /** stage: "Threshold: ratio [CR1:CR2]" */
+  final static int
+    CY3CY5_THR= 4;
+  /** stage: "Filter by HP-X, HP-Y t-Test" */
+  final static int
+    T_TEST_XY= 5;
+  /** stage: "Filter by HP-XY sets t-Test" */
+  final static int
+    T_TEST_XY_SETS= 6;
+  /** stage: "Filter by HP-XY sets KS-Test" */
+  final static int
+    KS_TEST_XY_SETS= 7;
+  /** stage: "Filter by current OCL F-Test" */
+  final static int
+    F_TEST_OCL= 8;
+  /** stage: "Filter by Diff(HP-X,HP-Y)" */
+  final static int
+    DIFF_XY= 9;
+  /** stage: "Filter by Positive Quant Data" */
+  final static int
+    POS_QUANT= 10;
+  /** stage: "Filter by Good Spot(QualChk) Data" */
+  final static int
+    GOOD_SPOT= 11;
+  /** stage: "Filter by Spot(Detection value) Data" */
+  final static int
+    DET_VALUE= 12;
+  /** stage: "Filter by non-zero Spot Data" */
+  final static int
+    NON_ZERO= 13;
+  /** # of cached stages */
+  final static int
+    N_STAGES= 14;
+
+  /** [0:N_STAGES-1] stage names for reports */
+  final static String
+    stageNames[]= {"Spot CV", "[SI1:SI2] Thr.", "[I1:I2] Thr.",
+                   "[R1:R2] Thr.", "[CR1:CR2] Thr.", "t-Test X,Y",
+                   "t-Test X,Y 'sets'", "KS-Test X,Y 'sets'",
+                   "F-Test cur OCL", "Diff(HP-X,HP-Y)",
+                   "Only quant. data > 0", "Good Spot data",
+                   "Spot Detect Value data", "Use only non-zero data"};
+
+  /** max # of key entries of each type for a stage */
+  final private static int
+    MAX_KEY= 512;
+
+  /** flag: use the cache, else always recompute the stages */
+  static boolean
+    useStageCacheFlag= true;
+
+  /** working key scalar values [0:nKeyVal-1] set by beginKey() and addKey() */
+  private double
+    keyVal[];
+  /** # of working key scalar values */
+  private int
+    nKeyVal;
+  /** working key object references [0:nKeyObj-1] (e.g. samples) */
+  private Object
+    keyObj[];
+  /** # of working key object references */
+  private int
+    nKeyObj;
+  /** flag: the working key did not fit, so it can not be used */
+  private boolean
+    keyOverflowFlag;
+
+  /** [0:N_STAGES-1] saved key scalar values, null if no saved result */
+  private double
+    stageKeyVal[][];
+  /** [0:N_STAGES-1] saved key object references */
+  private Object
+    stageKeyObj[][];
+  /** [0:N_STAGES-1] copy of the upstream gene set the stage tested */
+  private GeneBitSet
+    upstreamBS[];
+  /** [0:N_STAGES-1] saved stage result gene set */
+  private GeneBitSet
+    resultBS[];
+  /** [0:N_STAGES-1] # of Gene data fields to restore: 0, 3 or 4 */
+  private int
+    nReplayFields[];
+  /** [0:N_STAGES-1][0:nReplay-1] MIDs of the genes whose data is restored */
+  private int
+    replayMID[][];
+  /** [0:N_STAGES-1][0:4*nReplay-1] (data,data1,data2,pValue) to restore */
+  private float
+    replayData[][];
+  /** [0:N_STAGES-1] # of genes whose data is restored */
+  private int
+    nReplay[];
+
+  /** [0:N_STAGES-1] # of times a stage result was reused */
+  int
+    nHits[];
+  /** [0:N_STAGES-1] # of times a stage had to be recomputed */
+  int
+    nMisses[];
+  /** total # of stage results reused */
+  int
+    totHits;
+  /** total # of stages recomputed */
+  int
+    totMisses;
+
+
+  /**
+   * FilterStageCache() - constructor for an empty stage cache.
+   * @param mae is the MAExplorer instance
+   */
+  FilterStageCache(MAExplorer mae)
+  { /* FilterStageCache */
+    this.mae= mae;
+
+    keyVal= new double[MAX_KEY];
+    keyObj= new Object[MAX_KEY];
+
+    stageKeyVal= new double[N_STAGES][];
+    stageKeyObj= new Object[N_STAGES][];
+    upstreamBS= new GeneBitSet[N_STAGES];
+    resultBS= new GeneBitSet[N_STAGES];
+    nReplayFields= new int[N_STAGES];
+    replayMID= new int[N_STAGES][];
+    replayData= new float[N_STAGES][];
+    nReplay= new int[N_STAGES];
+
+    nHits= new int[N_STAGES];
+    nMisses= new int[N_STAGES];
+    totHits= 0;
+    totMisses= 0;
+  } /* FilterStageCache */
+
+
+  /**
+   * beginKey() - start a new working key. The global state every stage
+   * depends on is added first: the normalization generation and the
+   * ratio, Cy5/Cy3, Zscore and HP-XY 'set' data modes.
+   * @see #addKey
+   */
+  void beginKey()
+  { /* beginKey */
+    nKeyVal= 0;
+    nKeyObj= 0;
+    keyOverflowFlag= false;
+
+    addKey(mae.cdb.normGeneration);
+    addKey(mae.useRatioDataFlag);
+    addKey(mae.useCy5OverCy3Flag);
+    addKey(mae.isZscoreFlag);
+    addKey(mae.useHPxySetDataFlag);
+  } /* beginKey */
+
+
+  /**
+   * addKey() - add a scalar parameter to the working key
+   * @param v is the value to add
+   */
+  void addKey(double v)
+  { /* addKey */
+    if(nKeyVal<MAX_KEY)
+      keyVal[nKeyVal++]= v;
+    else
+      keyOverflowFlag= true;
+  } /* addKey */
+
+
+  /**
+   * addKey() - add a flag parameter to the working key
+   * @param flag is the value to add
+   */
+  void addKey(boolean flag)
+  { /* addKey */
+    addKey((flag) ? 1.0 : 0.0);
+  } /* addKey */
+
+
+  /**
+   * addKey() - add an object reference (e.g. a sample) to the working key.
+   * References are compared by identity.
+   * @param obj is the object to add, may be null
+   */
+  void addKey(Object obj)
+  { /* addKey */
+    if(nKeyObj<MAX_KEY)
+      keyObj[nKeyObj++]= obj;
+    else
+      keyOverflowFlag= true;
+  } /* addKey */
+
+
+  /**
+   * addSample() - add a sample and its Cy3/Cy5 swap state to the working key
+   * @param ms is the sample, may be null
+   * @see #addKey
+   */
+  void addSample(MaHybridSample ms)
+  { /* addSample */
+    addKey((Object)ms);
+    addKey((ms!=null && ms.swapCy5Cy3DataFlag));
+  } /* addSample */
+
+
+  /**
+   * addSamples() - add a list of samples msList[1:nHP] to the working key
+   * @param msList is the list of samples [1:nHP], may be null
+   * @param nHP is the # of samples in the list
+   * @see #addKey
+   * @see #addSample
+   */
+  void addSamples(MaHybridSample msList[], int nHP)
+  { /* addSamples */
+    addKey(nHP);
+    if(msList==null)
+      return;
+    for(int i=1;i<=nHP && i<msList.length;i++)
+      addSample(msList[i]);
+  } /* addSamples */
+
+
+  /**
+   * sameGeneSet() - test if two gene sets contain the same genes
+   * @param b1 is the first gene set
+   * @param b2 is the second gene set
+   * @return true if they contain the same genes
+   * @see GeneBitSet#getWords
+   */
+  private static boolean sameGeneSet(GeneBitSet b1, GeneBitSet b2)
+  { /* sameGeneSet */
+    if(b1==null || b2==null)
+      return(false);
+    if(b1.count!=b2.count || b1.highMID!=b2.highMID)
+      return(false);
+    if(b1.count==0)
+      return(true);
+
+    long
+      w1[]= b1.getWords(),
+      w2[]= b2.getWords();
+    int lastWord= (b1.highMID>>6);
+
+    for(int w=lastWord;w>=0;w--)
+      if(w1[w]!=w2[w])
+        return(false);
+
+    return(true);
+  } /* sameGeneSet */
+
+
+  /**
+   * lookup() - test if the stage has a saved result for the working key and
+   * the genes to test. If so, copy it to the stage's resultCL and restore
+   * any Gene data the stage would have set.
+   * @param stage is the stage number SPOT_CV to NON_ZERO
+   * @param genesToTestCL is the upstream list of genes the stage tests
+   * @param resultCL is the stage gene list to get the result
+   * @return true if the saved result was used, false if the stage must be
+   *         recomputed.
+   * @see GeneBitSet#copyBStoCL
+   * @see Filter#setGeneData
+   * @see #sameGeneSet
+   */
+  boolean lookup(int stage, GeneList genesToTestCL, GeneList resultCL)
+  { /* lookup */
+    double sVal[]= stageKeyVal[stage];
+    Object sObj[]= stageKeyObj[stage];
+    boolean hitFlag= (useStageCacheFlag && !keyOverflowFlag && sVal!=null &&
+                      sVal.length==nKeyVal && sObj.length==nKeyObj);
+
+    for(int i=0;hitFlag && i<nKeyVal;i++)
+      hitFlag= (sVal[i]==keyVal[i]);
+    for(int i=0;hitFlag && i<nKeyObj;i++)
+      hitFlag= (sObj[i]==keyObj[i]);
+    hitFlag= hitFlag && sameGeneSet(upstreamBS[stage], genesToTestCL.bitSet);
+
+    if(!hitFlag)
+    { /* must recompute it */
+      nMisses[stage]++;
+      totMisses++;
+      return(false);
+    }
+
+    /* [1] Reuse the saved result */
+    resultCL.bitSet.copyBStoCL(resultCL, resultBS[stage]);
+
+    /* [2] Restore the Gene data set by the stage */
+    int
+      n= nReplay[stage],
+      nFields= nReplayFields[stage],
+      mids[]= replayMID[stage];
+    float d[]= replayData[stage];
+    Filter fc= mae.fc;
+    Gene
+      gene,
+      midStaticList[]= mae.mp.midStaticCL.mList;
+    for(int i=0, j=0;i<n;i++, j+= 4)
+    { /* restore data */
+      gene= midStaticList[mids[i]];
+      if(gene==null)
+        continue;
+      if(nFields==4)
+        fc.setGeneData(gene, d[j], d[j+1], d[j+2], d[j+3]);
+      else
+        fc.setGeneData(gene, d[j], d[j+1], d[j+2]);
+    }
+
+    nHits[stage]++;
+    totHits++;
+    return(true);
+  } /* lookup */
+
+
+  /**
+   * store() - save the stage result computed for the working key.
+   * If the stage failed, any saved result is discarded.
+   * @param stage is the stage number SPOT_CV to NON_ZERO
+   * @param genesToTestCL is the upstream list of genes the stage tested
+   * @param resultCL is the stage gene list with the result
+   * @param okFlag is the value returned by the stage
+   * @param nFields is the # of Gene data fields the stage sets: 0 if none,
+   *        3 if (data,data1,data2) and 4 if also pValue
+   * @see Filter#getGeneData
+   * @see GeneBitSet#copyBStoBS
+   * @see GeneBitSet#optimizeStorage
+   */
+  void store(int stage, GeneList genesToTestCL, GeneList resultCL,
+             boolean okFlag, int nFields)
+  { /* store */
+    stageKeyVal[stage]= null;          /* invalid until done */
+    if(!useStageCacheFlag || !okFlag || keyOverflowFlag)
+      return;
+
+    GeneBitSet
+      upBS= upstreamBS[stage],
+      rBS= resultBS[stage],
+      srcUpBS= genesToTestCL.bitSet;
+    if(upBS==null || upBS.maxItems!=srcUpBS.maxItems)
+      upstreamBS[stage]= upBS= new GeneBitSet(mae, srcUpBS.maxItems,
+                                              "cache-in", null);
+    if(rBS==null || rBS.maxItems!=resultCL.bitSet.maxItems)
+    {
+      resultBS[stage]= rBS= new GeneBitSet(mae, resultCL.bitSet.maxItems,
+                                           "cache-out", null);
+      rBS.privateSetFlag= true;     /* never handed out, may compress */
+    }
+
+    /* [1] Save the upstream gene set as words so lookups compare fast */
+    upBS.expand();
+    GeneBitSet.copyBStoBS(upBS, srcUpBS);
+
+    /* [2] Save the result, compressed if it is sparse */
+    rBS.expand();
+    GeneBitSet.copyBStoBS(rBS, resultCL.bitSet);
+    rBS.optimizeStorage();
+
+    /* [3] Save the Gene data the stage set for the genes it passed */
+    int n= 0;
+    nReplayFields[stage]= nFields;
+    if(nFields>0)
+    { /* save data to restore */
+      Filter fc= mae.fc;
+      Gene
+        gene,
+        mList[]= resultCL.mList;
+      int
+        len= resultCL.length,
+        mids[]= replayMID[stage];
+      float d[]= replayData[stage];
+      if(mids==null || mids.length<len)
+      {
+        replayMID[stage]= mids= new int[len];
+        replayData[stage]= d= new float[4*len];
+      }
+      for(int i=0;i<len;i++)
+      {
+        gene= mList[i];
+        if(gene==null)
+          continue;
+        mids[n]= gene.mid;
+        d[4*n]= fc.getGeneData(gene, GeneResultSet.RATIO);
+        d[4*n+1]= fc.getGeneData(gene, GeneResultSet.MEAN1);
+        d[4*n+2]= fc.getGeneData(gene, GeneResultSet.MEAN2);
+        d[4*n+3]= fc.getGeneData(gene, GeneResultSet.P_VALUE);
+        n++;
+      }
+    } /* save data to restore */
+    nReplay[stage]= n;
+
+    /* [4] Save the key last */
+    double sVal[]= new double[nKeyVal];
+    Object sObj[]= new Object[nKeyObj];
+    System.arraycopy(keyVal, 0, sVal, 0, nKeyVal);
+    System.arraycopy(keyObj, 0, sObj, 0, nKeyObj);
+    stageKeyObj[stage]= sObj;
+    stageKeyVal[stage]= sVal;
+  } /* store */
+
+
+  /**
+   * invalidate() - discard all saved stage results. Use when the data the
+   * stages depend on changed in a way the keys do not record (e.g. a new
+   * database was loaded).
+   */
+  void invalidate()
+  { /* invalidate */
+    for(int s=0;s<N_STAGES;s++)
+    {
+      stageKeyVal[s]= null;
+      stageKeyObj[s]= null;
+      upstreamBS[s]= null;
+      resultBS[s]= null;
+      replayMID[s]= null;
+      replayData[s]= null;
+      nReplay[s]= 0;
+    }
+  } /* invalidate */
+
+
+  /**
+   * resetCounts() - reset the hit and miss counts
+   */
+  void resetCounts()
+  { /* resetCounts */
+    for(int s=0;s<N_STAGES;s++)
+    {
+      nHits[s]= 0;
+      nMisses[s]= 0;
+    }
+    totHits= 0;
+    totMisses= 0;
+  } /* resetCounts */
+
+
+  /**
+   * getStatsStr() - report the hit and miss counts for each stage
+   * @return print string report
+   */
+  String getStatsStr()
+  { /* getStatsStr */
+    int nTot= totHits+totMisses;
+    String
+      sR= "Filter Stage Cache ("+
+          ((useStageCacheFlag) ? "enabled" : "disabled")+")\n"+
+          "Stage | hits | misses | cached #genes\n"+
+          "==========================================================\n";
+
+    for(int s=0;s<N_STAGES;s++)
+    { /* add stages that were run */
+      if(nHits[s]==0 && nMisses[s]==0)
+        continue;
+      sR += stageNames[s] + " | " + nHits[s] + " | " + nMisses[s] + " | " +
+            ((stageKeyVal[s]!=null) ? (""+resultBS[s].count) : "-") + "\n";
+    }
+
+    sR += "----------------------------------------------------------\n"+
+          "Total hits= " + totHits + ", misses= " + totMisses +
+          ((nTot>0)
+             ? (", hit rate= " + Util.cvd2s((100.0*totHits)/nTot,1) + "%")
+             : "") + "\n";
+
+    return(sR);
+  } /* getStatsStr */
+
+
+  /**
+   * showStats() - popup a text window with the hit and miss counts
+   * @see ShowStringPopup
+   * @see #getStatsStr
+   */
+  void showStats()
+  { /* showStats */
+    String sR= getStatsStr();
+
+    ShowStringPopup t= new ShowStringPopup(mae,sR,20,60,
+                                           mae.rptFontSize,
+                                           "Filter Stage Cache",
+                                           0, 0, "FilterStageCache",
+                                           PopupRegistry.UNIQUE,
+                                           "maeFilterStageCache.txt");
+  } /* showStats */
+
+} /* end of class FilterStageCache */
@@ -0,0 +1,385 @@
+/** File: FilterWorker.java */
+
+/**
+ * The class runs a per-gene Filter test (t-test, KS-test, OCL F-test,
+ * spot CV or intensity/ratio threshold) over a range of the genes to test.
+ * It holds the working statistics context used by the test for that range:
+ * its own Statistics instance (for pT, pKS, pFnConds etc.), its own HPxyData
+ * scratch object and ExprProfile, and data arrays for the KS-test. The
+ * HP-XY sets t-test and OCL F-test only compare the p-values already
+ * computed for all genes in a StatBatch.
+ *<P>
+ * If parallel mode is enabled and there are enough genes, testGenes() splits
+ * genesToTestCL.mList[0:nTest-1] into contiguous ranges, one per processor,
+ * and tests each range on its own thread with its own statistics context.
+ * Each range only sets its own entries of the shared passed[] table, so the
+ * passing genes are then added to the result gene list in mList[] order.
+ * The result is the same as the serial test. Otherwise the test is run over
+ * the whole range on the calling thread with the global mae.stat and
+ * mae.cdb.hpXYdata as before, or with its own context in a background
+ * Filter run.
+ *<P>
+ * The per-gene test code is in Filter (see Filter.testGeneRange()). It
+ * must only write the working context in this object, its passed[] range
+ * and the Gene data of the genes in its range with Filter.setGeneData().
+ *<P>
+ * This file is part of MAExplorer. It is offered as open source software
+ * under the Mozilla Public License (version 1.1) subject to the
+ * limitations noted in the accompanying LEGAL file. This notice must be
+ * included with the code. The MAExplorer Mozilla and Legal files are
+ * available on http://maexplorer.sourceforge.net/.
+ *<P>
+ * @author P. Lemkin (NCI), G. Thornwall (SAIC), NCI-Frederick, Frederick, MD
+ * @version $Date$   $Revision$
+ * @see <A HREF="http://maexplorer.sourceforge.net/">MAExplorer Home</A>
+ * @see Filter
+ * @see Statistics
+ */
+
+class FilterWorker implements Runnable
+{
+  /** test: spot coefficient of variation */
+  final static int
+    SPOT_CV= 0;
+  /** test: HP-X, HP-Y t-test */
+  final static int
+    HP_XY_T_TEST= 1;
+  /** test: HP-X, HP-Y sets t-test */
+  final static int
+    HP_XYSETS_T_TEST= 2;
+  /** test: HP-X, HP-Y sets KS-test */
+  final static int
+    HP_XYSETS_KS_TEST= 3;
+  /** test: F-test on current Ordered Condition List */
+  final static int
+    OCL_F_TEST= 4;
+  /** test: intensity or ratio thresholds */
+  final static int
+    THRESHOLDS= 5;
+  /** # of tests */
+  final static int
+    N_TESTS= 6;
+  /** names of the tests for the status report */
+  final static String
+    testNames[]= {"Spot CV", "HP-XY t-test", "HP-XY sets t-test",
+                  "HP-XY sets KS-test", "OCL F-test",
+                  "Intensity/ratio thresholds"};
+
+  /** flag: run the tests in parallel when there are enough genes */
+  static boolean
+    useParallelFilterFlag= true;
+  /** minimum # of genes to give a worker */
+  static int
+    minGenesPerWorker= 1000;
+  /** maximum # of workers, defaults to the # of processors */
+  static int
+    maxWorkers= Runtime.getRuntime().availableProcessors();
+
+  /** # of runs for each test done on more than one thread */
+  static int
+    nParallelRuns[]= new int[N_TESTS];
+  /** # of runs for each test done on the calling thread */
+  static int
+    nSerialRuns[]= new int[N_TESTS];
+  /** # of workers used in the last run of each test */
+  static int
+    lastNbrWorkers[]= new int[N_TESTS];
+  /** elapsed time (msec) of the last run of each test */
+  static long
+    lastRunMsec[]= new long[N_TESTS];
+
+  /** link to global MAExplorer instance */
+  private MAExplorer
+    mae;
+  /** link to global Filter instance */
+  private Filter
+    fc;
+
+  /** test to run, e.g. HP_XY_T_TEST etc. */
+  int
+    test;
+  /** list of genes to test */
+  Gene
+    mList[];
+  /** first gene index in mList[] to test */
+  int
+    lo;
+  /** last gene index+1 in mList[] to test */
+  int
+    hi;
+  /** [0:nTest-1] set true for genes in [lo:hi-1] passing the test */
+  boolean
+    passed[];
+  /** flag: set false if the test failed */
+  boolean
+    okFlag;
+  /** error message if the test threw an exception */
+  String
+    errMsg;
+
+  /* --- Test parameters, shared by all workers of a run --- */
+  /** PARAM: p-value, CV or other threshold */
+  float
+    thr;
+  /** PARAM: mode, e.g. cvTestMode */
+  int
+    mode;
+  /** PARAM: X sample */
+  MaHybridSample
+    msX;
+  /** PARAM: Y sample */
+  MaHybridSample
+    msY;
+  /** PARAM: test gray range, else ratio range */
+  boolean
+    testGrayFlag;
+  /** PARAM: use msX F1 and F2 for X and Y */
+  boolean
+    useF1F2dataFlag;
+  /** PARAM: batch of test results by MID for the HP-XY sets t-test
+   * and OCL F-test */
+  StatBatch
+    sb;
+  /** PARAM: genes in sb ranked below this pass in the FDR or Bonferroni
+   * threshold modes, -1 to compare raw p-values with thr */
+  int
+    rankLimit= -1;
+
+  /* --- Working statistics context, one per worker --- */
+  /** working statistics instance */
+  Statistics
+    stat;
+  /** working HP-X/Y set object */
+  HPxyData
+    hpxy;
+  /** working expression profile, only for the HP-E list CV test */
+  ExprProfile
+    ep;
+  /** working HP-X set data for KS-test */
+  double
+    dataX[];
+  /** working HP-Y set data for KS-test */
+  double
+    dataY[];
+
+
+  /**
+   * FilterWorker() - constructor for the test parameters of a run.
+   * Set the PARAM: values before calling testGenes().
+   * @param mae is the MAExplorer instance
+   * @param fc is the Filter instance
+   * @param test is the test to run, e.g. HP_XY_T_TEST etc.
+   */
+  FilterWorker(MAExplorer mae, Filter fc, int test)
+  { /* FilterWorker */
+    this.mae= mae;
+    this.fc= fc;
+    this.test= test;
+  } /* FilterWorker */
+
+
+  /**
+   * FilterWorker() - constructor for a worker with the parameters of
+   * a run and its own working statistics context.
+   * @param run is the worker holding the parameters of the run
+   * @param lo is the first gene index to test
+   * @param hi is the last gene index+1 to test
+   * @see HPxyData#setupDataStruct
+   */
+  private FilterWorker(FilterWorker run, int lo, int hi)
+  { /* FilterWorker */
+    this(run.mae, run.fc, run.test);
+
+    thr= run.thr;
+    mode= run.mode;
+    msX= run.msX;
+    msY= run.msY;
+    testGrayFlag= run.testGrayFlag;
+    useF1F2dataFlag= run.useF1F2dataFlag;
+    sb= run.sb;
+    rankLimit= run.rankLimit;
+
+    mList= run.mList;
+    passed= run.passed;
+    this.lo= lo;
+    this.hi= hi;
+
+    stat= new Statistics(mae);
+    hpxy= new HPxyData(mae, -1, mae.useHPxySetDataFlag);
+    hpxy.setupDataStruct(mae.useHPxySetDataFlag);
+    allocData(run.ep!=null);
+  } /* FilterWorker */
+
+
+  /**
+   * allocData() - allocate the working data arrays for the test.
+   * @param needExprProfileFlag also allocate an ExprProfile
+   */
+  private void allocData(boolean needExprProfileFlag)
+  { /* allocData */
+    if(needExprProfileFlag)
+      ep= new ExprProfile(mae, -1, false);
+
+    if(test==HP_XYSETS_KS_TEST)
+    {
+      dataX= new double[hpxy.nX];
+      dataY= new double[hpxy.nY];
+    }
+  } /* allocData */
+
+
+  /**
+   * getNbrWorkers() - get the # of workers to use for nTest genes
+   * @param nTest is the # of genes to test
+   * @param parallelOKflag the test may be run in parallel
+   * @return # of workers, 1 if run on the calling thread
+   */
+  static int getNbrWorkers(int nTest, boolean parallelOKflag)
+  { /* getNbrWorkers */
+    if(!useParallelFilterFlag || !parallelOKflag || maxWorkers<=1)
+      return(1);
+
+    int nWorkers= nTest/Math.max(1,minGenesPerWorker);
+    if(nWorkers>maxWorkers)
+      nWorkers= maxWorkers;
+
+    return(Math.max(1,nWorkers));
+  } /* getNbrWorkers */
+
+
+  /**
+   * testGenes() - test the genes in genesToTestCL and put the genes that pass
+   * in resultCL, in genesToTestCL order. Set the PARAM: values (and ep
+   * if the test needs an ExprProfile) before calling.
+   * @param genesToTestCL list of genes to test
+   * @param resultCL is the gene list returned with a new set of genes
+   * @param parallelOKflag the test may be run in parallel
+   * @return true if succeed, false if the test failed
+   * @see GeneList#addGene
+   * @see GeneList#clearNull
+   * @see Util#showMsg
+   */
+  boolean testGenes(GeneList genesToTestCL, GeneList resultCL,
+                    boolean parallelOKflag)
+  { /* testGenes */
+    long startTime= System.currentTimeMillis();
+    int
+      nTest= genesToTestCL.length,
+      nWorkers= getNbrWorkers(nTest, parallelOKflag);
+    boolean flag= true;
+
+    mList= genesToTestCL.mList;
+    passed= new boolean[nTest];
+    resultCL.clearNull();
+
+    if(nWorkers<=1)
+    { /* use global context on this thread */
+      nSerialRuns[test]++;
+      lo= 0;
+      hi= nTest;
+      stat= (fc.isBackgroundRun()) ? new Statistics(mae) : mae.stat;
+      if(hpxy==null)
+        hpxy= fc.getHPxyData();
+      allocData(false);
+      run();
+    } /* use global context on this thread */
+
+    else
+    { /* split the genes across worker threads */
+      nParallelRuns[test]++;
+      FilterWorker workers[]= new FilterWorker[nWorkers];
+      Thread threads[]= new Thread[nWorkers];
+      int chunk= (nTest+nWorkers-1)/nWorkers;
+
+      for(int w=0;w<nWorkers;w++)
+        workers[w]= new FilterWorker(this, w*chunk,
+                                     Math.min(nTest,(w+1)*chunk));
+
+      for(int w=1;w<nWorkers;w++)
+      { /* start the other workers */
+        threads[w]= new Thread(workers[w], "FilterWorker-"+w);
+        threads[w].setDaemon(true);
+        threads[w].start();
+      }
+      workers[0].run();            /* do the first range on this thread */
+
+      for(int w=1;w<nWorkers;w++)
+      { /* wait for the other workers */
+        try
+        { threads[w].join(); }
+        catch(InterruptedException e)
+        { workers[w].okFlag= false; }
+      }
+
+      for(int w=0;w<nWorkers;w++)
+      { /* merge status */
+        okFlag= (w==0) ? workers[w].okFlag : (okFlag && workers[w].okFlag);
+        if(errMsg==null)
+          errMsg= workers[w].errMsg;
+      }
+    } /* split the genes across worker threads */
+
+    /* Merge the genes that passed in mList[] order */
+    for(int k=0;k<nTest;k++)
+      if(passed[k])
+        resultCL.addGene(mList[k]);
+
+    if(errMsg!=null)
+    {
+      Util.showMsg("Filter " + testNames[test] + " failed: " + errMsg);
+      flag= false;
+    }
+    else
+      flag= okFlag;
+
+    lastNbrWorkers[test]= nWorkers;
+    lastRunMsec[test]= System.currentTimeMillis() - startTime;
+
+    return(flag);
+  } /* testGenes */
+
+
+  /**
+   * run() - test the genes in mList[lo:hi-1]. This is called on the
+   * worker thread.
+   * @see Filter#testGeneRange
+   */
+  public void run()
+  { /* run */
+    try
+    {
+      okFlag= fc.testGeneRange(this);
+    }
+    catch(Exception e)
+    {
+      okFlag= false;
+      errMsg= e.toString();
+    }
+  } /* run */
+
+
+  /**
+   * getStatusStr() - get the serial and parallel run counts and
+   * the time of the last run for each test that was run.
+   * @return status string
+   */
+  static String getStatusStr()
+  { /* getStatusStr */
+    String sR= "Parallel Filter tests (" +
+               ((useParallelFilterFlag)
+                  ? ("enabled, up to " + maxWorkers + " workers")
+                  : "disabled") + ")\n";
+
+    for(int t=0;t<N_TESTS;t++)
+    { /* add tests that were run */
+      if(nSerialRuns[t]==0 && nParallelRuns[t]==0)
+        continue;
+      sR += testNames[t] + ": " + nParallelRuns[t] + " parallel, " +
+            nSerialRuns[t] + " serial, last run " + lastNbrWorkers[t] +
+            " worker(s) " + lastRunMsec[t] + " msec\n";
+    }
+
+    return(sR);
+  } /* getStatusStr */
+
+} /* end of class FilterWorker */
@@ -22,6 +22,11 @@
  *<P>
  * Additional identifiers include: Gene_Class, plate, plate_row, plate_col
  *<P>
+ * After the gene tables are read, equal identifiers and names (except
+ * Master_ID and MasterGeneName) of the static Genes are set to one shared
+ * String by the GeneAnnotationStore. The getXXXX() accessors (e.g.
+ * getGene_Name()) read them and setAnnotation() changes them.
+ *<P>
  * Each gene has various properties indicated the inclusive or of the C_xxxx constants.
  * These include: C_IS_KMEANS, C_GOOD_MID, C_BAD_MID, C_DUP_SPOT, C_BAD_SPOT, C_IMAGE_ID,
  *  C_ATCC_ID, C_USE_GBID_FOR_CLONEID, C_MARGINAL_SPOT, C_BAD_SPOT_GEOMETRY,
@@ -346,27 +351,27 @@ class Gene
   void assignMasterID(int masterIDmode)
   { /* assignMasterID */
     if(masterIDmode==mae.MASTER_CLONE_ID)
-      Master_ID= Clone_ID;
+      Master_ID= getClone_ID();
     else if(masterIDmode==mae.MASTER_GENBANK)
-      Master_ID= GenBankAcc;
+      Master_ID= getGenBankAcc();
     else if(masterIDmode==mae.MASTER_GENBANK5)
-      Master_ID= GenBankAcc5;
+      Master_ID= getGenBankAcc5();
     else if(masterIDmode==mae.MASTER_GENBANK3)
-      Master_ID= GenBankAcc3;
+      Master_ID= getGenBankAcc3();
     else if(masterIDmode==mae.MASTER_UG_ID)
-      Master_ID= Unigene_ID;
+      Master_ID= getUnigene_ID();
     else if(masterIDmode==mae.MASTER_DBEST5)
-      Master_ID= dbEST5;
+      Master_ID= getDbEST5();
     else if(masterIDmode==mae.MASTER_DBEST3)
-      Master_ID= dbEST3;
+      Master_ID= getDbEST3();
     else if(masterIDmode==mae.MASTER_SWISS_PROT)
-      Master_ID= SwissProt;
+      Master_ID= getSwissProt();
     else if(masterIDmode==mae.MASTER_LOCUSLINK)
-      Master_ID= LocusID;
+      Master_ID= getLocusID();
     else if(masterIDmode==mae.MASTER_OMIM)
-      Master_ID= OmimID;
+      Master_ID= getOmimID();
     else if(masterIDmode==mae.MASTER_GENERIC_ID)
-      Master_ID= Generic_ID;
+      Master_ID= getGeneric_ID();
     else Master_ID= "";          /* NONE! */
     
     /* [TODO] do we want to be able to assign the Master-ID
@@ -389,25 +394,25 @@ class Gene
     String id= null;                 /* failed */
     
     if(idName.equalsIgnoreCase("Clone ID"))
-      id= Clone_ID;
+      id= getClone_ID();
     else if(idName.equalsIgnoreCase("GenBank"))
-      id= GenBankAcc;
+      id= getGenBankAcc();
     else if(idName.equalsIgnoreCase("GenBank 5'"))
-      id= GenBankAcc5;
+      id= getGenBankAcc5();
     else if(idName.equalsIgnoreCase("GenBank 3'"))
-      id= GenBankAcc3;
+      id= getGenBankAcc3();
     else if(idName.equalsIgnoreCase("UniGene ID"))
-      id= Unigene_ID;
+      id= getUnigene_ID();
     else if(idName.equalsIgnoreCase("dbEST 5'"))
-      id= dbEST5;
+      id= getDbEST5();
     else if(idName.equalsIgnoreCase("dbEST 3'"))
-      id= dbEST3;
+      id= getDbEST3();
     else if(idName.equalsIgnoreCase("SwissProt"))
-      id= SwissProt;
+      id= getSwissProt();
     else if(idName.equalsIgnoreCase("LocusID"))
-      id= LocusID;
+      id= getLocusID();
     else if(idName.equalsIgnoreCase("OmimID"))
-      id= OmimID;
+      id= getOmimID();
     
     else if(GenomicID!=null)
     { /* Search for external DB names */
@@ -444,12 +449,229 @@ class Gene
   void assignMasterGeneName(int masterGeneNameMode)
   { /* assignMasterGeneName */
     if(masterGeneNameMode==mae.MASTER_GENE_NAME)
-      MasterGeneName= Gene_Name;
+      MasterGeneName= getGene_Name();
     else if(masterGeneNameMode==mae.MASTER_UG_NAME)
-      MasterGeneName= UGclusterName;
+      MasterGeneName= getUGclusterName();
   } /* assignMasterGeneName */
   
   
+  /**
+   * getAnnotation() - get the annotation field of the column
+   * @param col is the GeneAnnotationStore column, e.g. GENE_NAME
+   * @return field value, null if not set or bad column
+   */
+  String getAnnotation(int col)
+  { /* getAnnotation */
+    switch(col)
+    {
+      case GeneAnnotationStore.GENE_NAME: return(Gene_Name);
+      case GeneAnnotationStore.UG_CLUSTER_NAME: return(UGclusterName);
+      case GeneAnnotationStore.GENERIC_ID: return(Generic_ID);
+      case GeneAnnotationStore.CLONE_ID: return(Clone_ID);
+      case GeneAnnotationStore.GENBANK_ACC: return(GenBankAcc);
+      case GeneAnnotationStore.GENBANK_ACC3: return(GenBankAcc3);
+      case GeneAnnotationStore.GENBANK_ACC5: return(GenBankAcc5);
+      case GeneAnnotationStore.UNIGENE_ID: return(Unigene_ID);
+      case GeneAnnotationStore.OMIM_ID: return(OmimID);
+      case GeneAnnotationStore.DBEST3: return(dbEST3);
+      case GeneAnnotationStore.DBEST5: return(dbEST5);
+      case GeneAnnotationStore.SWISSPROT: return(SwissProt);
+      case GeneAnnotationStore.REFSEQ_ID: return(RefSeqID);
+      case GeneAnnotationStore.LOCUS_ID: return(LocusID);
+      case GeneAnnotationStore.COMMENTS: return(comments);
+      case GeneAnnotationStore.GENE_CLASS: return(Gene_Class);
+      case GeneAnnotationStore.PLATE: return(plate);
+      case GeneAnnotationStore.PLATE_ROW: return(plate_row);
+      case GeneAnnotationStore.PLATE_COL: return(plate_col);
+    }
+    return(null);
+  } /* getAnnotation */
+  
+  
+  /**
+   * setAnnotation() - set the annotation field of the column
+   * @param col is the GeneAnnotationStore column, e.g. GENE_NAME
+   * @param value to set
+   */
+  void setAnnotation(int col, String value)
+  { /* setAnnotation */
+    switch(col)
+    {
+      case GeneAnnotationStore.GENE_NAME: Gene_Name= value; break;
+      case GeneAnnotationStore.UG_CLUSTER_NAME: UGclusterName= value; break;
+      case GeneAnnotationStore.GENERIC_ID: Generic_ID= value; break;
+      case GeneAnnotationStore.CLONE_ID: Clone_ID= value; break;
+      case GeneAnnotationStore.GENBANK_ACC: GenBankAcc= value; break;
+      case GeneAnnotationStore.GENBANK_ACC3: GenBankAcc3= value; break;
+      case GeneAnnotationStore.GENBANK_ACC5: GenBankAcc5= value; break;
+      case GeneAnnotationStore.UNIGENE_ID: Unigene_ID= value; break;
+      case GeneAnnotationStore.OMIM_ID: OmimID= value; break;
+      case GeneAnnotationStore.DBEST3: dbEST3= value; break;
+      case GeneAnnotationStore.DBEST5: dbEST5= value; break;
+      case GeneAnnotationStore.SWISSPROT: SwissProt= value; break;
+      case GeneAnnotationStore.REFSEQ_ID: RefSeqID= value; break;
+      case GeneAnnotationStore.LOCUS_ID: LocusID= value; break;
+      case GeneAnnotationStore.COMMENTS: comments= value; break;
+      case GeneAnnotationStore.GENE_CLASS: Gene_Class= value; break;
+      case GeneAnnotationStore.PLATE: plate= value; break;
+      case GeneAnnotationStore.PLATE_ROW: plate_row= value; break;
+      case GeneAnnotationStore.PLATE_COL: plate_col= value; break;
+    }
+  } /* setAnnotation */
+  
+  
+  /**
+   * getGene_Name() - get the gene name
+   * @return value, null if none
+   */
+  String getGene_Name()
+  { return(getAnnotation(GeneAnnotationStore.GENE_NAME)); }
+  
+  
+  /**
+   * getUGclusterName() - get the UniGene cluster name
+   * @return value, null if none
+   */
+  String getUGclusterName()
+  { return(getAnnotation(GeneAnnotationStore.UG_CLUSTER_NAME)); }
+  
+  
+  /**
+   * getGeneric_ID() - get the Generic Identifier
+   * @return value, null if none
+   */
+  String getGeneric_ID()
+  { return(getAnnotation(GeneAnnotationStore.GENERIC_ID)); }
+  
+  
+  /**
+   * getClone_ID() - get the Clone ID
+   * @return value, null if none
+   */
+  String getClone_ID()
+  { return(getAnnotation(GeneAnnotationStore.CLONE_ID)); }
+  
+  
+  /**
+   * getGenBankAcc() - get the GenBank Acc ID
+   * @return value, null if none
+   */
+  String getGenBankAcc()
+  { return(getAnnotation(GeneAnnotationStore.GENBANK_ACC)); }
+  
+  
+  /**
+   * getGenBankAcc3() - get the GenBank Acc 3' ID
+   * @return value, null if none
+   */
+  String getGenBankAcc3()
+  { return(getAnnotation(GeneAnnotationStore.GENBANK_ACC3)); }
+  
+  
+  /**
+   * getGenBankAcc5() - get the GenBank Acc 5' ID
+   * @return value, null if none
+   */
+  String getGenBankAcc5()
+  { return(getAnnotation(GeneAnnotationStore.GENBANK_ACC5)); }
+  
+  
+  /**
+   * getUnigene_ID() - get the UniGene cluster ID
+   * @return value, null if none
+   */
+  String getUnigene_ID()
+  { return(getAnnotation(GeneAnnotationStore.UNIGENE_ID)); }
+  
+  
+  /**
+   * getOmimID() - get the OMIM ID
+   * @return value, null if none
+   */
+  String getOmimID()
+  { return(getAnnotation(GeneAnnotationStore.OMIM_ID)); }
+  
+  
+  /**
+   * getDbEST3() - get the dbEST 3' ID
+   * @return value, null if none
+   */
+  String getDbEST3()
+  { return(getAnnotation(GeneAnnotationStore.DBEST3)); }
+  
+  
+  /**
+   * getDbEST5() - get the dbEST 5' ID
+   * @return value, null if none
+   */
+  String getDbEST5()
+  { return(getAnnotation(GeneAnnotationStore.DBEST5)); }
+  
+  
+  /**
+   * getSwissProt() - get the SwissProt ID
+   * @return value, null if none
+   */
+  String getSwissProt()
+  { return(getAnnotation(GeneAnnotationStore.SWISSPROT)); }
+  
+  
+  /**
+   * getRefSeqID() - get the RefSeq ID
+   * @return value, null if none
+   */
+  String getRefSeqID()
+  { return(getAnnotation(GeneAnnotationStore.REFSEQ_ID)); }
+  
+  
+  /**
+   * getLocusID() - get the LocusLink ID
+   * @return value, null if none
+   */
+  String getLocusID()
+  { return(getAnnotation(GeneAnnotationStore.LOCUS_ID)); }
+  
+  
+  /**
+   * getComments() - get the comments
+   * @return value, null if none
+   */
+  String getComments()
+  { return(getAnnotation(GeneAnnotationStore.COMMENTS)); }
+  
+  
+  /**
+   * getGene_Class() - get the Gene_Class
+   * @return value, null if none
+   */
+  String getGene_Class()
+  { return(getAnnotation(GeneAnnotationStore.GENE_CLASS)); }
+  
+  
+  /**
+   * getPlate() - get the plate
+   * @return value, null if none
+   */
+  String getPlate()
+  { return(getAnnotation(GeneAnnotationStore.PLATE)); }
+  
+  
+  /**
+   * getPlate_row() - get the plate row
+   * @return value, null if none
+   */
+  String getPlate_row()
+  { return(getAnnotation(GeneAnnotationStore.PLATE_ROW)); }
+  
+  
+  /**
+   * getPlate_col() - get the plate column
+   * @return value, null if none
+   */
+  String getPlate_col()
+  { return(getAnnotation(GeneAnnotationStore.PLATE_COL)); }
+  
+  
   /**
    * setGeneData() - set gene quantified data
    * @param data is computed data for this gene
@@ -520,9 +742,9 @@ class Gene
    */
   void setplateData(String plate, String plate_row, String plate_col)
   { /* setplateData */
-    this.plate= plate;
-    this.plate_row= plate_row;
-    this.plate_col= plate_col;
+    setAnnotation(GeneAnnotationStore.PLATE, plate);
+    setAnnotation(GeneAnnotationStore.PLATE_ROW, plate_row);
+    setAnnotation(GeneAnnotationStore.PLATE_COL, plate_col);
   } /* setplateData */
   
   
@@ -562,39 +784,27 @@ class Gene
   
   
   /**
-   * sortGeneList() - bubble sort gene list by associated gene.data field
+   * sortGeneList() - stable sort of gene list by associated gene.data field
    * @param cList list of genes to be sorted [0:nClist-1]
    * @param nClist size of gene list
    * @param sortAssendingFlag flag to specifry assending or descending sort
+   * @see IndexSort#sortIndex
    */
   static void sortGeneList(Gene cList[],  int nClist, boolean sortAssendingFlag)
   { /* sortGeneList */
-    int
-      jMin= 0,
-      n,
-      j;
-    float
-      cJdata,
-      cJP1data;
-    Gene tmp;
+    if(cList==null || nClist<=1)
+      return;
+    
+    float cData[]= new float[nClist];
+    for(int i=0; i<nClist; i++)
+      cData[i]= cList[i].data;
+    
+    int index[]= IndexSort.sortIndex(cData, nClist, sortAssendingFlag);
+    Gene sortedList[]= new Gene[nClist];
+    for(int i=0; i<nClist; i++)
+      sortedList[i]= cList[index[i]];
     for(int i=0; i<nClist; i++)
-    { /* bubble sort */
-      n= jMin;
-      for(j=(nClist-2); j>=n; j--)
-      { /* check each (j,j+1) pair */
-        cJdata= cList[j].data;
-        cJP1data= cList[j+1].data;
-        
-        if((!sortAssendingFlag && (cJdata < cJP1data)) ||
-            (sortAssendingFlag &&  (cJdata > cJP1data)))
-        { /* swap j and j+1 index */
-          tmp= cList[j];
-          cList[j]= cList[j+1];
-          cList[j+1]= tmp;
-          jMin= j;                  /* reset min n found */
-        } /* swap j and j+1 index */
-      } /* bubble sort */
-    } /* check each (j,j+1) pair */
+      cList[i]= sortedList[i];
   } /* sortGeneList */
   
   
@@ -604,7 +814,7 @@ class Gene
    */
   public String toString()
   { /* prettyPrint */
-    GridCoords gc= mae.mp.gid2fgrc[gid];
+    GridCoords gc= mae.mp.getGridCoords(gid);
     String
     sR= "{mid=" + mid +" gid="+gid +
         " ["+ gc.f +mae.mp.gName[gc.g] + gc.r + "," + gc.c+
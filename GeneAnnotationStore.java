@@ -0,0 +1,234 @@
+/** File: GeneAnnotationStore.java */
+
+import java.util.*;
+
+/**
+ * The class shares the annotation strings of the static Genes in
+ * Maps.midStaticCL.mList[]. For each column (Gene_Name, Clone_ID, plate,
+ * Gene_Class, etc.) the Gene fields with equal values are set to one
+ * String, so a value that repeats in many genes (plate names, gene
+ * classes, "", etc.) is kept only once. The fields stay filled, so
+ * GeneList, GeneClass, the table loaders and the other code that reads
+ * them directly see the same values as before.
+ *<P>
+ * The columns are shared by internGenes() after the gene tables are read.
+ * The Master_ID and MasterGeneName are not shared here since they refer
+ * to one of the column values. Repeated GenomicID[] values also share one
+ * String.
+ *<P>
+ * This file is part of MAExplorer. It is offered as open source software
+ * under the Mozilla Public License (version 1.1) subject to the
+ * limitations noted in the accompanying LEGAL file. This notice must be
+ * included with the code. The MAExplorer Mozilla and Legal files are
+ * available on http://maexplorer.sourceforge.net/.
+ *<P>
+ * @author P. Lemkin (NCI), G. Thornwall (SAIC), NCI-Frederick, Frederick, MD
+ * @version $Date$   $Revision$
+ * @see <A HREF="http://maexplorer.sourceforge.net/">MAExplorer Home</A>
+ * @see Gene#getAnnotation
+ * @see Gene#setAnnotation
+ * @see Maps#annot
+ */
+
+class GeneAnnotationStore
+{
+  /* --- Column indexes, see Gene.getAnnotation() --- */
+  /** column: Gene_Name */
+  final static int
+    GENE_NAME= 0;
+  /** column: UGclusterName */
+  final static int
+    UG_CLUSTER_NAME= 1;
+  /** column: Generic_ID */
+  final static int
+    GENERIC_ID= 2;
+  /** column: Clone_ID */
+  final static int
+    CLONE_ID= 3;
+  /** column: GenBankAcc */
+  final static int
+    GENBANK_ACC= 4;
+  /** column: GenBankAcc3 */
+  final static int
+    GENBANK_ACC3= 5;
+  /** column: GenBankAcc5 */
+  final static int
+    GENBANK_ACC5= 6;
+  /** column: Unigene_ID */
+  final static int
+    UNIGENE_ID= 7;
+  /** column: OmimID */
+  final static int
+    OMIM_ID= 8;
+  /** column: dbEST3 */
+  final static int
+    DBEST3= 9;
+  /** column: dbEST5 */
+  final static int
+    DBEST5= 10;
+  /** column: SwissProt */
+  final static int
+    SWISSPROT= 11;
+  /** column: RefSeqID */
+  final static int
+    REFSEQ_ID= 12;
+  /** column: LocusID */
+  final static int
+    LOCUS_ID= 13;
+  /** column: comments */
+  final static int
+    COMMENTS= 14;
+  /** column: Gene_Class */
+  final static int
+    GENE_CLASS= 15;
+  /** column: plate */
+  final static int
+    PLATE= 16;
+  /** column: plate_row */
+  final static int
+    PLATE_ROW= 17;
+  /** column: plate_col */
+  final static int
+    PLATE_COL= 18;
+  /** # of columns */
+  final static int
+    N_COLS= 19;
+  /** names of the columns for the status report */
+  final static String
+    colNames[]= {"Gene_Name", "UGclusterName", "Generic_ID", "Clone_ID",
+                 "GenBankAcc", "GenBankAcc3", "GenBankAcc5", "Unigene_ID",
+                 "OmimID", "dbEST3", "dbEST5", "SwissProt", "RefSeqID",
+                 "LocusID", "comments", "Gene_Class", "plate", "plate_row",
+                 "plate_col"};
+
+  /** flag: share the equal Gene annotations after loading */
+  static boolean
+    useAnnotationStoreFlag= true;
+
+  /** [N_COLS] # of distinct values of each column */
+  private int
+    nDistinctCol[];
+  /** # of MIDs [0:maxGenes-1] */
+  int
+    maxGenes;
+  /** # of Genes done */
+  int
+    nGenes= 0;
+  /** # of non-null values */
+  int
+    nStrings= 0;
+  /** # of distinct values of all columns */
+  int
+    nDistinct= 0;
+  /** # of GenomicID[] values shared with an equal value */
+  int
+    nGenomicShared= 0;
+
+
+  /**
+   * GeneAnnotationStore() - constructor for an empty store
+   * @param maxGenes is the # of MIDs [0:maxGenes-1]
+   */
+  private GeneAnnotationStore(int maxGenes)
+  { /* GeneAnnotationStore */
+    this.maxGenes= maxGenes;
+    nDistinctCol= new int[N_COLS];
+  } /* GeneAnnotationStore */
+
+
+  /**
+   * internGenes() - set the annotation fields of the static Genes with
+   * equal values to one shared String, one column at a time.
+   * @param mList is the list of static Genes [0:maxGenes-1] by mid
+   * @param maxGenes is the # of MIDs
+   * @return the store with the counts
+   * @see Gene#getAnnotation
+   * @see Gene#setAnnotation
+   */
+  static GeneAnnotationStore internGenes(Gene mList[], int maxGenes)
+  { /* internGenes */
+    GeneAnnotationStore gas= new GeneAnnotationStore(maxGenes);
+    Gene gene;
+    String
+      value,
+      shared;
+    Hashtable genomicIDs= new Hashtable();
+    int
+      i,
+      k,
+      n= Math.min(maxGenes, mList.length);
+
+    for(int col=0;col<N_COLS;col++)
+    { /* share the values of column col */
+      Hashtable values= new Hashtable();
+
+      for(i=0;i<n;i++)
+      { /* share the value of mid i */
+        gene= mList[i];
+        if(gene==null || gene.mid<0 || gene.mid>=maxGenes)
+          continue;
+        value= gene.getAnnotation(col);
+        if(value==null)
+          continue;
+        shared= (String)values.get(value);
+        if(shared==null)
+        { /* new value */
+          values.put(value, value);
+          gas.nDistinctCol[col]++;
+        }
+        else if(shared!=value)
+          gene.setAnnotation(col, shared);
+        gas.nStrings++;
+      }
+
+      gas.nDistinct += gas.nDistinctCol[col];
+    } /* share the values of column col */
+
+    for(i=0;i<n;i++)
+    { /* share the equal GenomicID[] values */
+      gene= mList[i];
+      if(gene==null || gene.GenomicID==null)
+        continue;
+      for(k=0;k<gene.GenomicID.length;k++)
+      {
+        value= gene.GenomicID[k];
+        if(value==null)
+          continue;
+        shared= (String)genomicIDs.get(value);
+        if(shared==null)
+          genomicIDs.put(value, value);
+        else if(shared!=value)
+        {
+          gene.GenomicID[k]= shared;
+          gas.nGenomicShared++;
+        }
+      }
+    }
+
+    for(i=0;i<n;i++)
+      if(mList[i]!=null)
+        gas.nGenes++;
+
+    return(gas);
+  } /* internGenes */
+
+
+  /**
+   * getStatusStr() - get the # of values and distinct values shared
+   * @return status string
+   */
+  String getStatusStr()
+  { /* getStatusStr */
+    String sR= "Gene annotation store: " + nGenes + " genes, " + nStrings +
+               " values, " + nDistinct + " distinct, " + nGenomicShared +
+               " shared genomic IDs\n";
+
+    for(int col=0;col<N_COLS;col++)
+      if(nDistinctCol[col]>0)
+        sR += "  " + colNames[col] + ": " + nDistinctCol[col] +
+              " distinct\n";
+
+    return(sR);
+  } /* getStatusStr */
+
+} /* end of class GeneAnnotationStore */
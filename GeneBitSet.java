@@ -17,6 +17,12 @@
  *       wIdx= eIdx/64 (i.e. eIdx >>> 6),
  *       bitIdx= eIdx - (wIdx*64), (i.e. wIdx<<6) 
  *</PRE>
+ * Sparse private gene sets that are never handed out (e.g. the Filter stage
+ * cache results) may instead be kept in a compressed GeneBitSetContainer
+ * cData with bitData set to null (see compress() and expand()). User gene
+ * sets and GeneList sets are not compressed since other classes read their
+ * bitData[] words directly. The set operations work across both
+ * representations.
  *<P>
  * This work was produced by Peter Lemkin of the National Cancer
  * Institute, an agency of the United States Government.  As a work of
@@ -42,14 +48,20 @@ class GeneBitSet
   final private static long
     ALL_BITS= -1;               
     
+  /** set operation code for union */
+  final static int
+    OPR_UNION= 0;
+  /** set operation code for intersection */
+  final static int
+    OPR_INTERSECTION= 1;
+  /** set operation code for difference */
+  final static int
+    OPR_DIFFERENCE= 2;
+    
   /** max # user assignable gene bit setst hat can be created */
   final static int
     MAX_USER_BS= 300;           
       
-  /** temporary bit set used in set operations */
-  private static GeneBitSet
-    tempSetBL;                      
-  
   /** [1:maxUserBS] user assignable gene bit sets. No set 0. */ 
   static GeneBitSet
     userBS[];                      
@@ -64,6 +76,9 @@ class GeneBitSet
   /** flag: selective debugging enable */ 
   static boolean
     cbsDbug;                   
+  /** flag: compress sparse private gene bit sets (see optimizeStorage()) */ 
+  static boolean
+    useCompressedSetsFlag= true;                   
     
   /* --- Instance of a GeneBitSet --- */
   /** enumeration index 0 to length-1 */
@@ -91,9 +106,17 @@ class GeneBitSet
   String
     bName;                      
                      
- /** list of nWords bit words allocated [0:maxSize-1] and active [0:highMID-1] */
+ /** list of nWords bit words allocated [0:maxSize-1] and active [0:highMID-1].
+  * It is null if the set is compressed in cData. */
   long
     bitData[]; 
+  /** compressed representation if not null, else use bitData[] */
+  GeneBitSetContainer
+    cData;
+  /** flag: the set is private to its owner and never handed out as a
+   * GeneList.bitSet or userBS[] entry, so it may be compressed */
+  boolean
+    privateSetFlag= false;
   
   /** max # 64-bit WORDS alloc'ed in bitData[] */
   int
@@ -189,8 +212,20 @@ class GeneBitSet
     if(item<0 || item>maxItems)
       return(false);                     /* bogus index */
     
+    if(cData!=null)
+    { /* compressed */
+      if(cData.add(item))
+      {
+        highMID= Math.max(item,highMID);
+        count++;
+      }
+      return(true);
+    }
+    
     wIdx= (item >>> 6);                  /* item/64 */
     bitIdx= item - (wIdx << 6);          /* i.e. item - wIdx*64 */
+    if((bitData[wIdx] & (01L << bitIdx))!=0L)
+      return(true);                      /* already set, don't count it */
     bitData[wIdx] |= (01L << bitIdx);    /* add bit to bit set */
     
     highMID= Math.max(item,highMID);
@@ -210,6 +245,15 @@ class GeneBitSet
     if(item<0 || item>maxItems)
       return(false);                 /* bogus index */
     
+    if(cData!=null)
+    { /* compressed */
+      if(!cData.add(item))
+        return(false);               /* already in the list so don't add */
+      highMID= Math.max(highMID,item);
+      count++;
+      return(true);
+    }
+    
     wIdx= (item >>> 6);              /* item/64 */
     bitIdx= item - (wIdx << 6);      /* i.e. item - wIdx*64 */
     long bit= (bitData[wIdx] & (01L << bitIdx));
@@ -241,6 +285,16 @@ class GeneBitSet
     if(item<0 || item>maxItems)
       return(false);                   /* bogus index */
     
+    if(cData!=null)
+    { /* compressed */
+      if(!cData.remove(item))
+        return(false);                 /* not in bit set */
+      count--;
+      if(item==highMID)
+        highMID= cData.highMID();
+      return(true);
+    }
+    
     wIdx= (item >>> 6);                /* item/64 */
     bitIdx= item - (wIdx << 6);        /* i.e. item - wIdx*64 */
     long bit= (bitData[wIdx] & (01L << bitIdx));
@@ -249,8 +303,10 @@ class GeneBitSet
     
     bitData[wIdx] &= (ALL_BITS - (01L << bitIdx)); /* remove bit */
     
-    /* Recompute highMID and count */
-    findCountAndhighMID(null);
+    /* Only need to search for a new highMID if we removed the old one */
+    count--;
+    if(item==highMID)
+      highMID= findHighMID(bitData, wIdx);
     
     return(true);
   } /* rmvItem */
@@ -266,6 +322,9 @@ class GeneBitSet
     if(item<0 || item>maxItems)
       return(false);                     /* bogus index */
     
+    if(cData!=null)
+      return(cData.contains(item));
+    
     wIdx= (item >>> 6);                /* item/64 */
     bitIdx= item - (wIdx << 6);        /* i.e. item - wIdx*64 */
     long bit= (bitData[wIdx] & (01L << bitIdx));
@@ -280,8 +339,11 @@ class GeneBitSet
    */
   boolean clearNull()
   { /* clearNull*/
-    for(int i=0;i<maxWords;i++)
-      bitData[i]= 0;
+    if(cData!=null)
+      cData.clear();
+    else
+      for(int i=0;i<maxWords;i++)
+        bitData[i]= 0;
     count= 0;
     highMID= -1;
     
@@ -299,36 +361,51 @@ class GeneBitSet
   int findCountAndhighMID(GeneList ml)
   { /* findCountAndhighMID */
     int
-      i,
-      item= -1;
-    long
-      word,
-      bit;
+      b,
+      mid,
+      wBase;
+    long word;
     Gene
-      midStaticMlist[]= mae.mp.midStaticCL.mList,
+      midStaticMlist[]= (ml==null) ? null : mae.mp.midStaticCL.mList,
       mList[]= (ml==null) ? null : ml.mList;
+    if(cData!=null)
+    { /* compressed */
+      count= cData.cardinality();
+      highMID= cData.highMID();
+      if(mList!=null)
+      {
+        int midList[]= cData.toArray();
+        for(int i=0;i<count;i++)
+          mList[i]= midStaticMlist[midList[i]];
+        ml.length= count;
+      }
+      return(count);
+    }
+    
     highMID= -1;
     count= 0;
     
     for(int w=0;w<maxWords;w++)
-    {
+    { /* count whole words at a time */
       word= bitData[w];
-      bit= 01L;
+      if(word==0L)
+        continue;                         /* skip empty words */
       
-      for(i=0;i<64;i++)
-      {
-        if((word & bit)!=0L)
+      if(mList==null)
+        count += Long.bitCount(word);
+      else
+      { /* walk just the set bits, low to high */
+        wBase= (w << 6);
+        while(word!=0L)
         {
-          highMID= ++item;  /* save current MID */
-          if(mList!=null)
-            mList[count]= midStaticMlist[highMID];
-          count++;
+          b= Long.numberOfTrailingZeros(word);
+          mid= wBase + b;
+          mList[count++]= midStaticMlist[mid];
+          word &= (word - 1);             /* clear lowest set bit */
         }
-        else
-          item++;
-        bit= (bit << 1);
       }
-    }
+      highMID= (w << 6) + 63 - Long.numberOfLeadingZeros(bitData[w]);
+    } /* count whole words at a time */
     
     if(ml!=null)
       ml.length= count;
@@ -343,6 +420,99 @@ class GeneBitSet
   } /* findCountAndhighMID */
   
   
+  /**
+   * findHighMID() - find highest MID set in words bitData[0:lastWord].
+   * It scans backwards and stops at the first non-zero word.
+   * @param bitData is the bit word array to search
+   * @param lastWord is the highest word index to start searching from
+   * @return highest MID, else -1 if no bits are set.
+   */
+  private static int findHighMID(long bitData[], int lastWord)
+  { /* findHighMID */
+    for(int w=lastWord;w>=0;w--)
+      if(bitData[w]!=0L)
+        return((w << 6) + 63 - Long.numberOfLeadingZeros(bitData[w]));
+    
+    return(-1);
+  } /* findHighMID */
+  
+  
+  /**
+   * forEachMID() - call visitor.visitMID(mid) for each MID in the gene bit set
+   * in increasing MID order. Empty 64-bit words are skipped without
+   * testing individual bits.
+   * @param visitor is the callback to invoke for each MID
+   * @return number of MIDs visited
+   * @see GeneBitSetVisitor
+   */
+  int forEachMID(GeneBitSetVisitor visitor)
+  { /* forEachMID */
+    if(visitor==null || highMID<0)
+      return(0);
+    if(cData!=null)
+      return(cData.forEach(visitor));
+    
+    int
+      n= 0,
+      wBase,
+      lastWord= Math.min((highMID >>> 6), maxWords-1);
+    long word;
+    
+    for(int w=0;w<=lastWord;w++)
+    {
+      word= bitData[w];
+      wBase= (w << 6);
+      while(word!=0L)
+      {
+        visitor.visitMID(wBase + Long.numberOfTrailingZeros(word));
+        n++;
+        word &= (word - 1);               /* clear lowest set bit */
+      }
+    }
+    
+    return(n);
+  } /* forEachMID */
+  
+  
+  /**
+   * toMIDArray() - get the MIDs in the gene bit set as a sorted int[] array.
+   * The array length is the actual number of bits set.
+   * @return list of MIDs [0:count-1] in increasing order
+   */
+  int[] toMIDArray()
+  { /* toMIDArray */
+    int
+      n= 0,
+      wBase,
+      lastWord= Math.min((highMID >>> 6), maxWords-1);
+    long word;
+    
+    if(highMID<0)
+      return(new int[0]);
+    if(cData!=null)
+      return(cData.toArray());
+    
+    for(int w=0;w<=lastWord;w++)
+      n += Long.bitCount(bitData[w]);
+    
+    int midList[]= new int[n];
+    
+    n= 0;
+    for(int w=0;w<=lastWord;w++)
+    {
+      word= bitData[w];
+      wBase= (w << 6);
+      while(word!=0L)
+      {
+        midList[n++]= wBase + Long.numberOfTrailingZeros(word);
+        word &= (word - 1);               /* clear lowest set bit */
+      }
+    }
+    
+    return(midList);
+  } /* toMIDArray */
+  
+  
   /**
    * cvtBStoCL() - convert GeneBitSet ml.bitSet to GeneList c1.mList[]
    * (allocate data structures if needed).
@@ -466,13 +636,18 @@ class GeneBitSet
     
     if(useCopyBitArrayFlag)
     { /* copy bit array data */
-      /* Copy b1.bitData[0:b1.maxWords-1]
-       * to   tempSetBL.bitData[0:b1.maxWords-1]
+      /* Copy b2Src.bitData[0:b1Dst.maxWords-1]
+       * to   b1Dst.bitData[0:b1Dst.maxWords-1]
       */
-      b1Dst.count= b2Src.count;
-      b1Dst.highMID= b2Src.highMID;
-      System.arraycopy((Object) b2Src.bitData, 0,
-                       (Object) b1Dst.bitData, 0, b1Dst.maxWords);
+      if(b1Dst.cData!=null || b2Src.cData!=null)
+        copyBStoBS(b1Dst, b2Src);
+      else
+      {
+        b1Dst.count= b2Src.count;
+        b1Dst.highMID= b2Src.highMID;
+        System.arraycopy((Object) b2Src.bitData, 0,
+                         (Object) b1Dst.bitData, 0, b1Dst.maxWords);
+      }
     } /* copy bit array data */
     else
     { /* copy by mList[] Gene entries to bits */
@@ -512,11 +687,28 @@ class GeneBitSet
     if(b1Dst==null || b2Src==null)
       return(false);
     
-    /* Copy b2Src.bitData[0:b2Src.maxWords-1]
-     * to   b1Dst.bitData[0:b2Src.maxWords-1]
-     */
-    System.arraycopy((Object) b2Src.bitData, 0,
-                     (Object) b1Dst.bitData, 0, b2Src.maxWords);
+    if(b1Dst==b2Src)
+      return(true);
+    
+    if(b2Src.cData!=null)
+    { /* compressed source */
+      if(b1Dst.cData!=null)
+        b1Dst.cData= b2Src.cData.copy();
+      else
+        b2Src.cData.toWords(b1Dst.bitData, b1Dst.maxWords);
+    }
+    else if(b1Dst.cData!=null)
+    { /* compressed destination */
+      b1Dst.cData= GeneBitSetContainer.fromWords(b2Src.bitData,
+                                                 b2Src.maxWords);
+    }
+    else
+    { /* Copy b2Src.bitData[0:b2Src.maxWords-1]
+       * to   b1Dst.bitData[0:b2Src.maxWords-1]
+       */
+      System.arraycopy((Object) b2Src.bitData, 0,
+                       (Object) b1Dst.bitData, 0, b2Src.maxWords);
+    }
     
     b1Dst.count= b2Src.count;
     b1Dst.highMID= b2Src.highMID;
@@ -546,207 +738,406 @@ class GeneBitSet
    */
   int nextMID()
   { /* nextMID */
-    int 
-      mid= -1,
-      wIdx;
-    boolean existsFlag;
-    long bit;
+    if(bsEnum>highMID || bsEnum<0)
+      return(-1);
     
-    while(bsEnum<=highMID)
-    {
-      wIdx= (bsEnum >>> 6);
-      bitIdx= bsEnum - (wIdx << 6);
-      bit= (bitData[wIdx] & (01L << bitIdx));
-      existsFlag= (bit!=0L);
-    /*
-    if(mae.CONSOLE_FLAG && cbsDbug)
-      mae.fio.logMsgln("CBS-nextMID bsEnum="+bsEnum+
-                       " highMID="+highMID+" wIdx="+wIdx+
-                       " bit="+bit+" existsF="+existsFlag+
-                       " bitData[wIdx]="+bitData[wIdx]+
-                       " bName="+bName);
-     */
-      if(existsFlag  /* i.e. isItemInGeneBitSet(bsEnum) */)
+    if(cData!=null)
+    { /* compressed */
+      int mid= cData.nextItem(bsEnum);
+      bsEnum= (mid==-1) ? highMID+1 : mid+1;
+      return(mid);
+    }
+    
+    int
+      w= (bsEnum >>> 6),
+      lastWord= Math.min((highMID >>> 6), maxWords-1);
+    long word= (bitData[w] & (ALL_BITS << (bsEnum & 63))); /* drop bits < bsEnum */
+    
+    while(word==0L)
+    { /* skip empty words */
+      if(++w>lastWord)
       {
-        mid= bsEnum++;
-        return(mid);
+        bsEnum= highMID+1;               /* at end of the list */
+        return(-1);
       }
-      else bsEnum++;
+      word= bitData[w];
     }
+    
+    int mid= (w << 6) + Long.numberOfTrailingZeros(word);
+    bsEnum= mid+1;
+    
     return(mid);
   } /* nextMID */
   
   
   /**
-   * union() - compute union of GeneBitSets sets (b1 & b2) ==> b3.
-   * Then, copy the results into b3.
-   * Note: b1 or b2 can be the same as b3. It will copy the result AFTER
-   * it has been computed.
+   * union() - compute union of GeneBitSets sets (b1 | b2) ==> b3.
+   * Note: b1 or b2 can be the same as b3. Each word of b3 is only written
+   * after the same word of b1 and b2 has been read, so no temporary
+   * bit set is needed. The count and highMID are accumulated as the words
+   * are computed rather than rescanning b3 afterwards.
    * @param b1 is the GeneBitSet first source operand
    * @param b2 is the GeneBitSet second source operand
    * @param b3 is the GeneBitSet destination operand
    * @return true if succeed.
-   * @see #findCountAndhighMID
+   * @see #finishBinOpr
+   * @see #mixedBinOpr
    */
   boolean union(GeneBitSet b1, GeneBitSet b2, GeneBitSet b3)
   { /* union */
-    if(b1==null || b2==null && b3==null)
+    if(b1==null || b2==null || b3==null)
       return(false);
+    if(b1.cData!=null || b2.cData!=null || b3.cData!=null)
+      return(mixedBinOpr(OPR_UNION, b1, b2, b3));
     
-    int maxWords3= b1.maxWords;
-    
-    if(tempSetBL==null)
-      tempSetBL= new GeneBitSet(mae, maxWords3, "tempSetBL", null);
-    
-      /* Copy b1.bitData[0:b1.maxWords-1]
-       * to   tempSetBL.bitData[0:b1.maxWords-1]
-       */
-    tempSetBL.count= b1.count;
-    tempSetBL.highMID= b1.highMID;
-    System.arraycopy((Object) b1.bitData, 0,
-                     (Object) tempSetBL.bitData, 0,maxWords3);
-    
+    int
+      maxWords3= Math.min(b1.maxWords, Math.min(b2.maxWords, b3.maxWords)),
+      cnt= 0,
+      lastW= -1;
     long
       b1BitData[]= b1.bitData,
       b2BitData[]= b2.bitData,
-      tempBitData[]= tempSetBL.bitData;
+      b3BitData[]= b3.bitData,
+      w3;
     
     for(int j=0; j<maxWords3; j++)
     { /* add members of b2 which are not in b1 */
-      long
-        w1= b1BitData[j],
-        w2= b2BitData[j],
-        w3= (w1 | w2);                    /* does 64-bit UNION */
-      tempBitData[j]= w3;
+      w3= (b1BitData[j] | b2BitData[j]);   /* does 64-bit UNION */
+      b3BitData[j]= w3;
+      if(w3!=0L)
+      {
+        cnt += Long.bitCount(w3);
+        lastW= j;
+      }
     } /* add members of b2 which are not in b1 */
     
-    tempSetBL.findCountAndhighMID(null);
-    
-    /* Copy tmpSetBL to b3 */
-    b3.count= tempSetBL.count;
-    b3.highMID= tempSetBL.highMID;
-    System.arraycopy((Object) tempSetBL.bitData, 0,
-                     (Object) b3.bitData, 0,maxWords3);
+    finishBinOpr(b3, maxWords3, cnt, lastW);
     
     return(true);
   } /* union */
   
   
   /**
-   * intersection() - intersection of GeneBitSets (b1 | b2) ==> b3.
-   * Then, copy the results into b3.
-   * Note: b1 or b2 can be the same as b3. It will copy the result AFTER
-   * it has been computed.
+   * intersection() - intersection of GeneBitSets (b1 & b2) ==> b3.
+   * Note: b1 or b2 can be the same as b3. Each word of b3 is only written
+   * after the same word of b1 and b2 has been read. Only the words up
+   * to the lower of the two highMIDs can be non-zero.
    * @param b1 is the GeneBitSet first source operand
    * @param b2 is the GeneBitSet second source operand
    * @param b3 is the GeneBitSet destination operand
    * @return true if succeed.
-   * @see #findCountAndhighMID
+   * @see #finishBinOpr
+   * @see #mixedBinOpr
    */
   boolean intersection(GeneBitSet b1, GeneBitSet b2, GeneBitSet b3)
   { /* intersection */
-    if(b1==null || b2==null && b3==null)
+    if(b1==null || b2==null || b3==null)
       return(false);
+    if(b1.cData!=null || b2.cData!=null || b3.cData!=null)
+      return(mixedBinOpr(OPR_INTERSECTION, b1, b2, b3));
     
-    int maxWords3= b1.maxWords;
-    
-    if(tempSetBL==null)
-      tempSetBL= new GeneBitSet(mae, mae.mp.maxGenes, "tempSetBL", null);
-    
+    int
+      maxWords3= Math.min(b1.maxWords, Math.min(b2.maxWords, b3.maxWords)),
+      lastHigh= Math.min(b1.highMID, b2.highMID),
+      nWords= (lastHigh<0) ? 0 : Math.min(maxWords3, (lastHigh >>> 6)+1),
+      cnt= 0,
+      lastW= -1;
     long
       b1BitData[]= b1.bitData,
       b2BitData[]= b2.bitData,
-      tempBitData[]= tempSetBL.bitData;
-    
-    /* Copy b1.bitData[0:b1.maxWords-1]
-     * to   tempSetBL.bitData[0:b1.maxWords-1]
-     */
-    tempSetBL.count= b1.count;
-    tempSetBL.highMID= b1.highMID;
-    System.arraycopy((Object) tempSetBL.bitData, 0,
-                     (Object) b3.bitData, 0,maxWords3);
+      b3BitData[]= b3.bitData,
+      w3;
     
-    long w1, w2, w3;
-    for(int j=0; j<maxWords3; j++)
+    for(int j=0; j<nWords; j++)
     { /* add members which are in both  b1 and b2 */
-      w1= b1BitData[j];
-      w2= b2BitData[j];
-      w3= (w1 & w2);               /* does 64-bit INTERSECTION */
-      tempBitData[j]= w3;
+      w3= (b1BitData[j] & b2BitData[j]);  /* does 64-bit INTERSECTION */
+      b3BitData[j]= w3;
+      if(w3!=0L)
+      {
+        cnt += Long.bitCount(w3);
+        lastW= j;
+      }
     } /* add members which are in both  b1 and b2 */
     
-    tempSetBL.findCountAndhighMID(null);
-    
-    /* Copy tmpSetBL to b3 */
-    b3.count= tempSetBL.count;
-    b3.highMID= tempSetBL.highMID;
-    System.arraycopy((Object) tempSetBL.bitData, 0,
-                     (Object) b3.bitData, 0,maxWords3);
+    finishBinOpr(b3, nWords, cnt, lastW);
     
     return(true);
   } /* intersection */
   
   
   /**
-   * difference() - difference of GeneBitSets (b2 - b1)==> b3.
+   * difference() - difference of GeneBitSets (b1 - b2)==> b3.
    * That is, subtract items in b1 that are in b2 but DON'T subtract
    * items in b1 that are not in b2 - this is assymetric!
-   * The results are copied into b3.
-   * Note: b1 or b2 can be the same as b3. It will copy the result AFTER
-   * it has been computed.
+   * Note: b1 or b2 can be the same as b3. Each word of b3 is only written
+   * after the same word of b1 and b2 has been read. Only the words up
+   * to b1.highMID can be non-zero.
    * @param b1 is the GeneBitSet first source operand
    * @param b2 is the GeneBitSet second source operand
    * @param b3 is the GeneBitSet destination operand
    * @return true if succeed.
-   * @see #findCountAndhighMID
+   * @see #finishBinOpr
+   * @see #mixedBinOpr
    */
   boolean difference(GeneBitSet b1, GeneBitSet b2, GeneBitSet b3)
   { /* difference */
-    if(b1==null || b2==null && b3==null)
+    if(b1==null || b2==null || b3==null)
       return(false);
+    if(b1.cData!=null || b2.cData!=null || b3.cData!=null)
+      return(mixedBinOpr(OPR_DIFFERENCE, b1, b2, b3));
     
-    int maxWords3= b1.maxWords;
-    
-    if(tempSetBL==null)
-      tempSetBL= new GeneBitSet(mae, maxWords3, "tempSetBL", null);
-    
+    int
+      maxWords3= Math.min(b1.maxWords, Math.min(b2.maxWords, b3.maxWords)),
+      nWords= (b1.highMID<0) ? 0 : Math.min(maxWords3, (b1.highMID >>> 6)+1),
+      cnt= 0,
+      lastW= -1;
     long
       b1BitData[]= b1.bitData,
       b2BitData[]= b2.bitData,
-      tempBitData[]= tempSetBL.bitData;
+      b3BitData[]= b3.bitData,
+      w3;
+    
+    for(int j=0; j<nWords; j++)
+    { /* remove members of b2 which are in b1 */
+      w3= (b1BitData[j] & ~b2BitData[j]); /* does 64-bit SET DIFFERENCE */
+      b3BitData[j]= w3;
+      if(w3!=0L)
+      {
+        cnt += Long.bitCount(w3);
+        lastW= j;
+      }
+    } /* remove members of b2 which are in b1 */
     
-    /* Copy b1.bitData[0:b1.maxWords-1]
-     * to   tempSetBL.bitData[0:b1.maxWords-1]
-     */
-    tempSetBL.count= b1.count;
-    tempSetBL.highMID= b1.highMID;
-    System.arraycopy((Object) b1.bitData, 0,
-                     (Object) tempSetBL.bitData, 0, b1.maxWords);
+    finishBinOpr(b3, nWords, cnt, lastW);
     
+    return(true);
+  } /* difference */
+  
+  
+  /**
+   * finishBinOpr() - finish a binary set operation by clearing the unused
+   * words b3.bitData[nWords:b3.maxWords-1] above the words that were computed
+   * and setting the b3 count and highMID that were accumulated.
+   * @param b3 is the GeneBitSet destination operand
+   * @param nWords is the number of words that were computed
+   * @param cnt is the number of bits set in the computed words
+   * @param lastW is the index of the last non-zero word, else -1
+   */
+  private static void finishBinOpr(GeneBitSet b3, int nWords, int cnt,
+                                   int lastW)
+  { /* finishBinOpr */
+    long b3BitData[]= b3.bitData;
+    
+    for(int j=nWords; j<b3.maxWords; j++)
+      if(b3BitData[j]!=0L)
+        b3BitData[j]= 0L;             /* clear stale words */
+    
+    b3.count= cnt;
+    b3.highMID= (lastW<0)
+                  ? -1
+                  : (lastW << 6) + 63 - Long.numberOfLeadingZeros(b3BitData[lastW]);
+  } /* finishBinOpr */
+  
+  
+  /**
+   * mixedBinOpr() - binary set operation (b1 opr b2) ==> b3 where any of the
+   * operands may be compressed. It works one GeneBitSetContainer chunk at
+   * a time: each operand chunk is decoded to CHUNK_WORDS bit words, combined
+   * and then either re-encoded by density (if b3 is compressed) or copied
+   * to b3.bitData[]. A compressed b3 gets a new container, so b1 or b2
+   * can be the same as b3.
+   * @param opr is OPR_UNION, OPR_INTERSECTION or OPR_DIFFERENCE
+   * @param b1 is the GeneBitSet first source operand
+   * @param b2 is the GeneBitSet second source operand
+   * @param b3 is the GeneBitSet destination operand
+   * @return true if succeed.
+   * @see #getChunkWords
+   * @see GeneBitSetContainer#setChunk
+   */
+  private static boolean mixedBinOpr(int opr, GeneBitSet b1, GeneBitSet b2,
+                                     GeneBitSet b3)
+  { /* mixedBinOpr */
+    int
+      chunkWords= GeneBitSetContainer.CHUNK_WORDS,
+      nChunks= ((b3.maxWords-1) >>> 10) + 1,
+      cnt= 0,
+      lastW= -1,
+      w0,
+      n;
     long
-      w1, w2, w3,
-      w2Complement;
-    for(int j=0; j<maxWords3; j++)
-    { /* add members of b2 which are not in b1 */
-      w1= b1BitData[j];
-      w2= b2BitData[j];
-      //w2Complement= - (0X00 | w2);
-      w2Complement= -(w2+1);     /* 1's complement */
-      w3= (w1 & w2Complement);   /* does  64-bit SET DIFFERENCE */
-      tempBitData[j]= w3;
-    } /* add members of b2 which are not in b1 */
+      w1[]= new long[chunkWords],
+      w2[]= new long[chunkWords],
+      w3,
+      lastWord= 0L;
+    GeneBitSetContainer r3= (b3.cData!=null)
+                              ? new GeneBitSetContainer(b3.maxWords) : null;
+    
+    for(int k=0;k<nChunks;k++)
+    { /* process a chunk */
+      b1.getChunkWords(k, w1);
+      b2.getChunkWords(k, w2);
+      for(int j=0;j<chunkWords;j++)
+      { /* result is left in w1[] */
+        if(opr==OPR_UNION)
+          w3= (w1[j] | w2[j]);
+        else if(opr==OPR_INTERSECTION)
+          w3= (w1[j] & w2[j]);
+        else
+          w3= (w1[j] & ~w2[j]);
+        w1[j]= w3;
+        if(w3!=0L)
+        {
+          cnt += Long.bitCount(w3);
+          lastW= (k << 10) + j;
+          lastWord= w3;
+        }
+      }
+      
+      if(r3!=null)
+        r3.setChunk(k, w1);
+      else
+      { /* copy chunk to b3 bit words */
+        w0= (k << 10);
+        n= Math.min(chunkWords, b3.maxWords-w0);
+        System.arraycopy(w1, 0, b3.bitData, w0, n);
+      }
+    } /* process a chunk */
     
-    tempSetBL.findCountAndhighMID(null);
+    if(r3!=null)
+      b3.cData= r3;
+    b3.count= cnt;
+    b3.highMID= (lastW<0)
+                  ? -1
+                  : (lastW << 6) + 63 - Long.numberOfLeadingZeros(lastWord);
     
-    /* Copy tmpSetBL to b3 */
-    b3.count= tempSetBL.count;
-    b3.highMID= tempSetBL.highMID;
-    System.arraycopy((Object) b3.bitData, 0,
-                     (Object) tempSetBL.bitData, 0,maxWords3);
+    return(true);
+  } /* mixedBinOpr */
+  
+  
+  /**
+   * getChunkWords() - get GeneBitSetContainer chunk k of this set as
+   * CHUNK_WORDS bit words in either representation.
+   * @param k is the chunk number
+   * @param dst is the CHUNK_WORDS destination
+   */
+  void getChunkWords(int k, long dst[])
+  { /* getChunkWords */
+    if(cData!=null)
+    {
+      if(k<cData.nChunks)
+        cData.decodeChunk(k, dst, 0, GeneBitSetContainer.CHUNK_WORDS);
+      else
+        for(int j=0;j<dst.length;j++)
+          dst[j]= 0L;
+    }
+    else
+      GeneBitSetContainer.getWordsChunk(bitData, maxWords, k, dst);
+  } /* getChunkWords */
+  
+  
+  /**
+   * compress() - convert the set to the compressed GeneBitSetContainer
+   * representation if that uses less memory than the bitData[] words.
+   * Only private sets (privateSetFlag) are compressed. Other sets may be
+   * handed out as a GeneList.bitSet or userBS[] entry, and the code using
+   * them reads the bitData[] words directly.
+   * @return true if the set is compressed
+   * @see GeneBitSetContainer#fromWords
+   */
+  boolean compress()
+  { /* compress */
+    if(cData!=null)
+      return(true);
+    if(!privateSetFlag || ml!=null)
+      return(false);
+    
+    GeneBitSetContainer gbsc= GeneBitSetContainer.fromWords(bitData, maxWords);
+    if(gbsc.sizeInBytes() >= getBitDataSizeInBytes())
+      return(false);            /* not worth it */
     
+    cData= gbsc;
+    bitData= null;
     
     return(true);
-  } /* difference */
+  } /* compress */
+  
+  
+  /**
+   * expand() - convert the set back to the bitData[] word representation
+   * if it is compressed.
+   * @return bitData[] words
+   * @see GeneBitSetContainer#toWords
+   */
+  long[] expand()
+  { /* expand */
+    if(cData!=null)
+    {
+      bitData= new long[maxWords];
+      cData.toWords(bitData, maxWords);
+      cData= null;
+    }
+    
+    return(bitData);
+  } /* expand */
+  
+  
+  /**
+   * getWords() - get the set as bit words without changing its
+   * representation. If it is compressed, a decoded copy is returned.
+   * @return [0:maxWords-1] bit words
+   */
+  long[] getWords()
+  { /* getWords */
+    if(cData==null)
+      return(bitData);
+    
+    long words[]= new long[maxWords];
+    cData.toWords(words, maxWords);
+    
+    return(words);
+  } /* getWords */
+  
+  
+  /**
+   * optimizeStorage() - compress the set if compression is enabled and
+   * the set is private, else make sure it uses the bitData[] word
+   * representation.
+   * @see #compress
+   * @see #expand
+   */
+  void optimizeStorage()
+  { /* optimizeStorage */
+    if(!useCompressedSetsFlag || !privateSetFlag)
+      expand();
+    else
+    { /* recompress from scratch so chunks are re-encoded by density */
+      expand();
+      compress();
+    }
+  } /* optimizeStorage */
+  
+  
+  /**
+   * getBitDataSizeInBytes() - estimate the heap size of bitData[] words.
+   * @return estimated # of bytes
+   */
+  long getBitDataSizeInBytes()
+  { /* getBitDataSizeInBytes */
+    return(16 + 8L*maxWords);
+  } /* getBitDataSizeInBytes */
+  
+  
+  /**
+   * getSizeInBytes() - estimate the heap size of this set's data in bytes.
+   * @return estimated # of bytes
+   */
+  long getSizeInBytes()
+  { /* getSizeInBytes */
+    if(cData!=null)
+      return(cData.sizeInBytes());
+    
+    return(getBitDataSizeInBytes());
+  } /* getSizeInBytes */
   
   
   /**
@@ -838,6 +1229,71 @@ class GeneBitSet
   } /* getListGeneBitSetsStr */
   
   
+  /**
+   * listGeneBitSetsMemory() - popup a text window to list the memory used
+   * by each of the user's gene sets.
+   * @see ShowStringPopup
+   * @see #getGeneBitSetsMemoryStr
+   */
+  void listGeneBitSetsMemory()
+  { /* listGeneBitSetsMemory */
+    String sR= getGeneBitSetsMemoryStr();
+    
+    ShowStringPopup t= new ShowStringPopup(mae,sR,30,70,
+                                           mae.rptFontSize,
+                                           "User Gene Sets Memory",
+                                           0, 0, "UserGeneSetsMemory",
+                                           PopupRegistry.UNIQUE,
+                                           "maeGeneSetsMemory.txt");
+  } /* listGeneBitSetsMemory */
+  
+  
+  /**
+   * getGeneBitSetsMemoryStr() - report the representation and estimated bytes
+   * used by each active GeneBitSet in userBS[] and the total.
+   * @return print string report
+   * @see #getSizeInBytes
+   * @see #getBitDataSizeInBytes
+   * @see GeneBitSetContainer#getTypeStr
+   */
+  String getGeneBitSetsMemoryStr()
+  { /* getGeneBitSetsMemoryStr */
+    long
+      nBytes,
+      nBitDataBytes,
+      totBytes= 0,
+      totBitDataBytes= 0;
+    String
+      sRep,
+      sR= "User Gene Sets Memory\n"+
+          "Set# |#genes| representation | bytes | bytes as bitmap | title\n"+
+          "==========================================================\n";
+    GeneBitSet ubs;
+    
+    for(int i=1;i<=maxUserBS;i++)
+    { /* add all active bit sets */
+      ubs= userBS[i];
+      if(ubs==null)
+        continue;                 /* no set at this slot */
+      nBytes= ubs.getSizeInBytes();
+      nBitDataBytes= ubs.getBitDataSizeInBytes();
+      totBytes += nBytes;
+      totBitDataBytes += nBitDataBytes;
+      sRep= (ubs.cData!=null)
+              ? ("compressed:"+ubs.cData.getTypeStr())
+              : "bitmap";
+      sR += " #" + i + " |" + ubs.count + "| " + sRep + " | " + nBytes +
+            " | " + nBitDataBytes + " | " + ubs.bName + "\n";
+    }
+    
+    sR += "----------------------------------------------------------\n"+
+          "Total bytes= " + totBytes + " (" + totBitDataBytes +
+          " if all sets were bitmaps)\n";
+    
+    return(sR);
+  } /* getGeneBitSetsMemoryStr */
+  
+  
   /**
    * getGBSnames() - return String array of active Gene Bit Set names.
    * @return list of gene bit set names
@@ -1264,6 +1720,52 @@ class GeneBitSet
   } /* assignCSbinOprToUserBS */
   
   
+  /**
+   * assignCSexprToUserBS() - assign a Boolean gene set expression to a new
+   * user GeneBitSet. The expression is compiled and evaluated in one pass,
+   * e.g. "(A & B & !C) | D".
+   * If there is a GeneList associated with the destination bit set
+   * then update its mList[0:length-1].
+   * @param exprStr is the gene set expression
+   * @param userSetName is the name of the destination bit set operand
+   * @return true if succeed
+   * @see GeneSetExpr
+   * @see Util#showMsg
+   * @see #lookupGeneSetByName
+   * @see #lookupOrMakeNewGeneBitSet
+   */
+  boolean assignCSexprToUserBS(String exprStr, String userSetName)
+  { /* assignCSexprToUserBS */
+    if(exprStr==null || userSetName==null || userSetName.length()==0)
+      return(false);
+    
+    GeneSetExpr gse= new GeneSetExpr(mae, exprStr);
+    if(!gse.isValid())
+    {
+      Util.showMsg("Bad gene set expression: "+gse.errMsg);
+      return(false);
+    }
+    
+    int b3= lookupGeneSetByName(userSetName, true);
+    if(b3==-1)
+    { /* lookup existing set or create a new set with userSetName */
+      b3= lookupOrMakeNewGeneBitSet(userSetName,null);
+      if(b3==-1)
+        return(false);
+    }
+    GeneBitSet bs3= userBS[b3];
+    
+    boolean flag= gse.evaluate(bs3);
+    
+    /* Update associated GeneList for b3 if it exists */
+    GeneList cl3= bs3.ml;
+    if(cl3!=null && cl3.mList!=null)
+      copyBStoCL(cl3, bs3);
+    
+    return(flag);
+  } /* assignCSexprToUserBS */
+  
+  
   /**
    * cleanup() - cleanup global static allocated variables in this class.
    * If statics are added later to this class, then set them to
@@ -1271,7 +1773,6 @@ class GeneBitSet
    */
   void cleanup()
   { /* cleanup */
-    tempSetBL= null;
     userBS= null;
     nUserBS= 0;
     maxUserBS= 0;
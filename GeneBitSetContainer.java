@@ -0,0 +1,837 @@
+/** File: GeneBitSetContainer.java */
+
+import java.util.Arrays;
+
+/**
+ * The class is the compressed (Roaring-style) alternate representation of
+ * a GeneBitSet. It is used for sparse private gene sets that are never
+ * handed out (e.g. the Filter stage cache results), where allocating
+ * maxWords 64-bit words sized to maxGenes would waste memory. User gene
+ * sets and GeneList sets keep their bitData[] words (see
+ * GeneBitSet.compress()).
+ * The MID space is split into chunks of 65536 items. Each chunk is kept
+ * in the smallest of three representations depending on its density:
+ *<PRE>
+ *  ARRAY  - sorted list of the low 16 bits of each item: char[card]
+ *           (only if card &le; ARRAY_MAX).
+ *  BITMAP - 1024 64-bit words: long[CHUNK_WORDS].
+ *  RUN    - list of (start, length-1) runs of consecutive items: char[2*nRuns].
+ *  EMPTY  - no items, no storage.
+ *</PRE>
+ * Operations between chunks of mixed representations are done by decoding
+ * a chunk into a scratch CHUNK_WORDS bitmap (see decodeChunk()) and then
+ * re-encoding the result by density (see setChunk()).
+ *<P>
+ * This file is part of MAExplorer. It is offered as open source software
+ * under the Mozilla Public License (version 1.1) subject to the
+ * limitations noted in the accompanying LEGAL file. This notice must be
+ * included with the code. The MAExplorer Mozilla and Legal files are
+ * available on http://maexplorer.sourceforge.net/.
+ *<P>
+ * @author P. Lemkin (NCI), G. Thornwall (SAIC), NCI-Frederick, Frederick, MD
+ * @version $Date$   $Revision$
+ * @see <A HREF="http://maexplorer.sourceforge.net/">MAExplorer Home</A>
+ * @see GeneBitSet
+ */
+
+class GeneBitSetContainer
+{
+  /** # of items in a chunk is 2^CHUNK_SHIFT */
+  final static int
+    CHUNK_SHIFT= 16;
+  /** # of items in a chunk */
+  final static int
+    CHUNK_SIZE= (1 << CHUNK_SHIFT);
+  /** # of 64-bit words in a BITMAP chunk */
+  final static int
+    CHUNK_WORDS= (CHUNK_SIZE >>> 6);
+  /** max cardinality of an ARRAY chunk before it becomes a BITMAP chunk */
+  final static int
+    ARRAY_MAX= 4096;
+
+  /** chunk type: no items */
+  final static byte
+    EMPTY= 0;
+  /** chunk type: sorted array of low 16 bits */
+  final static byte
+    ARRAY= 1;
+  /** chunk type: 64-bit word bitmap */
+  final static byte
+    BITMAP= 2;
+  /** chunk type: (start, length-1) runs */
+  final static byte
+    RUN= 3;
+  /** names of chunk types for reports, indexed by chunk type */
+  final static String
+    typeNames[]= {"empty", "array", "bitmap", "run"};
+
+  /** 0XFFFFFFFFFFFFFFFF is all 64-bits */
+  final private static long
+    ALL_BITS= -1;
+
+  /** # of chunks [0:nChunks-1] */
+  int
+    nChunks;
+  /** [0:nChunks-1] chunk type EMPTY, ARRAY, BITMAP or RUN */
+  byte
+    type[];
+  /** [0:nChunks-1] # of items in each chunk */
+  int
+    card[];
+  /** [0:nChunks-1] # of runs in each RUN chunk */
+  int
+    nRuns[];
+  /** [0:nChunks-1] ARRAY chunk data [0:card-1] or RUN chunk data [0:2*nRuns-1] */
+  char
+    shortData[][];
+  /** [0:nChunks-1] BITMAP chunk data [0:CHUNK_WORDS-1] */
+  long
+    bitmap[][];
+
+
+  /**
+   * GeneBitSetContainer() - constructor to create an empty container
+   * able to hold the same items as a maxWords 64-bit word bit set.
+   * @param maxWords is the # of 64-bit words in the equivalent bit set
+   */
+  GeneBitSetContainer(int maxWords)
+  { /* GeneBitSetContainer */
+    nChunks= ((Math.max(maxWords,1)-1) >>> 10) + 1;
+    type= new byte[nChunks];      /* allocates EMPTY */
+    card= new int[nChunks];
+    nRuns= new int[nChunks];
+    shortData= new char[nChunks][];
+    bitmap= new long[nChunks][];
+  } /* GeneBitSetContainer */
+
+
+  /**
+   * fromWords() - create a new container from a bit set words[0:nWords-1].
+   * Each chunk is encoded in its smallest representation.
+   * @param words is the 64-bit word bit set data
+   * @param nWords is the # of words in words[]
+   * @return new container
+   * @see #getWordsChunk
+   * @see #setChunk
+   */
+  static GeneBitSetContainer fromWords(long words[], int nWords)
+  { /* fromWords */
+    GeneBitSetContainer gbsc= new GeneBitSetContainer(nWords);
+    long scratch[]= new long[CHUNK_WORDS];
+
+    for(int k=0;k<gbsc.nChunks;k++)
+    {
+      getWordsChunk(words, nWords, k, scratch);
+      gbsc.setChunk(k, scratch);
+    }
+
+    return(gbsc);
+  } /* fromWords */
+
+
+  /**
+   * copy() - make a deep copy of this container.
+   * @return new container
+   */
+  GeneBitSetContainer copy()
+  { /* copy */
+    GeneBitSetContainer gbsc= new GeneBitSetContainer(nChunks << 10);
+
+    System.arraycopy(type, 0, gbsc.type, 0, nChunks);
+    System.arraycopy(card, 0, gbsc.card, 0, nChunks);
+    System.arraycopy(nRuns, 0, gbsc.nRuns, 0, nChunks);
+    for(int k=0;k<nChunks;k++)
+    {
+      if(shortData[k]!=null)
+        gbsc.shortData[k]= (char[])shortData[k].clone();
+      if(bitmap[k]!=null)
+        gbsc.bitmap[k]= (long[])bitmap[k].clone();
+    }
+
+    return(gbsc);
+  } /* copy */
+
+
+  /**
+   * clear() - remove all items from the container and release chunk storage.
+   */
+  void clear()
+  { /* clear */
+    for(int k=0;k<nChunks;k++)
+    {
+      type[k]= EMPTY;
+      card[k]= 0;
+      nRuns[k]= 0;
+      shortData[k]= null;
+      bitmap[k]= null;
+    }
+  } /* clear */
+
+
+  /**
+   * getWordsChunk() - copy chunk k of bit set words[0:nWords-1] to dst[0:CHUNK_WORDS-1].
+   * Words past the end of words[] are set to 0.
+   * @param words is the 64-bit word bit set data
+   * @param nWords is the # of words in words[]
+   * @param k is the chunk number
+   * @param dst is the CHUNK_WORDS destination
+   */
+  static void getWordsChunk(long words[], int nWords, int k, long dst[])
+  { /* getWordsChunk */
+    int
+      w0= (k << 10),
+      n= Math.max(0, Math.min(CHUNK_WORDS, nWords-w0));
+
+    if(n>0)
+      System.arraycopy(words, w0, dst, 0, n);
+    for(int i=n;i<CHUNK_WORDS;i++)
+      dst[i]= 0L;
+  } /* getWordsChunk */
+
+
+  /**
+   * toWords() - decode the container into bit set words[0:nWords-1].
+   * @param words is the 64-bit word bit set destination
+   * @param nWords is the # of words in words[]
+   * @see #decodeChunk
+   */
+  void toWords(long words[], int nWords)
+  { /* toWords */
+    int w0, n;
+
+    for(int k=0;k<nChunks;k++)
+    {
+      w0= (k << 10);
+      n= Math.min(CHUNK_WORDS, nWords-w0);
+      if(n<=0)
+        break;
+      decodeChunk(k, words, w0, n);
+    }
+  } /* toWords */
+
+
+  /**
+   * decodeChunk() - decode chunk k into dst[off:off+n-1] bit words.
+   * @param k is the chunk number
+   * @param dst is the destination word array
+   * @param off is the offset in dst[]
+   * @param n is the # of words to decode (at most CHUNK_WORDS)
+   * @see #setRange
+   */
+  void decodeChunk(int k, long dst[], int off, int n)
+  { /* decodeChunk */
+    int i, v, w;
+    char sd[]= shortData[k];
+
+    switch(type[k])
+    {
+      case BITMAP:
+        System.arraycopy(bitmap[k], 0, dst, off, n);
+        return;
+
+      case ARRAY:
+        for(i=0;i<n;i++)
+          dst[off+i]= 0L;
+        for(i=0;i<card[k];i++)
+        {
+          v= sd[i];
+          w= (v >>> 6);
+          if(w<n)
+            dst[off+w] |= (01L << (v & 63));
+        }
+        return;
+
+      case RUN:
+        for(i=0;i<n;i++)
+          dst[off+i]= 0L;
+        for(i=0;i<nRuns[k];i++)
+        {
+          v= sd[2*i];
+          setRange(dst, off, n, v, v + sd[2*i+1]);
+        }
+        return;
+
+      default:
+        for(i=0;i<n;i++)
+          dst[off+i]= 0L;
+    }
+  } /* decodeChunk */
+
+
+  /**
+   * setRange() - set bits [start:end] in dst[off:off+n-1] bit words.
+   * @param dst is the destination word array
+   * @param off is the offset in dst[]
+   * @param n is the # of words in the destination
+   * @param start is the first bit to set
+   * @param end is the last bit to set (inclusive)
+   */
+  private static void setRange(long dst[], int off, int n, int start, int end)
+  { /* setRange */
+    int
+      w0= (start >>> 6),
+      w1= (end >>> 6);
+
+    if(w0>=n)
+      return;
+    if(w1>=n)
+    { /* clip to destination */
+      w1= n-1;
+      end= (n << 6) - 1;
+    }
+
+    long
+      m0= (ALL_BITS << (start & 63)),
+      m1= (ALL_BITS >>> (63 - (end & 63)));
+
+    if(w0==w1)
+      dst[off+w0] |= (m0 & m1);
+    else
+    {
+      dst[off+w0] |= m0;
+      for(int w=w0+1;w<w1;w++)
+        dst[off+w]= ALL_BITS;
+      dst[off+w1] |= m1;
+    }
+  } /* setRange */
+
+
+  /**
+   * setChunk() - encode chunk k from src[0:CHUNK_WORDS-1] bit words using the
+   * smallest representation. RUN is used if it is smaller than both ARRAY
+   * and BITMAP, else ARRAY if card &le; ARRAY_MAX, else BITMAP.
+   * @param k is the chunk number
+   * @param src is the CHUNK_WORDS source bit words. It is not changed.
+   */
+  void setChunk(int k, long src[])
+  { /* setChunk */
+    int
+      c= 0,
+      runs= 0,
+      i;
+    long
+      w,
+      carry= 0L;
+
+    for(i=0;i<CHUNK_WORDS;i++)
+    { /* count items and run starts */
+      w= src[i];
+      if(w==0L && carry==0L)
+        continue;
+      c += Long.bitCount(w);
+      runs += Long.bitCount(w & ~((w << 1) | carry)); /* bit set, previous not */
+      carry= (w >>> 63);
+    }
+
+    card[k]= c;
+    nRuns[k]= 0;
+    shortData[k]= null;
+    if(c==0)
+    {
+      type[k]= EMPTY;
+      bitmap[k]= null;
+      return;
+    }
+
+    int
+      arrayBytes= 2*c,
+      runBytes= 4*runs,
+      bitmapBytes= 8*CHUNK_WORDS;
+
+    if(runBytes < Math.min(arrayBytes, bitmapBytes))
+    { /* encode as (start, length-1) runs */
+      char sd[]= new char[2*runs];
+      int
+        start,
+        end= 0,
+        r= 0;
+      while(r<runs)
+      {
+        start= nextSetBit(src, end);
+        end= nextClearBit(src, start);
+        sd[2*r]= (char)start;
+        sd[2*r+1]= (char)(end - start - 1);
+        r++;
+      }
+      type[k]= RUN;
+      nRuns[k]= runs;
+      shortData[k]= sd;
+      bitmap[k]= null;
+    }
+    else if(c<=ARRAY_MAX)
+    { /* encode as sorted array */
+      char sd[]= new char[c];
+      int n= 0;
+      for(i=0;i<CHUNK_WORDS;i++)
+      {
+        w= src[i];
+        while(w!=0L)
+        {
+          sd[n++]= (char)((i << 6) + Long.numberOfTrailingZeros(w));
+          w &= (w - 1);
+        }
+      }
+      type[k]= ARRAY;
+      shortData[k]= sd;
+      bitmap[k]= null;
+    }
+    else
+    { /* keep as bitmap */
+      if(bitmap[k]==null)
+        bitmap[k]= new long[CHUNK_WORDS];
+      System.arraycopy(src, 0, bitmap[k], 0, CHUNK_WORDS);
+      type[k]= BITMAP;
+    }
+  } /* setChunk */
+
+
+  /**
+   * nextSetBit() - find first set bit at or after bit from in src[0:CHUNK_WORDS-1].
+   * @param src is the chunk bit words
+   * @param from is the starting bit
+   * @return bit index, else CHUNK_SIZE if none.
+   */
+  private static int nextSetBit(long src[], int from)
+  { /* nextSetBit */
+    if(from>=CHUNK_SIZE)
+      return(CHUNK_SIZE);
+    int w= (from >>> 6);
+    long word= (src[w] & (ALL_BITS << (from & 63)));
+
+    while(word==0L)
+    {
+      if(++w>=CHUNK_WORDS)
+        return(CHUNK_SIZE);
+      word= src[w];
+    }
+
+    return((w << 6) + Long.numberOfTrailingZeros(word));
+  } /* nextSetBit */
+
+
+  /**
+   * nextClearBit() - find first clear bit at or after bit from in src[0:CHUNK_WORDS-1].
+   * @param src is the chunk bit words
+   * @param from is the starting bit
+   * @return bit index, else CHUNK_SIZE if none.
+   */
+  private static int nextClearBit(long src[], int from)
+  { /* nextClearBit */
+    if(from>=CHUNK_SIZE)
+      return(CHUNK_SIZE);
+    int w= (from >>> 6);
+    long word= (~src[w] & (ALL_BITS << (from & 63)));
+
+    while(word==0L)
+    {
+      if(++w>=CHUNK_WORDS)
+        return(CHUNK_SIZE);
+      word= ~src[w];
+    }
+
+    return((w << 6) + Long.numberOfTrailingZeros(word));
+  } /* nextClearBit */
+
+
+  /**
+   * findRun() - find the index of the last run in RUN chunk k with start &le; v.
+   * @param k is the chunk number
+   * @param v is the low 16 bits of the item
+   * @return run index, else -1 if v is before the first run.
+   */
+  private int findRun(int k, int v)
+  { /* findRun */
+    char sd[]= shortData[k];
+    int
+      lo= 0,
+      hi= nRuns[k]-1,
+      mid;
+
+    while(lo<=hi)
+    {
+      mid= (lo + hi) >>> 1;
+      if(sd[2*mid] <= v)
+        lo= mid+1;
+      else
+        hi= mid-1;
+    }
+
+    return(hi);
+  } /* findRun */
+
+
+  /**
+   * contains() - test if item is in the container.
+   * @param item (i.e. MID) to test
+   * @return true if item is in the container
+   */
+  boolean contains(int item)
+  { /* contains */
+    int k= (item >>> CHUNK_SHIFT);
+    if(item<0 || k>=nChunks)
+      return(false);
+    int v= (item & (CHUNK_SIZE-1));
+
+    switch(type[k])
+    {
+      case ARRAY:
+        return(Arrays.binarySearch(shortData[k], 0, card[k], (char)v) >= 0);
+
+      case BITMAP:
+        return((bitmap[k][v >>> 6] & (01L << (v & 63))) != 0L);
+
+      case RUN:
+        int r= findRun(k, v);
+        return(r>=0 && v <= shortData[k][2*r] + shortData[k][2*r+1]);
+
+      default:
+        return(false);
+    }
+  } /* contains */
+
+
+  /**
+   * add() - add item to the container. ARRAY chunks that grow past ARRAY_MAX
+   * become BITMAP chunks. RUN chunks are decoded, changed and re-encoded.
+   * @param item (i.e. MID) to add
+   * @return true if added, false if already in the container or bogus item.
+   */
+  boolean add(int item)
+  { /* add */
+    int k= (item >>> CHUNK_SHIFT);
+    if(item<0 || k>=nChunks || contains(item))
+      return(false);
+    int v= (item & (CHUNK_SIZE-1));
+
+    switch(type[k])
+    {
+      case EMPTY:
+        shortData[k]= new char[4];
+        shortData[k][0]= (char)v;
+        card[k]= 1;
+        type[k]= ARRAY;
+        return(true);
+
+      case ARRAY:
+        if(card[k] < ARRAY_MAX)
+        { /* insert in sorted order */
+          char sd[]= shortData[k];
+          int
+            c= card[k],
+            pos= -(Arrays.binarySearch(sd, 0, c, (char)v) + 1);
+          if(c==sd.length)
+          { /* grow */
+            char sdNew[]= new char[Math.min(ARRAY_MAX, 2*c)];
+            System.arraycopy(sd, 0, sdNew, 0, c);
+            sd= sdNew;
+            shortData[k]= sd;
+          }
+          System.arraycopy(sd, pos, sd, pos+1, c-pos);
+          sd[pos]= (char)v;
+          card[k]++;
+          return(true);
+        }
+        break;                     /* convert to bitmap below */
+
+      case BITMAP:
+        bitmap[k][v >>> 6] |= (01L << (v & 63));
+        card[k]++;
+        return(true);
+    }
+
+    /* Decode ARRAY or RUN chunk, add item and re-encode it */
+    long scratch[]= new long[CHUNK_WORDS];
+    decodeChunk(k, scratch, 0, CHUNK_WORDS);
+    scratch[v >>> 6] |= (01L << (v & 63));
+    setChunk(k, scratch);
+
+    return(true);
+  } /* add */
+
+
+  /**
+   * remove() - remove item from the container. BITMAP chunks that fall
+   * to ARRAY_MAX items are re-encoded.
+   * @param item (i.e. MID) to remove
+   * @return true if removed, false if not in the container.
+   */
+  boolean remove(int item)
+  { /* remove */
+    if(!contains(item))
+      return(false);
+    int
+      k= (item >>> CHUNK_SHIFT),
+      v= (item & (CHUNK_SIZE-1));
+
+    if(type[k]==ARRAY)
+    { /* remove from sorted list */
+      char sd[]= shortData[k];
+      int
+        c= card[k],
+        pos= Arrays.binarySearch(sd, 0, c, (char)v);
+      System.arraycopy(sd, pos+1, sd, pos, c-pos-1);
+      card[k]--;
+      if(card[k]==0)
+      {
+        type[k]= EMPTY;
+        shortData[k]= null;
+      }
+      return(true);
+    }
+
+    if(type[k]==BITMAP)
+    {
+      bitmap[k][v >>> 6] &= ~(01L << (v & 63));
+      card[k]--;
+      if(card[k] > ARRAY_MAX)
+        return(true);
+    }
+
+    /* Decode RUN or small BITMAP chunk, remove item and re-encode it */
+    long scratch[]= new long[CHUNK_WORDS];
+    decodeChunk(k, scratch, 0, CHUNK_WORDS);
+    scratch[v >>> 6] &= ~(01L << (v & 63));
+    setChunk(k, scratch);
+
+    return(true);
+  } /* remove */
+
+
+  /**
+   * cardinality() - get the # of items in the container.
+   * @return # of items
+   */
+  int cardinality()
+  { /* cardinality */
+    int c= 0;
+    for(int k=0;k<nChunks;k++)
+      c += card[k];
+
+    return(c);
+  } /* cardinality */
+
+
+  /**
+   * highMID() - get the highest item in the container.
+   * @return highest item, else -1 if empty.
+   */
+  int highMID()
+  { /* highMID */
+    for(int k=nChunks-1;k>=0;k--)
+    {
+      int base= (k << CHUNK_SHIFT);
+      switch(type[k])
+      {
+        case ARRAY:
+          return(base + shortData[k][card[k]-1]);
+
+        case RUN:
+          int r= nRuns[k]-1;
+          return(base + shortData[k][2*r] + shortData[k][2*r+1]);
+
+        case BITMAP:
+          long bm[]= bitmap[k];
+          for(int w=CHUNK_WORDS-1;w>=0;w--)
+            if(bm[w]!=0L)
+              return(base + (w << 6) + 63 - Long.numberOfLeadingZeros(bm[w]));
+      }
+    }
+
+    return(-1);
+  } /* highMID */
+
+
+  /**
+   * nextItem() - find the first item at or after from.
+   * @param from is the starting item
+   * @return item, else -1 if none.
+   */
+  int nextItem(int from)
+  { /* nextItem */
+    if(from<0)
+      from= 0;
+
+    for(int k=(from >>> CHUNK_SHIFT);k<nChunks;k++)
+    {
+      int
+        base= (k << CHUNK_SHIFT),
+        v= (from > base) ? (from - base) : 0,
+        pos;
+
+      switch(type[k])
+      {
+        case ARRAY:
+          pos= Arrays.binarySearch(shortData[k], 0, card[k], (char)v);
+          if(pos<0)
+            pos= -(pos+1);
+          if(pos<card[k])
+            return(base + shortData[k][pos]);
+          break;
+
+        case RUN:
+          char sd[]= shortData[k];
+          int r= Math.max(0, findRun(k, v));
+          for(;r<nRuns[k];r++)
+            if(v <= sd[2*r] + sd[2*r+1])
+              return(base + Math.max(v, sd[2*r]));
+          break;
+
+        case BITMAP:
+          pos= nextSetBit(bitmap[k], v);
+          if(pos<CHUNK_SIZE)
+            return(base + pos);
+          break;
+      }
+    }
+
+    return(-1);
+  } /* nextItem */
+
+
+  /**
+   * forEach() - call visitor.visitMID(item) for each item in increasing order.
+   * @param visitor is the callback to invoke for each item
+   * @return # of items visited
+   * @see GeneBitSetVisitor
+   */
+  int forEach(GeneBitSetVisitor visitor)
+  { /* forEach */
+    int n= 0;
+
+    for(int k=0;k<nChunks;k++)
+    {
+      int base= (k << CHUNK_SHIFT);
+      char sd[]= shortData[k];
+      switch(type[k])
+      {
+        case ARRAY:
+          for(int i=0;i<card[k];i++)
+            visitor.visitMID(base + sd[i]);
+          break;
+
+        case RUN:
+          for(int r=0;r<nRuns[k];r++)
+          {
+            int
+              start= base + sd[2*r],
+              end= start + sd[2*r+1];
+            for(int v=start;v<=end;v++)
+              visitor.visitMID(v);
+          }
+          break;
+
+        case BITMAP:
+          long bm[]= bitmap[k];
+          for(int w=0;w<CHUNK_WORDS;w++)
+          {
+            long word= bm[w];
+            while(word!=0L)
+            {
+              visitor.visitMID(base + (w << 6) + Long.numberOfTrailingZeros(word));
+              word &= (word - 1);
+            }
+          }
+          break;
+      }
+      n += card[k];
+    }
+
+    return(n);
+  } /* forEach */
+
+
+  /**
+   * toArray() - get the items in the container as a sorted int[] array.
+   * @return list of items [0:cardinality()-1] in increasing order
+   */
+  int[] toArray()
+  { /* toArray */
+    int
+      list[]= new int[cardinality()],
+      n= 0;
+
+    for(int k=0;k<nChunks;k++)
+    {
+      int base= (k << CHUNK_SHIFT);
+      char sd[]= shortData[k];
+      switch(type[k])
+      {
+        case ARRAY:
+          for(int i=0;i<card[k];i++)
+            list[n++]= base + sd[i];
+          break;
+
+        case RUN:
+          for(int r=0;r<nRuns[k];r++)
+          {
+            int
+              start= base + sd[2*r],
+              end= start + sd[2*r+1];
+            for(int v=start;v<=end;v++)
+              list[n++]= v;
+          }
+          break;
+
+        case BITMAP:
+          long bm[]= bitmap[k];
+          for(int w=0;w<CHUNK_WORDS;w++)
+          {
+            long word= bm[w];
+            while(word!=0L)
+            {
+              list[n++]= base + (w << 6) + Long.numberOfTrailingZeros(word);
+              word &= (word - 1);
+            }
+          }
+          break;
+      }
+    }
+
+    return(list);
+  } /* toArray */
+
+
+  /**
+   * sizeInBytes() - estimate the heap size of the container in bytes.
+   * It assumes 16 byte object/array headers and 8 byte references.
+   * @return estimated # of bytes
+   */
+  long sizeInBytes()
+  { /* sizeInBytes */
+    long nBytes= 16 + 4 + 5*8;                /* object fields */
+
+    nBytes += (16 + nChunks)                  /* type[] */
+              + 2*(16 + 4L*nChunks)           /* card[], nRuns[] */
+              + 2*(16 + 8L*nChunks);          /* shortData[][], bitmap[][] */
+    for(int k=0;k<nChunks;k++)
+    {
+      if(shortData[k]!=null)
+        nBytes += 16 + 2L*shortData[k].length;
+      if(bitmap[k]!=null)
+        nBytes += 16 + 8L*bitmap[k].length;
+    }
+
+    return(nBytes);
+  } /* sizeInBytes */
+
+
+  /**
+   * getTypeStr() - get the chunk representation(s) used as a string for reports.
+   * @return type name if all non-empty chunks have the same type, else "mixed".
+   */
+  String getTypeStr()
+  { /* getTypeStr */
+    int t= EMPTY;
+
+    for(int k=0;k<nChunks;k++)
+      if(type[k]!=EMPTY)
+      {
+        if(t!=EMPTY && t!=type[k])
+          return("mixed");
+        t= type[k];
+      }
+
+    return(typeNames[t]);
+  } /* getTypeStr */
+
+} /* end of class GeneBitSetContainer */
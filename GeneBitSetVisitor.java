@@ -0,0 +1,30 @@
+/** File: GeneBitSetVisitor.java */
+
+/**
+ * The GeneBitSetVisitor class interface is the callback used by
+ * GeneBitSet.forEachMID() to enumerate the MIDs in a GeneBitSet without
+ * building an intermediate GeneList. The MIDs are visited in increasing
+ * order and empty 64-bit words are skipped.
+ *<P>
+ * This file is part of MAExplorer. It is offered as open source software
+ * under the Mozilla Public License (version 1.1) subject to the
+ * limitations noted in the accompanying LEGAL file. This notice must be
+ * included with the code. The MAExplorer Mozilla and Legal files are
+ * available on http://maexplorer.sourceforge.net/.
+ *<P>
+ * @author P. Lemkin (NCI), G. Thornwall (SAIC), NCI-Frederick, Frederick, MD
+ * @version $Date$   $Revision$
+ * @see <A HREF="http://maexplorer.sourceforge.net/">MAExplorer Home</A>
+ * @see GeneBitSet#forEachMID
+ */
+
+interface GeneBitSetVisitor
+{
+  
+  /**
+   * visitMID() - called once for each MID that is set in the GeneBitSet.
+   * @param mid is the Master Gene Index of the gene in the set
+   */
+  void visitMID(int mid);
+  
+} /* end of class GeneBitSetVisitor */
@@ -0,0 +1,211 @@
+/** File: GeneResultSet.java */
+
+/**
+ * The class holds the per-gene results of one analysis (a ratio report,
+ * the gene clusters of the current gene, the K-means clusters, etc.) in
+ * named float columns indexed by MID. The operation that computes the
+ * results owns its result set, so it no longer writes them into the shared
+ * Gene.data, data1, data2, pValue and geneDist fields where the next
+ * analysis would overwrite them. Reports and plots read the columns of the
+ * result set they are showing.
+ *<P>
+ * A column is only allocated when a value is first set in it. Gene lists
+ * are sorted by a column with an index array (sortIndex()) rather than by
+ * swapping the Genes by their Gene.data value.
+ *<P>
+ * This file is part of MAExplorer. It is offered as open source software
+ * under the Mozilla Public License (version 1.1) subject to the
+ * limitations noted in the accompanying LEGAL file. This notice must be
+ * included with the code. The MAExplorer Mozilla and Legal files are
+ * available on http://maexplorer.sourceforge.net/.
+ *<P>
+ * @author P. Lemkin (NCI), G. Thornwall (SAIC), NCI-Frederick, Frederick, MD
+ * @version $Date$   $Revision$
+ * @see <A HREF="http://maexplorer.sourceforge.net/">MAExplorer Home</A>
+ * @see ClusterGenes
+ * @see Report
+ */
+
+class GeneResultSet
+{
+  /** column: ratio or Zdiff of the two conditions */
+  final static int
+    RATIO= 0;
+  /** column: mean or data of condition 1 (e.g. HP-X or F1) */
+  final static int
+    MEAN1= 1;
+  /** column: mean or data of condition 2 (e.g. HP-Y or F2) */
+  final static int
+    MEAN2= 2;
+  /** column: p-value of the statistical test */
+  final static int
+    P_VALUE= 3;
+  /** column: cluster distance to the current gene or K-means node */
+  final static int
+    DISTANCE= 4;
+  /** column: # of genes in the cluster of the gene */
+  final static int
+    CLUSTER_COUNT= 5;
+  /** # of columns */
+  final static int
+    N_COLS= 6;
+  /** names of the columns */
+  final static String
+    colNames[]= {"ratio", "mean1", "mean2", "pValue", "distance",
+                 "clusterCount"};
+
+  /** name of the analysis which owns the results */
+  String
+    name;
+  /** # of MIDs [0:maxGenes-1] */
+  int
+    maxGenes;
+  /** [N_COLS][0:maxGenes-1] column values by MID, null if not used */
+  private float
+    cols[][];
+
+
+  /**
+   * GeneResultSet() - constructor for an empty result set
+   * @param name is the name of the analysis
+   * @param maxGenes is the # of MIDs [0:maxGenes-1]
+   */
+  GeneResultSet(String name, int maxGenes)
+  { /* GeneResultSet */
+    this.name= name;
+    this.maxGenes= maxGenes;
+    cols= new float[N_COLS][];
+  } /* GeneResultSet */
+
+
+  /**
+   * set() - set the value of the column for the MID
+   * @param col is the column, e.g. RATIO
+   * @param mid is the MID
+   * @param value to set
+   */
+  final void set(int col, int mid, float value)
+  { /* set */
+    if(col<0 || col>=N_COLS || mid<0 || mid>=maxGenes)
+      return;
+    if(cols[col]==null)
+      cols[col]= new float[maxGenes];
+    cols[col][mid]= value;
+  } /* set */
+
+
+  /**
+   * get() - get the value of the column for the MID
+   * @param col is the column, e.g. RATIO
+   * @param mid is the MID
+   * @return the value, 0.0F if it was not set
+   */
+  final float get(int col, int mid)
+  { /* get */
+    if(col<0 || col>=N_COLS || mid<0 || mid>=maxGenes || cols[col]==null)
+      return(0.0F);
+    return(cols[col][mid]);
+  } /* get */
+
+
+  /**
+   * setData() - set the ratio and the data of both conditions for the MID
+   * @param mid is the MID
+   * @param ratio is the ratio or Zdiff
+   * @param mean1 is the data for condition 1
+   * @param mean2 is the data for condition 2
+   */
+  final void setData(int mid, float ratio, float mean1, float mean2)
+  { /* setData */
+    set(RATIO, mid, ratio);
+    set(MEAN1, mid, mean1);
+    set(MEAN2, mid, mean2);
+  } /* setData */
+
+
+  /**
+   * allocColumn() - allocate a column before values are set in it, so
+   * worker threads may set the values of different MIDs at the same time.
+   * @param col is the column, e.g. RATIO
+   */
+  final void allocColumn(int col)
+  { /* allocColumn */
+    if(col>=0 && col<N_COLS && cols[col]==null)
+      cols[col]= new float[maxGenes];
+  } /* allocColumn */
+
+
+  /**
+   * hasColumn() - test if any value was set in the column
+   * @param col is the column, e.g. RATIO
+   * @return true if the column is allocated
+   */
+  final boolean hasColumn(int col)
+  { /* hasColumn */
+    return(col>=0 && col<N_COLS && cols[col]!=null);
+  } /* hasColumn */
+
+
+  /**
+   * clear() - clear all of the columns
+   */
+  void clear()
+  { /* clear */
+    for(int col=0;col<N_COLS;col++)
+      cols[col]= null;
+  } /* clear */
+
+
+  /**
+   * sortIndex() - sort gene list by a column and return the index[] of
+   * the sorted list. The gene list is not changed. Null genes are
+   * put at the end of the list.
+   * @param mList is the list of genes [0:nList-1]
+   * @param nList is the # of genes
+   * @param col is the column to sort by
+   * @param ascending sort if true
+   * @return the index[] of the sorted mList[], null if the list is empty
+   * @see IndexSort#sortIndex
+   */
+  int[] sortIndex(Gene mList[], int nList, int col, boolean ascending)
+  { /* sortIndex */
+    if(mList==null || nList<=0)
+      return(null);
+
+    float
+      key[]= new float[nList],
+      nullKey= (ascending) ? Float.MAX_VALUE : -Float.MAX_VALUE;
+    Gene gene;
+
+    for(int i=0;i<nList;i++)
+    {
+      gene= mList[i];
+      key[i]= (gene==null) ? nullKey : get(col, gene.mid);
+    }
+
+    return(IndexSort.sortIndex(key, nList, ascending));
+  } /* sortIndex */
+
+
+  /**
+   * sortGeneList() - sort a gene list owned by the analysis by a column.
+   * @param mList is the list of genes [0:nList-1] to reorder
+   * @param nList is the # of genes
+   * @param col is the column to sort by
+   * @param ascending sort if true
+   * @see #sortIndex
+   */
+  void sortGeneList(Gene mList[], int nList, int col, boolean ascending)
+  { /* sortGeneList */
+    int index[]= sortIndex(mList, nList, col, ascending);
+    if(index==null)
+      return;
+
+    Gene sorted[]= new Gene[nList];
+    for(int i=0;i<nList;i++)
+      sorted[i]= mList[index[i]];
+    for(int i=0;i<nList;i++)
+      mList[i]= sorted[i];
+  } /* sortGeneList */
+
+} /* end of class GeneResultSet */
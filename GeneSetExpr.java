@@ -0,0 +1,635 @@
+/** File: GeneSetExpr.java */
+
+/**
+ * The class compiles and evaluates Boolean expressions over named gene sets
+ * such as "(A &amp; B &amp; !C) | D". The operands are user gene sets in
+ * GeneBitSet.userBS[] (by name or number) or data Filter gene lists (by
+ * GeneList name, e.g. "HP_XY_t_TestCL"). Names containing blanks or
+ * operator characters are quoted, e.g. "\"Edited Gene List\" &amp; B".
+ *<PRE>
+ *   expr   := term { '|' term }
+ *   term   := factor { '&amp;' factor | '-' factor }    ('A - B' is 'A &amp; !B')
+ *   factor := '!' factor | '(' expr ')' | name
+ *</PRE>
+ * The expression is compiled once into a postfix program. It is evaluated in
+ * a single pass over the 64-bit words of all operands at the same time rather
+ * than by a chain of two-operand GeneBitSet.intersection() calls, each of which
+ * writes an intermediate set. An AND whose left side is already zero for a
+ * word skips loading the right side, 'A &amp; !B' is fused into one ANDNOT
+ * operation, and only the words up to the highest MID the result could
+ * contain are evaluated, so evaluation stops immediately if the result must
+ * be empty. Since !A would include MIDs that are not genes, expressions
+ * using NOT are intersected with the set of all genes.
+ *<P>
+ * This file is part of MAExplorer. It is offered as open source software
+ * under the Mozilla Public License (version 1.1) subject to the
+ * limitations noted in the accompanying LEGAL file. This notice must be
+ * included with the code. The MAExplorer Mozilla and Legal files are
+ * available on http://maexplorer.sourceforge.net/.
+ *<P>
+ * @author P. Lemkin (NCI), G. Thornwall (SAIC), NCI-Frederick, Frederick, MD
+ * @version $Date$   $Revision$
+ * @see <A HREF="http://maexplorer.sourceforge.net/">MAExplorer Home</A>
+ * @see GeneBitSet
+ */
+
+class GeneSetExpr
+{
+  /** link to global MAExplorer instance */
+  private MAExplorer
+    mae;
+
+  /** opcode: push operand word arg[] */
+  final private static int
+    OP_PUSH= 0;
+  /** opcode: complement top of stack */
+  final private static int
+    OP_NOT= 1;
+  /** opcode: AND top two words */
+  final private static int
+    OP_AND= 2;
+  /** opcode: AND NOT top two words */
+  final private static int
+    OP_ANDNOT= 3;
+  /** opcode: OR top two words */
+  final private static int
+    OP_OR= 4;
+  /** opcode: jump to arg[] if top of stack is 0 */
+  final private static int
+    OP_JZ= 5;
+
+  /** highest possible MID bound for a complemented operand */
+  final private static int
+    NO_BOUND= Integer.MAX_VALUE;
+
+  /** the source expression string */
+  String
+    exprStr;
+  /** error message if compile or bind failed, else null */
+  String
+    errMsg;
+
+  /** [0:nOps-1] program opcodes OP_xxxx */
+  private int
+    op[];
+  /** [0:nOps-1] program args - operand index for OP_PUSH, target for OP_JZ */
+  private int
+    arg[];
+  /** # of program operations */
+  private int
+    nOps;
+  /** max stack depth needed to evaluate the program */
+  private int
+    maxDepth;
+
+  /** [0:nOperands-1] operand names */
+  private String
+    operandName[];
+  /** [0:nOperands-1] operand gene bit sets resolved by bind() */
+  private GeneBitSet
+    operand[];
+  /** # of operands */
+  private int
+    nOperands;
+
+  /** parser: position in exprStr */
+  private int
+    pos;
+
+
+  /**
+   * GeneSetExpr() - constructor to compile an expression and bind its operands.
+   * Check errMsg (or isValid()) afterwards.
+   * @param mae is the MAExplorer instance
+   * @param exprStr is the expression to compile
+   * @see #compile
+   * @see #bind
+   */
+  GeneSetExpr(MAExplorer mae, String exprStr)
+  { /* GeneSetExpr */
+    this.mae= mae;
+    this.exprStr= exprStr;
+    if(compile())
+      bind();
+  } /* GeneSetExpr */
+
+
+  /**
+   * GeneSetExpr() - constructor for the intersection of a list of
+   * gene bit sets (srcList[0] &amp; srcList[1] &amp; ...). The operands are
+   * bound directly and are not looked up by name.
+   * @param mae is the MAExplorer instance
+   * @param srcList is the list of gene bit sets to intersect
+   * @param nSrc is the # of entries in srcList[]
+   */
+  GeneSetExpr(MAExplorer mae, GeneBitSet srcList[], int nSrc)
+  { /* GeneSetExpr */
+    this.mae= mae;
+    exprStr= "";
+    allocProgram(nSrc);
+    for(int i=0;i<nSrc;i++)
+    {
+      operandName[i]= srcList[i].bName;
+      operand[i]= srcList[i];
+      emit(OP_PUSH, i);
+      exprStr += ((i==0) ? "" : " & ") + "\"" + srcList[i].bName + "\"";
+      if(i>0)
+      { /* short circuit is only needed before the next operand */
+        emit(OP_AND, 0);
+      }
+      if(i<nSrc-1)
+        emit(OP_JZ, -1);
+    }
+    nOperands= nSrc;
+    maxDepth= 2;
+    patchJumpsToEnd();
+  } /* GeneSetExpr */
+
+
+  /**
+   * intersectAll() - compute intersection of gene bit sets
+   * (srcList[0] &amp; ... &amp; srcList[nSrc-1]) ==> dst in one pass.
+   * @param mae is the MAExplorer instance
+   * @param srcList is the list of gene bit sets to intersect
+   * @param nSrc is the # of entries in srcList[]
+   * @param dst is the destination and may also be in srcList[]
+   * @return true if succeed
+   */
+  static boolean intersectAll(MAExplorer mae, GeneBitSet srcList[], int nSrc,
+                              GeneBitSet dst)
+  { /* intersectAll */
+    if(srcList==null || nSrc<=0 || dst==null)
+      return(false);
+    for(int i=0;i<nSrc;i++)
+      if(srcList[i]==null)
+        return(false);
+
+    GeneSetExpr gse= new GeneSetExpr(mae, srcList, nSrc);
+
+    return(gse.evaluate(dst));
+  } /* intersectAll */
+
+
+  /**
+   * isValid() - test if the expression was compiled and bound.
+   * @return true if can evaluate it
+   */
+  boolean isValid()
+  { /* isValid */
+    return(errMsg==null && nOps>0);
+  } /* isValid */
+
+
+  /**
+   * allocProgram() - allocate the program and operand lists
+   * @param size is the max # of operands
+   */
+  private void allocProgram(int size)
+  { /* allocProgram */
+    size= Math.max(size, 1);
+    op= new int[4*size+4];
+    arg= new int[4*size+4];
+    nOps= 0;
+    operandName= new String[size+1];  /* +1 for all genes */
+    operand= new GeneBitSet[size+1];
+    nOperands= 0;
+  } /* allocProgram */
+
+
+  /**
+   * emit() - add operation to the program.
+   * @param opCode is the OP_xxxx operation
+   * @param opArg is the argument
+   * @return index of the operation
+   */
+  private int emit(int opCode, int opArg)
+  { /* emit */
+    op[nOps]= opCode;
+    arg[nOps]= opArg;
+
+    return(nOps++);
+  } /* emit */
+
+
+  /**
+   * patchJumpsToEnd() - set all unresolved (-1) OP_JZ targets to the end
+   * of the program. Used for a simple AND chain.
+   */
+  private void patchJumpsToEnd()
+  { /* patchJumpsToEnd */
+    for(int i=0;i<nOps;i++)
+      if(op[i]==OP_JZ && arg[i]==-1)
+        arg[i]= nOps;
+  } /* patchJumpsToEnd */
+
+
+  /**
+   * compile() - parse the expression string into the postfix program.
+   * Sets errMsg if there is a syntax error.
+   * @return true if succeed
+   * @see #parseExpr
+   */
+  private boolean compile()
+  { /* compile */
+    errMsg= null;
+    if(exprStr==null || exprStr.trim().length()==0)
+    {
+      errMsg= "empty gene set expression";
+      return(false);
+    }
+
+    allocProgram(exprStr.length());
+    pos= 0;
+    int depth= parseExpr();
+    if(errMsg==null)
+    {
+      skipBlanks();
+      if(pos<exprStr.length())
+        errMsg= "unexpected '"+exprStr.charAt(pos)+"' at position "+(pos+1);
+    }
+    if(errMsg!=null)
+    {
+      nOps= 0;
+      return(false);
+    }
+
+    boolean hasNotFlag= false;
+    for(int i=0;i<nOps;i++)
+      if(op[i]==OP_NOT)
+        hasNotFlag= true;
+    if(hasNotFlag)
+    { /* restrict the complement to real genes */
+      operandName[nOperands]= "All genes";
+      emit(OP_PUSH, nOperands++);
+      emit(OP_AND, 0);
+      depth= Math.max(depth, 2);
+    }
+    maxDepth= depth;
+
+    return(true);
+  } /* compile */
+
+
+  /**
+   * skipBlanks() - skip white space in exprStr
+   */
+  private void skipBlanks()
+  { /* skipBlanks */
+    while(pos<exprStr.length() && Character.isWhitespace(exprStr.charAt(pos)))
+      pos++;
+  } /* skipBlanks */
+
+
+  /**
+   * peekChar() - get the next non-blank char in exprStr
+   * @return char, else 0 if at the end.
+   */
+  private char peekChar()
+  { /* peekChar */
+    skipBlanks();
+
+    return((pos<exprStr.length()) ? exprStr.charAt(pos) : (char)0);
+  } /* peekChar */
+
+
+  /**
+   * parseExpr() - parse: term { '|' term }
+   * @return stack depth needed
+   */
+  private int parseExpr()
+  { /* parseExpr */
+    int depth= parseTerm();
+
+    while(errMsg==null && peekChar()=='|')
+    {
+      pos++;
+      depth= Math.max(depth, 1+parseTerm());
+      emit(OP_OR, 0);
+    }
+
+    return(depth);
+  } /* parseExpr */
+
+
+  /**
+   * parseTerm() - parse: factor { '&amp;' factor | '-' factor }.
+   * If the left side of an AND is zero then the right side is skipped.
+   * The form 'A &amp; !B' is emitted as a single OP_ANDNOT.
+   * @return stack depth needed
+   */
+  private int parseTerm()
+  { /* parseTerm */
+    int
+      depth= parseFactor(),
+      jz;
+    char c;
+
+    while(errMsg==null && ((c= peekChar())=='&' || c=='-'))
+    {
+      pos++;
+      jz= emit(OP_JZ, -1);
+      depth= Math.max(depth, 1+parseFactor());
+      if(c=='-')
+        emit(OP_ANDNOT, 0);
+      else if(op[nOps-1]==OP_NOT)
+        op[nOps-1]= OP_ANDNOT;       /* fuse A & !B */
+      else
+        emit(OP_AND, 0);
+      arg[jz]= nOps;
+    }
+
+    return(depth);
+  } /* parseTerm */
+
+
+  /**
+   * parseFactor() - parse: '!' factor | '(' expr ')' | name
+   * @return stack depth needed
+   * @see #parseName
+   */
+  private int parseFactor()
+  { /* parseFactor */
+    char c= peekChar();
+    int depth;
+
+    if(c=='!')
+    {
+      pos++;
+      depth= parseFactor();
+      emit(OP_NOT, 0);
+      return(depth);
+    }
+
+    if(c=='(')
+    {
+      pos++;
+      depth= parseExpr();
+      if(errMsg==null && peekChar()!=')')
+        errMsg= "missing ')' at position "+(pos+1);
+      pos++;
+      return(depth);
+    }
+
+    String name= parseName();
+    if(name==null)
+    {
+      if(errMsg==null)
+        errMsg= "missing gene set name at position "+(pos+1);
+      return(1);
+    }
+
+    int idx= -1;
+    for(int i=0;i<nOperands;i++)
+      if(operandName[i].equalsIgnoreCase(name))
+        idx= i;                           /* reuse the same operand */
+    if(idx==-1)
+    {
+      idx= nOperands++;
+      operandName[idx]= name;
+    }
+    emit(OP_PUSH, idx);
+
+    return(1);
+  } /* parseFactor */
+
+
+  /**
+   * parseName() - parse a quoted "name" or a name up to the next
+   * blank, parenthesis or operator.
+   * @return name, else null if none.
+   */
+  private String parseName()
+  { /* parseName */
+    char c= peekChar();
+    int start;
+
+    if(c=='"')
+    { /* quoted name */
+      start= ++pos;
+      while(pos<exprStr.length() && exprStr.charAt(pos)!='"')
+        pos++;
+      if(pos>=exprStr.length())
+      {
+        errMsg= "missing '\"' after gene set name";
+        return(null);
+      }
+      return(exprStr.substring(start, pos++));
+    }
+
+    start= pos;
+    while(pos<exprStr.length() &&
+          "&|!-()\" \t".indexOf(exprStr.charAt(pos))==-1)
+      pos++;
+
+    return((pos>start) ? exprStr.substring(start, pos) : null);
+  } /* parseName */
+
+
+  /**
+   * bind() - resolve the operand names to gene bit sets. Names are looked up
+   * first in the user gene sets GeneBitSet.userBS[], then in the data Filter
+   * gene lists. This should be called again if the sets are replaced.
+   * @return true if all operands were found, else set errMsg.
+   * @see GeneBitSet#lookupGeneSetObjByName
+   * @see Filter#lookupFilterGeneSetByName
+   */
+  boolean bind()
+  { /* bind */
+    for(int i=0;i<nOperands;i++)
+    {
+      String name= operandName[i];
+      GeneBitSet bs= null;
+
+      if(name.equals("All genes") && i==nOperands-1 &&
+         mae.gct.allGenesCL!=null)
+        bs= mae.gct.allGenesCL.bitSet;
+      if(bs==null && GeneBitSet.userBS!=null)
+        bs= GeneBitSet.lookupGeneSetObjByName(name, true);
+      if(bs==null && mae.fc!=null)
+        bs= mae.fc.lookupFilterGeneSetByName(name);
+      if(bs==null)
+      {
+        errMsg= "gene set ["+name+"] doesn't exist";
+        return(false);
+      }
+      operand[i]= bs;
+    }
+
+    return(true);
+  } /* bind */
+
+
+  /**
+   * computeBound() - compute the highest MID that the result could contain
+   * from the operand highMIDs by running the program over bounds instead of
+   * words: AND takes the min, OR the max and NOT removes the bound.
+   * @return highest possible MID, else -1 if the result must be empty.
+   */
+  private int computeBound()
+  { /* computeBound */
+    int
+      bStack[]= new int[maxDepth+1],
+      sp= 0;
+
+    for(int pc=0;pc<nOps;pc++)
+      switch(op[pc])
+      {
+        case OP_PUSH:
+          bStack[sp++]= operand[arg[pc]].highMID;
+          break;
+        case OP_NOT:
+          bStack[sp-1]= NO_BOUND;
+          break;
+        case OP_AND:
+          sp--;
+          bStack[sp-1]= Math.min(bStack[sp-1], bStack[sp]);
+          break;
+        case OP_ANDNOT:
+          sp--;
+          break;
+        case OP_OR:
+          sp--;
+          bStack[sp-1]= Math.max(bStack[sp-1], bStack[sp]);
+          break;
+      }
+
+    return(bStack[0]);
+  } /* computeBound */
+
+
+  /**
+   * evaluate() - evaluate the expression ==> dst in a single pass over the
+   * words of all operands. The operands are processed one
+   * GeneBitSetContainer chunk at a time so compressed operands are decoded
+   * only once per chunk, while bitmap operands are read in place. dst may
+   * also be one of the operands.
+   * @param dst is the destination gene bit set
+   * @return true if succeed, else false and set errMsg.
+   * @see #computeBound
+   * @see GeneBitSet#getChunkWords
+   * @see GeneBitSetContainer#setChunk
+   */
+  boolean evaluate(GeneBitSet dst)
+  { /* evaluate */
+    if(dst==null || !isValid())
+      return(false);
+
+    int
+      chunkWords= GeneBitSetContainer.CHUNK_WORDS,
+      nWords= dst.maxWords,
+      bound= computeBound(),
+      i,
+      j,
+      k,
+      pc,
+      sp,
+      w0,
+      n,
+      cnt= 0,
+      lastW= -1;
+
+    for(i=0;i<nOperands;i++)
+      nWords= Math.min(nWords, operand[i].maxWords);
+    if(bound<0)
+      nWords= 0;                            /* result must be empty */
+    else if(bound!=NO_BOUND)
+      nWords= Math.min(nWords, (bound >>> 6)+1);
+
+    long
+      stack[]= new long[maxDepth+1],
+      opWords[][]= new long[nOperands][],
+      scratch[][]= new long[nOperands][],
+      dstChunk[]= (dst.cData!=null) ? new long[chunkWords] : null,
+      w,
+      lastWord= 0L;
+    int opOff[]= new int[nOperands];
+    GeneBitSetContainer r3= (dst.cData!=null)
+                              ? new GeneBitSetContainer(dst.maxWords) : null;
+
+    for(k=0;(k << 10)<nWords;k++)
+    { /* evaluate a chunk of words */
+      w0= (k << 10);
+      n= Math.min(chunkWords, nWords-w0);
+      for(i=0;i<nOperands;i++)
+        if(operand[i].cData==null)
+        { /* read bitmap words in place */
+          opWords[i]= operand[i].bitData;
+          opOff[i]= w0;
+        }
+        else
+        { /* decode compressed chunk */
+          if(scratch[i]==null)
+            scratch[i]= new long[chunkWords];
+          operand[i].getChunkWords(k, scratch[i]);
+          opWords[i]= scratch[i];
+          opOff[i]= 0;
+        }
+
+      for(j=0;j<n;j++)
+      { /* run the program for word w0+j */
+        sp= 0;
+        for(pc=0;pc<nOps;pc++)
+          switch(op[pc])
+          {
+            case OP_PUSH:
+              i= arg[pc];
+              stack[sp++]= opWords[i][opOff[i]+j];
+              break;
+            case OP_NOT:
+              stack[sp-1]= ~stack[sp-1];
+              break;
+            case OP_AND:
+              sp--;
+              stack[sp-1] &= stack[sp];
+              break;
+            case OP_ANDNOT:
+              sp--;
+              stack[sp-1] &= ~stack[sp];
+              break;
+            case OP_OR:
+              sp--;
+              stack[sp-1] |= stack[sp];
+              break;
+            case OP_JZ:
+              if(stack[sp-1]==0L)
+                pc= arg[pc]-1;            /* skip rest of AND */
+              break;
+          }
+
+        w= stack[0];
+        if(dstChunk!=null)
+          dstChunk[j]= w;
+        else
+          dst.bitData[w0+j]= w;
+        if(w!=0L)
+        {
+          cnt += Long.bitCount(w);
+          lastW= w0+j;
+          lastWord= w;
+        }
+      } /* run the program for word w0+j */
+
+      if(r3!=null)
+      { /* encode result chunk by density */
+        for(j=n;j<chunkWords;j++)
+          dstChunk[j]= 0L;
+        r3.setChunk(k, dstChunk);
+      }
+    } /* evaluate a chunk of words */
+
+    if(r3!=null)
+      dst.cData= r3;
+    else
+      for(j=nWords;j<dst.maxWords;j++)
+        if(dst.bitData[j]!=0L)
+          dst.bitData[j]= 0L;
+
+    dst.count= cnt;
+    dst.highMID= (lastW<0)
+                   ? -1
+                   : (lastW << 6) + 63 - Long.numberOfLeadingZeros(lastWord);
+
+    return(true);
+  } /* evaluate */
+
+} /* end of class GeneSetExpr */
@@ -4,7 +4,13 @@
  * The class contains data structures to map a spot on the array to a GRC coodinate.
  * The GRC stands for (grid,row, grid_row, grid_column) coordinate.
  * This lets us generate maps to convert gene microarray spot grid coordinates to 
- * and from GID/MID index values. 
+ * and from GID/MID index values.
+ * The maps are kept as flat primitive arrays in Maps (fgrc2gidFlat[],
+ * gid2f[], gid2g[], gid2r[] and gid2c[]), and a GridCoords object for a gid
+ * is only a copy of its coordinates made by Maps.getGridCoords(gid) when
+ * it is asked for, so no GridCoords object is kept per spot. The old
+ * map.fgrc2gid[][][][] map is only built if Maps.keepOldMapViewsFlag is
+ * set or a plugin asks for it.
  *<P>
  * This work was produced by Peter Lemkin of the National Cancer
  * Institute, an agency of the United States Government.  As a work of
@@ -86,9 +92,13 @@ public class GridCoords
      * createIndexToGridCoordMap() - once only FGRC <--> gid map creation.
      * Note: if we are using Ratio data (Cy3/Cy5, etc) then
      * we store Cy3 in f1 and Cy5 in f2. This sets up:
-     *   map.fgrc2gid[f][g][r][c]
-     *   map.gid2fgrc[gid]
+     *   map.fgrc2gidFlat[] by [f][g][r][c]
+     *   map.gid2f[gid], map.gid2g[gid], map.gid2r[gid], map.gid2c[gid]
      *   map.gidToGangGid[gid]
+     *   map.fgrc2gid[][][][] if Maps.keepOldMapViewsFlag is set
+     * @see Maps#buildOldMapViews
+     * @see Maps#getGID
+     * @see Maps#setGID
      */
     void createIndexToGridCoordMap()
     { /* createIndexToGridCoordMap */
@@ -102,7 +112,6 @@ public class GridCoords
         nF= (mae.useRatioDataFlag) ? 2*maxFIELDS : maxFIELDS,
         gidGang,
         gid= 0;
-      GridCoords p;
       
       /*
       if(mae.CONSOLE_FLAG)
@@ -110,7 +119,7 @@ public class GridCoords
        */
       
       /* [1] Assign gid number, create FGRC - gid mapping tables.
-       * note that fgrc2gid[][][][] counts from 1 whereas all of
+       * note that fgrc2gidFlat[] [f][g][r][c] counts from 1 whereas all of
        * the other mapping tables count from 0.
        */
       for(f=1; f<=nF; f++)
@@ -118,9 +127,7 @@ public class GridCoords
           for(r=1;r<=maxGROWS;r++)
             for(c=1;c<=maxGCOLS;c++)
             { /* Assign gid number, create FGRC - gid mapping tables */
-              p= new GridCoords(f,g,r,c,gid);
-              mae.mp.fgrc2gid[f][g][r][c]= gid;
-              mae.mp.gid2fgrc[gid]= p;
+              mae.mp.setGID(f,g,r,c,gid);
               mae.mp.maxSpotsFound= gid;   /* NOTE: THIS IS WHERE WE SET IT */
               gid++;                       /* NOTE: count gid from 0 NOT from 1
                                             * so post increment it! */
@@ -132,16 +139,19 @@ public class GridCoords
           for(r=1;r<=maxGROWS;r++)
             for(c=1;c<=maxGCOLS;c++)
             { /* create gid to Gang gid mapping table */
-              gid= mae.mp.fgrc2gid[f][g][r][c];
+              gid= mae.mp.getGID(f,g,r,c);
               if(nF==1)
                 gidGang= gid;
               else
               {
                 fGang= (f==1) ? 2 : 1;
-                gidGang= mae.mp.fgrc2gid[fGang][g][r][c];
+                gidGang= mae.mp.getGID(fGang,g,r,c);
               }
               mae.mp.gidToGangGid[gid]= gidGang;
             }
+      
+      /* [3] Build the deprecated fgrc2gid[][][][] map if it is kept */
+      mae.mp.buildOldMapViews();
     } /* createIndexToGridCoordMap */
     
     
@@ -188,10 +198,10 @@ public class GridCoords
     final public String cvtGID2str(int gid, boolean useFieldNameFlag)
     { /* cvtGID2str */
       int
-        f= mae.mp.gid2fgrc[gid].f,
-        g= mae.mp.gid2fgrc[gid].g,
-        r= mae.mp.gid2fgrc[gid].r,
-        c= mae.mp.gid2fgrc[gid].c;
+        f= mae.mp.gid2f[gid],
+        g= mae.mp.gid2g[gid],
+        r= mae.mp.gid2r[gid],
+        c= mae.mp.gid2c[gid];
       String maCoords;
       
       if(!useFieldNameFlag)
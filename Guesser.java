@@ -316,28 +316,28 @@ class Guesser extends Frame implements ActionListener,
             name= gene.Master_ID;
             break;
           case MODE_GENBANK:
-            name= gene.GenBankAcc;
+            name= gene.getGenBankAcc();
             break;
           case MODE_GENBANK3:
-            name= gene.GenBankAcc3;
+            name= gene.getGenBankAcc3();
             break;
           case MODE_GENBANK5:
-            name= gene.GenBankAcc5;
+            name= gene.getGenBankAcc5();
             break;
           case MODE_DB_EST3:
-            name= gene.dbEST3;
+            name= gene.getDbEST3();
             break;
           case MODE_DB_EST5:
-            name= gene.dbEST5;
+            name= gene.getDbEST5();
             break;
           case MODE_SWISSPROT:
-            name= gene.SwissProt;
+            name= gene.getSwissProt();
             break;
           case MODE_UNIGENE:
-            name= gene.Unigene_ID;
+            name= gene.getUnigene_ID();
             break;
           case MODE_LOCUSLINK:
-            name= gene.LocusID;
+            name= gene.getLocusID();
             break;
         } /* add gene to list */
         
@@ -654,44 +654,44 @@ class Guesser extends Frame implements ActionListener,
               continue;          /* ignore bogus spots */      
             
             if(iMode==MODE_GENBANK &&
-               gene.GenBankAcc.length()>0 &&
-               gene.GenBankAcc.equals(resultStr))
+               gene.getGenBankAcc().length()>0 &&
+               gene.getGenBankAcc().equals(resultStr))
             {
               foundIt= true;
             }
             else if(iMode==MODE_GENBANK3 &&
-                    gene.GenBankAcc3.length()>0 &&
-                    gene.GenBankAcc3.equals(resultStr))
+                    gene.getGenBankAcc3().length()>0 &&
+                    gene.getGenBankAcc3().equals(resultStr))
             {
               foundIt= true;
             }
             else if(iMode==MODE_GENBANK5 &&
-                     gene.GenBankAcc5.length()>0 &&
-                     gene.GenBankAcc5.equals(resultStr))
+                     gene.getGenBankAcc5().length()>0 &&
+                     gene.getGenBankAcc5().equals(resultStr))
             {
               foundIt= true;
             }
             else if(iMode==MODE_DB_EST3 &&
-                    gene.dbEST3.length()>0 &&
-                    gene.dbEST3.equals(resultStr))
+                    gene.getDbEST3().length()>0 &&
+                    gene.getDbEST3().equals(resultStr))
             {
               foundIt= true;
             }
             else if(iMode==MODE_DB_EST5 &&
-                    gene.dbEST5.length()>0 &&
-                    gene.dbEST5.equals(resultStr))
+                    gene.getDbEST5().length()>0 &&
+                    gene.getDbEST5().equals(resultStr))
             {
               foundIt= true;
             }
             else if(iMode==MODE_SWISSPROT &&
-                    gene.SwissProt.length()>0 &&
-                    gene.SwissProt.equals(resultStr))
+                    gene.getSwissProt().length()>0 &&
+                    gene.getSwissProt().equals(resultStr))
             {
               foundIt= true;
             }
             else if(iMode==MODE_UNIGENE &&
-                    gene.Unigene_ID.length()>0 &&
-                    gene.Unigene_ID.equals(resultStr))
+                    gene.getUnigene_ID().length()>0 &&
+                    gene.getUnigene_ID().equals(resultStr))
             {
               foundIt= true;
             }
@@ -0,0 +1,604 @@
+/** File: IndexSort.java */
+
+import java.util.*;
+
+/**
+ * The class does stable O(n log n) index sorts of float[], int[], String[]
+ * or Object[] keys. It returns the index[] of the keys in sorted order and
+ * does not change the keys. Keys that compare equal keep their original
+ * order in both ascending and descending sorts, as the bubble sorts in
+ * SortMAE and Gene.sortGeneList() did, so the reports and spreadsheets
+ * list ties in the same order as before. String keys are compared without
+ * case, as SortMAE.bubbleSortIndex() compared them.
+ *<P>
+ * The sort is a merge sort of the index[] with a work array, using an
+ * insertion sort for short runs. If parallel mode is enabled and there
+ * are enough keys, sortIndex() splits index[0:len-1] into contiguous
+ * ranges, one per processor, and sorts each range on its own thread. The
+ * sorted ranges are then merged on the calling thread. The result is the
+ * same as the serial sort.
+ *<P>
+ * selectTopK() gets the k highest or lowest float keys (e.g. the ratios
+ * or p-values of the genes in a list) with a bounded heap in O(n log k)
+ * without sorting all of the keys. It returns the same k entries in the
+ * same order as the first k of the stable sort.
+ *<P>
+ * This file is part of MAExplorer. It is offered as open source software
+ * under the Mozilla Public License (version 1.1) subject to the
+ * limitations noted in the accompanying LEGAL file. This notice must be
+ * included with the code. The MAExplorer Mozilla and Legal files are
+ * available on http://maexplorer.sourceforge.net/.
+ *<P>
+ * @author P. Lemkin (NCI), G. Thornwall (SAIC), NCI-Frederick, Frederick, MD
+ * @version $Date$   $Revision$
+ * @see <A HREF="http://maexplorer.sourceforge.net/">MAExplorer Home</A>
+ * @see SortMAE
+ * @see FilterWorker
+ */
+
+class IndexSort implements Runnable
+{
+  /** key type: float[] keys */
+  final static int
+    FLOAT_KEYS= 0;
+  /** key type: int[] keys */
+  final static int
+    INT_KEYS= 1;
+  /** key type: String[] keys compared without case */
+  final static int
+    STRING_KEYS= 2;
+  /** key type: Object[] keys compared with a Comparator */
+  final static int
+    OBJECT_KEYS= 3;
+  /** runs of up to this length are sorted with an insertion sort */
+  final static int
+    INSERTION_SORT_LEN= 16;
+
+  /** flag: sort large inputs in parallel */
+  static boolean
+    useParallelSortFlag= true;
+  /** minimum # of keys to give a worker */
+  static int
+    minKeysPerWorker= 50000;
+  /** maximum # of workers, defaults to the # of processors */
+  static int
+    maxWorkers= Runtime.getRuntime().availableProcessors();
+
+  /** # of sorts done on more than one thread */
+  static int
+    nParallelSorts= 0;
+  /** # of sorts done on the calling thread */
+  static int
+    nSerialSorts= 0;
+  /** # of top-K selections done */
+  static int
+    nTopKselects= 0;
+  /** # of keys in the last sort */
+  static int
+    lastSortLen= 0;
+  /** # of workers used in the last sort */
+  static int
+    lastNbrWorkers= 0;
+  /** elapsed time (msec) of the last sort */
+  static long
+    lastSortMsec= 0;
+
+  /** type of keys, e.g. FLOAT_KEYS */
+  private int
+    keyType;
+  /** float keys if FLOAT_KEYS */
+  private float
+    fKey[];
+  /** int keys if INT_KEYS */
+  private int
+    iKey[];
+  /** String keys if STRING_KEYS, Object keys if OBJECT_KEYS */
+  private Object
+    oKey[];
+  /** comparator for OBJECT_KEYS */
+  private Comparator
+    cmp;
+  /** sort in ascending order if true */
+  private boolean
+    ascending;
+  /** [0:len-1] index of the keys being sorted, shared by the workers */
+  private int
+    index[];
+  /** [0:len-1] work array for merging, shared by the workers */
+  private int
+    tmp[];
+  /** first index[] entry to sort */
+  private int
+    lo;
+  /** last index[] entry+1 to sort */
+  private int
+    hi;
+
+
+  /**
+   * IndexSort() - constructor for a sort of the keys
+   * @param keyType is the type of keys, e.g. FLOAT_KEYS
+   * @param ascending sort if true
+   */
+  private IndexSort(int keyType, boolean ascending)
+  { /* IndexSort */
+    this.keyType= keyType;
+    this.ascending= ascending;
+  } /* IndexSort */
+
+
+  /**
+   * IndexSort() - constructor for a worker sorting a range of the keys
+   * @param run is the sort holding the keys and index[]
+   * @param lo is the first index[] entry to sort
+   * @param hi is the last index[] entry+1 to sort
+   */
+  private IndexSort(IndexSort run, int lo, int hi)
+  { /* IndexSort */
+    this(run.keyType, run.ascending);
+
+    fKey= run.fKey;
+    iKey= run.iKey;
+    oKey= run.oKey;
+    cmp= run.cmp;
+    index= run.index;
+    tmp= run.tmp;
+    this.lo= lo;
+    this.hi= hi;
+  } /* IndexSort */
+
+
+  /**
+   * sortIndex() - stable sort of float[0:len-1] keys, return index[].
+   * The keys are not changed.
+   * @param key array of keys to be sorted
+   * @param len size of subarray of keys to be sorted [0:len-1]
+   * @param ascending sort if true
+   * @return the index[] of the sorted keys, null if no keys
+   */
+  static int[] sortIndex(float key[], int len, boolean ascending)
+  { /* sortIndex */
+    if(key==null || len<=0)
+      return(null);
+    IndexSort is= new IndexSort(FLOAT_KEYS, ascending);
+    is.fKey= key;
+    return(is.sort(len));
+  } /* sortIndex */
+
+
+  /**
+   * sortIndex() - stable sort of int[0:len-1] keys, return index[].
+   * The keys are not changed.
+   * @param key array of keys to be sorted
+   * @param len size of subarray of keys to be sorted [0:len-1]
+   * @param ascending sort if true
+   * @return the index[] of the sorted keys, null if no keys
+   */
+  static int[] sortIndex(int key[], int len, boolean ascending)
+  { /* sortIndex */
+    if(key==null || len<=0)
+      return(null);
+    IndexSort is= new IndexSort(INT_KEYS, ascending);
+    is.iKey= key;
+    return(is.sort(len));
+  } /* sortIndex */
+
+
+  /**
+   * sortIndex() - stable sort of String[0:len-1] keys without case,
+   * return index[]. A null key sorts as "". The keys are not changed.
+   * @param key array of keys to be sorted
+   * @param len size of subarray of keys to be sorted [0:len-1]
+   * @param ascending sort if true
+   * @return the index[] of the sorted keys, null if no keys
+   */
+  static int[] sortIndex(String key[], int len, boolean ascending)
+  { /* sortIndex */
+    if(key==null || len<=0)
+      return(null);
+    IndexSort is= new IndexSort(STRING_KEYS, ascending);
+    String keyUC[]= new String[len];
+
+    for(int i=0;i<len;i++)
+      keyUC[i]= (key[i]==null) ? "" : key[i].toUpperCase();
+    is.oKey= keyUC;
+    return(is.sort(len));
+  } /* sortIndex */
+
+
+  /**
+   * sortIndex() - stable sort of Object[0:len-1] keys with a Comparator
+   * (e.g. a Collator), return index[]. The keys are not changed.
+   * @param key array of keys to be sorted
+   * @param len size of subarray of keys to be sorted [0:len-1]
+   * @param cmp is the Comparator for the keys
+   * @param ascending sort if true
+   * @return the index[] of the sorted keys, null if no keys
+   */
+  static int[] sortIndex(Object key[], int len, Comparator cmp,
+                         boolean ascending)
+  { /* sortIndex */
+    if(key==null || len<=0 || cmp==null)
+      return(null);
+    IndexSort is= new IndexSort(OBJECT_KEYS, ascending);
+    is.oKey= key;
+    is.cmp= cmp;
+    return(is.sort(len));
+  } /* sortIndex */
+
+
+  /**
+   * getNbrWorkers() - get the # of workers to use for len keys
+   * @param len is the # of keys
+   * @return # of workers, 1 if sorted on the calling thread
+   */
+  static int getNbrWorkers(int len)
+  { /* getNbrWorkers */
+    if(!useParallelSortFlag || maxWorkers<=1)
+      return(1);
+
+    int nWorkers= len/Math.max(1,minKeysPerWorker);
+    if(nWorkers>maxWorkers)
+      nWorkers= maxWorkers;
+
+    return(Math.max(1,nWorkers));
+  } /* getNbrWorkers */
+
+
+  /**
+   * sort() - sort index[0:len-1] of the keys, in parallel if there
+   * are enough keys.
+   * @param len is the # of keys
+   * @return the sorted index[]
+   */
+  private int[] sort(int len)
+  { /* sort */
+    long startTime= System.currentTimeMillis();
+    int nWorkers= getNbrWorkers(len);
+
+    index= new int[len];
+    tmp= new int[len];
+    for(int i=0;i<len;i++)
+      index[i]= i;
+
+    if(nWorkers<=1)
+    { /* sort on this thread */
+      nSerialSorts++;
+      lo= 0;
+      hi= len;
+      run();
+    }
+
+    else
+    { /* sort ranges on worker threads, then merge them */
+      nParallelSorts++;
+      IndexSort workers[]= new IndexSort[nWorkers];
+      Thread threads[]= new Thread[nWorkers];
+      int chunk= (len+nWorkers-1)/nWorkers;
+      boolean interruptedFlag= false;
+
+      for(int w=0;w<nWorkers;w++)
+        workers[w]= new IndexSort(this, Math.min(len,w*chunk),
+                                  Math.min(len,(w+1)*chunk));
+
+      for(int w=1;w<nWorkers;w++)
+      { /* start the other workers */
+        threads[w]= new Thread(workers[w], "IndexSort-"+w);
+        threads[w].setDaemon(true);
+        threads[w].start();
+      }
+      workers[0].run();            /* do the first range on this thread */
+
+      for(int w=1;w<nWorkers;w++)
+      { /* wait for the other workers, their ranges must be done */
+        while(threads[w].isAlive())
+        {
+          try
+          { threads[w].join(); }
+          catch(InterruptedException e)
+          { interruptedFlag= true; }
+        }
+      }
+      if(interruptedFlag)
+        Thread.currentThread().interrupt();
+
+      /* Merge the sorted ranges pairwise */
+      for(int width=chunk; width<len; width *= 2)
+        for(int m=0; m+width<len; m += 2*width)
+          merge(m, m+width, Math.min(len, m+2*width));
+    } /* sort ranges on worker threads, then merge them */
+
+    lastSortLen= len;
+    lastNbrWorkers= nWorkers;
+    lastSortMsec= System.currentTimeMillis() - startTime;
+
+    int sortedIndex[]= index;
+    index= null;                  /* G.C. */
+    tmp= null;
+    return(sortedIndex);
+  } /* sort */
+
+
+  /**
+   * run() - sort index[lo:hi-1]
+   */
+  public void run()
+  { /* run */
+    mergeSort(lo, hi);
+  } /* run */
+
+
+  /**
+   * compareFloat() - compare two float keys in ascending order. NaN is
+   * greater than all numbers and equal to NaN, and 0.0 equals -0.0.
+   * sortIndex() and selectTopK() both order the keys with it.
+   * @param fA is the first key
+   * @param fB is the second key
+   * @return LT 0 if fA is less than fB, 0 if equal, else GT 0
+   */
+  private static int compareFloat(float fA, float fB)
+  { /* compareFloat */
+    if(fA<fB)
+      return(-1);
+    else if(fA>fB)
+      return(1);
+    else if(fA==fB)
+      return(0);
+    return(Float.compare(fA, fB));  /* NaN sorts after the numbers */
+  } /* compareFloat */
+
+
+  /**
+   * compare() - compare the keys of two index[] entries in the sort order
+   * @param a is the index of the first key
+   * @param b is the index of the second key
+   * @return LT 0 if key a sorts before key b, 0 if equal, else GT 0
+   */
+  private int compare(int a, int b)
+  { /* compare */
+    int c;
+
+    switch(keyType)
+    {
+      case FLOAT_KEYS:
+        c= compareFloat(fKey[a], fKey[b]);
+        break;
+      case INT_KEYS:
+        c= (iKey[a]<iKey[b]) ? -1 : ((iKey[a]>iKey[b]) ? 1 : 0);
+        break;
+      case STRING_KEYS:
+        c= ((String)oKey[a]).compareTo((String)oKey[b]);
+        break;
+      default:
+        c= cmp.compare(oKey[a], oKey[b]);
+        break;
+    }
+
+    return((ascending) ? c : -c);
+  } /* compare */
+
+
+  /**
+   * mergeSort() - stable merge sort of index[lo:hi-1]
+   * @param lo is the first entry to sort
+   * @param hi is the last entry+1 to sort
+   */
+  private void mergeSort(int lo, int hi)
+  { /* mergeSort */
+    if(hi-lo<=INSERTION_SORT_LEN)
+    {
+      insertionSort(lo, hi);
+      return;
+    }
+
+    int mid= (lo+hi)>>>1;
+    mergeSort(lo, mid);
+    mergeSort(mid, hi);
+    if(compare(index[mid-1], index[mid])<=0)
+      return;                     /* already in order */
+    merge(lo, mid, hi);
+  } /* mergeSort */
+
+
+  /**
+   * insertionSort() - stable insertion sort of index[lo:hi-1]
+   * @param lo is the first entry to sort
+   * @param hi is the last entry+1 to sort
+   */
+  private void insertionSort(int lo, int hi)
+  { /* insertionSort */
+    int
+      j,
+      idx;
+
+    for(int i=lo+1;i<hi;i++)
+    {
+      idx= index[i];
+      for(j=i; j>lo && compare(index[j-1], idx)>0; j--)
+        index[j]= index[j-1];
+      index[j]= idx;
+    }
+  } /* insertionSort */
+
+
+  /**
+   * merge() - stable merge of the sorted index[lo:mid-1] and
+   * index[mid:hi-1] into index[lo:hi-1]
+   * @param lo is the first entry of the first run
+   * @param mid is the first entry of the second run
+   * @param hi is the last entry+1 of the second run
+   */
+  private void merge(int lo, int mid, int hi)
+  { /* merge */
+    int
+      i= lo,
+      j= mid;
+
+    System.arraycopy(index, lo, tmp, lo, hi-lo);
+    for(int k=lo;k<hi;k++)
+    {
+      if(i>=mid)
+        index[k]= tmp[j++];
+      else if(j>=hi)
+        index[k]= tmp[i++];
+      else if(compare(tmp[j], tmp[i])<0)
+        index[k]= tmp[j++];
+      else
+        index[k]= tmp[i++];     /* take first run on ties: stable */
+    }
+  } /* merge */
+
+
+  /**
+   * selectTopK() - select the k highest or lowest of the float[0:len-1]
+   * keys with a bounded heap in O(len log k), return their index[]
+   * best first. Equal keys are taken in index order, so the result is
+   * the first k of sortIndex(key,len,!highest). NaN keys are ordered as
+   * in sortIndex(): above all numbers, so they are selected first for the
+   * highest keys and last for the lowest. The keys are not changed.
+   * @param key array of keys to select from
+   * @param len size of subarray of keys [0:len-1]
+   * @param k is the maximum # of keys to select
+   * @param highest select the highest keys if true, else the lowest
+   * @return the index[] of up to k best keys, null if no keys
+   * @see #isBetter
+   * @see #siftUp
+   * @see #siftDown
+   */
+  static int[] selectTopK(float key[], int len, int k, boolean highest)
+  { /* selectTopK */
+    if(key==null || len<=0 || k<=0)
+      return(null);
+    if(k>len)
+      k= len;
+
+    nTopKselects++;
+    int
+      heap[]= new int[k],         /* heap[0] is the worst key kept */
+      nHeap= 0;
+
+    for(int i=0;i<len;i++)
+    { /* keep the k best keys seen so far */
+      if(nHeap<k)
+      {
+        heap[nHeap]= i;
+        siftUp(heap, nHeap++, key, highest);
+      }
+      else if(isBetter(key, i, heap[0], highest))
+      { /* replace the worst key kept */
+        heap[0]= i;
+        siftDown(heap, nHeap, key, highest);
+      }
+    }
+
+    /* Remove the worst key until empty to list them best first */
+    int topIdx[]= new int[nHeap];
+    while(nHeap>0)
+    {
+      topIdx[nHeap-1]= heap[0];
+      heap[0]= heap[--nHeap];
+      siftDown(heap, nHeap, key, highest);
+    }
+
+    return(topIdx);
+  } /* selectTopK */
+
+
+  /**
+   * isBetter() - test if key a is selected before key b in the
+   * compareFloat() order, equal keys are selected in index order.
+   * @param key array of keys
+   * @param a is the index of the first key
+   * @param b is the index of the second key
+   * @param highest if the highest keys are selected
+   * @return true if key a is better than key b
+   * @see #compareFloat
+   */
+  private static boolean isBetter(float key[], int a, int b,
+                                  boolean highest)
+  { /* isBetter */
+    int c= compareFloat(key[a], key[b]);
+
+    if(c!=0)
+      return((highest) ? (c>0) : (c<0));
+    return(a<b);
+  } /* isBetter */
+
+
+  /**
+   * siftUp() - move heap[i] up until its parent is worse
+   * @param heap is the heap of key indexes, the worst key at heap[0]
+   * @param i is the heap entry to move
+   * @param key array of keys
+   * @param highest if the highest keys are selected
+   */
+  private static void siftUp(int heap[], int i, float key[],
+                             boolean highest)
+  { /* siftUp */
+    int
+      parent,
+      idx= heap[i];
+
+    while(i>0)
+    {
+      parent= (i-1)/2;
+      if(!isBetter(key, heap[parent], idx, highest))
+        break;
+      heap[i]= heap[parent];
+      i= parent;
+    }
+    heap[i]= idx;
+  } /* siftUp */
+
+
+  /**
+   * siftDown() - move heap[0] down until its children are better
+   * @param heap is the heap of key indexes, the worst key at heap[0]
+   * @param nHeap is the # of entries in the heap
+   * @param key array of keys
+   * @param highest if the highest keys are selected
+   */
+  private static void siftDown(int heap[], int nHeap, float key[],
+                               boolean highest)
+  { /* siftDown */
+    if(nHeap<=0)
+      return;
+
+    int
+      i= 0,
+      child,
+      idx= heap[0];
+
+    while((child= 2*i+1)<nHeap)
+    {
+      if(child+1<nHeap && isBetter(key, heap[child], heap[child+1], highest))
+        child++;                  /* use the worse child */
+      if(!isBetter(key, idx, heap[child], highest))
+        break;
+      heap[i]= heap[child];
+      i= child;
+    }
+    heap[i]= idx;
+  } /* siftDown */
+
+
+  /**
+   * getStatusStr() - get the sort counts and the time of the last sort
+   * @return status string
+   */
+  static String getStatusStr()
+  { /* getStatusStr */
+    String sR= "Index sorts (parallel " +
+               ((useParallelSortFlag)
+                  ? ("enabled, up to " + maxWorkers + " workers")
+                  : "disabled") + "): " + nParallelSorts + " parallel, " +
+               nSerialSorts + " serial, " + nTopKselects + " top-K selects";
+
+    if(nParallelSorts+nSerialSorts>0)
+      sR += ", last sort " + lastSortLen + " keys " + lastNbrWorkers +
+            " worker(s) " + lastSortMsec + " msec";
+
+    return(sR + "\n");
+  } /* getStatusStr */
+
+} /* end of class IndexSort */
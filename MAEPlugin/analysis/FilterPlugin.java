@@ -11,6 +11,10 @@ import MAEPlugin.*;
  * <P>
  * Users must implement pluginInit() and geneOperation().
  * Users MAY overide resetPipeline() and finishPipeline().
+ * Users SHOULD overide filterBits() to test the gene set directly as
+ * bit words, e.g. with filterBitsByGeneOperation(). Then the Filter calls
+ * it instead of setOperation() and does not have to convert the gene set
+ * to and from a MID list for each plugin.
  *<P>
  * Created on September 5, 2001, 6:13 PM, Jai Evans
  *<P>
@@ -35,6 +39,12 @@ public abstract class FilterPlugin extends AnalysisPlugin
   protected static Vector
     activeFilterPluginList = null;
   
+  /** value returned by filterBits() if the plugin does not implement it,
+   * so the Filter uses setOperation() instead.
+   */
+  public final static int
+    NOT_BIT_SET_NATIVE= -2;
+  
   /* static block */
   static
   {
@@ -162,6 +172,108 @@ public abstract class FilterPlugin extends AnalysisPlugin
   } /* setOperation */
   
   
+  /**
+   * filterBits() - used in Filter intersection chain to process additional
+   * MAEPlugin filter tests on the gene set as bit words. The set is
+   * bitWords[0:nWords-1] where the gene with Master Gene ID mid is in the
+   * set if bit (mid &amp; 63) of bitWords[mid &gt;&gt;&gt; 6] is 1.
+   * Clear the bits of the genes that do not pass the test and return
+   * the number of genes that did pass.
+   *<PRE>
+   * NOTE:
+   * (1) The default returns NOT_BIT_SET_NATIVE and the Filter then calls
+   *     setOperation() with a MID list instead.
+   * (2) If the plugin only implements geneOperation(), override this
+   *     with return(filterBitsByGeneOperation(bitWords, nWords)).
+   *</PRE>
+   * @param bitWords is the gene set bit words, changed in place
+   * @param nWords is the # of words in bitWords[]
+   * @return number of genes that did pass the test, or NOT_BIT_SET_NATIVE
+   * @see #filterBitsByGeneOperation
+   * @see #setOperation
+   */
+  public int filterBits(long bitWords[], int nWords)
+  { /* filterBits */
+    return(NOT_BIT_SET_NATIVE);
+  } /* filterBits */
+  
+  
+  /**
+   * isIndependentFilter() - test if the plugin is a pure per-gene test
+   * whose result for a gene does not depend on the other genes in the
+   * set it is given (i.e. on the results of the upstream filters).
+   * Consecutive independent plugins may then be tested on copies of the
+   * same gene set and their results intersected. This does not promise
+   * that filterBits() may run on another thread, see isThreadSafe().
+   * @return true if independent. The default is false.
+   * @see #filterBits
+   * @see #isThreadSafe
+   */
+  public boolean isIndependentFilter()
+  { /* isIndependentFilter */
+    return(false);
+  } /* isIndependentFilter */
+  
+  
+  /**
+   * isThreadSafe() - test if filterBits() may be run on its own thread at
+   * the same time as the filterBits() of other plugins. It must not change
+   * state shared with other plugins or MAExplorer (e.g. the Gene data or
+   * the GUI) or read state they change. Only independent plugins that
+   * also return true are run concurrently.
+   * @return true if thread-safe. The default is false.
+   * @see #filterBits
+   * @see #isIndependentFilter
+   */
+  public boolean isThreadSafe()
+  { /* isThreadSafe */
+    return(false);
+  } /* isThreadSafe */
+  
+  
+  /**
+   * filterBitsByGeneOperation() - call geneOperation(mid) for each gene in
+   * the bit word gene set and clear the bits of the genes that fail.
+   * If the state of the filter is off, the set is not changed.
+   * Empty 64-bit words are skipped.
+   * @param bitWords is the gene set bit words, changed in place
+   * @param nWords is the # of words in bitWords[]
+   * @return number of genes that did pass the test
+   * @see #filterBits
+   * @see #geneOperation
+   */
+  protected final int filterBitsByGeneOperation(long bitWords[], int nWords)
+  { /* filterBitsByGeneOperation */
+    int
+      count= 0,
+      b,
+      wBase;
+    long word;
+    boolean isActiveFlag= this.getState();
+    
+    for(int w=0;w<nWords;w++)
+    { /* process each word */
+      word= bitWords[w];
+      if(word==0L)
+        continue;
+      if(isActiveFlag)
+      { /* test each gene in the word */
+        wBase= (w << 6);
+        for(long rest= word; rest!=0L; rest &= (rest - 1))
+        {
+          b= Long.numberOfTrailingZeros(rest);
+          if(!geneOperation(wBase + b))
+            word &= ~(1L << b);     /* failed, remove it */
+        }
+        bitWords[w]= word;
+      }
+      count += Long.bitCount(word);
+    } /* process each word */
+    
+    return(count);
+  } /* filterBitsByGeneOperation */
+  
+  
   /**
    * resetPipeline() - reset filter at start of test of all genes (if required).
    * This sets up the state that may be used during the pipeline operation.
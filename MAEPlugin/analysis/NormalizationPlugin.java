@@ -291,6 +291,44 @@ public abstract class NormalizationPlugin extends AnalysisPlugin
   public abstract float scaleIntensityData(float rawIntensity, float rawBkgrd,
                                            int mid, int gid, int sampleIdx);
   
+  /**
+   * scaleIntensityData() - scale the raw intensity data of a list of spots
+   * of one sample. It is for a host entry point that scales a whole sample
+   * (e.g. an array form of MaHybridSample.scaleIntensData()), so the
+   * plugin is not called on a separate path. Plugins that can scale a whole
+   * sample more efficiently (e.g. with parameters computed once in
+   * resetPipeline()) should override it.
+   * The default calls the per-spot method for each spot:
+   *<PRE>
+   *  if rawBkgrd[] is null:
+   *    out[i]= scaleIntensityData(rawData[i], mids[i], gids[i], sampleNbr)
+   *  else
+   *    out[i]= scaleIntensityData(rawData[i], rawBkgrd[i], mids[i], gids[i],
+   *                               sampleNbr)
+   *</PRE>
+   * @param rawData is the [0:nSpots-1] unnormalized data of the spots
+   * @param rawBkgrd is the [0:nSpots-1] background intensity, or null
+   * @param mids is the [0:nSpots-1] MIDs of the spots
+   * @param gids is the [0:nSpots-1] GIDs of the spots
+   * @param nSpots is the # of spots
+   * @param sampleNbr for the sample array
+   * @param out is the [0:nSpots-1] returned normalized spot data,
+   *        it may be the same array as rawData[]
+   */
+  public void scaleIntensityData(float rawData[], float rawBkgrd[],
+                                 int mids[], int gids[], int nSpots,
+                                 int sampleNbr, float out[])
+  { /* scaleIntensityData */
+    if(rawBkgrd==null)
+      for(int i=0;i<nSpots;i++)
+        out[i]= scaleIntensityData(rawData[i], mids[i], gids[i], sampleNbr);
+    else
+      for(int i=0;i<nSpots;i++)
+        out[i]= scaleIntensityData(rawData[i], rawBkgrd[i], mids[i], gids[i],
+                                   sampleNbr);
+  } /* scaleIntensityData */
+  
+  
   /**
    * recalcNormalizationExtrema() - set the extreama for all samples for this plugin
    */
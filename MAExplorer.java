@@ -295,6 +295,9 @@ public class MAExplorer extends Applet implements Runnable
   /** Global instance of data Filter gene operations */
   Filter 
     fc;
+  /** Global instance of background data Filter recomputation scheduler */
+  FilterScheduler 
+    fsch;
  /** Global instance of Gene */
   Gene
     gene;
@@ -683,6 +686,16 @@ public class MAExplorer extends Applet implements Runnable
   final static int 
     COMPARE_AT_LEAST= 6;
     
+  /** p-value threshold mode: test the raw p-value of each gene */
+  final static int
+    PVALUE_MODE_RAW= 1;
+  /** p-value threshold mode: test the Benjamini-Hochberg FDR q-value */
+  final static int
+    PVALUE_MODE_FDR_BH= 2;
+  /** p-value threshold mode: test the Bonferroni adjusted p-value */
+  final static int
+    PVALUE_MODE_BONFERRONI= 3;
+    
   /* --- Select subset of HP's to be used in particular data Filter --- */
   /** HP data Filter subset mode:  F1F2 current HP - mae.ms */
   final static int 
@@ -1071,6 +1084,10 @@ public class MAExplorer extends Applet implements Runnable
   /** Cy3/Cy5 range restriction for threshold mode: RANGE_INSIDE, RANGE_OUTSIDE */
   int
     ratioCy3Cy5RangeMode;    
+  /** p-Value slider threshold mode for the HP-XY sets t-test and OCL F-test
+   * filters: PVALUE_MODE_RAW, PVALUE_MODE_FDR_BH, PVALUE_MODE_BONFERRONI */
+  int
+    pValueThrMode;
   /** CV test mode: SS_MODE_xxxx */
   int
     cvTestMode; 
@@ -1625,6 +1642,9 @@ public class MAExplorer extends Applet implements Runnable
     em= null;                   /* handle EventMenu Item events */
     fio= null;                  /* file and URL I/O */
     fc= null;                   /* Filter gene operations */
+    if(fsch!=null)
+      fsch.stop();              /* stop background Filter worker */
+    fsch= null;                 /* background Filter scheduler */
     gct= null;		              /* Gene Class table */
     gipo= null;		              /* GIPO table mapping spots to gene data*/
     grcd= null;                 /* GridCoord mapper */
@@ -1664,6 +1684,7 @@ public class MAExplorer extends Applet implements Runnable
     sampleIntensityRangeMode= RANGE_INSIDE;
     ratioRangeMode= RANGE_OUTSIDE;
     ratioCy3Cy5RangeMode= RANGE_OUTSIDE;
+    pValueThrMode= PVALUE_MODE_RAW;
     rptFontSize= "10pt";
     spotIntensTestMode= SS_MODE_MS;
     cvTestMode= SS_MODE_MS;
@@ -2278,6 +2299,8 @@ public class MAExplorer extends Applet implements Runnable
     sd= new SpotData(this);            /* spot data object */
     stat= new Statistics(this);	 /* (non)parametric stats */
     fc= new Filter(this,mp.maxGenes);  /* Filter gene operations */
+    if(fsch==null)
+      fsch= new FilterScheduler(this); /* background Filter recomputation */
     egl= new EditedGeneList(this);     /* make editedCL gene list */
     
     /* [6.2] Setup the current gene class. Default if necessary */
@@ -2325,7 +2348,19 @@ public class MAExplorer extends Applet implements Runnable
      */
     if(startupFileExistsFlag)
       gct.updateStdGenePartitions(); /* update builtin default gene classes*/
-    
+
+    /* [7.4] Share the equal static Gene annotation Strings and build
+     * the gene identifier hash indexes now that the static Genes have
+     * all of their identifiers.
+     */
+    if(startupFileExistsFlag)
+    {
+      if(GeneAnnotationStore.useAnnotationStoreFlag)
+        mp.annot= GeneAnnotationStore.internGenes(mp.midStaticCL.mList,
+                                                  mp.maxGenes);
+      mp.buildGeneIdIndexes();
+    }
+
     /* [8] Create gene and cnondition (HP) sets and lists */
     clLst= new GeneList(this,mp.maxGenes,"clLst",
                         true);         /* setup Gene sets w/no data */
@@ -2718,7 +2753,7 @@ public class MAExplorer extends Applet implements Runnable
    * @see GetParams#setDefParam
    * @see MenuBarFrame#setHP_XYlabels
    * @see MaHybridSample
-   * @see SampleSets#addHPtoDB
+   * @see SampleLoader#loadSamples
    * @see SampleSets#setHPlistsFromPARAM
    * @see Util#popupDryrotMsgsAndQuit
    * @see UserState#restoreCondLists
@@ -2740,8 +2775,11 @@ public class MAExplorer extends Applet implements Runnable
     cfg.maxQualCheck= -100000000.0F; /* when calc max QualCheck Value */
     
     /* [2] Create MaHybridSample objects. Read in maxPreloadImgs .quant
-     * files. Then, read in the others on demand.
+     * files. Then, read in the others on demand. The SampleLoader
+     * creates the samples and adds them to the DB in idxHP order, while
+     * it reads the files of the next samples ahead in parallel.
      */
+    SampleLoader sl= new SampleLoader(this, maxToRead);
     for(int idxHP= 1; idxHP<=maxToRead; idxHP++)
     { /* create H.P. objects */
       int hpNbr= mapHPtoMenuName[idxHP];
@@ -2787,17 +2825,17 @@ public class MAExplorer extends Applet implements Runnable
                      ", snHPswapCy5Cy3Data="+snHPswapCy5Cy3Data);
       */
       
-      ms= createSample(idxHP,               /* i.e idxHP */
-      snHPname, snHPsampleID, snHPdatabaseFileID,
-      snHPimageFile, snHPmenuText, snHPfullStageText,
-      snHPprojectName, snHPneedLogin,
-      snHPswapCy5Cy3Data);
-      
-      if(ms!=null && !ms.needLoginFlag)
-      { /* only add if was successful */
-        hps.addHPtoDB(ms,idxHP);  /* add to master msList[0:nHP] DB */
-      }
+      sl.hpName[idxHP]= snHPname;
+      sl.sampleID[idxHP]= snHPsampleID;
+      sl.databaseFileID[idxHP]= snHPdatabaseFileID;
+      sl.imageName[idxHP]= snHPimageFile;
+      sl.menuName[idxHP]= snHPmenuText;
+      sl.fullStageText[idxHP]= snHPfullStageText;
+      sl.projectName[idxHP]= snHPprojectName;
+      sl.needLoginFlag[idxHP]= snHPneedLogin;
+      sl.swapCy5Cy3DataFlag[idxHP]= snHPswapCy5Cy3Data;
     } /* create H.P. objects */
+    sl.loadSamples();
     
     /* Dont; bother setting names if fatal error */
     if(Util.popupDryrotMsgsAndQuit())
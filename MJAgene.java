@@ -197,7 +197,7 @@ public class MJAgene extends MJAbase
     * @see #setDefaultGene
     */
    public final String get_Gene_Name()
-   { return(gene.Gene_Name); }
+   { return(gene.getGene_Name()); }
    
    
    /**
@@ -206,7 +206,7 @@ public class MJAgene extends MJAbase
     * @see #setDefaultGene
     */
    public final String get_UGclusterName()
-   { return(gene.UGclusterName); }
+   { return(gene.getUGclusterName()); }
    
    
    /**
@@ -224,7 +224,7 @@ public class MJAgene extends MJAbase
     * @see #setDefaultGene
     */
    public final String get_Generic_ID()
-   { return(gene.Generic_ID); }
+   { return(gene.getGeneric_ID()); }
    
    
    /**
@@ -233,7 +233,7 @@ public class MJAgene extends MJAbase
     * @see #setDefaultGene
     */
    public final String get_Clone_ID()
-   { return(gene.Clone_ID); }
+   { return(gene.getClone_ID()); }
    
    
    /**
@@ -242,7 +242,7 @@ public class MJAgene extends MJAbase
     * @see #setDefaultGene
     */
    public final String get_GenBankAcc3ID()
-   { return(gene.GenBankAcc3); }
+   { return(gene.getGenBankAcc3()); }
    
    
    /**
@@ -251,7 +251,7 @@ public class MJAgene extends MJAbase
     * @see #setDefaultGene
     */
    public final String get_GenBankAcc5ID()
-   { return(gene.GenBankAcc5); }
+   { return(gene.getGenBankAcc5()); }
    
    
    /**
@@ -260,7 +260,7 @@ public class MJAgene extends MJAbase
     * @see #setDefaultGene
     */
    public final String get_GenBankAccID()
-   { return(gene.GenBankAcc); }
+   { return(gene.getGenBankAcc()); }
    
    
    /**
@@ -269,7 +269,7 @@ public class MJAgene extends MJAbase
     * @see #setDefaultGene
     */
    public final String get_Unigene_ID()
-   { return(gene.Unigene_ID); }
+   { return(gene.getUnigene_ID()); }
    
    
    /**
@@ -278,7 +278,7 @@ public class MJAgene extends MJAbase
     * @see #setDefaultGene
     */
    public final String get_dbEST3ID()
-   { return(gene.dbEST3); }
+   { return(gene.getDbEST3()); }
    
    
    /**
@@ -287,7 +287,7 @@ public class MJAgene extends MJAbase
     * @see #setDefaultGene
     */
    public final String get_dbEST5ID()
-   { return(gene.dbEST5); }
+   { return(gene.getDbEST5()); }
    
    
    /**
@@ -296,7 +296,7 @@ public class MJAgene extends MJAbase
     * @see #setDefaultGene
     */
    public final String get_LocusID()
-   { return(gene.LocusID); }
+   { return(gene.getLocusID()); }
    
    
    /**
@@ -305,7 +305,7 @@ public class MJAgene extends MJAbase
     * @see #setDefaultGene
     */
    public final String get_SwissProtID()
-   { return(gene.SwissProt); }
+   { return(gene.getSwissProt()); }
    
    
    /**
@@ -314,7 +314,7 @@ public class MJAgene extends MJAbase
     * @see #setDefaultGene
     */
    public final String get_plate()
-   { return(gene.plate); }
+   { return(gene.getPlate()); }
    
    
    /**
@@ -323,7 +323,7 @@ public class MJAgene extends MJAbase
     * @see #setDefaultGene
     */
    public final String get_plate_row()
-   { return(gene.plate_row); }
+   { return(gene.getPlate_row()); }
    
    
    /**
@@ -332,7 +332,7 @@ public class MJAgene extends MJAbase
     * @see #setDefaultGene
     */
    public final String get_plate_col()
-   { return(gene.plate_col); }
+   { return(gene.getPlate_col()); }
    
    
    /**
@@ -474,7 +474,9 @@ public class MJAgene extends MJAbase
    { 
      if(mid<0 || mid>=map.maxGenes && map.midStaticCL.mList[mid]!=null)
        return(false);
-     map.midStaticCL.mList[mid].Gene_Name= geneName;
+     map.midStaticCL.mList[mid].setAnnotation(GeneAnnotationStore.GENE_NAME,
+                                               geneName);
+     map.invalidateGeneIdIndexes();
      return(true);
    }
         
@@ -489,7 +491,8 @@ public class MJAgene extends MJAbase
    { 
      if(mid<0 || mid>=map.maxGenes && map.midStaticCL.mList[mid]!=null)
        return(false);
-     map.midStaticCL.mList[mid].UGclusterName= uniGeneName;
+     map.midStaticCL.mList[mid].setAnnotation(GeneAnnotationStore.UG_CLUSTER_NAME,
+                                               uniGeneName);
      return(true);
    }
    
@@ -519,7 +522,8 @@ public class MJAgene extends MJAbase
    { 
      if(mid<0 || mid>=map.maxGenes && map.midStaticCL.mList[mid]!=null)
        return(false);
-     map.midStaticCL.mList[mid].Generic_ID= genericID;
+     map.midStaticCL.mList[mid].setAnnotation(GeneAnnotationStore.GENERIC_ID,
+                                               genericID);
      return(true);
    }
    
@@ -534,7 +538,9 @@ public class MJAgene extends MJAbase
    { 
      if(mid<0 || mid>=map.maxGenes && map.midStaticCL.mList[mid]!=null)
        return(false);
-     map.midStaticCL.mList[mid].Clone_ID= cloneID;
+     map.midStaticCL.mList[mid].setAnnotation(GeneAnnotationStore.CLONE_ID,
+                                               cloneID);
+     map.invalidateGeneIdIndexes();
      return(true);
    }
    
@@ -549,7 +555,9 @@ public class MJAgene extends MJAbase
    { 
      if(mid<0 || mid>=map.maxGenes && map.midStaticCL.mList[mid]!=null)
        return(false);
-     map.midStaticCL.mList[mid].GenBankAcc3= geneBankAcc3ID;
+     map.midStaticCL.mList[mid].setAnnotation(GeneAnnotationStore.GENBANK_ACC3,
+                                               geneBankAcc3ID);
+     map.invalidateGeneIdIndexes();
      return(true);
    }
    
@@ -564,7 +572,9 @@ public class MJAgene extends MJAbase
    { 
      if(mid<0 || mid>=map.maxGenes && map.midStaticCL.mList[mid]!=null)
        return(false);
-     map.midStaticCL.mList[mid].GenBankAcc5= geneBankAcc5ID;
+     map.midStaticCL.mList[mid].setAnnotation(GeneAnnotationStore.GENBANK_ACC5,
+                                               geneBankAcc5ID);
+     map.invalidateGeneIdIndexes();
      return(true);
    }
    
@@ -579,7 +589,9 @@ public class MJAgene extends MJAbase
    { 
      if(mid<0 || mid>=map.maxGenes && map.midStaticCL.mList[mid]!=null)
        return(false);
-     map.midStaticCL.mList[mid].GenBankAcc= geneBankAccID;
+     map.midStaticCL.mList[mid].setAnnotation(GeneAnnotationStore.GENBANK_ACC,
+                                               geneBankAccID);
+     map.invalidateGeneIdIndexes();
      return(true);
    }
    
@@ -594,7 +606,9 @@ public class MJAgene extends MJAbase
    { 
      if(mid<0 || mid>=map.maxGenes && map.midStaticCL.mList[mid]!=null)
        return(false);
-     map.midStaticCL.mList[mid].Unigene_ID= unigeneID;
+     map.midStaticCL.mList[mid].setAnnotation(GeneAnnotationStore.UNIGENE_ID,
+                                               unigeneID);
+     map.invalidateGeneIdIndexes();
      return(true);
    }
    
@@ -609,7 +623,9 @@ public class MJAgene extends MJAbase
    { 
      if(mid<0 || mid>=map.maxGenes && map.midStaticCL.mList[mid]!=null)
        return(false);
-     map.midStaticCL.mList[mid].dbEST3= dbEST3;
+     map.midStaticCL.mList[mid].setAnnotation(GeneAnnotationStore.DBEST3,
+                                               dbEST3);
+     map.invalidateGeneIdIndexes();
      return(true);
    }
    
@@ -624,7 +640,9 @@ public class MJAgene extends MJAbase
    { 
      if(mid<0 || mid>=map.maxGenes && map.midStaticCL.mList[mid]!=null)
        return(false);
-     map.midStaticCL.mList[mid].dbEST5= dbEST5;
+     map.midStaticCL.mList[mid].setAnnotation(GeneAnnotationStore.DBEST5,
+                                               dbEST5);
+     map.invalidateGeneIdIndexes();
      return(true);
    }
    
@@ -639,7 +657,9 @@ public class MJAgene extends MJAbase
    { 
      if(mid<0 || mid>=map.maxGenes && map.midStaticCL.mList[mid]!=null)
        return(false);
-     map.midStaticCL.mList[mid].LocusID= locusLinkID;
+     map.midStaticCL.mList[mid].setAnnotation(GeneAnnotationStore.LOCUS_ID,
+                                               locusLinkID);
+     map.invalidateGeneIdIndexes();
      return(true);
    }
    
@@ -654,7 +674,9 @@ public class MJAgene extends MJAbase
    { 
      if(mid<0 || mid>=map.maxGenes && map.midStaticCL.mList[mid]!=null)
        return(false);
-     map.midStaticCL.mList[mid].SwissProt= swissProtID;
+     map.midStaticCL.mList[mid].setAnnotation(GeneAnnotationStore.SWISSPROT,
+                                               swissProtID);
+     map.invalidateGeneIdIndexes();
      return(true);
    }
    
@@ -669,7 +691,8 @@ public class MJAgene extends MJAbase
    { 
      if(mid<0 || mid>=map.maxGenes && map.midStaticCL.mList[mid]!=null)
        return(false);
-     map.midStaticCL.mList[mid].plate= plate;
+     map.midStaticCL.mList[mid].setAnnotation(GeneAnnotationStore.PLATE,
+                                               plate);
      return(true);
    }
    
@@ -684,7 +707,8 @@ public class MJAgene extends MJAbase
    { 
      if(mid<0 || mid>=map.maxGenes && map.midStaticCL.mList[mid]!=null)
        return(false);
-     map.midStaticCL.mList[mid].plate_row= plateRow;
+     map.midStaticCL.mList[mid].setAnnotation(GeneAnnotationStore.PLATE_ROW,
+                                               plateRow);
      return(true);
    }
    
@@ -699,7 +723,8 @@ public class MJAgene extends MJAbase
    { 
      if(mid<0 || mid>=map.maxGenes && map.midStaticCL.mList[mid]!=null)
        return(false);
-     map.midStaticCL.mList[mid].plate_col= plateCol;
+     map.midStaticCL.mList[mid].setAnnotation(GeneAnnotationStore.PLATE_COL,
+                                               plateCol);
      return(true);
    }
    
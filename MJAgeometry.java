@@ -113,7 +113,7 @@ public class MJAgeometry extends MJAbase
     ht.put("MaxGridCols",new Integer(cfg.maxGCOLS));
     ht.put("MasterGeneIDMap",cvtGeneList2GeneMIDlist(map.midStaticCL));
     ht.put("GridIndexMap",cvtGeneList2GeneMIDlist(map.gidStaticCL));
-    ht.put("FGRCtoGIDmap",map.fgrc2gid);
+    ht.put("FGRCtoGIDmap",map.getFGRCtoGIDarray());
     ht.put("GIDtoFGRCmap",getGIDtoFGRCmap());
     ht.put("MIDtoGIDmap",map.mid2gid);
     ht.put("GIDtoMIDmap",map.gid2mid);
@@ -205,7 +205,7 @@ public class MJAgeometry extends MJAbase
    * @return map [field][grid][grid_row][grid_col] to lookup gids
    */
   public final int[][][][] getFGRCtoGIDmap()
-  { return(map.fgrc2gid); }
+  { return(map.getFGRCtoGIDarray()); }
   
   
   /**
@@ -216,14 +216,14 @@ public class MJAgeometry extends MJAbase
   public final int[][] getGIDtoFGRCmap()
   { /* getGIDtoFGRCmap */
     int
-      lthG2F= map.gid2fgrc.length,
+      lthG2F= map.gid2f.length,
       tupleGID2FGRC[][]= new int[lthG2F][5];
     for(int gid= 0; gid<lthG2F;gid++)
     {
       int gidFGRClist[]= {
                            gid,
-                           map.gid2fgrc[gid].f, map.gid2fgrc[gid].g,
-                           map.gid2fgrc[gid].r, map.gid2fgrc[gid].c
+                           map.gid2f[gid], map.gid2g[gid],
+                           map.gid2r[gid], map.gid2c[gid]
                          };
       tupleGID2FGRC[gid]= gidFGRClist;
     }
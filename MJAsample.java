@@ -42,6 +42,8 @@ import java.util.*;
  * calcMeanUseNormGeneSet() - compute (mean,StdDev) normalization gene set
  * swapCy5Cy3AndReCalcStats() - swap Cy3 and Cy5, recalculate statistics 
  * getSamplesDataVector() - get sample data for sample indexes for gene mid.
+ * getSampleDataColumn() - get normalized data of all genes for one sample.
+ * getQuantDataColumns() - get numeric columns of a sample's data file.
  *</PRE>
  *<P>
  * This work was produced by Peter Lemkin of the National Cancer
@@ -902,6 +904,77 @@ public class MJAsample extends MJAbase
     return(true);
   } /* getSamplesDataVector */
   
+       
+  /** 
+   * getSampleDataColumn() - get the normalized data of all genes for one
+   * sample. It is the data getSamplesDataVector() gets one gene at a time.
+   * The sample is scaled with one call to the normalized data cache, which
+   * passes all spots to an active NormalizationPlugin at once.
+   * @param sampleData - array [0:maxGenes-1] to return the data by MID.
+   *        Entries of genes that are skipped are not changed.
+   * @param sampleNbr - sample index [1:nHP]
+   * @param hasData - [0:maxGenes-1] genes to get, or null for all genes
+   * @return true if succeed
+   * @see NormDataCache#getSampleIntensData
+   * @see #getSamplesDataVector
+   */
+  public final boolean getSampleDataColumn(float sampleData[], int sampleNbr,
+                                           boolean hasData[])
+  { /* getSampleDataColumn */
+    if(sampleData==null || sampleNbr<1 || sampleNbr>hps.nHP)
+      return(false);
+    
+    MaHybridSample ms= hps.msList[sampleNbr];
+    if(ms==null)
+      return(false);
+    
+    int 
+      mid2gid[]= map.mid2gid,
+      nGenes= Math.min(sampleData.length, mid2gid.length),
+      gid;
+    float col[]= mae.cdb.normData.getSampleIntensData(ms);
+    
+    for(int mid=0;mid<nGenes;mid++)
+    { /* copy each spot by MID */
+      gid= mid2gid[mid];
+      if(gid<0 || gid>=col.length || (hasData!=null && !hasData[mid]))
+        continue;
+      sampleData[mid]= col[gid];
+    }
+    
+    return(true);
+  } /* getSampleDataColumn */
+  
+  
+  /**
+   * getQuantDataColumns() - get numeric columns of a sample's tab-delimited
+   * data file by field name. The columns are read on first use, from the
+   * file's binary sidecar if it is current, and are kept in the sample data
+   * working set until they are evicted as least recently used.
+   * Sample numbers are in the range of [1:maxSamples].
+   * @param sampleNbr sample number to use, else current HP sample if 0
+   * @param fileName is the full path of the sample's data file
+   * @param fields is the list of field names to get
+   * @return [0:nFields-1][0:nRows-1] data, fields not in the file are 0,
+   *   else null if the sample is not found or the file can't be read.
+   * @see SampleSets#getQuantData
+   */
+  public final float[][] getQuantDataColumns(int sampleNbr, String fileName,
+                                             String fields[])
+  { /* getQuantDataColumns */
+    MaHybridSample msW= chkGetHP(sampleNbr);
+    if(msW==null || fields==null)
+      return(null);
+    
+    boolean intFlag[]= new boolean[fields.length];   /* all float */
+    QuantDataCache qdc= hps.getQuantData(msW, fileName, fields, intFlag,
+                                         mae.mp.maxSpots);
+    if(qdc==null)
+      return(null);
+    
+    return(qdc.fData);
+  } /* getQuantDataColumns */
+  
   
 } /* end of class MJAsample */
 
@@ -22,6 +22,10 @@ import java.util.*;
  * get_dF() - CALC: degrees of freedom previously computed  
  *
  * get_useTest() - CALC: 'B' or 'T' - t-test to use computed 
+ * get_ksD() - CALC: Kolmogorov-Smirnov D statistic previously computed
+ * get_pKS() - CALC: KS-test p-value w/NULL hypoth previously computed
+ * get_wmwU() - CALC: Mann-Whitney U statistic previously computed
+ * get_pWMW() - CALC: WMW-test p-value w/NULL hypoth previously computed
  * get_title() - title for data used in histogram previously computed  
  * get_meanIdx() - index of mean in hist[] previously computed 
  * get_medianIdx() - index of median in hist[] previously computed 
@@ -53,6 +57,8 @@ import java.util.*;
  * calcNCondFtestStat() - calc. F-test statistics of data[0:nConditions-1][samples]
  * calcFprobFromVariances() - calc 2-tailed f prob. that vars. are same.
  * calcTandPvalues() - given (n1,m1,s1) and (n2,m2,s2), calc f, t, p, dF.
+ * calcKStestStat() - calc. Kolmogorov-Smirnov test of (data1,n1), (data2,n2)
+ * calcWMWtestStat() - calc. Wilcoxon-Mann-Whitney test of (data1,n1), (data2,n2)
  * calcHistStats() - compute and analyze histogram.
  * calcHistStats() - compute and analyze histogram.
  *</PRE>
@@ -146,6 +152,38 @@ public class MJAstatistics extends MJAbase
   { return(mae.stat.useTest); }
   
   
+  /**
+   * get_ksD() - CALC: Kolmogorov-Smirnov D statistic previously computed
+   * @see #calcKStestStat
+   */
+  public final double get_ksD()
+  { return(mae.stat.ksD); }
+  
+  
+  /**
+   * get_pKS() - CALC: KS-test p-value w/NULL hypoth previously computed
+   * @see #calcKStestStat
+   */
+  public final double get_pKS()
+  { return(mae.stat.pKS); }
+  
+  
+  /**
+   * get_wmwU() - CALC: Mann-Whitney U statistic previously computed
+   * @see #calcWMWtestStat
+   */
+  public final double get_wmwU()
+  { return(mae.stat.wmwU); }
+  
+  
+  /**
+   * get_pWMW() - CALC: WMW-test p-value w/NULL hypoth previously computed
+   * @see #calcWMWtestStat
+   */
+  public final double get_pWMW()
+  { return(mae.stat.pWMW); }
+  
+  
   /**
    * get_title() - title for data used in histogram previously computed
    */
@@ -459,6 +497,39 @@ public class MJAstatistics extends MJAbase
   } /* calcTandPvalues */
   
   
+  /**
+   * calcKStestStat() - calculate Kolmogorov-Smirnov ksD, pKS, dFks 
+   * from (n1,data1) and (n2,data2). Note: the data is sorted in place.
+   * @param data1 sample data class 1
+   * @param n1 # samples in class 1
+   * @param data2 sample data class 2
+   * @param n2 # samples in class 2
+   * @return false if any of the data is invalid (need >= 2 samples/class)
+   */
+  public final boolean calcKStestStat(double data1[], int n1,
+                                      double data2[], int n2)
+  { /* calcKStestStat */
+    return(mae.stat.calcKStestStat(data1, n1, data2, n2));
+  } /* calcKStestStat */
+  
+  
+  /**
+   * calcWMWtestStat() - calculate Wilcoxon-Mann-Whitney rank sum test
+   * U, z-score and p-value from (n1,data1) and (n2,data2).
+   * Note: the data is sorted in place.
+   * @param data1 sample data class 1
+   * @param n1 # samples in class 1
+   * @param data2 sample data class 2
+   * @param n2 # samples in class 2
+   * @return false if any of the data is invalid (need >= 2 samples/class)
+   */
+  public final boolean calcWMWtestStat(double data1[], int n1,
+                                       double data2[], int n2)
+  { /* calcWMWtestStat */
+    return(mae.stat.calcWMWtestStat(data1, n1, data2, n2));
+  } /* calcWMWtestStat */
+  
+  
   /**
    * calcHistStats() - compute and analyze histogram.
    * for whatever range of data is given.
@@ -80,17 +80,61 @@ class Maps
      * as  maxGenes which is computed from the # fields, grids, rows, cols. ---
      */
    
-   /** map: gid (GridCoords index) to [f][g][r][c] values in GridCoords object.
-    * This is created by:  GridCoords.createIndexToGridCoordMap()
-    * It is searched by: cfg.lookupHPoords()
+   /** map: gid (GridCoords index) to field #, [0:maxSpots-1], 0 if no spot.
+    * The gid2f[], gid2g[], gid2r[] and gid2c[] maps are the packed [f][g][r][c]
+    * values of the spots. Use getGridCoords(gid) to get a GridCoords object.
+    * These are created by:  GridCoords.createIndexToGridCoordMap()
     */
-   GridCoords
-     gid2fgrc[]= null;
-   
-   /** map: [f][g][r][c] to gid (GridCoords index GID).
-    * estimate as [maxFIELDS+1][maxGRIDS+1][maxGROWS+1][maxGCOLS+1]
+   short
+     gid2f[]= null;
+   /** map: gid (GridCoords index) to grid # */
+   short
+     gid2g[]= null;
+   /** map: gid (GridCoords index) to grid row # */
+   short
+     gid2r[]= null;
+   /** map: gid (GridCoords index) to grid column # */
+   short
+     gid2c[]= null;
+   
+   /** map: [f][g][r][c] to gid (GridCoords index GID) stored flat as
+    * [f*fgrcStrideF + g*fgrcStrideG + r*fgrcStrideR + c], -1 if no spot.
+    * estimate as (maxFIELDS+1)*(maxGRIDS+1)*(maxGROWS+1)*(maxGCOLS+1)
     * This is created by: GridCoords.createIndexToGridCoordMap()
-    * It is NOT searched - just used as lookup.
+    * It is NOT searched - just used as lookup with getGID(f,g,r,c).
+    */
+   int
+     fgrc2gidFlat[]= null;
+   /** stride of f in fgrc2gidFlat[] */
+   int
+     fgrcStrideF= 0;
+   /** stride of g in fgrc2gidFlat[] */
+   int
+     fgrcStrideG= 0;
+   /** stride of r in fgrc2gidFlat[] */
+   int
+     fgrcStrideR= 0;
+   /** max f in fgrc2gidFlat[] */
+   private int
+     fgrcMaxF= 0;
+   /** max g in fgrc2gidFlat[] */
+   private int
+     fgrcMaxG= 0;
+   /** max r in fgrc2gidFlat[] */
+   private int
+     fgrcMaxR= 0;
+   /** max c in fgrc2gidFlat[] */
+   private int
+     fgrcMaxC= 0;
+   
+   /** flag: also build the old fgrc2gid[][][][] map when the maps are
+    * made, for code that does not use getGID() yet. Off by default,
+    * since it is a second copy of fgrc2gidFlat[]. */
+   static boolean
+     keepOldMapViewsFlag= false;
+   /** map: [f][g][r][c] to gid, -1 if no spot. A copy of fgrc2gidFlat[]
+    * built by getFGRCtoGIDarray(), null if not built. Do not change it.
+    * @deprecated use getGID(f,g,r,c)
     */
    int
      fgrc2gid[][][][]= null;
@@ -137,6 +181,52 @@ class Maps
    Hashtable
      mid2MasterIdHashtable= null;   
    
+   /** counts of the shared annotations of the static Genes, null if not
+    * used. This is created by: GeneAnnotationStore.internGenes().
+    */
+   GeneAnnotationStore
+     annot= null;
+   
+   /* --- Gene identifier index types for lookupMIDsFromGeneId() --- */
+   /** index of Gene_Name */
+   final static int
+     ID_GENE_NAME= 0;
+   /** index of Clone_ID */
+   final static int
+     ID_CLONE_ID= 1;
+   /** index of Unigene_ID */
+   final static int
+     ID_UNIGENE_ID= 2;
+   /** index of RefSeqID */
+   final static int
+     ID_REFSEQ_ID= 3;
+   /** index of LocusID */
+   final static int
+     ID_LOCUS_ID= 4;
+   /** index of SwissProt */
+   final static int
+     ID_SWISSPROT_ID= 5;
+   /** index of GenBankAcc, GenBankAcc5, GenBankAcc3 and RefSeqID */
+   final static int
+     ID_GENBANK_ACC= 6;
+   /** index of dbEST3 and dbEST5 */
+   final static int
+     ID_DBEST= 7;
+   /** # of gene identifier indexes */
+   final static int
+     N_ID_INDEXES= 8;
+   
+   /** [N_ID_INDEXES] case-folded gene identifier hash indexes. The key is
+    * the lower case identifier and the value is the int[] list of mids
+    * with that identifier. This is null until built or after invalidated.
+    * It is created by: buildGeneIdIndexes().
+    */
+   private volatile Hashtable
+     geneIdIndex[]= null;
+   /** # of times the gene identifier indexes were built */
+   int
+     nGeneIdIndexBuilds= 0;
+   
    
    /**
     * Maps() - constructor that allocates mapping tables calc size from F*G*R*C
@@ -184,7 +274,7 @@ class Maps
    private void allocateMapArrays()
    { /* allocateMapArrays */
      int
-       f, g, r, c, i,
+       i,
        maxFIELDS= cfg.maxFIELDS,
        nF= (mae.useRatioDataFlag) ? 2*maxFIELDS : maxFIELDS,
                  /* double up on the data since there
@@ -204,20 +294,24 @@ class Maps
                         " maxFGRC="+maxFGRC);
      }
      
-      /* Maps between gid (GridCoords index) and [f][g][r][c] values
-       * in GridCoords object.
-       */
-     gid2fgrc= new GridCoords[maxSpots];
-     fgrc2gid= new int[nF+1][maxGRIDS+1][maxGROWS+1][maxGCOLS+1];
-     
-      /* make sure all slots are initialized to illegal Java
+      /* Maps between gid (GridCoords index) and [f][g][r][c] values.
+       * make sure all fgrc2gidFlat[] slots are initialized to illegal Java
        * bounds checker value i.e. -1
        */
-     for(f=0; f<=maxFIELDS; f++)
-       for(g=0;g<=maxGRIDS;g++)
-         for(r=0;r<=maxGROWS;r++)
-           for(c=0;c<=maxGCOLS;c++)
-             fgrc2gid[f][g][r][c]= -1;
+     gid2f= new short[maxSpots];
+     gid2g= new short[maxSpots];
+     gid2r= new short[maxSpots];
+     gid2c= new short[maxSpots];
+     fgrcStrideR= maxGCOLS+1;
+     fgrcStrideG= (maxGROWS+1)*fgrcStrideR;
+     fgrcStrideF= (maxGRIDS+1)*fgrcStrideG;
+     fgrcMaxF= nF;
+     fgrcMaxG= maxGRIDS;
+     fgrcMaxR= maxGROWS;
+     fgrcMaxC= maxGCOLS;
+     fgrc2gidFlat= new int[(nF+1)*fgrcStrideF];
+     Arrays.fill(fgrc2gidFlat, -1);
+     fgrc2gid= null;
      
      /* Maps between gid (gridCoords index) & mid (Gene index) set to NULL */
      gid2mid= new int[maxSpots];
@@ -243,47 +337,281 @@ class Maps
    
    
    /**
-    * lookupMIDfromGeneName() - lookup mid from Gene Name.
-    * Note this returns the first instance of the gene found if there are duplicates.
-    * @param name of gene to look up
-    * @return mid if found else -1
+    * getGID() - lookup the gid of the spot at [f][g][r][c]
+    * @param f is field # [1:nF]
+    * @param g is grid # [1:maxGRIDS]
+    * @param r is grid row # [1:maxGROWS]
+    * @param c is grid column # [1:maxGCOLS]
+    * @return gid if found else -1
     */
-   int lookupMIDfromGeneName(String name)
-   { /* lookupMIDfromGeneName */
-     int mid= -1;	 /* default to fail */
+   final int getGID(int f, int g, int r, int c)
+   { /* getGID */
+     if(f<0 || f>fgrcMaxF || g<0 || g>fgrcMaxG ||
+        r<0 || r>fgrcMaxR || c<0 || c>fgrcMaxC)
+       return(-1);
+     return(fgrc2gidFlat[f*fgrcStrideF + g*fgrcStrideG + r*fgrcStrideR + c]);
+   } /* getGID */
+   
+   
+   /**
+    * setGID() - set the gid of the spot at [f][g][r][c] in both the
+    * fgrc2gidFlat[] and the gid2f[], gid2g[], gid2r[] and gid2c[] maps,
+    * and in the old fgrc2gid[][][][] map if it was built.
+    * @param f is field # [1:nF]
+    * @param g is grid # [1:maxGRIDS]
+    * @param r is grid row # [1:maxGROWS]
+    * @param c is grid column # [1:maxGCOLS]
+    * @param gid is the GID value
+    */
+   final void setGID(int f, int g, int r, int c, int gid)
+   { /* setGID */
+     fgrc2gidFlat[f*fgrcStrideF + g*fgrcStrideG + r*fgrcStrideR + c]= gid;
+     gid2f[gid]= (short)f;
+     gid2g[gid]= (short)g;
+     gid2r[gid]= (short)r;
+     gid2c[gid]= (short)c;
+     if(fgrc2gid!=null)
+       fgrc2gid[f][g][r][c]= gid;
+   } /* setGID */
+   
+   
+   /**
+    * getGridCoords() - get a GridCoords object with the [f][g][r][c] of
+    * the gid. It is made from the gid2f[], gid2g[], gid2r[] and gid2c[]
+    * maps when asked for, so no GridCoords objects are kept for the spots.
+    * The object is a copy, so changing it does not change the maps.
+    * @param gid is the GID value
+    * @return grid coordinates, null if no spot has the gid
+    */
+   GridCoords getGridCoords(int gid)
+   { /* getGridCoords */
+     if(gid<0 || gid>=gid2f.length || gid2f[gid]==0)
+       return(null);
+     return(new GridCoords(gid2f[gid], gid2g[gid], gid2r[gid], gid2c[gid],
+                           gid));
+   } /* getGridCoords */
+   
+   
+   /**
+    * getFGRCtoGIDarray() - get the fgrc2gidFlat[] map as an array
+    * [f][g][r][c] of gids, for the plugin API. The array is built once
+    * and kept as the fgrc2gid[][][][] view, so do not change it.
+    * @return array [nF+1][maxGRIDS+1][maxGROWS+1][maxGCOLS+1]
+    */
+   synchronized int[][][][] getFGRCtoGIDarray()
+   { /* getFGRCtoGIDarray */
+     if(fgrc2gid!=null)
+       return(fgrc2gid);
+     
+     int fgrc[][][][]= new int[fgrcMaxF+1][fgrcMaxG+1][fgrcMaxR+1]
+                              [fgrcMaxC+1];
      
-     if(name!=null && name.length()>0)
+     for(int f=0;f<=fgrcMaxF;f++)
+       for(int g=0;g<=fgrcMaxG;g++)
+         for(int r=0;r<=fgrcMaxR;r++)
+           System.arraycopy(fgrc2gidFlat, f*fgrcStrideF + g*fgrcStrideG +
+                            r*fgrcStrideR, fgrc[f][g][r], 0, fgrcMaxC+1);
+     fgrc2gid= fgrc;
+     return(fgrc);
+   } /* getFGRCtoGIDarray */
+   
+   
+   /**
+    * buildOldMapViews() - build the deprecated fgrc2gid[][][][] map from
+    * the flat map if keepOldMapViewsFlag is set. This is called by
+    * GridCoords.createIndexToGridCoordMap() when the flat maps are done.
+    * @see #getFGRCtoGIDarray
+    */
+   void buildOldMapViews()
+   { /* buildOldMapViews */
+     if(keepOldMapViewsFlag)
+       getFGRCtoGIDarray();
+   } /* buildOldMapViews */
+   
+   
+   /**
+    * buildGeneIdIndexes() - build the case-folded hash indexes of the
+    * gene identifiers of midStaticCL.mList[]. Each index maps the lower
+    * case identifier to the list of mids of the genes with that identifier
+    * in increasing mid order, so the first mid in the list is the one the
+    * linear search found. This is called once after the gene tables are
+    * loaded and again when the indexes are used after they were invalidated.
+    * @see #invalidateGeneIdIndexes
+    */
+   synchronized void buildGeneIdIndexes()
+   { /* buildGeneIdIndexes */
+     if(geneIdIndex!=null)
+       return;                        /* already built */
+     
+     Hashtable index[]= new Hashtable[N_ID_INDEXES];
+     for(int t=0;t<N_ID_INDEXES;t++)
+       index[t]= new Hashtable(maxGeneHashTableSize);
+     
+     if(midStaticCL!=null)
        for(int i=0; i < maxGenes; i++)
-       { /* lookup the gene */
+       { /* add the ids of the gene */
          Gene gene= midStaticCL.mList[i];
          if(gene==null)
            continue;
-         if(gene.Gene_Name!=null &&  gene.Gene_Name.equalsIgnoreCase(name))
-         {
-           mid= gene.mid;
-           break;
-         }
-       } /* lookup the gene */
+         int mid= gene.mid;
+         addIdToIndex(index[ID_GENE_NAME], gene.getGene_Name(), mid);
+         addIdToIndex(index[ID_CLONE_ID], gene.getClone_ID(), mid);
+         addIdToIndex(index[ID_UNIGENE_ID], gene.getUnigene_ID(), mid);
+         addIdToIndex(index[ID_REFSEQ_ID], gene.getRefSeqID(), mid);
+         addIdToIndex(index[ID_LOCUS_ID], gene.getLocusID(), mid);
+         addIdToIndex(index[ID_SWISSPROT_ID], gene.getSwissProt(), mid);
+         addIdToIndex(index[ID_GENBANK_ACC], gene.getGenBankAcc(), mid);
+         addIdToIndex(index[ID_GENBANK_ACC], gene.getGenBankAcc5(), mid);
+         addIdToIndex(index[ID_GENBANK_ACC], gene.getGenBankAcc3(), mid);
+         addIdToIndex(index[ID_GENBANK_ACC], gene.getRefSeqID(), mid);
+         addIdToIndex(index[ID_DBEST], gene.getDbEST3(), mid);
+         addIdToIndex(index[ID_DBEST], gene.getDbEST5(), mid);
+       } /* add the ids of the gene */
+     
+     for(int t=0;t<N_ID_INDEXES;t++)
+     { /* trim the mid lists to their counts */
+       Enumeration e= index[t].keys();
+       while(e.hasMoreElements())
+       {
+         Object key= e.nextElement();
+         int
+           list[]= (int[])index[t].get(key),
+           n= list[0],
+           mids[]= new int[n];
+         System.arraycopy(list,1,mids,0,n);
+         index[t].put(key,mids);
+       }
+     }
      
-     return(mid);
-   } /* lookupMIDfromGeneName */
+     nGeneIdIndexBuilds++;
+     geneIdIndex= index;
+   } /* buildGeneIdIndexes */
    
    
    /**
-    * lookupMIDlistFromGeneName() - lookup mid list from Gene Name.
+    * addIdToIndex() - add mid to the list of the identifier in the index
+    * being built. The list is [0] the count and [1:count] the mids, and
+    * a mid is only added once if a gene has the same id in several fields.
+    * @param index is the index being built
+    * @param id is the gene identifier, ignored if null or ""
+    * @param mid is the gene's mid
+    */
+   private static void addIdToIndex(Hashtable index, String id, int mid)
+   { /* addIdToIndex */
+     if(id==null || id.length()==0)
+       return;
+     
+     String key= id.toLowerCase(Locale.ENGLISH);
+     int list[]= (int[])index.get(key);
+     
+     if(list==null)
+     { /* new id */
+       list= new int[2];
+       list[0]= 1;
+       list[1]= mid;
+       index.put(key,list);
+       return;
+     }
+     
+     int n= list[0];
+     if(list[n]==mid)
+       return;                        /* same gene, other field */
+     if(n+1==list.length)
+     { /* grow */
+       int newList[]= new int[2*list.length];
+       System.arraycopy(list,0,newList,0,list.length);
+       list= newList;
+       index.put(key,list);
+     }
+     list[++n]= mid;
+     list[0]= n;
+   } /* addIdToIndex */
+   
+   
+   /**
+    * invalidateGeneIdIndexes() - invalidate the gene identifier indexes
+    * after a gene identifier was changed. They are rebuilt the next time
+    * they are used.
+    * @see #buildGeneIdIndexes
+    */
+   void invalidateGeneIdIndexes()
+   { /* invalidateGeneIdIndexes */
+     geneIdIndex= null;
+   } /* invalidateGeneIdIndexes */
+   
+   
+   /**
+    * lookupMIDsFromGeneId() - lookup the list of all mids with the gene
+    * identifier. The identifier is compared ignoring case.
+    * The list is shared with the index and must not be modified.
+    * @param idType is the identifier index, e.g. ID_GENE_NAME
+    * @param name of the identifier to look up
+    * @return list of mids in increasing mid order if found, else null
+    * @see #buildGeneIdIndexes
+    */
+   int[] lookupMIDsFromGeneId(int idType, String name)
+   { /* lookupMIDsFromGeneId */
+     if(name==null || name.length()==0 || idType<0 || idType>=N_ID_INDEXES)
+       return(null);
+     
+     Hashtable index[]= geneIdIndex;
+     if(index==null)
+     { /* build or rebuild it */
+       buildGeneIdIndexes();
+       index= geneIdIndex;
+     }
+     
+     return((int[])index[idType].get(name.toLowerCase(Locale.ENGLISH)));
+   } /* lookupMIDsFromGeneId */
+   
+   
+   /**
+    * lookupMIDfromGeneId() - lookup mid from the gene identifier.
     * Note this returns the first instance of the gene found if there are duplicates.
-    * @param name of gene to look up
+    * @param idType is the identifier index, e.g. ID_GENE_NAME
+    * @param name of the identifier to look up
+    * @return mid if found else -1
+    * @see #lookupMIDsFromGeneId
+    */
+   int lookupMIDfromGeneId(int idType, String name)
+   { /* lookupMIDfromGeneId */
+     int mids[]= lookupMIDsFromGeneId(idType, name);
+     return((mids==null) ? -1 : mids[0]);
+   } /* lookupMIDfromGeneId */
+   
+   
+   /**
+    * lookupMIDlistFromMID() - lookup the duplicate gene mid list of a gene
+    * @param mid of gene, -1 if not found
     * @return mid list if found, else null
     */
-   int[] lookupMIDListFromGeneName(String name)
-   { /* lookupMIDListFromGeneName */
-     int
-       midList[]= null,
-       mid= lookupMIDfromGeneName(name);
+   private int[] lookupMIDlistFromMID(int mid)
+   { /* lookupMIDlistFromMID */
+     int midList[]= null;
      if(mid!=-1)
        midList= midStaticCL.mList[mid].midList;
      return(midList);
-   } /* lookupMIDlistFromGeneName */
+   } /* lookupMIDlistFromMID */
+   
+   
+   /**
+    * lookupMIDfromGeneName() - lookup mid from Gene Name.
+    * Note this returns the first instance of the gene found if there are duplicates.
+    * @param name of gene to look up
+    * @return mid if found else -1
+    */
+   int lookupMIDfromGeneName(String name)
+   { return(lookupMIDfromGeneId(ID_GENE_NAME, name)); }
+   
+   
+   /**
+    * lookupMIDlistFromGeneName() - lookup mid list from Gene Name.
+    * Note this returns the first instance of the gene found if there are duplicates.
+    * @param name of gene to look up
+    * @return mid list if found, else null
+    */
+   int[] lookupMIDListFromGeneName(String name)
+   { return(lookupMIDlistFromMID(lookupMIDfromGeneName(name))); }
    
    
    /**
@@ -293,24 +621,7 @@ class Maps
     * @return mid if found else -1
     */
    int lookupMIDfromCloneID(String name)
-   { /* lookupMIDfromCloneID */
-     int mid= -1;	 /* default to fail */
-     
-     if(name!=null && name.length()>0)
-       for(int i=0; i < maxGenes; i++)
-       { /* lookup the gene */
-         Gene gene= midStaticCL.mList[i];
-         if(gene==null)
-           continue;
-         if(gene.Clone_ID!=null && gene.Clone_ID.equalsIgnoreCase(name))
-         {
-           mid= gene.mid;
-           break;
-         }
-       } /* lookup the gene */
-     
-     return(mid);
-   } /* lookupMIDfromCloneID */
+   { return(lookupMIDfromGeneId(ID_CLONE_ID, name)); }
    
    
    /**
@@ -320,14 +631,7 @@ class Maps
     * @return mid list if found, else null
     */
    int[] lookupMIDListFromCloneID(String name)
-   { /* lookupMIDListFromCloneID */
-     int
-       midList[]= null,
-       mid= lookupMIDfromCloneID(name);
-     if(mid!=-1)
-       midList= midStaticCL.mList[mid].midList;
-     return(midList);
-   } /* lookupMIDlistFromCloneID */
+   { return(lookupMIDlistFromMID(lookupMIDfromCloneID(name))); }
    
    
    /**
@@ -337,24 +641,7 @@ class Maps
     * @return mid if found else -1
     */
    int lookupMIDfromUniGeneID(String name)
-   { /* lookupMIDfromUniGeneID */
-     int mid= -1;	 /* default to fail */
-     
-     if(name!=null && name.length()>0)
-       for(int i=0; i < maxGenes; i++)
-       { /* lookup the gene */
-         Gene gene= midStaticCL.mList[i];
-         if(gene==null)
-           continue;
-         if(gene.Unigene_ID!=null && gene.Unigene_ID.equalsIgnoreCase(name))
-         {
-           mid= gene.mid;
-           break;
-         }
-       } /* lookup the gene */
-     
-     return(mid);
-   } /* lookupMIDfromUniGeneID */
+   { return(lookupMIDfromGeneId(ID_UNIGENE_ID, name)); }
    
    
    /**
@@ -364,14 +651,7 @@ class Maps
     * @return mid list if found, else null
     */
    int[] lookupMIDListFromUniGeneID(String name)
-   { /* lookupMIDListFromUniGeneID */
-     int
-       midList[]= null,
-       mid= lookupMIDfromUniGeneID(name);
-     if(mid!=-1)
-       midList= midStaticCL.mList[mid].midList;
-     return(midList);
-   } /* lookupMIDlistFromUniGeneID */
+   { return(lookupMIDlistFromMID(lookupMIDfromUniGeneID(name))); }
    
    
    /**
@@ -381,24 +661,7 @@ class Maps
     * @return mid if found else -1
     */
    int lookupMIDfromRefSeqID(String name)
-   { /* lookupMIDfromRefSeqID */
-     int mid= -1;	 /* default to fail */
-     
-     if(name!=null && name.length()>0)
-       for(int i=0; i < maxGenes; i++)
-       { /* lookup the gene */
-         Gene gene= midStaticCL.mList[i];
-         if(gene==null)
-           continue;
-         if(gene.RefSeqID!=null && gene.RefSeqID.equalsIgnoreCase(name))
-         {
-           mid= gene.mid;
-           break;
-         }
-       } /* lookup the gene */
-     
-     return(mid);
-   } /* lookupMIDfromRefSeqID */
+   { return(lookupMIDfromGeneId(ID_REFSEQ_ID, name)); }
    
    
    /**
@@ -408,14 +671,7 @@ class Maps
     * @return mid list if found, else null
     */
    int[] lookupMIDListFromRefSeqID(String name)
-   { /* lookupMIDListFromRefSeqID */
-     int
-       midList[]= null,
-       mid= lookupMIDfromRefSeqID(name);
-     if(mid!=-1)
-       midList= midStaticCL.mList[mid].midList;
-     return(midList);
-   } /* lookupMIDlistFromRefSeqID */
+   { return(lookupMIDlistFromMID(lookupMIDfromRefSeqID(name))); }
    
    
    /**
@@ -425,24 +681,7 @@ class Maps
     * @return mid if found else -1
     */
    int lookupMIDfromLocusID(String name)
-   { /* lookupMIDfromLocusID */
-     int mid= -1;	 /* default to fail */
-     
-     if(name!=null && name.length()>0)
-       for(int i=0; i < maxGenes; i++)
-       { /* lookup the gene */
-         Gene gene= midStaticCL.mList[i];
-         if(gene==null)
-           continue;
-         if(gene.LocusID!=null && gene.LocusID.equalsIgnoreCase(name))
-         {
-           mid= gene.mid;
-           break;
-         }
-       } /* lookup the gene */
-     
-     return(mid);
-   } /* lookupMIDfromLocusID */
+   { return(lookupMIDfromGeneId(ID_LOCUS_ID, name)); }
    
    
    /**
@@ -452,14 +691,7 @@ class Maps
     * @return mid list if found, else null
     */
    int[] lookupMIDListFromLocusID(String name)
-   { /* lookupMIDListFromLocusID */
-     int
-       midList[]= null,
-       mid= lookupMIDfromLocusID(name);
-     if(mid!=-1)
-       midList= midStaticCL.mList[mid].midList;
-     return(midList);
-   } /* lookupMIDlistFromLocusID */
+   { return(lookupMIDlistFromMID(lookupMIDfromLocusID(name))); }
    
    
    /**
@@ -469,24 +701,7 @@ class Maps
     * @return mid if found else -1
     */
    int lookupMIDfromSwissProtID(String name)
-   { /* lookupMIDfromSwissProtID */
-     int mid= -1;	 /* default to fail */
-     
-     if(name!=null && name.length()>0)
-       for(int i=0; i < maxGenes; i++)
-       { /* lookup the gene */
-         Gene gene= midStaticCL.mList[i];
-         if(gene==null)
-           continue;
-         if(gene.SwissProt!=null && gene.SwissProt.equalsIgnoreCase(name))
-         {
-           mid= gene.mid;
-           break;
-         }
-       } /* lookup the gene */
-     
-     return(mid);
-   } /* lookupMIDfromSwissProtID */
+   { return(lookupMIDfromGeneId(ID_SWISSPROT_ID, name)); }
    
    
    /**
@@ -496,44 +711,18 @@ class Maps
     * @return mid list if found, else null
     */
    int[] lookupMIDListFromSwissProtID(String name)
-   { /* lookupMIDListFromSwissProtID */
-     int
-       midList[]= null,
-       mid= lookupMIDfromSwissProtID(name);
-     if(mid!=-1)
-       midList= midStaticCL.mList[mid].midList;
-     return(midList);
-   } /* lookupMIDlistFromSwissProtID */
+   { return(lookupMIDlistFromMID(lookupMIDfromSwissProtID(name))); }
    
    
    /**
     * lookupMIDfromGenBankACC() - lookup mid from GenBank ACC ID.
+    * This matches the GenBankAcc, GenBankAcc5, GenBankAcc3 and RefSeqID.
     * Note this returns the first instance of the gene found if there are duplicates.
     * @param name of gene to look up
     * @return mid if found else -1
     */
    int lookupMIDfromGenBankACC(String name)
-   { /* lookupMIDfromGenBankACC */
-     int mid= -1;	 /* default to fail */
-     
-     if(name!=null && name.length()>0)
-       for(int i=0; i < maxGenes; i++)
-       { /* lookup the gene */
-         Gene gene= midStaticCL.mList[i];
-         if(gene==null)
-           continue;
-         if((gene.GenBankAcc!=null && gene.GenBankAcc.equalsIgnoreCase(name)) ||
-            (gene.GenBankAcc5!=null && gene.GenBankAcc5.equalsIgnoreCase(name)) ||
-            (gene.GenBankAcc3!=null && gene.GenBankAcc3.equalsIgnoreCase(name)) ||
-            (gene.RefSeqID!=null && gene.RefSeqID.equalsIgnoreCase(name)) )
-         {
-           mid= gene.mid;
-           break;
-         }
-       } /* lookup the gene */
-     
-     return(mid);
-   } /* lookupMIDfromGenBankACC */
+   { return(lookupMIDfromGeneId(ID_GENBANK_ACC, name)); }
    
    
    /**
@@ -543,14 +732,7 @@ class Maps
     * @return mid list if found, else null
     */
    int[] lookupMIDlistFromGenBankACC(String name)
-   { /* lookupMIDlistFromGenBankACC */
-     int
-       midList[]= null,
-       mid= lookupMIDfromGenBankACC(name);
-     if(mid!=-1)
-       midList= midStaticCL.mList[mid].midList;
-     return(midList);
-   } /* lookupMIDlistFromGenBankACC */
+   { return(lookupMIDlistFromMID(lookupMIDfromGenBankACC(name))); }
    
    
    /**
@@ -560,25 +742,7 @@ class Maps
     * @return mid if found else -1
     */
    int lookupMIDfrom_dbEST(String name)
-   { /* lookupMIDfrom_dbEST */
-     int mid= -1;            	 /* default to fail */
-     
-     if(name!=null && name.length()>0)
-       for(int i=0; i < maxGenes; i++)
-       { /* lookup the gene */
-         Gene gene= midStaticCL.mList[i];
-         if(gene==null)
-           continue;
-         if((gene.dbEST3!=null && gene.dbEST3.equalsIgnoreCase(name)) ||
-            (gene.dbEST5!=null && gene.dbEST5.equalsIgnoreCase(name)) )
-         {
-           mid= gene.mid;
-           break;
-         }
-       } /* lookup the gene */
-     
-     return(mid);
-   } /* lookupMIDfrom_dbEST */
+   { return(lookupMIDfromGeneId(ID_DBEST, name)); }
    
    
    /**
@@ -588,19 +752,8 @@ class Maps
     * @return mid list if found, else null
     */
    int[] lookupMIDlistFrom_dbEST(String name)
-   { /* lookupMIDlistFrom_dbEST */
-     int
-       midList[]= null,
-       mid= lookupMIDfrom_dbEST(name);
-     if(mid!=-1)
-       midList= midStaticCL.mList[mid].midList;
-     return(midList);
-   } /* lookupMIDlistFrom_dbEST */
+   { return(lookupMIDlistFromMID(lookupMIDfrom_dbEST(name))); }
    
    
    
 } /* end of class Maps */
-
-
-
-
@@ -78,6 +78,27 @@
    /** RTN: standard deviation Y */
    public static double
      sdY;
+     
+   /** flag: use PValueTable lookup tables in getPvalueTable() */
+   public static boolean
+     usePvalueTablesFlag= true;
+   /** size of lnBetaCache[], a power of 2 */
+   final private static int
+     LN_BETA_CACHE_SIZE= 64;
+   /** cache of {a, b, ln(gamma(a+b))-ln(gamma(a))-ln(gamma(b))} entries
+    * for the (a,b) pairs used by betaI() with integer degrees of freedom
+    */
+   private static double
+     lnBetaCache[][]= new double[LN_BETA_CACHE_SIZE][];
+   /** max # of p-value tables kept in pValueTables[] */
+   final private static int
+     MAX_PVALUE_TABLES= 16;
+   /** p-value tables [0:nPvalueTables-1] for the (d1,d2) df pairs in use */
+   private static PValueTable
+     pValueTables[]= new PValueTable[MAX_PVALUE_TABLES];
+   /** # of p-value tables built */
+   private static int
+     nPvalueTables= 0;
      	             
    
    /**
@@ -118,10 +139,30 @@
     * @param a arg
     * @param b arg
     * @param x arg
-    * @return value
+    * @return value, or Double.NaN if it failed to converge
+    * @see #betaCF
     */
    public static double nr_betacf(double a, double b, double x)
    { /* nr_betacf */
+     double az= betaCF(a,b,x);
+     
+     okBetaCF= !Double.isNaN(az);
+     
+     return(az);
+   } /* nr_betacf */
+   
+   
+   /**
+    * betaCF() - re-entrant evaluation fct for the incomplete Beta
+    * function 'x(a,b). It is the same as nr_betacf() but it does not set
+    * the okBetaCF flag, so it may be called from several threads at once.
+    * @param a arg
+    * @param b arg
+    * @param x arg
+    * @return value, or Double.NaN if it failed to converge
+    */
+   public static double betaCF(double a, double b, double x)
+   { /* betaCF */
      double
        qap,
        qam,
@@ -166,10 +207,7 @@
        az=app/bpp;
        bz=1.0;
        if (Math.abs(az-aold) < (epsilon*Math.abs(az)))
-       {
-         okBetaCF= true;
          return(az);
-       }
      }
      
      /* FAILED */
@@ -178,10 +216,9 @@
                         ") too big, or #iter.Max("+
                         iterationsMax+  "d) too small");
      */
-     okBetaCF= false;
      
-     return(az);
-   } /* nr_betacf */
+     return(Double.NaN);
+   } /* betaCF */
    
    
    /**
@@ -193,15 +230,10 @@
     * @param x - x parameter of 'x(a,b)
     * @return value if succeed else 0.0 if it fails and set the
     *         RTN: okBetaI flag to false.
-    * @see #nr_betacf
-    * @see #nr_gammln
+    * @see #betaI
     */
    public static double nr_betai(double a, double b, double x)
    { /* nr_betai */
-     double
-       rVal,
-       bt;
-     
      if (x < 0.0 || x > 1.0)
      {
        //System.out.println("Bad x=" + x + " in betai().");
@@ -209,21 +241,9 @@
        return(0.0);
      }
      
-     if (x == 0.0 || x == 1.0)
-       bt= 0.0;
-     else
-     {
-       double
-       v1= nr_gammln(a+b),
-       v2= nr_gammln(a),
-       v3= nr_gammln(b);
-       bt= Math.exp(v1 - v2 - v3 + a*Math.log(x) + b*Math.log(1.0-x));
-     }
+     double rVal= betaI(a,b,x);
      
-     if (x < (a+1.0)/(a+b+2.0))
-       rVal= (bt * nr_betacf(a,b,x)/a);
-     else
-       rVal= (1.0 - bt * nr_betacf(b, a, 1.0-x)/b);
+     okBetaCF= !Double.isNaN(rVal);
      if(!okBetaCF)
        return(0.0);
      
@@ -232,6 +252,197 @@
    } /* nr_betai */
    
    
+   /**
+    * betaI() - re-entrant incomplete Beta function 'x(a,b). It is the
+    * same as nr_betai() but it reports failure by returning Double.NaN
+    * instead of setting the okBetaI and okBetaCF flags, so it may be
+    * called from several threads at once.
+    * @param a - a parameter of 'x(a,b)
+    * @param b - b parameter of 'x(a,b)
+    * @param x - x parameter of 'x(a,b)
+    * @return value if succeed else Double.NaN if x is not in [0:1] or
+    *         the evaluation fails.
+    * @see #betaCF
+    * @see #lnGammaTerm
+    */
+   public static double betaI(double a, double b, double x)
+   { /* betaI */
+     double
+       rVal,
+       bt;
+     
+     if (x < 0.0 || x > 1.0)
+       return(Double.NaN);
+     
+     if (x == 0.0 || x == 1.0)
+       bt= 0.0;
+     else
+       bt= Math.exp(lnGammaTerm(a,b) + a*Math.log(x) + b*Math.log(1.0-x));
+     
+     if (x < (a+1.0)/(a+b+2.0))
+       rVal= (bt * betaCF(a,b,x)/a);
+     else
+       rVal= (1.0 - bt * betaCF(b, a, 1.0-x)/b);
+     
+     return(rVal);              /* NaN if betaCF() failed */
+   } /* betaI */
+   
+   
+   /**
+    * lnGammaTerm() - get ln(gamma(a+b)) - ln(gamma(a)) - ln(gamma(b)) used
+    * by betaI(). The degrees of freedom repeat for almost all genes, so if
+    * a and b are multiples of 0.5 (i.e. integer df) the value is looked up
+    * in (or saved in) a small cache instead of calling nr_gammln() 3 times.
+    * Cache entries are replaced as a whole, so it may be used by several
+    * threads at once.
+    * @param a - a parameter of 'x(a,b)
+    * @param b - b parameter of 'x(a,b)
+    * @return value
+    * @see #nr_gammln
+    */
+   static double lnGammaTerm(double a, double b)
+   { /* lnGammaTerm */
+     double
+       a2= 2.0*a,
+       b2= 2.0*b;
+     
+     if(a2!=Math.rint(a2) || b2!=Math.rint(b2) || a2>1.0E6 || b2>1.0E6)
+       return(nr_gammln(a+b) - nr_gammln(a) - nr_gammln(b));
+     
+     int hash= ((int)a2*31 + (int)b2) & (LN_BETA_CACHE_SIZE-1);
+     double entry[]= lnBetaCache[hash];
+     
+     if(entry!=null && entry[0]==a && entry[1]==b)
+       return(entry[2]);
+     
+     double v= nr_gammln(a+b) - nr_gammln(a) - nr_gammln(b);
+     lnBetaCache[hash]= new double[] {a, b, v};
+     
+     return(v);
+   } /* lnGammaTerm */
+   
+   
+   /**
+    * fTailProb() - exact upper tail probability of the F distribution with
+    * (d1,d2) degrees of freedom at f, from the incomplete Beta function.
+    * The 2-tailed t-test p-value for t with dF degrees of freedom
+    * is fTailProb(t*t, 1, dF).
+    * @param f is the F statistic
+    * @param d1 numerator degrees of freedom
+    * @param d2 denominator degrees of freedom
+    * @return probability, or Double.NaN if the evaluation fails.
+    * @see #betaI
+    */
+   public static double fTailProb(double f, double d1, double d2)
+   { /* fTailProb */
+     return(betaI(0.5*d2, 0.5*d1, (d2 / (d2 + (d1 * f)))));
+   } /* fTailProb */
+   
+   
+   /**
+    * fTailProbTab() - upper tail probability of the F distribution with
+    * (d1,d2) degrees of freedom at f. If there is a PValueTable for (d1,d2)
+    * (building it if need be) use it, else compute it exactly.
+    * The table value has a relative error up to PValueTable.MAX_LN_ERR, so
+    * use isNearPvalue() to decide if a comparison needs the exact value.
+    * @param f is the F statistic
+    * @param d1 numerator degrees of freedom
+    * @param d2 denominator degrees of freedom
+    * @return probability, or Double.NaN if the evaluation fails.
+    * @see PValueTable#prob
+    * @see #fTailProb
+    * @see #getPvalueTable
+    */
+   public static double fTailProbTab(double f, double d1, double d2)
+   { /* fTailProbTab */
+     PValueTable tbl= getPvalueTable(d1, d2);
+     
+     return((tbl!=null) ? tbl.prob(f) : fTailProb(f, d1, d2));
+   } /* fTailProbTab */
+   
+   
+   /**
+    * isNearPvalue() - test if a p-value from a PValueTable is close enough
+    * to a decision threshold that it must be recomputed exactly to decide
+    * which side of the threshold it is on.
+    * @param p is the table p-value
+    * @param thr is the threshold
+    * @return true if near the threshold
+    */
+   public static boolean isNearPvalue(double p, double thr)
+   { /* isNearPvalue */
+     if(p<=0.0 || thr<=0.0)
+       return(false);
+     
+     return(Math.abs(Math.log(p/thr)) <= 4.0*PValueTable.MAX_LN_ERR);
+   } /* isNearPvalue */
+   
+   
+   /**
+    * getPvalueTable() - get the PValueTable for integer df (d1,d2).
+    * It is built the first time it is needed. If more than
+    * MAX_PVALUE_TABLES are needed, the oldest table is replaced.
+    * @param d1 numerator degrees of freedom
+    * @param d2 denominator degrees of freedom
+    * @return the table, or null if tables are disabled or d1 or d2
+    *         are not integer.
+    */
+   static PValueTable getPvalueTable(double d1, double d2)
+   { /* getPvalueTable */
+     if(!usePvalueTablesFlag || d1<1.0 || d2<1.0 ||
+        d1!=Math.rint(d1) || d2!=Math.rint(d2))
+       return(null);
+     
+     PValueTable tbl;
+     PValueTable tables[]= pValueTables;
+     
+     for(int i=0;i<MAX_PVALUE_TABLES;i++)
+     { /* look for it */
+       tbl= tables[i];
+       if(tbl!=null && tbl.d1==d1 && tbl.d2==d2)
+         return(tbl);
+     }
+     
+     synchronized(pValueTables)
+     { /* build it */
+       for(int i=0;i<MAX_PVALUE_TABLES;i++)
+       { /* another thread may have just built it */
+         tbl= tables[i];
+         if(tbl!=null && tbl.d1==d1 && tbl.d2==d2)
+           return(tbl);
+       }
+       tbl= new PValueTable(d1, d2);
+       tables[nPvalueTables % MAX_PVALUE_TABLES]= tbl;
+       nPvalueTables++;
+     }
+     
+     return(tbl);
+   } /* getPvalueTable */
+   
+   
+   /**
+    * getPvalueTablesStatusStr() - get the list of p-value tables built
+    * @return status string
+    * @see PValueTable#getStatusStr
+    */
+   static String getPvalueTablesStatusStr()
+   { /* getPvalueTablesStatusStr */
+     String sR= "P-value tables (" +
+                ((usePvalueTablesFlag) ? "enabled" : "disabled") + "), " +
+                nPvalueTables + " built\n";
+     PValueTable tbl;
+     
+     for(int i=0;i<MAX_PVALUE_TABLES;i++)
+     {
+       tbl= pValueTables[i];
+       if(tbl!=null)
+         sR += "  " + tbl.getStatusStr() + "\n";
+     }
+     
+     return(sR);
+   } /* getPvalueTablesStatusStr */
+   
+   
    /**
     * nr_sort() - quick-sort of bin of data[0:n-1] in assend. numerical order.
     * Uses the partitioning-exchange sorting method.
@@ -367,6 +578,71 @@
    } /* nr_sort */
    
    
+   /**
+    * nr_hpsort() - heap-sort of data[0:n-1] in assend. numerical order.
+    * Unlike nr_sort() it sorts in place without any working storage,
+    * so it does not allocate and may be called from several threads
+    * at once (with separate data arrays).
+    * This method was derived from Numerical Recipes in C, 2nd Edition,
+    * Pg 337, Section 8.3.
+    * @param n is the amount of data.
+    * @param data is the set of data [0:n-1].
+    * @return false if bad data.
+    */
+   public static boolean nr_hpsort(int n, double data[])
+   { /* nr_hpsort */
+     int
+       i,
+       ir,
+       j,
+       l;
+     double rra;
+     
+     if(n<0 || data==null)
+       return(false);		       /* bad data */
+     if(n<2)
+       return(true);
+     
+     /* Use 1-based indices as in N.R.C. and map to data[idx-1] */
+     l= (n >> 1)+1;
+     ir= n;
+     for(;;)
+     {
+       if(l > 1)
+         rra= data[(--l)-1];         /* still in hiring phase */
+       else
+       { /* in retirement-and-promotion phase */
+         rra= data[ir-1];
+         data[ir-1]= data[0];
+         if(--ir == 1)
+         {
+           data[0]= rra;
+           break;
+         }
+       }
+       
+       i= l;
+       j= l+l;
+       while(j <= ir)
+       { /* sift down rra */
+         if(j < ir && data[j-1] < data[j])
+           j++;
+         if(rra < data[j-1])
+         {
+           data[i-1]= data[j-1];
+           i= j;
+           j <<= 1;
+         }
+         else
+           break;
+       }
+       data[i-1]= rra;
+     }
+     
+     return(true);
+   } /* nr_hpsort */
+   
+   
    /**
     * nr_kstwo() - Kolmogorov-Smirnov statistic d and the
     * probability of the null hypothesis of 2 bins of data.
@@ -382,34 +658,62 @@
     *    RTN: dKS     -  K-S statistic, and
     *    RTN: probKS  - probl of null hypoth same distribution
     *</PRE>
-    * @see #nr_probks
-    * @see #nr_sort
+    * @see #kstwoD
+    * @see #kstwoProb
     */
    public static boolean nr_kstwo(double data1[], int n1, 
                                   double data2[], int n2)
    { /*nr_kstwo*/
+     probKS= 0.0;			/*  default values */
+     dKS= 0.0;
+     
+     double d= kstwoD(data1, n1, data2, n2);
+     if(d<0.0)
+       return(false);
+     dKS= d;
+     
+     double p= kstwoProb(d, n1, n2);
+     okProbKS= !Double.isNaN(p);
+     probKS= (okProbKS) ? p : 1.0;
+     
+     return(okProbKS);
+   } /* nr_kstwo */
+   
+   
+   /**
+    * kstwoD() - re-entrant Kolmogorov-Smirnov statistic d of 2 bins
+    * of data. The data is sorted in place. It is the first half of
+    * nr_kstwo() but does not set any class variables, so it may be called
+    * from several threads at once (with separate data arrays).
+    * @param data1 [0:n1-1] data1
+    * @param n1 # of items in data 1
+    * @param data2 [0:n2-1] data2
+    * @param n2 # of items in data 2
+    * @return K-S statistic d, else -1.0 if any errors in the data.
+    * @see #kstwoProb
+    * @see #nr_hpsort
+    */
+   public static double kstwoD(double data1[], int n1, 
+                               double data2[], int n2)
+   { /* kstwoD */
      int
        j1= 0,
        j2= 0;
      double
-       alam,
+       d= 0.0,
        d1,
        d2,
        dt,
        en1,
        en2,
-       en,
        fn1= 0.0,
        fn2= 0.0;
-
-     probKS= 0.0;			/*  default values */
-     dKS= 0.0;
      
      if(n1<=1 || n2<=1 || data1==null || data2==null)
-       return(false);
+       return(-1.0);
           
-     if(!nr_sort(n1,data1) || !nr_sort(n2,data2))
-       return(false);
+     if(!nr_hpsort(n1,data1) || !nr_hpsort(n2,data2))
+       return(-1.0);
      
      en1= n1;
      en2= n2;
@@ -420,19 +724,33 @@
          fn1= (j1++)/en1;
        if(d2 <= d1)
          fn2= (j2++)/en2;
-       if((dt= Math.abs(fn2 - fn1)) > dKS)
-         dKS= dt;
+       if((dt= Math.abs(fn2 - fn1)) > d)
+         d= dt;
      }
      
-     en= Math.sqrt((en1 * en2)/(en1 + en2));     
-     alam= (en + 0.12 + (0.11/en)) * dKS;
-     
-     probKS= nr_probks(alam);
-     if(!okProbKS)
-       return(false);
+     return(d);
+   } /* kstwoD */
+   
+   
+   /**
+    * kstwoProb() - re-entrant probability of the null hypothesis for the
+    * Kolmogorov-Smirnov statistic d of 2 bins of data of size n1 and n2.
+    * @param d is the K-S statistic computed by kstwoD()
+    * @param n1 # of items in data 1
+    * @param n2 # of items in data 2
+    * @return the probability, else Double.NaN if it failed to converge.
+    * @see #calcProbKS
+    */
+   public static double kstwoProb(double d, int n1, int n2)
+   { /* kstwoProb */
+     double
+       en1= n1,
+       en2= n2,
+       en= Math.sqrt((en1 * en2)/(en1 + en2)),     
+       alam= (en + 0.12 + (0.11/en)) * d;
      
-     return(true);
-   } /* nr_kstwo */
+     return(calcProbKS(alam));
+   } /* kstwoProb */
       
    
    /**
@@ -445,6 +763,24 @@
     */
    public static double nr_probks(double alam)
    { /* nr_probks*/
+     double sum= calcProbKS(alam);
+     
+     okProbKS= !Double.isNaN(sum);
+     if(!okProbKS)
+       sum= 1.0;			/* if failed to converge */
+     
+     return(sum);
+   } /* nr_probks*/
+   
+   
+   /**
+    * calcProbKS() - re-entrant Kolmogorov-Smirnov probability qKS. It is the
+    * same as nr_probks() but it does not set the okProbKS flag.
+    * @param alam the value computed in kstwoProb().
+    * @return the probability, else Double.NaN if it failed to converge.
+    */
+   public static double calcProbKS(double alam)
+   { /* calcProbKS */
      int j;
      double
        eps1= 0.001,		/* magic #s */
@@ -463,18 +799,37 @@
        sum += term;
        absTerm= (term>0.0) ? term : -term;  /* Math.abs(term) */
        if(absTerm <= eps1*termbf || absTerm <= eps2*sum)
-       {
-         okProbKS= true;
          return(sum);             /* done with computation */
-       }
        fac= -fac;		        /* keep computing w/alt. signs*/
        termbf= (term>0.0) ? term : -term;  /* Math.abs(term) */
      }
      
-     sum= 1.0;			/* if failed to converge */
-     okProbKS= false;
-     return(sum);
-   } /* nr_probks*/
+     return(Double.NaN);	        /* if failed to converge */
+   } /* calcProbKS */
+   
+   
+   /**
+    * nr_erfcc() - complementary error function erfc(x) with fractional
+    * error everywhere less than 1.2e-7.
+    * This method was derived from Numerical Recipes in C, 2nd Edition,
+    * Pg 221, Section 6.2 N.R.C.
+    * @param x arg
+    * @return erfc(x)
+    */
+   public static double nr_erfcc(double x)
+   { /* nr_erfcc */
+     double
+       t,
+       z= Math.abs(x),
+       ans;
+     
+     t= 1.0/(1.0+0.5*z);
+     ans= t*Math.exp(-z*z-1.26551223+t*(1.00002368+t*(0.37409196+
+          t*(0.09678418+t*(-0.18628806+t*(0.27886807+t*(-1.13520398+
+          t*(1.48851587+t*(-0.82215223+t*0.17087277)))))))));
+     
+     return((x >= 0.0) ? ans : 2.0-ans);
+   } /* nr_erfcc */
    
    
    /**
@@ -491,73 +846,30 @@
     * @param xLbl is label for the X data
     * @param yLbl is label for the Y data
     * @return statistics string if succeed, else return null if problem.
+    * @see StatKernel#xyCorrelation
     * @see Util#cvd2s
     * @see Util#cvf2s
     */
    public static String calcXYstat(int n, float xList[], float yList[],
                                    int propList[], String xLbl, String yLbl)
    { /* calcXYstat */
-     nXY= 0;           /* compute it here. Note: n includes ALL genes */
-     rSq= 0.0;         /* reset to default if failed */
-     mnX= 0.0;
-     mnY= 0.0;
-     sdX= 0.0;
-     sdY= 0.0;
-     
-     double
-      diffX,
-      diffY,
-      sumX= 0.0,
-      sumY= 0.0,
-      sumXDiffSq= 0.0,
-      sumYDiffSq= 0.0,
-      sumXYdiff= 0.0;
-     
-     String sR= "";
+     StatResult r= new StatResult();
+     boolean ok= StatKernel.xyCorrelation(n, xList, yList, propList, r);
      
-     for(int i=0; i<n;i++)
-     { /* compute sums */
-       if(propList==null)
-         nXY++;                  /* count all genes */
-       else
-       { /* test if filtered, only count filtered genes */
-         if(propList[i]==Gene.C_IS_FILTERED)
-           nXY++;              /* Use PropList to filter if it exists */
-         else
-           continue;           /* ignore non-filtered genes */
-       }
-       sumX += xList[i];
-       sumY += yList[i];
-     }
-     if(nXY==0)
+     nXY= r.nXY;
+     rSq= r.rSq;
+     mnX= r.mnX;
+     mnY= r.mnY;
+     sdX= r.sdX;
+     sdY= r.sdY;
+     if(!ok)
        return(null);               /* there is not data */
      
-     mnX= sumX/nXY;                /* compute means */
-     mnY= sumY/nXY;
-     
-     /* Compute std deviations. Use PropList to filter if it exists */
-     for(int i= 0;i<n;i++)
-     {
-       if(propList!=null && propList[i]!=Gene.C_IS_FILTERED)
-         continue;           /* ignore non-filtered genes */
-       
-       diffX= (mnX - xList[i]);
-       diffY= (mnY - yList[i]);
-       sumXDiffSq += diffX*diffX;
-       sumYDiffSq += diffY*diffY;
-       sumXYdiff += diffX*diffY;
-     }
-     
-     sdX= (float)Math.sqrt(sumXDiffSq/nXY);
-     sdY= (float)Math.sqrt(sumYDiffSq/nXY);
-     
-     rSq= sumXYdiff/Math.sqrt(sumXDiffSq*sumYDiffSq);
-     
-     sR= "rSq="+ Util.cvd2s(rSq,3)+ ", n="+ nXY+
-         ", "+ xLbl+ "(mn+-sd)=(" +Util.cvf2s((float)mnX,3)+
-         "+-"+ Util.cvf2s((float)sdX,3)+
-         "), "+ yLbl+ "(mn+-sd)=(" +Util.cvf2s((float)mnY,3)+
-         "+-"+ Util.cvf2s((float)sdY,3)+")";
+     String sR= "rSq="+ Util.cvd2s(rSq,3)+ ", n="+ nXY+
+                ", "+ xLbl+ "(mn+-sd)=(" +Util.cvf2s((float)mnX,3)+
+                "+-"+ Util.cvf2s((float)sdX,3)+
+                "), "+ yLbl+ "(mn+-sd)=(" +Util.cvf2s((float)mnY,3)+
+                "+-"+ Util.cvf2s((float)sdY,3)+")";
      
      return(sR);
    } /* calcXYstat */
@@ -442,6 +442,17 @@ class MenuBarFrame extends Frame implements ActionListener, ItemListener,
   /** Menu: (Analysis | Filter) Filter by cur. OCL F-Test)  */
   CheckboxMenuItem
     miFRMfTestOCLFilter;
+  /** Menu: (Analysis | Filter) p-Value slider tests raw p-Values */
+  CheckboxMenuItem
+    miFRMpValRaw;
+  /** Menu: (Analysis | Filter) p-Value slider tests Benjamini-Hochberg
+   * FDR q-Values */
+  CheckboxMenuItem
+    miFRMpValFDR;
+  /** Menu: (Analysis | Filter) p-Value slider tests Bonferroni adjusted
+   * p-Values */
+  CheckboxMenuItem
+    miFRMpValBonf;
 
   /** Menu: (Analysis | Filter) Filter by high ratio range test */
   CheckboxMenuItem    
@@ -1274,7 +1285,7 @@ class MenuBarFrame extends Frame implements ActionListener, ItemListener,
       if(nAllRLOs>0)
       { /* add RLO methods */
         /* Sort alphabetically */
-        int sortIdx[]= SortMAE.bubbleSortIndex(rloRSN, nAllRLOs, true);
+        int sortIdx[]= IndexSort.sortIndex(rloRSN, nAllRLOs, true);
         rloMenuNames= new String[nAllRLOs];
         rloRscriptNames= new String[nAllRLOs];
         
@@ -1665,6 +1676,7 @@ class MenuBarFrame extends Frame implements ActionListener, ItemListener,
       
       smnu= makeSubMenu(this.editMenu, "Sets of Genes", null,0);
       makeMenuItem(smnu, "List saved gene sets", "GeneSet:list", 0);
+      makeMenuItem(smnu, "List gene sets memory usage", "GeneSet:listMem", 0);
       makeMenuItem(smnu, "Save Filtered genes as gene set ","GeneSet:assWorkCL", 0);
       makeMenuItem(smnu, "Save 'Edited Gene List' as gene set","GeneSet:assEGL", 0);
       makeMenuItem(smnu, "Assign 'User Filter Gene Set'", "GeneSet:useCSfilter", 0);
@@ -1672,6 +1684,7 @@ class MenuBarFrame extends Frame implements ActionListener, ItemListener,
       makeMenuItem(smnu, "OR (Union) of 2 gene sets", "GeneSet:union", 0);
       makeMenuItem(smnu, "AND (Intersection) of 2 gene sets", "GeneSet:inter", 0);
       makeMenuItem(smnu, "Difference of 2 gene sets", "GeneSet:diff", 0);
+      makeMenuItem(smnu, "Boolean expression of gene sets", "GeneSet:expr", 0);
       makeMenuItem(smnu, "Rename gene set ", "GeneSet:reName", 0);
       makeMenuItem(smnu, "Load gene set from disk file", "GeneSet:Load", isSAvisibleDEBUG);
       makeMenuItem(smnu, "Remove gene set ", "GeneSet:rmv", 0);
@@ -2035,6 +2048,20 @@ class MenuBarFrame extends Frame implements ActionListener, ItemListener,
                             "Filter by current Ordered Cond. List (OCL) F-Test [p-Value] slider [RB]",
                             null, 0, mae.F_TestOCLFilterFlag);    
       
+      /* The p-Value threshold mode for the 'sets' t-Test and OCL F-Test */
+      smnu= makeSubMenu(this.filterMenu,
+                        "p-Value slider threshold mode for 'sets' t-Test and OCL F-Test",
+                        null,0);
+      this.miFRMpValRaw=
+         makeChkBoxMenuItem(smnu, "Raw p-Value [RB]", null,0,
+                            (mae.pValueThrMode==mae.PVALUE_MODE_RAW));
+      this.miFRMpValFDR=
+         makeChkBoxMenuItem(smnu, "Benjamini-Hochberg FDR q-Value [RB]", null,0,
+                            (mae.pValueThrMode==mae.PVALUE_MODE_FDR_BH));
+      this.miFRMpValBonf=
+         makeChkBoxMenuItem(smnu, "Bonferroni adjusted p-Value [RB]", null,0,
+                            (mae.pValueThrMode==mae.PVALUE_MODE_BONFERRONI));
+      
       this.filterMenu.addSeparator();
       this.miFRMclusterHP_Efilter=
          makeChkBoxMenuItem(this.filterMenu,
@@ -2057,6 +2084,10 @@ class MenuBarFrame extends Frame implements ActionListener, ItemListener,
                             "Filter genes with lowest X/Y ratio or X-Y Zdiff [CB]",
                             null, 0, mae.useLowRatiosFilterFlag);
       
+      this.filterMenu.addSeparator();
+      makeMenuItem(this.filterMenu, "Show Filter stage cache hit/miss counts",
+                   "Filter:cacheStats", 0);
+      
       addMenuStubToMenuStubList("FilterMenu",this.filterMenu);
     } /* no menu subtree if no data */
     
@@ -2451,6 +2482,20 @@ class MenuBarFrame extends Frame implements ActionListener, ItemListener,
                             ((Util.msgTextFrame==null)
                               ? false : Util.msgTextFrame.isVisibleFlag));
       
+      this.viewMenu.addSeparator();
+      smnu= makeSubMenu(this.viewMenu, "Show performance statistics", null,0);
+      makeMenuItem(smnu, "All", "Stats:all", 0);
+      makeMenuItem(smnu, "Filter stage cache", "Stats:stageCache", 0);
+      makeMenuItem(smnu, "Background Filter and Filter tests",
+                   "Stats:filter", 0);
+      makeMenuItem(smnu, "Filter plugins", "Stats:filterPlugins", 0);
+      makeMenuItem(smnu, "Statistics batches and p-value tables",
+                   "Stats:statBatch", 0);
+      makeMenuItem(smnu, "Normalized data cache", "Stats:normData", 0);
+      makeMenuItem(smnu, "Sample loading", "Stats:samples", 0);
+      makeMenuItem(smnu, "Gene annotation store", "Stats:annot", 0);
+      makeMenuItem(smnu, "Sorting", "Stats:sort", 0);
+      
       addMenuStubToMenuStubList("ViewMenu",this.viewMenu);
     } /* no menu subtree if no data */
     
@@ -0,0 +1,536 @@
+/** File: NormDataCache.java */
+
+/**
+ * The class holds the normalized spot data of the loaded samples as
+ * float columns indexed by GID, so the Filter, plots and reports read the
+ * normalized value instead of deriving it again from the raw quantified
+ * data on every call. The data types kept are:
+ *<PRE>
+ *   F1    - DATA_F1TOT normalized (F1 - bkgrd)
+ *   F2    - DATA_F2TOT normalized (F2 - bkgrd)
+ *   RATIO - DATA_RATIO_F1F2TOT normalized F1/F2 ratio
+ *   INTENS - scaleIntensData() of getRawIntens(), the sample's normalized
+ *           intensity or ratio as used by getSamplesDataVector()
+ *</PRE>
+ * A column is filled the first time it is used by calling the sample's
+ * getDataByGID() for every spot, so the cached values are exactly those
+ * that would be computed on the fly. The INTENS column is filled by
+ * scaleSampleIntens(), which is also used for a sample that is not cached.
+ * It makes one array call to an active NormalizationPlugin for the whole
+ * sample instead of one call per spot. All columns are dropped and the
+ * cache generation is incremented when the inputs of the normalization
+ * change: CompositeDatabase.recalcNorms() (which is also called when
+ * a NormalizationPlugin is activated), the NormalizationPlugin state or
+ * the ratio, Cy5/Cy3 and Zscore data modes. A column is also refilled if
+ * its sample was reloaded or its Cy3/Cy5 channels were swapped.
+ *<P>
+ * The columns are part of the sample data working set. When a column is
+ * built, the SampleDataManager marks its sample as most recently used and
+ * drops the columns of the least recently used samples that are not in
+ * the HP-X, HP-Y or HP-E sets if the working set is over its limits.
+ * The total size of the columns is also limited to maxCacheMbytes.
+ * Columns that do not fit are not cached and getDataByGID() computes
+ * their data on the fly as before.
+ *<P>
+ * The Filter workers read the cache without taking its lock. The key and
+ * the columns of a generation are kept in a NormDataGeneration that is
+ * published through a volatile field, and each column with the sample
+ * and swap state it was built from is a NormDataColumn with final fields.
+ * So a reader takes one snapshot of a column and never sees a column
+ * whose sample does not match its data. A built column is never changed;
+ * a refill makes a new one. Columns are only built or dropped with the
+ * lock held.
+ *<P>
+ * This file is part of MAExplorer. It is offered as open source software
+ * under the Mozilla Public License (version 1.1) subject to the
+ * limitations noted in the accompanying LEGAL file. This notice must be
+ * included with the code. The MAExplorer Mozilla and Legal files are
+ * available on http://maexplorer.sourceforge.net/.
+ *<P>
+ * @author P. Lemkin (NCI), G. Thornwall (SAIC), NCI-Frederick, Frederick, MD
+ * @version $Date$   $Revision$
+ * @see <A HREF="http://maexplorer.sourceforge.net/">MAExplorer Home</A>
+ * @see CompositeDatabase#recalcNorms
+ * @see MaHybridSample#getDataByGID
+ * @see SampleDataManager
+ */
+
+class NormDataCache
+{
+  /** type: normalized F1 (DATA_F1TOT) */
+  final static int
+    F1= 0;
+  /** type: normalized F2 (DATA_F2TOT) */
+  final static int
+    F2= 1;
+  /** type: normalized F1/F2 ratio (DATA_RATIO_F1F2TOT) */
+  final static int
+    RATIO= 2;
+  /** type: scaleIntensData() of getRawIntens() */
+  final static int
+    INTENS= 3;
+  /** # of types */
+  final static int
+    N_TYPES= 4;
+
+  /** flag: use the cache, else always compute on the fly */
+  static boolean
+    useNormDataCacheFlag= true;
+  /** max size of all cached columns in Mbytes */
+  static int
+    maxCacheMbytes= 256;
+
+  /** link to global MAExplorer instance */
+  private MAExplorer
+    mae;
+
+  /** cache generation, incremented each time the columns are dropped */
+  int
+    generation= 0;
+  /** # of columns filled */
+  int
+    nColumnsBuilt= 0;
+  /** # of columns not cached since they did not fit in maxCacheMbytes */
+  int
+    nColumnsOverCap= 0;
+  /** size of the cached columns in bytes */
+  long
+    usedBytes= 0;
+
+  /** key and columns of the current generation, null if none yet */
+  private volatile NormDataGeneration
+    gen;
+
+
+  /**
+   * NormDataCache() - constructor for an empty cache
+   * @param mae is the MAExplorer instance
+   */
+  NormDataCache(MAExplorer mae)
+  { /* NormDataCache */
+    this.mae= mae;
+  } /* NormDataCache */
+
+
+  /**
+   * getCurrentGeneration() - get the generation for the current
+   * normalization and data modes, starting a new one if they changed.
+   * @return the current generation
+   * @see NormDataGeneration#isCurrent
+   */
+  private NormDataGeneration getCurrentGeneration()
+  { /* getCurrentGeneration */
+    NormDataGeneration g= gen;
+    if(g!=null && g.isCurrent(mae))
+      return(g);
+
+    synchronized(this)
+    {
+      g= gen;
+      if(g!=null && g.isCurrent(mae))
+        return(g);               /* another thread started it */
+      invalidate();
+      return(gen);
+    }
+  } /* getCurrentGeneration */
+
+
+  /**
+   * invalidate() - drop all columns and start a new generation for the
+   * current normalization and data modes.
+   * @see SampleDataManager#removeNormData
+   */
+  synchronized void invalidate()
+  { /* invalidate */
+    gen= new NormDataGeneration(mae, N_TYPES);
+    usedBytes= 0;
+    generation++;
+    if(mae.hps!=null && mae.hps.sdm!=null)
+      mae.hps.sdm.removeNormData(0, 0L);
+  } /* invalidate */
+
+
+  /**
+   * getTypeIdx() - map a MaHybridSample data type to a cache type
+   * @param ms is the sample with the DATA_xxxx codes
+   * @param dataType is DATA_F1TOT, DATA_F2TOT or DATA_RATIO_F1F2TOT
+   * @return F1, F2 or RATIO, else -1 if the type is not cached
+   */
+  private static int getTypeIdx(MaHybridSample ms, int dataType)
+  { /* getTypeIdx */
+    if(dataType==ms.DATA_F1TOT)
+      return(F1);
+    else if(dataType==ms.DATA_F2TOT)
+      return(F2);
+    else if(dataType==ms.DATA_RATIO_F1F2TOT)
+      return(RATIO);
+    return(-1);
+  } /* getTypeIdx */
+
+
+  /**
+   * getSampleData() - get the cached column of normalized data of the
+   * sample by GID, filling it if needed.
+   * @param ms is the sample
+   * @param typeIdx is F1, F2, RATIO or INTENS
+   * @return [0:maxSpots-1] data by GID, or null if the sample is not
+   *         cached and the data must be computed on the fly.
+   * @see NormDataColumn#isFor
+   * @see SampleDataManager#touch
+   * @see #buildColumn
+   * @see #getCurrentGeneration
+   */
+  float[] getSampleData(MaHybridSample ms, int typeIdx)
+  { /* getSampleData */
+    if(!useNormDataCacheFlag || ms==null)
+      return(null);
+
+    NormDataGeneration g= getCurrentGeneration();
+    int idx= ms.idxHP;
+    if(idx<1 || idx>g.nHP)
+      return(null);
+    NormDataColumn c= g.cols[typeIdx][idx];   /* one snapshot */
+    if(c!=null && c.isFor(ms))
+    {
+      if(mae.hps.sdm!=null)
+        mae.hps.sdm.touch(idx);
+      return(c.data);
+    }
+
+    return(buildColumn(g, ms, typeIdx));
+  } /* getSampleData */
+
+
+  /**
+   * buildColumn() - fill a new column of normalized data of the sample
+   * if it fits in the cache. A column that is replaced is not changed,
+   * since readers may still use it.
+   * @param g is the generation to build it in
+   * @param ms is the sample
+   * @param typeIdx is F1, F2, RATIO or INTENS
+   * @return [0:maxSpots-1] data by GID, or null if it did not fit or the
+   *         generation is no longer current
+   * @see MaHybridSample#getDataByGID
+   * @see #scaleSampleIntens
+   * @see SampleDataManager#addNormData
+   * @see SampleDataManager#removeNormData
+   */
+  private synchronized float[] buildColumn(NormDataGeneration g,
+                                           MaHybridSample ms, int typeIdx)
+  { /* buildColumn */
+    if(g!=gen)
+      return(null);          /* invalidated meanwhile, compute on the fly */
+
+    int idx= ms.idxHP;
+    NormDataColumn c= g.cols[typeIdx][idx];
+    if(c!=null && c.isFor(ms))
+      return(c.data);        /* another thread built it */
+
+    int maxSpots= mae.mp.maxSpots;
+    long colBytes= 4L*maxSpots;
+    SampleDataManager sdm= mae.hps.sdm;
+    if(sdm!=null)
+    { /* add it to the working set, may drop LRU samples' columns */
+      sdm.addNormData(ms, idx, colBytes);
+      c= g.cols[typeIdx][idx];
+    }
+    if(c==null && usedBytes+colBytes > 1024L*1024L*maxCacheMbytes)
+    { /* does not fit, compute it on the fly */
+      if(!g.overCap[typeIdx][idx])
+      {
+        g.overCap[typeIdx][idx]= true;
+        nColumnsOverCap++;
+      }
+      if(sdm!=null)
+        sdm.removeNormData(idx, colBytes);
+      return(null);
+    }
+
+    boolean
+      useRatioDataFlag= g.useRatioDataFlag,
+      swapFlag= ms.swapCy5Cy3DataFlag;
+    float newCol[]= new float[maxSpots];
+
+    if(typeIdx==INTENS)
+      scaleSampleIntens(ms, useRatioDataFlag, newCol);
+    else
+    { /* per-spot data of the type */
+      int dataType= (typeIdx==F1)
+                      ? ms.DATA_F1TOT
+                      : ((typeIdx==F2)
+                           ? ms.DATA_F2TOT : ms.DATA_RATIO_F1F2TOT);
+      for(int gid=0;gid<maxSpots;gid++)
+        newCol[gid]= ms.getDataByGID(gid, useRatioDataFlag, dataType);
+    }
+
+    if(c!=null)
+    { /* replaced */
+      usedBytes -= 4L*c.data.length;
+      if(sdm!=null)
+        sdm.removeNormData(idx, 4L*c.data.length);
+    }
+    usedBytes += colBytes;
+    g.cols[typeIdx][idx]= new NormDataColumn(newCol, ms, swapFlag);
+    nColumnsBuilt++;
+
+    return(newCol);
+  } /* buildColumn */
+
+
+  /**
+   * scaleSampleIntens() - scale the raw intensity data of all spots of
+   * the sample. It is the array form of scaleIntensData(getRawIntens())
+   * for each spot. If a NormalizationPlugin is active, the raw data, MIDs
+   * and GIDs of the spots are gathered and passed to the plugin's array
+   * scaleIntensityData() in one call. Otherwise, each spot is scaled by
+   * the sample's scaleIntensData().
+   * @param ms is the sample
+   * @param useRatioDataFlag use ratio data mode
+   * @param out is the [0:maxSpots-1] returned normalized data by GID
+   * @see MAEPlugin.analysis.NormalizationPlugin#scaleIntensityData
+   * @see MaHybridSample#getRawIntens
+   * @see MaHybridSample#scaleIntensData
+   */
+  void scaleSampleIntens(MaHybridSample ms, boolean useRatioDataFlag,
+                         float out[])
+  { /* scaleSampleIntens */
+    int
+      maxSpots= Math.min(out.length, mae.mp.maxSpots),
+      gid2mid[]= mae.mp.gid2mid;
+    MAEPlugin.Normalization
+      normPluginObj= MAEPlugin.analysis.NormalizationPlugin
+                                       .getActiveNormalization();
+
+    if(normPluginObj instanceof MAEPlugin.analysis.NormalizationPlugin &&
+       gid2mid!=null && gid2mid.length>=maxSpots)
+    { /* one call to the plugin for the whole sample */
+      float rawData[]= new float[maxSpots];
+      int
+        mids[]= new int[maxSpots],
+        gids[]= new int[maxSpots];
+      for(int gid=0;gid<maxSpots;gid++)
+      {
+        rawData[gid]= ms.getRawIntens(gid, useRatioDataFlag);
+        mids[gid]= gid2mid[gid];
+        gids[gid]= gid;
+      }
+      ((MAEPlugin.analysis.NormalizationPlugin) normPluginObj)
+        .scaleIntensityData(rawData, null, mids, gids, maxSpots,
+                            ms.idxHP, out);
+      return;
+    }
+
+    for(int gid=0;gid<maxSpots;gid++)
+      out[gid]= ms.scaleIntensData(ms.getRawIntens(gid, useRatioDataFlag),
+                                   gid);
+  } /* scaleSampleIntens */
+
+
+  /**
+   * getSampleIntensData() - get scaleIntensData() of getRawIntens() of
+   * all spots of the sample by GID, from the cached INTENS column if there
+   * is one, else computed by scaleSampleIntens().
+   * @param ms is the sample
+   * @return [0:maxSpots-1] data by GID. It must not be changed.
+   * @see #getSampleData
+   * @see #scaleSampleIntens
+   */
+  float[] getSampleIntensData(MaHybridSample ms)
+  { /* getSampleIntensData */
+    float col[]= getSampleData(ms, INTENS);
+    if(col!=null)
+      return(col);
+
+    col= new float[mae.mp.maxSpots];
+    scaleSampleIntens(ms, mae.useRatioDataFlag, col);
+    return(col);
+  } /* getSampleIntensData */
+
+
+  /**
+   * getDataByGID() - get the normalized spot data of the sample. It is
+   * the same as ms.getDataByGID() but reads the cached column if there
+   * is one for the data type.
+   * @param ms is the sample
+   * @param gid is the spot GID
+   * @param useRatioDataFlag use ratio data mode
+   * @param dataType is the MaHybridSample DATA_xxxx type
+   * @return the normalized data
+   * @see MaHybridSample#getDataByGID
+   * @see #getSampleData
+   */
+  float getDataByGID(MaHybridSample ms, int gid, boolean useRatioDataFlag,
+                     int dataType)
+  { /* getDataByGID */
+    if(useRatioDataFlag==mae.useRatioDataFlag && gid>=0)
+    { /* may be cached */
+      int typeIdx= getTypeIdx(ms, dataType);
+      if(typeIdx>=0)
+      {
+        float col[]= getSampleData(ms, typeIdx);
+        if(col!=null && gid<col.length)
+          return(col[gid]);
+      }
+    }
+
+    return(ms.getDataByGID(gid, useRatioDataFlag, dataType));
+  } /* getDataByGID */
+
+
+  /**
+   * dropSample() - drop the columns of sample idx, e.g. when it is
+   * evicted from the working set or another sample replaces it. They are
+   * filled again when next used.
+   * @param idx is the sample index in msList[]
+   * @see SampleDataManager#dropSample
+   */
+  synchronized void dropSample(int idx)
+  { /* dropSample */
+    NormDataGeneration g= gen;
+    if(g==null || idx<1 || idx>g.nHP)
+      return;
+
+    for(int t=0;t<N_TYPES;t++)
+      if(g.cols[t][idx]!=null)
+      {
+        usedBytes -= 4L*g.cols[t][idx].data.length;
+        g.cols[t][idx]= null;
+      }
+  } /* dropSample */
+
+
+  /**
+   * getStatusStr() - get the generation, # of columns and size of the cache
+   * @return status string
+   */
+  String getStatusStr()
+  { /* getStatusStr */
+    return("Normalized data cache (" +
+           ((useNormDataCacheFlag) ? "enabled" : "disabled") +
+           "): generation " + generation + ", " + nColumnsBuilt +
+           " columns built, " + nColumnsOverCap + " over the " +
+           maxCacheMbytes + " Mbyte cap, " + (usedBytes/1024) + " Kbytes\n");
+  } /* getStatusStr */
+
+} /* end of class NormDataCache */
+
+
+
+/**
+ * The class holds the key and the columns of one NormDataCache
+ * generation. The key is final, so a reader that gets the generation
+ * from the volatile NormDataCache field sees the whole key.
+ */
+class NormDataGeneration
+{
+  /** normalization generation the columns were built for */
+  final int
+    normGeneration;
+  /** ratio data mode the columns were built for */
+  final boolean
+    useRatioDataFlag;
+  /** Cy5/Cy3 mode the columns were built for */
+  final boolean
+    useCy5OverCy3Flag;
+  /** Zscore mode the columns were built for */
+  final boolean
+    isZscoreFlag;
+  /** NormalizationPlugin state the columns were built for */
+  final boolean
+    normPluginFlag;
+  /** # of samples the arrays were allocated for */
+  final int
+    nHP;
+  /** [nTypes][0:nHP] cached columns, else null */
+  final NormDataColumn
+    cols[][];
+  /** [nTypes][0:nHP] set if the column did not fit in the cache */
+  final boolean
+    overCap[][];
+
+
+  /**
+   * NormDataGeneration() - constructor for an empty generation keyed by
+   * the current normalization and data modes.
+   * @param mae is the MAExplorer instance
+   * @param nTypes is the # of data types
+   */
+  NormDataGeneration(MAExplorer mae, int nTypes)
+  { /* NormDataGeneration */
+    normGeneration= mae.cdb.normGeneration;
+    useRatioDataFlag= mae.useRatioDataFlag;
+    useCy5OverCy3Flag= mae.useCy5OverCy3Flag;
+    isZscoreFlag= mae.isZscoreFlag;
+    normPluginFlag=
+      MAEPlugin.analysis.NormalizationPlugin.getNormalizationState();
+    nHP= mae.hps.nHP;
+    cols= new NormDataColumn[nTypes][nHP+1];
+    overCap= new boolean[nTypes][nHP+1];
+  } /* NormDataGeneration */
+
+
+  /**
+   * isCurrent() - test if the columns are for the current normalization
+   * and data modes.
+   * @param mae is the MAExplorer instance
+   * @return true if current
+   */
+  boolean isCurrent(MAExplorer mae)
+  { /* isCurrent */
+    return(normGeneration==mae.cdb.normGeneration &&
+           useRatioDataFlag==mae.useRatioDataFlag &&
+           useCy5OverCy3Flag==mae.useCy5OverCy3Flag &&
+           isZscoreFlag==mae.isZscoreFlag &&
+           normPluginFlag==
+             MAEPlugin.analysis.NormalizationPlugin.getNormalizationState() &&
+           nHP==mae.hps.nHP);
+  } /* isCurrent */
+
+} /* end of class NormDataGeneration */
+
+
+
+/**
+ * The class holds one NormDataCache column with the sample and the
+ * Cy3/Cy5 swap state it was built from. The fields are final and the
+ * data is not changed after it is built.
+ */
+class NormDataColumn
+{
+  /** [0:maxSpots-1] normalized data by GID */
+  final float
+    data[];
+  /** sample the column was built from */
+  final MaHybridSample
+    ms;
+  /** Cy3/Cy5 swap state of the sample when built */
+  final boolean
+    swapFlag;
+
+
+  /**
+   * NormDataColumn() - constructor for a built column
+   * @param data is the normalized data by GID
+   * @param ms is the sample it was built from
+   * @param swapFlag is the Cy3/Cy5 swap state of the sample
+   */
+  NormDataColumn(float data[], MaHybridSample ms, boolean swapFlag)
+  { /* NormDataColumn */
+    this.data= data;
+    this.ms= ms;
+    this.swapFlag= swapFlag;
+  } /* NormDataColumn */
+
+
+  /**
+   * isFor() - test if the column is for the sample in its current
+   * Cy3/Cy5 swap state
+   * @param ms is the sample
+   * @return true if it is
+   */
+  final boolean isFor(MaHybridSample ms)
+  { /* isFor */
+    return(this.ms==ms && swapFlag==ms.swapCy5Cy3DataFlag);
+  } /* isFor */
+
+} /* end of class NormDataColumn */
@@ -0,0 +1,207 @@
+/** File: PValueTable.java */
+
+/**
+ * The class is a lookup table of the upper tail probability of the
+ * F distribution with (d1,d2) degrees of freedom. The t-test p-value is
+ * the F(1,dF) probability of t*t, and the F-tests use it directly, so one
+ * table serves both. The table holds ln(p) on a uniform grid of z= ln(F)
+ * and linearly interpolates between entries. ln(p) vs ln(F) is smooth and
+ * nearly straight in the tails, so the interpolation error is relative
+ * to p, not absolute, and small p-values keep their precision.
+ *<P>
+ * The grid step is chosen when the table is built so that the interpolation
+ * error estimated from the second differences of the grid is at most
+ * MAX_LN_ERR in ln(p) (i.e. a relative error in p of about MAX_LN_ERR).
+ * The table ends where the estimate first exceeds the bound or p falls
+ * below P_MIN. Outside the table (or where the exact value failed)
+ * prob() computes the exact value with MathMAE.fTailProb().
+ * Since the value may be off by the bound, callers that compare it against
+ * a decision threshold should recompute it exactly when
+ * MathMAE.isNearPvalue() says it is close to the threshold.
+ *<P>
+ * A table is not changed after it is built, so it may be shared by
+ * several threads. MathMAE keeps the tables for the df pairs in use.
+ *<P>
+ * This file is part of MAExplorer. It is offered as open source software
+ * under the Mozilla Public License (version 1.1) subject to the
+ * limitations noted in the accompanying LEGAL file. This notice must be
+ * included with the code. The MAExplorer Mozilla and Legal files are
+ * available on http://maexplorer.sourceforge.net/.
+ *<P>
+ * @author P. Lemkin (NCI), G. Thornwall (SAIC), NCI-Frederick, Frederick, MD
+ * @version $Date$   $Revision$
+ * @see <A HREF="http://maexplorer.sourceforge.net/">MAExplorer Home</A>
+ * @see MathMAE#getPvalueTable
+ * @see MathMAE#fTailProb
+ */
+
+class PValueTable
+{
+  /** max interpolation error in ln(p) allowed in the table */
+  final static double
+    MAX_LN_ERR= 1.0E-5;
+  /** smallest F in the table, smaller values are computed exactly */
+  final static double
+    F_MIN= 1.0E-4;
+  /** the table ends where p falls below this value */
+  final static double
+    P_MIN= 1.0E-15;
+  /** largest ln(F) in the table */
+  final static double
+    Z_MAX= 27.6;
+  /** initial grid step in ln(F) */
+  final static double
+    Z_STEP_INIT= 0.01;
+  /** max # of entries in a table */
+  final static int
+    MAX_ENTRIES= 32768;
+
+  /** numerator degrees of freedom */
+  final double
+    d1;
+  /** denominator degrees of freedom */
+  final double
+    d2;
+  /** ln(F) of entry 0 */
+  final private double
+    zMin;
+  /** ln(F) of the last usable entry */
+  final private double
+    zMax;
+  /** grid step in ln(F) */
+  final private double
+    zStep;
+  /** 1/zStep */
+  final private double
+    rStep;
+  /** [0:nEntries-1] ln(p) at zMin+i*zStep, NaN if the exact value failed */
+  final private double
+    lnP[];
+  /** # of usable entries */
+  final int
+    nEntries;
+  /** largest interpolation error estimate in ln(p) in the table */
+  final double
+    maxLnErr;
+
+
+  /**
+   * PValueTable() - build the table for the F(d1,d2) upper tail
+   * probability. The grid step is halved until the interpolation error
+   * bound holds up to p=0.001 or the table would have more than
+   * MAX_ENTRIES entries.
+   * @param d1 numerator degrees of freedom
+   * @param d2 denominator degrees of freedom
+   * @see MathMAE#fTailProb
+   */
+  PValueTable(double d1, double d2)
+  { /* PValueTable */
+    this.d1= d1;
+    this.d2= d2;
+
+    double
+      z0= Math.log(F_MIN),
+      h= Z_STEP_INIT,
+      tbl[]= null,
+      p,
+      err,
+      maxErr= 0.0;
+    int
+      n= 0,
+      nMax,
+      nOK= 0;
+
+    while(true)
+    { /* build with step h */
+      nMax= Math.min(MAX_ENTRIES, (int)((Z_MAX-z0)/h)+2);
+      tbl= new double[nMax];
+      n= 0;
+      for(int i=0;i<nMax;i++)
+      { /* compute exact ln(p) at grid points */
+        p= MathMAE.fTailProb(Math.exp(z0+i*h), d1, d2);
+        tbl[n++]= (Double.isNaN(p) || p<=0.0) ? Double.NaN : Math.log(p);
+        if(p<P_MIN)
+          break;
+      }
+
+      /* The interpolation error of [i-1:i] is about 1/8 of the
+       * second difference. Keep the entries up to the first interval
+       * that is too big.
+       */
+      nOK= n;
+      maxErr= 0.0;
+      for(int i=1;i<n-1;i++)
+      {
+        err= Math.abs(tbl[i-1] - 2.0*tbl[i] + tbl[i+1])/8.0;
+        if(Double.isNaN(err))
+          continue;           /* prob() computes these exactly */
+        if(err>MAX_LN_ERR)
+        {
+          nOK= i;
+          break;
+        }
+        if(err>maxErr)
+          maxErr= err;
+      }
+
+      if(nOK==n || Double.isNaN(tbl[nOK-1]) ||
+         tbl[nOK-1]<Math.log(0.001) || 2*n>MAX_ENTRIES)
+        break;                /* good enough or can't refine further */
+      h= 0.5*h;
+    } /* build with step h */
+
+    zMin= z0;
+    zStep= h;
+    rStep= 1.0/h;
+    nEntries= nOK;
+    zMax= z0+(nOK-1)*h;
+    lnP= tbl;
+    maxLnErr= maxErr;
+  } /* PValueTable */
+
+
+  /**
+   * prob() - get the F(d1,d2) upper tail probability of f.
+   * It is interpolated from the table if f is in the table's range,
+   * else it is computed exactly.
+   * @param f is the F statistic
+   * @return probability, or Double.NaN if the exact evaluation fails.
+   * @see MathMAE#fTailProb
+   */
+  double prob(double f)
+  { /* prob */
+    if(f<F_MIN)
+      return(MathMAE.fTailProb(f, d1, d2));
+
+    double z= Math.log(f);
+    if(z>=zMax)
+      return(MathMAE.fTailProb(f, d1, d2));
+
+    double
+      pos= (z-zMin)*rStep,
+      lnP0,
+      lnP1;
+    int i= (int)pos;
+
+    lnP0= lnP[i];
+    lnP1= lnP[i+1];
+    if(Double.isNaN(lnP0) || Double.isNaN(lnP1))
+      return(MathMAE.fTailProb(f, d1, d2));
+
+    return(Math.exp(lnP0 + (pos-i)*(lnP1-lnP0)));
+  } /* prob */
+
+
+  /**
+   * getStatusStr() - get the df, size and range of the table
+   * @return status string
+   */
+  String getStatusStr()
+  { /* getStatusStr */
+    return("F(" + (int)d1 + "," + (int)d2 + "): " + nEntries +
+           " entries, F=[" + Util.cvd2s(F_MIN,4) + ":" +
+           Util.cvd2s(Math.exp(zMax),2) + "], max ln(p) err=" +
+           Util.cvd2s(maxLnErr,8));
+  } /* getStatusStr */
+
+} /* end of class PValueTable */
@@ -565,22 +565,22 @@ class PopupRegistry
                      mae.gipo.RefSeqIdIdx!=-1),
         genomicDBspecified= false;
       String
-        cloneID= (gene.Clone_ID!=null && gene.Clone_ID.length()>0)
-                    ? gene.Clone_ID : null,
-        unigeneClusterID= (gene.Unigene_ID!=null && gene.Unigene_ID.length()>0)
-                            ? gene.Unigene_ID : null,
-        locusID= (gene.LocusID!=null && gene.LocusID.length()>0)
-                    ? gene.LocusID : null,
-        OmimID= (gene.OmimID!=null && gene.OmimID.length()>0)
-                    ? gene.OmimID : null,
-        RefSeqID= (gene.RefSeqID!=null && gene.RefSeqID.length()>0)
-                    ? gene.RefSeqID : null,
-        swissProt= (gene.SwissProt!=null && gene.SwissProt.length()>0)
-                        ? gene.SwissProt : null,
-        geneName= gene.Gene_Name,
-        gb= gene.GenBankAcc,
-        gb3= gene.GenBankAcc3,
-        gb5= gene.GenBankAcc5,
+        cloneID= (gene.getClone_ID()!=null && gene.getClone_ID().length()>0)
+                    ? gene.getClone_ID() : null,
+        unigeneClusterID= (gene.getUnigene_ID()!=null && gene.getUnigene_ID().length()>0)
+                            ? gene.getUnigene_ID() : null,
+        locusID= (gene.getLocusID()!=null && gene.getLocusID().length()>0)
+                    ? gene.getLocusID() : null,
+        OmimID= (gene.getOmimID()!=null && gene.getOmimID().length()>0)
+                    ? gene.getOmimID() : null,
+        RefSeqID= (gene.getRefSeqID()!=null && gene.getRefSeqID().length()>0)
+                    ? gene.getRefSeqID() : null,
+        swissProt= (gene.getSwissProt()!=null && gene.getSwissProt().length()>0)
+                        ? gene.getSwissProt() : null,
+        geneName= gene.getGene_Name(),
+        gb= gene.getGenBankAcc(),
+        gb3= gene.getGenBankAcc3(),
+        gb5= gene.getGenBankAcc5(),
         gbID= (RefSeqID!=null && RefSeqID.length()>0)
                 ? RefSeqID                     /* use RefSeq if it exists */
                 : ((gb!=null && gb.length()>0) 
@@ -589,8 +589,8 @@ class PopupRegistry
                            ? gb3
                            : ((gb5!=null && gb5.length()>0)
                                 ? gb5 : null))),
-        dbEST3= gene.dbEST3,
-        dbEST5= gene.dbEST5,
+        dbEST3= gene.getDbEST3(),
+        dbEST5= gene.getDbEST5(),
         dbEst= ((dbEST3!=null && dbEST3.length()>0)
                  ? dbEST3 : (dbEST5!=null && dbEST5.length()>0)
                                ? dbEST5 : null),
@@ -704,7 +704,7 @@ class PopupRegistry
         String
           gene1= cloneID,
           gene2= (eglLth>0 &&  eCL.mList[0]!=null)
-                    ? eCL.mList[0].Clone_ID : null;
+                    ? eCL.mList[0].getClone_ID() : null;
         
         //if(gene2!=null)
         //  {
@@ -1290,8 +1290,8 @@ class PopupRegistry
           mid= gene.mid;
           break;
         }
-        else if(!hasLeadingDigit && gene.Gene_Name!=null &&
-        gene.Gene_Name.equals(nameOrId))
+        else if(!hasLeadingDigit && gene.getGene_Name()!=null &&
+        gene.getGene_Name().equals(nameOrId))
         {
           mid= gene.mid;
           break;
@@ -1304,10 +1304,10 @@ class PopupRegistry
         MaHybridSample ms= mae.ms;
         CompositeDatabase cdb= mae.cdb;
         
-        cdb.objField= map.gid2fgrc[gid].f;  /* save optimal spot */
-        cdb.objGrid= map.gid2fgrc[gid].g;
-        cdb.objRow= map.gid2fgrc[gid].r;
-        cdb.objCol= map.gid2fgrc[gid].c;
+        cdb.objField= map.gid2f[gid];  /* save optimal spot */
+        cdb.objGrid= map.gid2g[gid];
+        cdb.objRow= map.gid2r[gid];
+        cdb.objCol= map.gid2c[gid];
         cdb.objMID= mid;
         cdb.objGID= gid;
         cdb.objGIDG= map.gidToGangGid[gid];
@@ -0,0 +1,430 @@
+/** File: QuantDataCache.java */
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * The class reads the numeric columns of a sample's tab-delimited
+ * quantified data file (F1/F2 totals, backgrounds, QualCheck, xy coords,
+ * etc.) and keeps them in a binary columnar sidecar file next to it, so
+ * later sessions load the columns with FileChannel.map() instead of
+ * parsing the text again. The sidecar is the data file name + CACHE_EXT.
+ * It is written after the first successful parse with TabFileReader.
+ *<PRE>
+ * Sidecar format (big-endian, version VERSION):
+ *   int    MAGIC
+ *   int    VERSION
+ *   long   source file length
+ *   long   source file last modified time
+ *   long   CRC32 checksum of the source file
+ *   int    nRows
+ *   int    nCols
+ *   nCols x {byte type ('F' float or 'I' int), UTF field name}
+ *   nCols x nRows column data (float or int)
+ *</PRE>
+ * The sidecar is used only if it was written for the same fields and
+ * the source file did not change. If the source file's length and
+ * modification time match, it is used without reading the source. If
+ * they differ, the source CRC32 is computed and compared, so a file that
+ * was only copied or touched still hits. If the source changed, or the
+ * sidecar is bad or can't be written (e.g. a read-only directory), the
+ * data is parsed from the text file as before.
+ *<P>
+ * Web (http://) data files are not cached here, and readColumns()
+ * returns null for them so the caller reads them with FileIO.readData().
+ *<P>
+ * This file is part of MAExplorer. It is offered as open source software
+ * under the Mozilla Public License (version 1.1) subject to the
+ * limitations noted in the accompanying LEGAL file. This notice must be
+ * included with the code. The MAExplorer Mozilla and Legal files are
+ * available on http://maexplorer.sourceforge.net/.
+ *<P>
+ * @author P. Lemkin (NCI), G. Thornwall (SAIC), NCI-Frederick, Frederick, MD
+ * @version $Date$   $Revision$
+ * @see <A HREF="http://maexplorer.sourceforge.net/">MAExplorer Home</A>
+ * @see TabFileReader
+ */
+
+class QuantDataCache
+{
+  /** flag: use and write the binary sidecar files */
+  static boolean
+    useQuantCacheFlag= true;
+  /** sidecar file name extension */
+  final static String
+    CACHE_EXT= ".qdc";
+  /** sidecar magic number "MAEQ" */
+  final static int
+    MAGIC= 0x4D414551;
+  /** sidecar format version, change if the format changes */
+  final static int
+    VERSION= 1;
+  /** column type: float */
+  final static byte
+    TYPE_FLOAT= (byte)'F';
+  /** column type: int */
+  final static byte
+    TYPE_INT= (byte)'I';
+
+  /** # of loads from a sidecar */
+  static int
+    nHits= 0;
+  /** # of loads parsed from the text file */
+  static int
+    nMisses= 0;
+  /** # of sidecars not used since the source changed */
+  static int
+    nStale= 0;
+  /** # of sidecars written */
+  static int
+    nWrites= 0;
+
+  /** data file name */
+  String
+    fileName;
+  /** field names of the columns */
+  String
+    fields[];
+  /** [0:nCols-1] set if the column is int, else float */
+  boolean
+    intFlag[];
+  /** [0:nCols-1][0:nRows-1] float column data, null for int columns */
+  float
+    fData[][];
+  /** [0:nCols-1][0:nRows-1] int column data, null for float columns */
+  int
+    iData[][];
+  /** # of rows */
+  int
+    nRows;
+  /** set if the data was loaded from the sidecar */
+  boolean
+    fromCacheFlag;
+
+
+  /**
+   * QuantDataCache() - constructor for the columns of a data file
+   * @param fileName is the data file
+   * @param fields is the list of field names of the columns
+   * @param intFlag is the list of flags for int columns
+   */
+  private QuantDataCache(String fileName, String fields[], boolean intFlag[])
+  { /* QuantDataCache */
+    this.fileName= fileName;
+    this.fields= fields;
+    this.intFlag= intFlag;
+    fData= new float[fields.length][];
+    iData= new int[fields.length][];
+  } /* QuantDataCache */
+
+
+  /**
+   * readColumns() - get the columns of a tab-delimited data file, from
+   * its sidecar if it is current, else by parsing the text file and then
+   * writing the sidecar. Fields not in the file are filled with 0.
+   * Int columns are parsed as floats, so they are exact up to 2^24.
+   * @param mae is the MAExplorer instance
+   * @param fileName is the full path of the data file
+   * @param fields is the list of field names to get
+   * @param intFlag is the list of flags for fields to get as int
+   * @param maxRows is the max # of rows to read
+   * @return the columns, else null if it is a Web file or it could not
+   *         be read.
+   * @see TabFileReader#readColumns
+   */
+  static QuantDataCache readColumns(MAExplorer mae, String fileName,
+                                    String fields[], boolean intFlag[],
+                                    int maxRows)
+  { /* readColumns */
+    if(fileName==null || fileName.startsWith("http://"))
+      return(null);
+
+    QuantDataCache qdc= new QuantDataCache(fileName, fields, intFlag);
+    File
+      srcFile= new File(fileName),
+      cacheFile= new File(fileName + CACHE_EXT);
+
+    if(useQuantCacheFlag && cacheFile.isFile() &&
+       qdc.readCache(mae, srcFile, cacheFile))
+    {
+      count(0);
+      return(qdc);
+    }
+
+    /* Parse the text file. Stamp the source first, so a change made
+     * while it is parsed makes the sidecar stale.
+     */
+    long
+      srcModified= srcFile.lastModified(),
+      srcLength= srcFile.length();
+    TabFileReader tfr= new TabFileReader(mae);
+    if(!tfr.open(fileName) || !tfr.readHeader())
+    {
+      tfr.close();
+      return(null);
+    }
+    int
+      nCols= fields.length,
+      numCols[]= new int[nCols];
+    float numData[][]= new float[nCols][maxRows];
+    for(int c=0;c<nCols;c++)
+      numCols[c]= tfr.lookupFieldIdx(fields[c]);
+    qdc.nRows= tfr.readColumns(numCols, numData, null, null, maxRows, 0.0F);
+    tfr.close();
+
+    for(int c=0;c<nCols;c++)
+    { /* trim to nRows */
+      float col[]= numData[c];
+      if(intFlag[c])
+      {
+        int iCol[]= new int[qdc.nRows];
+        for(int r=0;r<qdc.nRows;r++)
+          iCol[r]= (int)col[r];
+        qdc.iData[c]= iCol;
+      }
+      else
+      {
+        float fCol[]= col;
+        if(qdc.nRows<col.length)
+        {
+          fCol= new float[qdc.nRows];
+          System.arraycopy(col,0,fCol,0,qdc.nRows);
+        }
+        qdc.fData[c]= fCol;
+      }
+      numData[c]= null;
+    }
+    count(1);
+
+    if(useQuantCacheFlag)
+      qdc.writeCache(mae, srcFile, srcLength, srcModified, cacheFile);
+
+    return(qdc);
+  } /* readColumns */
+
+
+  /**
+   * count() - count a cache event
+   * @param what is 0 for a hit, 1 for a miss, 2 stale, 3 a write
+   */
+  private static synchronized void count(int what)
+  { /* count */
+    if(what==0)
+      nHits++;
+    else if(what==1)
+      nMisses++;
+    else if(what==2)
+      nStale++;
+    else
+      nWrites++;
+  } /* count */
+
+
+  /**
+   * checksum() - compute the CRC32 checksum of a file
+   * @param f is the file
+   * @return checksum
+   * @throws IOException if the file can't be read
+   */
+  static long checksum(File f) throws IOException
+  { /* checksum */
+    CRC32 crc= new CRC32();
+    byte chunk[]= new byte[65536];
+    FileInputStream in= new FileInputStream(f);
+    int n;
+
+    try
+    {
+      while((n= in.read(chunk))>0)
+        crc.update(chunk,0,n);
+    }
+    finally
+    {
+      in.close();
+    }
+
+    return(crc.getValue());
+  } /* checksum */
+
+
+  /**
+   * readCache() - load the columns from the sidecar if it is current
+   * for the fields and the source file.
+   * @param mae is the MAExplorer instance
+   * @param srcFile is the data file
+   * @param cacheFile is the sidecar file
+   * @return true if loaded
+   */
+  private boolean readCache(MAExplorer mae, File srcFile, File cacheFile)
+  { /* readCache */
+    RandomAccessFile raf= null;
+
+    try
+    {
+      raf= new RandomAccessFile(cacheFile,"r");
+      FileChannel fc= raf.getChannel();
+      MappedByteBuffer mb= fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+
+      if(mb.getInt()!=MAGIC || mb.getInt()!=VERSION)
+        return(false);
+      long
+        srcLength= mb.getLong(),
+        srcModified= mb.getLong(),
+        srcCRC= mb.getLong();
+      int
+        nR= mb.getInt(),
+        nC= mb.getInt();
+      if(nC!=fields.length || nR<0)
+        return(false);
+
+      for(int c=0;c<nC;c++)
+      { /* check the column types and names */
+        byte type= mb.get();
+        byte name[]= new byte[mb.getShort() & 0xFFFF];
+        mb.get(name);
+        if(type!=((intFlag[c]) ? TYPE_INT : TYPE_FLOAT) ||
+           !new String(name,"UTF-8").equals(fields[c]))
+          return(false);              /* written for other fields */
+      }
+      int dataPos= mb.position();
+
+      if(srcFile.length()!=srcLength || srcFile.lastModified()!=srcModified)
+      { /* may have changed, compare the checksums */
+        if(checksum(srcFile)!=srcCRC)
+        {
+          count(2);
+          return(false);
+        }
+      }
+
+      if((long)dataPos + 4L*nR*nC > fc.size())
+        return(false);                /* truncated */
+
+      mb.position(dataPos);
+      for(int c=0;c<nC;c++)
+      { /* bulk copy the columns */
+        if(intFlag[c])
+        {
+          iData[c]= new int[nR];
+          mb.asIntBuffer().get(iData[c]);
+        }
+        else
+        {
+          fData[c]= new float[nR];
+          mb.asFloatBuffer().get(fData[c]);
+        }
+        mb.position(mb.position() + 4*nR);
+      }
+      nRows= nR;
+      fromCacheFlag= true;
+
+      return(true);
+    }
+    catch(Exception e)
+    {
+      mae.fio.logMsgln("QDC-RC bad cache ["+cacheFile+"] "+e);
+      return(false);
+    }
+    finally
+    {
+      try
+      {
+        if(raf!=null)
+          raf.close();
+      }
+      catch(IOException e)
+      { }
+    }
+  } /* readCache */
+
+
+  /**
+   * writeCache() - write the sidecar. It is written to a temporary file
+   * that is renamed when complete, so a partly written sidecar is never
+   * read.
+   * @param mae is the MAExplorer instance
+   * @param srcFile is the data file
+   * @param srcLength is the data file length when it was parsed
+   * @param srcModified is the data file modified time when it was parsed
+   * @param cacheFile is the sidecar file
+   * @return true if written
+   */
+  private boolean writeCache(MAExplorer mae, File srcFile, long srcLength,
+                             long srcModified, File cacheFile)
+  { /* writeCache */
+    File tmpFile= new File(cacheFile.getPath() + ".tmp");
+    DataOutputStream dout= null;
+
+    try
+    {
+      long srcCRC= checksum(srcFile);
+
+      dout= new DataOutputStream(new BufferedOutputStream(
+                                   new FileOutputStream(tmpFile), 65536));
+      dout.writeInt(MAGIC);
+      dout.writeInt(VERSION);
+      dout.writeLong(srcLength);
+      dout.writeLong(srcModified);
+      dout.writeLong(srcCRC);
+      dout.writeInt(nRows);
+      dout.writeInt(fields.length);
+      for(int c=0;c<fields.length;c++)
+      {
+        dout.writeByte((intFlag[c]) ? TYPE_INT : TYPE_FLOAT);
+        dout.writeUTF(fields[c]);
+      }
+      for(int c=0;c<fields.length;c++)
+      {
+        if(intFlag[c])
+          for(int r=0;r<nRows;r++)
+            dout.writeInt(iData[c][r]);
+        else
+          for(int r=0;r<nRows;r++)
+            dout.writeFloat(fData[c][r]);
+      }
+      dout.close();
+      dout= null;
+
+      cacheFile.delete();
+      if(!tmpFile.renameTo(cacheFile))
+      {
+        tmpFile.delete();
+        return(false);
+      }
+      count(3);
+      return(true);
+    }
+    catch(Exception e)
+    { /* e.g. read-only directory, just don't cache it */
+      mae.fio.logMsgln("QDC-WC can't write cache ["+cacheFile+"] "+e);
+      try
+      {
+        if(dout!=null)
+          dout.close();
+      }
+      catch(IOException e2)
+      { }
+      tmpFile.delete();
+      return(false);
+    }
+  } /* writeCache */
+
+
+  /**
+   * getStatusStr() - get the sidecar hit and miss counts
+   * @return status string, "" if not used
+   */
+  static String getStatusStr()
+  { /* getStatusStr */
+    if(nHits==0 && nMisses==0)
+      return("");
+
+    return("Quant data sidecar cache (" +
+           ((useQuantCacheFlag) ? "enabled" : "disabled") + "): " +
+           nHits + " hits, " + nMisses + " parsed, " + nStale +
+           " stale, " + nWrites + " written\n");
+  } /* getStatusStr */
+
+} /* end of class QuantDataCache */
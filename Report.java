@@ -130,6 +130,13 @@ class Report
   /** Sort direction: assending or descending */          
   private int
     sortDirection; 
+  /** results shown in the data column of the report, if null then
+   * the data column shows Gene.data */
+  private GeneResultSet
+    rptRS;
+  /** column of rptRS shown and sorted in the data column, e.g. RATIO */
+  private int
+    rptDataCol;
             
   private boolean
     useEPrawIntensValFlag;
@@ -198,8 +205,8 @@ class Report
    * makeReport() - make gene-report instance using reportMode to determine report
    * @see CompositeDatabase#getNormHP_XandYdata
    * @see Filter#computeWorkingGeneList
-   * @see Gene#setGeneData
-   * @see Gene#setGeneData1AndData2
+   * @see GeneResultSet#set
+   * @see GeneResultSet#setData
    * @see GeneClass#getGeneListOfCurrentGeneClass
    * @see GeneClass#getGeneListOfGeneClass
    * @see MAExplorer#logDRYROTerr
@@ -229,6 +236,8 @@ class Report
       dbName= (cfg.dbSubset.length()>0) ? ", " + cfg.dbSubset  : "";
     
     sortDirection= ASCENDING;
+    rptRS= null;                  /* data column shows Gene.data */
+    rptDataCol= GeneResultSet.RATIO;
     useEPrawIntensValFlag= mae.useEPrawIntensValFlag;
     addExprProfFlag= mae.addExprProfileFlag;
     addHP_XYstatFlag= mae.addHP_XYstatFlag;
@@ -736,7 +745,7 @@ class Report
              reportCL.mList[0].Master_ID+ "]";
         /* Note that it encodes node and count info
          * gene.clusterNodeNbr and gene.nGeneClustersCnt and
-         * distance to K-means node in gene.data. This should
+         * distance to K-means node in clg.kMeansRS. This should
          * be put into the table */
          addKmeansClusterStatFlag= true;
        }
@@ -812,6 +821,8 @@ class Report
               ClusterGenes.curGene.Master_ID+
               "] < cluster distance ["+ cfg.clusterDistThr+"]";
        sortDirection= ASCENDING;
+       rptRS= ClusterGenes.clusterRS;
+       rptDataCol= GeneResultSet.DISTANCE;
        
        nList= ClusterGenes.curClusterCL.length;
        
@@ -842,6 +853,8 @@ class Report
        sortDirection= DESCENDING;       
        nList= fc.workingCL.length;
        nMlist= 0;
+       rptRS= new GeneResultSet("# genes/cluster", eSize);
+       rptDataCol= GeneResultSet.CLUSTER_COUNT;
        
        Gene  gene;
        for(int i=1; i<=nList; i++)
@@ -851,7 +864,8 @@ class Report
          if(gene==null || (gene.properties & Gene.C_BAD_SPOT)!=0)
            continue;            /* ignore bogus spots */
          mList[nMlist++]= gene;
-         gene.setGeneData((float)gene.nGeneClustersCnt);
+         rptRS.set(GeneResultSet.CLUSTER_COUNT, gene.mid,
+                   (float)gene.nGeneClustersCnt);
        } /* add ratio data data */
        
        int tfm= ((mae.RPT_FMT_DYN!=tblFmtMode)
@@ -914,6 +928,8 @@ class Report
                             ? "Zdiff (HP-X - HP-Y)"
                             : "Ratio HP-X/HP-Y";
        nMlist= 0;
+       rptRS= new GeneResultSet(changeStr, eSize);
+       rptDataCol= GeneResultSet.RATIO;
        for(int i=0; i<nList; i++)
        { /* add ratio/Zscore data */
          Gene gene= fc.displayCL.mList[i];
@@ -923,8 +939,7 @@ class Report
            g1= xList[i],
            g2= yList[i],
            changeData= (mae.isZscoreFlag) ? (g1-g2) : g1/g2;           
-         gene.setGeneData(changeData);
-         gene.setGeneData1AndData2(g1,g2);
+         rptRS.setData(gene.mid, changeData, g1, g2);
          /* Report will be generated from this gene list */
          mList[nMlist++]= gene;
        } /* add ratio/Zscore data */
@@ -963,6 +978,8 @@ class Report
        nList= mae.ms.getF1F2Data(xList, yList, null, fc.displayCL,
                                  false, false, false);       
        nMlist= 0;
+       rptRS= new GeneResultSet(sf1+"/"+sf2+" report", eSize);
+       rptDataCol= GeneResultSet.RATIO;
        Gene gene;
        int mid;
        float
@@ -977,8 +994,7 @@ class Report
          g1= xList[i];
          g2= yList[i];
          changeData= (mae.isZscoreFlag) ? (g1-g2) : g1/g2;
-         gene.setGeneData(changeData);
-         gene.setGeneData1AndData2(g1,g2);
+         rptRS.setData(mid, changeData, g1, g2);
          mList[nMlist++]= gene;
        } /* add ratio/Zscore data */
      } /* make F1/F2 report */
@@ -1070,12 +1086,12 @@ class Report
   
   /**
    * createTableOfOCL_Fstat() - make Table of OCL F-test for mList[0:nC-1]
-   * If the OCL F-Test filter is active, then report F-test statistics
+   * If the OCL F-Test filter is active, then report F-test statistics.
+   * The F-test results for all genes are computed (or reused) as a batch.
    * @param mList is the list of genes
    * @param nC is the number of genes
    * @return table of X Y statistics
-   * @see HPxyData#updateDataAndStat
-   * @see Statistics#calcNCondFtestStat
+   * @see CompositeDatabase#getOCL_FstatBatch
    * @see Table
    * @see Util#cvf2s
    */
@@ -1084,70 +1100,32 @@ class Report
     if(mList==null || nC==0)
       return(null);
     
-    HPxyData hpxy= mae.cdb.hpXYdata;
     Condition cdList= mae.cdList;
-    MJAsample mjaSample= mae.mja.mjaSample;
-    boolean ok= false;    
   
-    /* [1] Get lists of samples from the current Ordered Condition List */
-    int curOCLidx= cdList.curOCLidx;
-    if(cdList.curOCLidx==-1)
+    /* [1] Get the F-test of the current Ordered Condition List */
+    StatBatch sb= mae.cdb.getOCL_FstatBatch();
+    if(sb==null)
       return(null);       /* There is no current OCL */
      
     /* [1.1] Get the list of conditions in the OCL */
     Condition 
-      cd,                 /* working condition */
       ocl[]= cdList.orderedCondList[cdList.curOCLidx];
     int
-      nConditions= cdList.nOrderedCondList[curOCLidx],
-      nCondData[]= new int[nConditions]; /* # of samples in each condition */ 
+      nConditions= sb.nConditions,
+      nCondData[]= sb.nCondData; /* # of samples in each condition */ 
     String
       condName[]= new String[nConditions];
     
-    /* [1.2] Get lists of samples from the current Ordered Condition List.
-     * Current set of sample indexes for samples in the Conditions in the
-     * Ordered Condition List to test. [nConditions][nsamples per condition]
-     */
-    int  
-      allSamplesIndex[][]= new int[nConditions][],
-      nCondSamples,        /* # of samples/condition */
-      nSamples,            /* working # of samples */ 
-      samplesIndex[],      /* Working sample indexes in working condition */  
-      sampleNbrList[];     /* working list of samples/condition */ 
-    MaHybridSample msList[];
-     
-    /* [1.3] Working current set of data for gene mid for samples in the 
-     * Conditions in the Ordered Condition List to test.
-     * [nConditions][nsamples per condition]
-     */
-    float condData[][]= new float[nConditions][];
-     
     for(int c=0;c<nConditions;c++)
-    { /* get sample indices for all conditions */
-      cd= ocl[c];                /* get the working condition */
-      msList= cd.getHPlist();    /* get list of samples */
-      if(msList==null)
-        return(null);           /* fatal error */
-      nSamples= cd.nMScond;
-      condName[c]= cd.cName;
-      nCondData[c]= nSamples;
-      sampleNbrList= new int[cd.nMScond];  /* make a new list */
-      for(int i=1;i<=nSamples;i++)
-        sampleNbrList[i-1]= MJAbase.lookupHPsampleNbr(msList[i]);
-      allSamplesIndex[c]= sampleNbrList;
-      condData[c]= new float[nSamples];
-    } /* get sample indices for all conditions */
+      condName[c]= ocl[c].cName;
     
-    /* Working normalized sample data for gene mid for working
-     * data [nCondSamples]
-     */
-    float
-      dataS[];
     int
-      nExtra,
       nCols= 0,                     /* is computed */
       nRows= nC,
       mid;
+    float
+      mean,
+      variance;
     
     /* [1.5] Build the field names list */
     String 
@@ -1177,51 +1155,32 @@ class Report
     { /* generate a row of data for this gene */
       mid= mList[r].mid;
       
-      /* [2.1] Get the condData sample data[c][nCondData[c]] for
-       * conditions c in [0:nCondition-1] for the mid and the
-       * current normalization and ratio mode.
-       */
-      for(int c=0;c<nConditions;c++)
-      { /* get the data for each set of samples in condition c */
-        samplesIndex= allSamplesIndex[c];
-       /* Build the working set of condition data for gene mid.
-        * Lookup the data for samples in the list and save it in
-        * the precomputed condData[] array of 1D vectors.
-        */
-        mjaSample.getSamplesDataVector(condData[c], samplesIndex, mid);
-      } /* get the data for each set of samples in condition c */
-      
-      /* [2.2] Compute the F-test on the OCL data computes:
-       *    pFnConds - p value
-       *    fStatNconds - f statistic
+      /* [3] Report the F-test results for the gene mid computed in
+       * the batch:
+       *    pValues - p value
+       *    fStat - f statistic
        *    mnSqWithin - mean within class variance
        *    mnSqBetween - mean between class variance
        *    dfWithin - degrees of freedom Within conditions
        *    dfBetween - degrees of freedom Between conditions
-       *
-       * Returns false if any of the data is invalid or the beta fct fails.
-       */
-      ok= stat.calcNCondFtestStat(condData, nCondData, nConditions);
-      
-      /* [3] Test the p-value computed in the F-test against the pValue
-       * slider threshold. This tests the Null-hypothesis that
-       * there is no difference between the means as there is
-       * significant different variance between the conditions
        */
       int k= 0;
-      tR.tData[r][k++]= (ok) ? Util.cvf2s((float)stat.pFnConds,5) : "no F-test";
-      tR.tData[r][k++]= Util.cvf2s((float)stat.fStatNconds,5);
-      tR.tData[r][k++]= Util.cvf2s((float)stat.dfWithin,1);
-      tR.tData[r][k++]= Util.cvf2s((float)stat.dfBetween,1);
-      tR.tData[r][k++]= Util.cvf2s((float)stat.mnSqWithin,4);
-      tR.tData[r][k++]= Util.cvf2s((float)stat.mnSqBetween,4);
+      tR.tData[r][k++]= (sb.ok[mid]) ? Util.cvf2s(sb.pValues[mid],5)
+                                     : "no F-test";
+      tR.tData[r][k++]= Util.cvf2s(sb.fStat[mid],5);
+      tR.tData[r][k++]= Util.cvf2s(sb.dfWithin[mid],1);
+      tR.tData[r][k++]= Util.cvf2s(sb.dfBetween[mid],1);
+      tR.tData[r][k++]= Util.cvf2s(sb.mnSqWithin[mid],4);
+      tR.tData[r][k++]= Util.cvf2s(sb.mnSqBetween[mid],4);
       
       for(int c=0;c<nConditions;c++)
       {
-        tR.tData[r][k++]= Util.cvf2s((float)stat.mean[c],4);
-        tR.tData[r][k++]= Util.cvf2s((float)stat.variance[c],4);
-        tR.tData[r][k++]= Util.cvf2s((float)(stat.variance[c]/stat.mean[c]),4);
-        tR.tData[r][k++]= (""+stat.nCondData[c]);
+        mean= sb.condMean[c][mid];
+        variance= sb.condVar[c][mid];
+        tR.tData[r][k++]= Util.cvf2s(mean,4);
+        tR.tData[r][k++]= Util.cvf2s(variance,4);
+        tR.tData[r][k++]= Util.cvf2s((variance/mean),4);
+        tR.tData[r][k++]= (""+nCondData[c]);
       }
     } /* generate a row of data for this gene */
     
@@ -1236,8 +1195,8 @@ class Report
    * @param mList is the list of genes
    * @param nC is the number of genes
    * @return table of X Y statistics
+   * @see CompositeDatabase#getXYsetsStatBatch
    * @see HPxyData#updateDataAndStat
-   * @see Statistics#calcTandPvalues
    * @see Table
    * @see Util#cvf2s
    */
@@ -1298,6 +1257,9 @@ class Report
         fNames[nCols++]= f_KS_testNames[i];
     } /* init for KS test */     
     
+    /* [1.2] Get the t-test results of all genes */
+    StatBatch sb= (do_t_TestFlag) ? mae.cdb.getXYsetsStatBatch() : null;
+    
     /* [2] Build the table */
     Table tR= new Table(mae, nRows, nCols, "HP_XYstat", "");
     
@@ -1330,10 +1292,8 @@ class Report
          *    pF - f-test p-value w/NULL hypoth
          *    dF - degrees of freedom
          */
-        ok= mae.stat.calcTandPvalues(hpxy.nX, hpxy.nY,
-                                     hpxy.mnXdata, hpxy.mnYdata,
-                                     hpxy.stdDevXdata, hpxy.stdDevYdata);
-        pValue= (float)stat.pT;
+        ok= sb.ok[mid];
+        pValue= sb.pValues[mid];
       } /* add t-Test statistics */
                        
       if(do_KS_TestFlag && okXY)
@@ -1379,9 +1339,9 @@ class Report
       /* Add additional test-specific data */
       if(do_t_TestFlag)
       {       
-        tR.tData[r][k++]= Util.cvf2s((float)stat.t,4);
-        tR.tData[r][k++]= Util.cvf2s((float)stat.dF,1);
-        tR.tData[r][k++]= Util.cvf2s((float)stat.pF,4);
+        tR.tData[r][k++]= Util.cvf2s(sb.tStat[mid],4);
+        tR.tData[r][k++]= Util.cvf2s(sb.dF[mid],1);
+        tR.tData[r][k++]= Util.cvf2s(sb.pF[mid],4);
       }
       if(do_KS_TestFlag)
       {      
@@ -1429,7 +1389,9 @@ class Report
          cKmeansNbr= (gene!=null) ? gene.clusterNodeNbr : 0,
          nGeneClustersCnt = (gene!=null) ? gene.nGeneClustersCnt : 0;
        float
-         distKN= (gene!=null) ? gene.data : 0.0F,
+         distKN= (gene!=null && clg.kMeansRS!=null)
+                   ? clg.kMeansRS.get(GeneResultSet.DISTANCE, gene.mid)
+                   : 0.0F,
          valMax= clg.kMeansMaxDist[cKmeansNbr],          // or cc.maxGlobalDist,
          val= (isKmeansNode) ? 0.0F : distKN;
        String
@@ -1639,6 +1601,28 @@ class Report
   } /* createStrReportOfOCL_FstatData */
   
   
+  /**
+   * getRptData() - get the data of a gene for a column of the report
+   * results. If the report has no results (rptRS is null), then use
+   * the Gene.data, data1 and data2 values.
+   * @param gene is the gene
+   * @param col is the column, e.g. GeneResultSet.RATIO
+   * @return the data value
+   * @see GeneResultSet#get
+   */
+  private float getRptData(Gene gene, int col)
+  { /* getRptData */
+    if(rptRS!=null)
+      return(rptRS.get(col, gene.mid));
+    else if(col==GeneResultSet.MEAN1)
+      return(gene.data1);
+    else if(col==GeneResultSet.MEAN2)
+      return(gene.data2);
+    else
+      return(gene.data);
+  } /* getRptData */
+  
+  
   /**
    * cvGene2TabDelimStr() - convert a gene to printable tab-delimited string
    * @param gene is the gene to convert
@@ -1654,17 +1638,18 @@ class Report
                                     boolean showGeneName, Table epTbl,
                                     Table hpxyTbl )
   { /* cvGene2TabDelimStr */
-    GridCoords grcd= mae.mp.gid2fgrc[gene.gid];
+    int gid= gene.gid;
     String
       Master_ID= gene.Master_ID,
-      gcStr= mae.grcd.cvtFGRC2str(grcd.f, grcd.g, grcd.r, grcd.c, false),
-      dbEST3= (gene.dbEST3==null) ? "" : gene.dbEST3,
-      GenBankAcc= (gene.GenBankAcc!=null)
-                    ? gene.GenBankAcc
-                    : ((gene.GenBankAcc3!=null)
-                         ? gene.GenBankAcc3
-                         : ((gene.GenBankAcc3!=null)
-                              ? gene.GenBankAcc3
+      gcStr= mae.grcd.cvtFGRC2str(mae.mp.gid2f[gid], mae.mp.gid2g[gid],
+                                  mae.mp.gid2r[gid], mae.mp.gid2c[gid], false),
+      dbEST3= (gene.getDbEST3()==null) ? "" : gene.getDbEST3(),
+      GenBankAcc= (gene.getGenBankAcc()!=null)
+                    ? gene.getGenBankAcc()
+                    : ((gene.getGenBankAcc3()!=null)
+                         ? gene.getGenBankAcc3()
+                         : ((gene.getGenBankAcc3()!=null)
+                              ? gene.getGenBankAcc3()
                               : "")),
       MasterGeneName= (gene.MasterGeneName==null) 
                         ? "" : gene.MasterGeneName,
@@ -1672,7 +1657,7 @@ class Report
       sR= "#"+ i + " " +  gcStr + "\t";
     
     if(dataName!=null)
-      sR += Util.cvd2s(gene.data,4) + "\t";
+      sR += Util.cvd2s(getRptData(gene, rptDataCol),4) + "\t";
     
     sR += Master_ID + "\t" + dbEST3 +"\t" + GenBankAcc;
     
@@ -1912,6 +1897,8 @@ class Report
   
   /**
    * createTotGeneRptTbl() - generate total gene report table.
+   * If the report is sorted and has more than maxGene genes, the top
+   * maxGene genes are selected without sorting all of them.
    * @param mListOrig is list of genes to display
    * @param nMlistOrig is number of genes
    * @param maxGene is max# genes to show
@@ -1921,14 +1908,16 @@ class Report
    * @param showGeneName is flag to show Gene_Name
    * @param reportMode is the type of report
    * @return table returned else null if problem.
-   * @see Gene#sortGeneList
    * @see GridCoords#cvtGID2str
    * @see MAExplorer#logDRYROTerr
    * @see SimpleTable
    * @see SimpleTable#setRowData
    * @see SimpleTable#setFieldData
+   * @see IndexSort#selectTopK
+   * @see IndexSort#sortIndex
    * @see SpotFeatures#getPlate
    * @see Util#cvd2s
+   * @see #getRptData
    * @see #createTableOfExprProfiles
    * @see #createTableOfHP_XYstat
    * @see #createTableKmeansClusterStats
@@ -2034,10 +2023,25 @@ class Report
         if(mListOrig[i]!=null && mListOrig[i].Master_ID.length()!=0)
           mList[nMlist++]= mListOrig[i];  /* build a CLEAN list */
       
-      if(sortDirection==ASCENDING)
-        Gene.sortGeneList(mList, nMlist, true /* ascending */);
-      else if(sortDirection==DESCENDING)
-        Gene.sortGeneList(mList, nMlist, false /* descending */);      
+      if(sortDirection==ASCENDING || sortDirection==DESCENDING)
+      { /* sort the list by the data column with an index[] */
+        float sortData[]= new float[nMlist];
+        for(int i=0;i<nMlist;i++)
+          sortData[i]= getRptData(mList[i], rptDataCol);
+        int sortIdx[]= (maxGene>0 && maxGene<nMlist)
+                         ? IndexSort.selectTopK(sortData, nMlist, maxGene,
+                                                (sortDirection==DESCENDING))
+                         : IndexSort.sortIndex(sortData, nMlist,
+                                               (sortDirection==ASCENDING));
+        if(sortIdx!=null)
+        { /* make the sorted list of the top maxGene genes */
+          Gene sortedList[]= new Gene[sortIdx.length];
+          for(int i=0;i<sortIdx.length;i++)
+            sortedList[i]= mList[sortIdx[i]];
+          mList= sortedList;
+          nMlist= sortIdx.length;
+        }
+      } /* sort the list by the data column with an index[] */
       
       /* Extend the Gene Report table if reporting expression profile data*/
       Table epTbl= null;
@@ -2151,17 +2155,17 @@ class Report
         { /* only look at existing geones */
           Master_ID= gene.Master_ID;
           plateName= mae.sf.getPlate(gene.gid);
-          Clone_ID= gene.Clone_ID;
+          Clone_ID= gene.getClone_ID();
           gene2UniGene= Clone_ID;   /* used in lookup - no UID */
           gene2mAdb= Clone_ID;      /* used in lookup - no UID */
-          GenBankAcc= gene.GenBankAcc;
+          GenBankAcc= gene.getGenBankAcc();
           if(GenBankAcc==null || GenBankAcc.length()==0)
-            GenBankAcc= gene.GenBankAcc3;
+            GenBankAcc= gene.getGenBankAcc3();
           if(GenBankAcc==null || GenBankAcc.length()==0)
-            GenBankAcc= gene.GenBankAcc5;
+            GenBankAcc= gene.getGenBankAcc5();
           gbid2LocusLink= GenBankAcc;
-          LocusID= gene.LocusID;
-          Gene_Name= (gene.Gene_Name==null) ? "" : gene.Gene_Name;
+          LocusID= gene.getLocusID();
+          Gene_Name= (gene.getGene_Name()==null) ? "" : gene.getGene_Name();
           
         /* [TODO] redo so build report on what actually exists
          * including GenBank, GB3', GB5', SwissProt, dbEST3',dbEST5'
@@ -2189,7 +2193,7 @@ class Report
           m= 0;
           rowData[m++]= mae.grcd.cvtGID2str(gid,false);
           if(dataName!=null)
-            rowData[m++]= Util.cvd2s(gene.data,4);
+            rowData[m++]= Util.cvd2s(getRptData(gene, rptDataCol),4);
           rowData[m++]= Master_ID;
           rowData[m++]= Gene_Name;
           rowData[m++]= gene2mAdb;
@@ -2200,8 +2204,8 @@ class Report
           rowData[m++]= plateName;
           if(addHP_XYdataFlag && dataName!=null)
           {
-            rowData[m++]= Util.cvd2s(gene.data1,4);
-            rowData[m++]= Util.cvd2s(gene.data2,4);
+            rowData[m++]= Util.cvd2s(getRptData(gene, GeneResultSet.MEAN1),4);
+            rowData[m++]= Util.cvd2s(getRptData(gene, GeneResultSet.MEAN2),4);
           }
           
          /* Optionally extend the Gene Report table if reporting
@@ -0,0 +1,469 @@
+/** File: SampleDataManager.java */
+
+/**
+ * The class keeps a bounded working set of the per-sample data arrays
+ * that are made on demand from the loaded samples. These are
+ *<PRE>
+ *   the normalized F1, F2 and ratio columns of the NormDataCache, which
+ *     are built the first time the sample's data is read through
+ *     NormDataCache.getDataByGID(), and
+ *   the quantified data columns read through SampleSets.getQuantData()
+ *     (e.g. by MJAsample.getQuantDataColumns()), from their binary
+ *     sidecar if it is current, else by parsing the text file, see
+ *     QuantDataCache.
+ *</PRE>
+ * When the working set is over maxResidentMbytes or maxResidentSamples,
+ * the arrays of the least recently used samples are evicted. An evicted
+ * sample's arrays are made again when they are next used.
+ *<P>
+ * The quantified data arrays that MaHybridSample reads when a sample is
+ * created stay in the sample, since that class reads them directly. So
+ * the working set bounds the memory used on top of the loaded samples.
+ *<P>
+ * The samples in the current HP-X, HP-Y and HP-E lists and the current
+ * HP, HP-X and HP-Y samples are pinned and are never evicted, so the
+ * working set may be larger than the limit if those sets are large.
+ *<P>
+ * This file is part of MAExplorer. It is offered as open source software
+ * under the Mozilla Public License (version 1.1) subject to the
+ * limitations noted in the accompanying LEGAL file. This notice must be
+ * included with the code. The MAExplorer Mozilla and Legal files are
+ * available on http://maexplorer.sourceforge.net/.
+ *<P>
+ * @author P. Lemkin (NCI), G. Thornwall (SAIC), NCI-Frederick, Frederick, MD
+ * @version $Date$   $Revision$
+ * @see <A HREF="http://maexplorer.sourceforge.net/">MAExplorer Home</A>
+ * @see SampleSets#getQuantData
+ * @see QuantDataCache
+ * @see NormDataCache#getSampleData
+ * @see NormDataCache#dropSample
+ */
+
+class SampleDataManager
+{
+  /** max size of the working set in Mbytes, 0 for no limit.
+   * Defaults to 1/4 of the max Java heap.
+   */
+  static int
+    maxResidentMbytes= (int)(Runtime.getRuntime().maxMemory()/(4L*1024L*1024L));
+  /** max # of samples in the working set, 0 for no limit */
+  static int
+    maxResidentSamples= 0;
+
+  /** link to global MAExplorer instance */
+  private MAExplorer
+    mae;
+
+  /** [1:MAX_HYB_SAMPLES] resident data by sample index, else null */
+  private QuantDataCache
+    data[];
+  /** [1:MAX_HYB_SAMPLES] sample the data was loaded for */
+  private MaHybridSample
+    dataMS[];
+  /** [1:MAX_HYB_SAMPLES] last use stamp */
+  private long
+    lastUse[];
+  /** [1:MAX_HYB_SAMPLES] size of the data in bytes */
+  private long
+    dataBytes[];
+  /** [1:MAX_HYB_SAMPLES] size of the NormDataCache columns in bytes */
+  private long
+    normBytes[];
+  /** use stamp counter */
+  private long
+    useClock= 0;
+  /** samples dropped whose normalized data columns must be dropped */
+  private int
+    dropList[];
+  /** # of samples in dropList[] */
+  private int
+    nDrops= 0;
+
+  /** # of samples resident */
+  int
+    nResident= 0;
+  /** size of the resident data in bytes */
+  long
+    residentBytes= 0;
+  /** # of accesses of resident data */
+  int
+    nHits= 0;
+  /** # of loads */
+  int
+    nLoads= 0;
+  /** # of NormDataCache columns added */
+  int
+    nNormColumns= 0;
+  /** # of evictions */
+  int
+    nEvictions= 0;
+
+
+  /**
+   * SampleDataManager() - constructor for an empty working set
+   * @param mae is the MAExplorer instance
+   */
+  SampleDataManager(MAExplorer mae)
+  { /* SampleDataManager */
+    this.mae= mae;
+
+    int n= mae.MAX_HYB_SAMPLES+1;
+    data= new QuantDataCache[n];
+    dataMS= new MaHybridSample[n];
+    lastUse= new long[n];
+    dataBytes= new long[n];
+    normBytes= new long[n];
+    dropList= new int[n];
+  } /* SampleDataManager */
+
+
+  /**
+   * getData() - get the quantified data columns of sample idx, loading
+   * them if they are not resident, and mark them as most recently used.
+   * @param ms is the sample
+   * @param idx is the sample index in msList[]
+   * @param fileName is the full path of the sample's data file
+   * @param fields is the list of field names to get
+   * @param intFlag is the list of flags for fields to get as int
+   * @param maxRows is the max # of rows to read
+   * @return the data, else null if it could not be loaded.
+   * @see #loadData
+   * @see #flushDrops
+   */
+  QuantDataCache getData(MaHybridSample ms, int idx, String fileName,
+                         String fields[], boolean intFlag[], int maxRows)
+  { /* getData */
+    QuantDataCache qdc= loadData(ms, idx, fileName, fields, intFlag, maxRows);
+    flushDrops();
+    return(qdc);
+  } /* getData */
+
+
+  /**
+   * loadData() - get the data of sample idx, loading it if it is not
+   * resident, and evict samples if over the limits.
+   * @param ms is the sample
+   * @param idx is the sample index in msList[]
+   * @param fileName is the full path of the sample's data file
+   * @param fields is the list of field names to get
+   * @param intFlag is the list of flags for fields to get as int
+   * @param maxRows is the max # of rows to read
+   * @return the data, else null if it could not be loaded.
+   * @see QuantDataCache#readColumns
+   * @see #evict
+   */
+  private synchronized QuantDataCache loadData(MaHybridSample ms, int idx,
+                                               String fileName,
+                                               String fields[],
+                                               boolean intFlag[], int maxRows)
+  { /* loadData */
+    if(idx<1 || idx>=data.length)
+      return(null);
+
+    QuantDataCache qdc= data[idx];
+    if(qdc!=null && dataMS[idx]==ms && qdc.fileName.equals(fileName) &&
+       sameFields(qdc, fields, intFlag))
+    { /* resident */
+      nHits++;
+      lastUse[idx]= ++useClock;
+      return(qdc);
+    }
+
+    if(dataMS[idx]!=ms)
+      drop(idx);                    /* arrays of another sample */
+    else if(qdc!=null)
+    { /* other file or fields, replace them */
+      residentBytes -= dataBytes[idx];
+      data[idx]= null;
+      dataBytes[idx]= 0;
+      if(!isResident(idx))
+      {
+        nResident--;
+        dataMS[idx]= null;
+      }
+    }
+
+    qdc= QuantDataCache.readColumns(mae, fileName, fields, intFlag, maxRows);
+    if(qdc==null)
+      return(null);
+    nLoads++;
+
+    if(!isResident(idx))
+      nResident++;
+    data[idx]= qdc;
+    dataMS[idx]= ms;
+    lastUse[idx]= ++useClock;
+    dataBytes[idx]= 4L*qdc.nRows*fields.length;
+    residentBytes += dataBytes[idx];
+
+    evict(idx);
+
+    return(qdc);
+  } /* loadData */
+
+
+  /**
+   * addNormData() - add a NormDataCache column of sample idx that is
+   * about to be built to the working set, mark the sample as most recently
+   * used and evict other samples if over the limits. This is called by
+   * NormDataCache.buildColumn() with its lock held, so the columns of
+   * the evicted samples are dropped before it tests its own cap.
+   * @param ms is the sample
+   * @param idx is the sample index in msList[]
+   * @param nBytes is the size of the column
+   * @see NormDataCache#buildColumn
+   * @see #flushDrops
+   */
+  void addNormData(MaHybridSample ms, int idx, long nBytes)
+  { /* addNormData */
+    synchronized(this)
+    {
+      if(idx<1 || idx>=data.length)
+        return;
+      if(dataMS[idx]!=ms)
+        drop(idx);                  /* arrays of another sample */
+      if(!isResident(idx))
+        nResident++;
+      dataMS[idx]= ms;
+      lastUse[idx]= ++useClock;
+      normBytes[idx] += nBytes;
+      residentBytes += nBytes;
+      nNormColumns++;
+
+      evict(idx);
+    }
+    flushDrops();
+  } /* addNormData */
+
+
+  /**
+   * removeNormData() - remove NormDataCache columns that were dropped, or
+   * that were added but did not fit in its cap, from the working set.
+   * @param idx is the sample index in msList[], or 0 for all samples
+   * @param nBytes is the size of the columns, ignored for all samples
+   * @see NormDataCache#invalidate
+   * @see NormDataCache#buildColumn
+   */
+  synchronized void removeNormData(int idx, long nBytes)
+  { /* removeNormData */
+    int
+      first= (idx==0) ? 1 : idx,
+      last= (idx==0) ? data.length-1 : idx;
+    if(first<1 || last>=data.length)
+      return;
+
+    for(int i=first;i<=last;i++)
+    {
+      boolean wasResident= isResident(i);
+      long n= (idx==0) ? normBytes[i] : Math.min(nBytes, normBytes[i]);
+      normBytes[i] -= n;
+      residentBytes -= n;
+      if(wasResident && !isResident(i))
+      {
+        nResident--;
+        dataMS[i]= null;
+      }
+    }
+  } /* removeNormData */
+
+
+  /**
+   * touch() - mark sample idx as most recently used. It is called for
+   * every NormDataCache read, so it does not take the lock. A stamp that
+   * is lost when two threads touch at the same time only makes the LRU
+   * order less exact.
+   * @param idx is the sample index in msList[]
+   */
+  void touch(int idx)
+  { /* touch */
+    if(idx>0 && idx<lastUse.length)
+      lastUse[idx]= ++useClock;
+  } /* touch */
+
+
+  /**
+   * isResident() - test if sample idx has data in the working set
+   * @param idx is the sample index in msList[]
+   * @return true if it has
+   */
+  private boolean isResident(int idx)
+  { /* isResident */
+    return(data[idx]!=null || normBytes[idx]>0);
+  } /* isResident */
+
+
+  /**
+   * sameFields() - test if the data has the same fields and types
+   * @param qdc is the resident data
+   * @param fields is the list of field names
+   * @param intFlag is the list of flags for int fields
+   * @return true if the same
+   */
+  private static boolean sameFields(QuantDataCache qdc, String fields[],
+                                    boolean intFlag[])
+  { /* sameFields */
+    if(qdc.fields.length!=fields.length)
+      return(false);
+    for(int c=0;c<fields.length;c++)
+      if(!qdc.fields[c].equals(fields[c]) || qdc.intFlag[c]!=intFlag[c])
+        return(false);
+    return(true);
+  } /* sameFields */
+
+
+  /**
+   * isPinned() - test if a sample is in the current HP-X, HP-Y or HP-E
+   * lists or is the current HP, HP-X or HP-Y sample.
+   * @param ms is the sample
+   * @return true if it must stay resident
+   */
+  private boolean isPinned(MaHybridSample ms)
+  { /* isPinned */
+    SampleSets hps= mae.hps;
+
+    if(ms==mae.ms || ms==mae.msX || ms==mae.msY)
+      return(true);
+    for(int i=1;i<=hps.nHP_X;i++)
+      if(hps.msListX[i]==ms)
+        return(true);
+    for(int i=1;i<=hps.nHP_Y;i++)
+      if(hps.msListY[i]==ms)
+        return(true);
+    for(int i=1;i<=hps.nHP_E;i++)
+      if(hps.msListE[i]==ms)
+        return(true);
+
+    return(false);
+  } /* isPinned */
+
+
+  /**
+   * isOverLimit() - test if the working set is over the limits
+   * @return true if over
+   */
+  private boolean isOverLimit()
+  { /* isOverLimit */
+    return((maxResidentSamples>0 && nResident>maxResidentSamples) ||
+           (maxResidentMbytes>0 &&
+            residentBytes>1024L*1024L*maxResidentMbytes));
+  } /* isOverLimit */
+
+
+  /**
+   * evict() - evict the least recently used samples that are not pinned
+   * until the working set is within the limits.
+   * @param keepIdx is the sample just loaded, which is not evicted
+   * @see #drop
+   */
+  private void evict(int keepIdx)
+  { /* evict */
+    while(isOverLimit())
+    { /* evict the LRU sample */
+      int lruIdx= -1;
+      long lruStamp= Long.MAX_VALUE;
+
+      for(int i=1;i<data.length;i++)
+        if(isResident(i) && i!=keepIdx && lastUse[i]<lruStamp &&
+           !isPinned(dataMS[i]))
+        {
+          lruIdx= i;
+          lruStamp= lastUse[i];
+        }
+
+      if(lruIdx<0)
+        break;                      /* the rest are pinned */
+      drop(lruIdx);
+      nEvictions++;
+    }
+  } /* evict */
+
+
+  /**
+   * drop() - drop the resident data of sample idx and queue its normalized
+   * data columns to be dropped by flushDrops(). Called with the lock held.
+   * @param idx is the sample index in msList[]
+   */
+  private void drop(int idx)
+  { /* drop */
+    if(idx<1 || idx>=data.length || !isResident(idx))
+      return;
+
+    residentBytes -= dataBytes[idx] + normBytes[idx];
+    nResident--;
+    data[idx]= null;
+    dataMS[idx]= null;
+    dataBytes[idx]= 0;
+    normBytes[idx]= 0;
+    if(nDrops==dropList.length)
+    { /* grow */
+      int newList[]= new int[2*nDrops];
+      System.arraycopy(dropList,0,newList,0,nDrops);
+      dropList= newList;
+    }
+    dropList[nDrops++]= idx;
+  } /* drop */
+
+
+  /**
+   * dropSample() - drop the resident data of sample idx and its
+   * normalized data columns.
+   * @param idx is the sample index in msList[]
+   * @see #flushDrops
+   */
+  void dropSample(int idx)
+  { /* dropSample */
+    synchronized(this)
+    {
+      drop(idx);
+    }
+    flushDrops();
+  } /* dropSample */
+
+
+  /**
+   * flushDrops() - drop the normalized data columns of the dropped samples.
+   * This is done without holding the lock of this object, so the lock
+   * order is always the NormDataCache lock and then this one.
+   * @see NormDataCache#dropSample
+   */
+  private void flushDrops()
+  { /* flushDrops */
+    int
+      list[],
+      n;
+
+    synchronized(this)
+    {
+      if(nDrops==0)
+        return;
+      n= nDrops;
+      list= new int[n];
+      System.arraycopy(dropList,0,list,0,n);
+      nDrops= 0;
+    }
+
+    if(mae.cdb!=null && mae.cdb.normData!=null)
+      for(int k=0;k<n;k++)
+        mae.cdb.normData.dropSample(list[k]);
+  } /* flushDrops */
+
+
+  /**
+   * getStatusStr() - get the working set size and counts
+   * @return status string, "" if not used
+   */
+  String getStatusStr()
+  { /* getStatusStr */
+    if(nLoads==0 && nNormColumns==0)
+      return("");
+
+    return("Sample data working set (limit " +
+           ((maxResidentMbytes>0) ? (maxResidentMbytes+" Mbytes") : "none") +
+           ((maxResidentSamples>0) ? (", "+maxResidentSamples+" samples") : "") +
+           "): " + nResident + " samples, " + (residentBytes/1024) +
+           " Kbytes, " + nNormColumns + " normalized columns, " + nHits +
+           " quant data hits, " + nLoads + " loads, " + nEvictions +
+           " evictions\n");
+  } /* getStatusStr */
+
+} /* end of class SampleDataManager */
@@ -0,0 +1,453 @@
+/** File: SampleLoader.java */
+
+import java.util.Vector;
+
+/**
+ * The class creates the MaHybridSample objects of the samples preloaded at
+ * startup. Most of the time to create a sample is spent reading its
+ * quantified data file, so the files are read ahead on a bounded pool of
+ * loader threads with FileIO.prefetchData() while the samples are created.
+ * The number of threads is limited so a slow disk or Web server is
+ * not flooded with requests.
+ *<P>
+ * The samples are only created on the calling thread of loadSamples(), one
+ * at a time in slot order [1:nSlots], and each is added to the database
+ * with hps.addHPtoDB() as soon as it is created. Creating a sample parses
+ * its data and updates shared state such as cfg.minQualCheck,
+ * cfg.maxQualCheck, nFilesRead and the percentDone() progress message,
+ * so these are updated in the same order and on the same thread as the
+ * serial loop. The loader threads only read file data.
+ *<P>
+ * MaHybridSample makes the name of its data file, so the loader learns it
+ * from the first sample: the file read through FileIO.readData() while
+ * it is created whose name has the sample's file name (or database file
+ * ID) in it. The file names of the other samples are made by replacing
+ * that part. If the first sample did not read such a file, or a sample
+ * did not use the data read ahead for it, the rest are read by the
+ * samples themselves as before. At most maxReadAhead files are read
+ * ahead of the sample being created, so the data waiting to be used
+ * stays small.
+ *<P>
+ * The time to read ahead and to create each sample is saved for the
+ * status report.
+ *<P>
+ * This file is part of MAExplorer. It is offered as open source software
+ * under the Mozilla Public License (version 1.1) subject to the
+ * limitations noted in the accompanying LEGAL file. This notice must be
+ * included with the code. The MAExplorer Mozilla and Legal files are
+ * available on http://maexplorer.sourceforge.net/.
+ *<P>
+ * @author P. Lemkin (NCI), G. Thornwall (SAIC), NCI-Frederick, Frederick, MD
+ * @version $Date$   $Revision$
+ * @see <A HREF="http://maexplorer.sourceforge.net/">MAExplorer Home</A>
+ * @see MAExplorer#readListOfSampleDataFiles
+ * @see MAExplorer#createSample
+ * @see FileIO#prefetchData
+ */
+
+class SampleLoader implements Runnable
+{
+  /** flag: read the sample files ahead in parallel */
+  static boolean
+    useParallelLoadFlag= true;
+  /** max # of sample files read at the same time */
+  static int
+    maxLoadThreads= Math.min(4, Runtime.getRuntime().availableProcessors());
+  /** max # of sample files read ahead of the sample being created */
+  static int
+    maxReadAhead= 8;
+
+  /** # of loader threads used in the last load */
+  static int
+    lastNbrThreads= 0;
+  /** elapsed time (msec) of the last load */
+  static long
+    lastLoadMsec= 0;
+  /** sample names of the last load, null if not loaded */
+  static String
+    lastNames[]= null;
+  /** time (msec) to read ahead each sample file of the last load */
+  static long
+    lastReadMsec[]= null;
+  /** time (msec) to create each sample of the last load */
+  static long
+    lastSampleMsec[]= null;
+
+  /** link to global MAExplorer instance */
+  private MAExplorer
+    mae;
+  /** # of sample slots [1:nSlots] */
+  private int
+    nSlots;
+
+  /* --- [1:nSlots] createSample() arguments, hpName null if none --- */
+  /** sample file names */
+  String
+    hpName[];
+  /** free-form sample names */
+  String
+    sampleID[];
+  /** database file IDs */
+  String
+    databaseFileID[];
+  /** image file names */
+  String
+    imageName[];
+  /** sample menu names */
+  String
+    menuName[];
+  /** full stage text */
+  String
+    fullStageText[];
+  /** project names */
+  String
+    projectName[];
+  /** requires login */
+  boolean
+    needLoginFlag[];
+  /** swap Cy3 and Cy5 channels */
+  boolean
+    swapCy5Cy3DataFlag[];
+
+  /** [1:nSlots] data file to read ahead, null if none */
+  private String
+    fileName[];
+  /** [1:nSlots] set when a loader thread took the slot to read */
+  private boolean
+    takenFlag[];
+  /** [1:nSlots] set when the slot's file read is done */
+  private boolean
+    readDoneFlag[];
+  /** [1:nSlots] Error thrown reading the slot's file, else null */
+  private Error
+    readError[];
+  /** [1:nSlots] time (msec) to read the file ahead */
+  private long
+    readMsec[];
+  /** [1:nSlots] time (msec) to create the sample */
+  private long
+    createMsec[];
+  /** next slot to read ahead, shared by the loader threads */
+  private int
+    nextSlot;
+  /** slot of the sample being created */
+  private int
+    curSlot;
+  /** set to stop reading ahead */
+  private boolean
+    stopFlag;
+
+
+  /**
+   * SampleLoader() - constructor for a load of up to nSlots samples.
+   * Set the createSample() arguments of each slot to load before
+   * calling loadSamples().
+   * @param mae is the MAExplorer instance
+   * @param nSlots is the # of slots [1:nSlots]
+   */
+  SampleLoader(MAExplorer mae, int nSlots)
+  { /* SampleLoader */
+    this.mae= mae;
+    this.nSlots= nSlots;
+
+    hpName= new String[nSlots+1];
+    sampleID= new String[nSlots+1];
+    databaseFileID= new String[nSlots+1];
+    imageName= new String[nSlots+1];
+    menuName= new String[nSlots+1];
+    fullStageText= new String[nSlots+1];
+    projectName= new String[nSlots+1];
+    needLoginFlag= new boolean[nSlots+1];
+    swapCy5Cy3DataFlag= new boolean[nSlots+1];
+
+    fileName= new String[nSlots+1];
+    takenFlag= new boolean[nSlots+1];
+    readDoneFlag= new boolean[nSlots+1];
+    readError= new Error[nSlots+1];
+    readMsec= new long[nSlots+1];
+    createMsec= new long[nSlots+1];
+  } /* SampleLoader */
+
+
+  /**
+   * loadSamples() - create the samples of slots [1:nSlots] in slot order
+   * and add those that were created and do not need a login to the
+   * database.
+   * @return # of samples added
+   * @see MAExplorer#createSample
+   * @see SampleSets#addHPtoDB
+   * @see #setFileNames
+   */
+  int loadSamples()
+  { /* loadSamples */
+    long startTime= System.currentTimeMillis();
+    int
+      nAdded= 0,
+      nThreads= 1,
+      nToLoad= 0,
+      first= 0;
+    Thread threads[]= null;
+
+    for(int i=nSlots;i>=1;i--)
+      if(hpName[i]!=null)
+      {
+        nToLoad++;
+        first= i;
+      }
+    boolean readAheadFlag= (useParallelLoadFlag && maxLoadThreads>1 &&
+                            nToLoad>1);
+
+    try
+    {
+      for(int i=1;i<=nSlots;i++)
+      { /* create the samples in slot order */
+        if(hpName[i]==null)
+          continue;
+
+        waitForRead(i);
+        if(i==first && readAheadFlag)
+          mae.fio.readLog= new Vector();   /* learn the file name */
+
+        long t0= System.currentTimeMillis();
+        MaHybridSample ms= mae.createSample(i,          /* i.e idxHP */
+                                            hpName[i], sampleID[i],
+                                            databaseFileID[i], imageName[i],
+                                            menuName[i], fullStageText[i],
+                                            projectName[i], needLoginFlag[i],
+                                            swapCy5Cy3DataFlag[i]);
+        createMsec[i]= System.currentTimeMillis() - t0;
+
+        if(i==first && readAheadFlag)
+        { /* start reading the other files ahead */
+          Vector readLog= mae.fio.readLog;
+          mae.fio.readLog= null;
+          if(setFileNames(first, readLog))
+          {
+            nThreads= Math.min(maxLoadThreads, nToLoad-1);
+            threads= new Thread[nThreads];
+            for(int t=0;t<nThreads;t++)
+            {
+              threads[t]= new Thread(this, "SampleLoader-"+t);
+              threads[t].setDaemon(true);
+              threads[t].start();
+            }
+          }
+        }
+        else if(mae.fio.dropPrefetchedData(fileName[i]))
+          stopReadAhead();            /* not its file, stop guessing */
+
+        if(ms!=null && !ms.needLoginFlag)
+        { /* only add if was successful */
+          mae.hps.addHPtoDB(ms,i);  /* add to master msList[0:nHP] DB */
+          nAdded++;
+        }
+      } /* create the samples in slot order */
+    }
+
+    finally
+    { /* stop the loader threads and drop data not used */
+      mae.fio.readLog= null;
+      stopReadAhead();
+      if(threads!=null)
+        for(int t=0;t<nThreads;t++)
+        {
+          try
+          { threads[t].join(); }
+          catch(InterruptedException e)
+          { }
+        }
+      mae.fio.clearPrefetchedData();
+
+      /* Save the load times for the status report */
+      lastNbrThreads= (threads!=null) ? nThreads : 0;
+      lastLoadMsec= System.currentTimeMillis() - startTime;
+      lastNames= hpName;
+      lastReadMsec= readMsec;
+      lastSampleMsec= createMsec;
+    }
+
+    return(nAdded);
+  } /* loadSamples */
+
+
+  /**
+   * setFileNames() - make the data file names of the slots after the
+   * first one from the file read by the first sample whose name has the
+   * sample's file name or database file ID in it.
+   * @param first is the first slot
+   * @param readLog is the list of files read by the first sample
+   * @return true if the file names were made
+   */
+  private boolean setFileNames(int first, Vector readLog)
+  { /* setFileNames */
+    if(readLog==null)
+      return(false);
+
+    for(int k=0;k<2;k++)
+    { /* try the sample file name, then the database file ID */
+      String
+        key[]= (k==0) ? hpName : databaseFileID,
+        name= key[first];
+      if(name==null || name.length()==0)
+        continue;
+
+      for(int n=0;n<readLog.size();n++)
+      {
+        String fName= (String)readLog.elementAt(n);
+        int idx= fName.lastIndexOf(name);
+        if(idx<0)
+          continue;
+
+        String
+          prefix= fName.substring(0,idx),
+          suffix= fName.substring(idx+name.length());
+        for(int i=first+1;i<=nSlots;i++)
+          if(hpName[i]!=null && key[i]!=null && key[i].length()>0)
+            fileName[i]= prefix + key[i] + suffix;
+        return(true);
+      }
+    }
+
+    return(false);
+  } /* setFileNames */
+
+
+  /**
+   * stopReadAhead() - stop the loader threads from taking more slots
+   */
+  private synchronized void stopReadAhead()
+  { /* stopReadAhead */
+    stopFlag= true;
+    notifyAll();
+  } /* stopReadAhead */
+
+
+  /**
+   * nextSlotToRead() - get the next slot to read ahead, waiting while it
+   * is too far ahead of the sample being created.
+   * @return slot, else -1 if there are no more or reading was stopped
+   */
+  private synchronized int nextSlotToRead()
+  { /* nextSlotToRead */
+    while(true)
+    {
+      while(nextSlot<=nSlots &&
+            (fileName[nextSlot]==null || takenFlag[nextSlot]))
+        nextSlot++;
+      if(stopFlag || nextSlot>nSlots)
+        return(-1);
+      if(nextSlot<=curSlot+maxReadAhead)
+        break;
+      try
+      { wait(); }
+      catch(InterruptedException e)
+      { return(-1); }
+    }
+
+    takenFlag[nextSlot]= true;
+    return(nextSlot++);
+  } /* nextSlotToRead */
+
+
+  /**
+   * waitForRead() - make slot i the sample being created and wait if a
+   * loader thread is reading its file. If no thread took it, no thread
+   * will, and the sample reads the file itself. An Error thrown reading
+   * the file (e.g. OutOfMemoryError) is thrown again here.
+   * @param i is the slot
+   */
+  private synchronized void waitForRead(int i)
+  { /* waitForRead */
+    boolean takenByThreadFlag= takenFlag[i];
+
+    curSlot= i;
+    takenFlag[i]= true;
+    notifyAll();                      /* may read further ahead */
+
+    while(takenByThreadFlag && !readDoneFlag[i])
+    {
+      try
+      { wait(); }
+      catch(InterruptedException e)
+      { break; }
+    }
+
+    if(readError[i]!=null)
+      throw readError[i];
+  } /* waitForRead */
+
+
+  /**
+   * readDone() - save the time to read slot i and wake the calling thread
+   * @param i is the slot
+   * @param t is the time (msec) to read it
+   * @param err is the Error thrown reading it, else null
+   */
+  private synchronized void readDone(int i, long t, Error err)
+  { /* readDone */
+    readMsec[i]= t;
+    readError[i]= err;
+    readDoneFlag[i]= true;
+    notifyAll();
+  } /* readDone */
+
+
+  /**
+   * run() - read slots ahead until there are no more. This is called on
+   * each loader thread. An Exception only means the sample reads its file
+   * itself. An Error is saved and thrown again on the calling thread
+   * when it gets to the slot, and this thread stops.
+   * @see FileIO#prefetchData
+   */
+  public void run()
+  { /* run */
+    int i;
+
+    while((i= nextSlotToRead())>0)
+    {
+      long startTime= System.currentTimeMillis();
+      try
+      {
+        mae.fio.prefetchData(fileName[i]);
+      }
+      catch(Exception e)
+      {
+        mae.fio.logMsgln("SampleLoader can't read ahead " + fileName[i] +
+                         ": " + e);
+      }
+      catch(Error e)
+      {
+        readDone(i, System.currentTimeMillis() - startTime, e);
+        stopReadAhead();
+        return;
+      }
+      readDone(i, System.currentTimeMillis() - startTime, null);
+    }
+  } /* run */
+
+
+  /**
+   * getStatusStr() - get the time to read and create each sample in the
+   * last load
+   * @return status string, "" if no samples were loaded
+   */
+  static String getStatusStr()
+  { /* getStatusStr */
+    if(lastNames==null)
+      return("");
+
+    String sR= "Sample loading (" +
+               ((useParallelLoadFlag)
+                  ? ("read ahead, up to " + maxLoadThreads + " threads")
+                  : "serial") + "): last load " + lastNbrThreads +
+               " thread(s) " + lastLoadMsec + " msec\n";
+
+    for(int i=1;i<lastNames.length;i++)
+      if(lastNames[i]!=null)
+        sR += "  " + lastNames[i] + ": read ahead " + lastReadMsec[i] +
+              " msec, create " + lastSampleMsec[i] + " msec\n";
+
+    return(sR);
+  } /* getStatusStr */
+
+} /* end of class SampleLoader */
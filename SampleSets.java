@@ -119,6 +119,9 @@ class SampleSets
   /** originbal list for Cy5/Cy3 swap if cancel */
   private boolean 
     oldValueList[]; 
+  /** working set of the per-sample data arrays made on demand */
+  SampleDataManager
+    sdm;
     
       
  
@@ -140,6 +143,7 @@ class SampleSets
     nHP_Y= 0;
     nHP_E= 0;
     nHP= 0;
+    sdm= new SampleDataManager(mae);
   } /* SampleSets */   
    
   
@@ -166,11 +170,36 @@ class SampleSets
   } /* lookupHPsampleNbr */
   
   
+  /**
+   * getQuantData() - get the quantified data columns of a sample in
+   * msList[]. They are loaded on first use and kept in the working set
+   * until they are evicted as least recently used. Samples in the HP-X,
+   * HP-Y and HP-E lists stay resident.
+   * @param ms is the sample
+   * @param fileName is the full path of the sample's data file
+   * @param fields is the list of field names to get
+   * @param intFlag is the list of flags for fields to get as int
+   * @param maxRows is the max # of rows to read
+   * @return the data, else null if not in msList[] or can't be loaded.
+   * @see SampleDataManager#getData
+   */
+  QuantDataCache getQuantData(MaHybridSample ms, String fileName,
+                              String fields[], boolean intFlag[], int maxRows)
+  { /* getQuantData */
+    int idx= lookupHPsampleNbr(ms);
+    if(ms==null || idx<1)
+      return(null);
+
+    return(sdm.getData(ms, idx, fileName, fields, intFlag, maxRows));
+  } /* getQuantData */
+  
+  
   /**
    * addHPtoDB() - set HP sample to active database entry i
    * @param ms is sample to replace at entry i
    * @param i is position of sample list to replace
    * @return true if succeed.
+   * @see SampleDataManager#dropSample
    */
   boolean addHPtoDB(MaHybridSample ms, int i)
   { /* addHPtoDB */
@@ -180,6 +209,8 @@ class SampleSets
     if( msList==null || i<1 || i>mae.MAX_HYB_SAMPLES)
       return(false);
     
+    if(msList[i]!=ms)
+      sdm.dropSample(i);        /* data of the sample it replaces */
     msList[i]= ms;
     if(nHP<i)
       nHP= i;                   /* Math.max(i,nHP) */
@@ -0,0 +1,302 @@
+/** File: SampleWorker.java */
+
+/**
+ * The class runs a per-sample task over a list of samples on a bounded
+ * pool of worker threads. The per-sample normalization steps
+ * (the calibration DNA and normalization gene set means and the intensity
+ * scale extrema) only read the sample's own data and write its own
+ * fields, so the samples may be processed at the same time.
+ * CompositeDatabase.calAllSamples() and recalcNorms() run the per-sample
+ * step with runTask() and then merge the global statistics on the calling
+ * thread in sample order, so the results are the same as the serial loop.
+ *<P>
+ * The parallel mode is on by default. Set useParallelSamplesFlag to false
+ * to always use the serial loop. It is never used when a
+ * NormalizationPlugin (or the GenNormalizationPlugin being debugged) is
+ * active, since calcIntensScaleExtrema() calls the plugin, which may keep
+ * its own state and is not required to be thread safe. Then the samples
+ * are processed on the calling thread.
+ *<P>
+ * The workers take the next sample from a shared index, so the pool
+ * stays busy if the samples have different sizes. The calling thread is
+ * one of the workers and reports the # of samples done with Util.showMsg3().
+ *<P>
+ * This file is part of MAExplorer. It is offered as open source software
+ * under the Mozilla Public License (version 1.1) subject to the
+ * limitations noted in the accompanying LEGAL file. This notice must be
+ * included with the code. The MAExplorer Mozilla and Legal files are
+ * available on http://maexplorer.sourceforge.net/.
+ *<P>
+ * @author P. Lemkin (NCI), G. Thornwall (SAIC), NCI-Frederick, Frederick, MD
+ * @version $Date$   $Revision$
+ * @see <A HREF="http://maexplorer.sourceforge.net/">MAExplorer Home</A>
+ * @see CompositeDatabase#calAllSamples
+ * @see CompositeDatabase#recalcNorms
+ */
+
+class SampleWorker implements Runnable
+{
+  /** task: compute the calibration DNA and/or normalization gene set means */
+  final static int
+    CAL_MEANS= 0;
+  /** task: compute the intensity scale extrema */
+  final static int
+    SCALE_EXTREMA= 1;
+  /** # of tasks */
+  final static int
+    N_TASKS= 2;
+  /** names of the tasks for the status report and progress message */
+  final static String
+    taskNames[]= {"calibration means", "intensity scale extrema"};
+
+  /** flag: run the per-sample tasks in parallel if no NormalizationPlugin
+   * is active, else always run them on the calling thread */
+  static boolean
+    useParallelSamplesFlag= true;
+  /** maximum # of workers, defaults to the # of processors */
+  static int
+    maxWorkers= Runtime.getRuntime().availableProcessors();
+
+  /** # of runs of each task done on more than one thread */
+  static int
+    nParallelRuns[]= new int[N_TASKS];
+  /** # of runs of each task done on the calling thread */
+  static int
+    nSerialRuns[]= new int[N_TASKS];
+  /** # of workers used in the last run of each task */
+  static int
+    lastNbrWorkers[]= new int[N_TASKS];
+  /** elapsed time (msec) of the last run of each task */
+  static long
+    lastRunMsec[]= new long[N_TASKS];
+
+  /** link to global MAExplorer instance */
+  private MAExplorer
+    mae;
+  /** task to run, e.g. CAL_MEANS */
+  private int
+    task;
+  /** [0:nSamples-1] samples to process */
+  private MaHybridSample
+    msList[];
+  /** # of samples in msList[] */
+  private int
+    nSamples;
+  /** next index in msList[] to process, shared by the workers */
+  private int
+    nextIdx;
+  /** # of samples done, shared by the workers */
+  private int
+    nDone;
+  /** first error message if a sample failed, else null */
+  private String
+    errMsg;
+
+
+  /**
+   * SampleWorker() - constructor for a run of a task over a list of samples
+   * @param mae is the MAExplorer instance
+   * @param task is the task to run, e.g. CAL_MEANS
+   * @param msList is the list [0:nSamples-1] of samples to process
+   * @param nSamples is the # of samples
+   */
+  private SampleWorker(MAExplorer mae, int task, MaHybridSample msList[],
+                       int nSamples)
+  { /* SampleWorker */
+    this.mae= mae;
+    this.task= task;
+    this.msList= msList;
+    this.nSamples= nSamples;
+  } /* SampleWorker */
+
+
+  /**
+   * runTask() - run the task on the samples msList[0:nSamples-1] using up
+   * to maxWorkers threads and wait for them all to finish.
+   * @param mae is the MAExplorer instance
+   * @param task is the task to run, e.g. CAL_MEANS
+   * @param msList is the list [0:nSamples-1] of samples to process
+   * @param nSamples is the # of samples
+   * @return true if all samples were processed without error
+   * @see Util#showMsg3
+   * @see #isParallelOK
+   */
+  static boolean runTask(MAExplorer mae, int task, MaHybridSample msList[],
+                         int nSamples)
+  { /* runTask */
+    long startTime= System.currentTimeMillis();
+    SampleWorker sw= new SampleWorker(mae, task, msList, nSamples);
+    int nWorkers= (isParallelOK(mae)) ? Math.min(maxWorkers,nSamples) : 1;
+
+    if(nWorkers<=1)
+    { /* do all of the samples on this thread */
+      nWorkers= 1;
+      nSerialRuns[task]++;
+      sw.processSamples(true);
+    }
+    else
+    { /* start the other workers, then work on this thread */
+      nParallelRuns[task]++;
+      Thread threads[]= new Thread[nWorkers];
+
+      for(int w=1;w<nWorkers;w++)
+      {
+        threads[w]= new Thread(sw, "SampleWorker-"+w);
+        threads[w].setDaemon(true);
+        threads[w].start();
+      }
+      sw.processSamples(true);
+
+      for(int w=1;w<nWorkers;w++)
+      { /* wait for the other workers */
+        try
+        { threads[w].join(); }
+        catch(InterruptedException e)
+        { sw.setError(e.toString()); }
+      }
+    }
+
+    if(nSamples>1)
+      Util.showMsg3("");              /* clear counter */
+    lastNbrWorkers[task]= nWorkers;
+    lastRunMsec[task]= System.currentTimeMillis() - startTime;
+
+    if(sw.errMsg!=null)
+    {
+      Util.showMsg("Computing " + taskNames[task] + " failed: " + sw.errMsg);
+      return(false);
+    }
+    return(true);
+  } /* runTask */
+
+
+  /**
+   * isParallelOK() - test if the samples may be processed in parallel.
+   * They are not if parallel mode is off or a NormalizationPlugin (or the
+   * GenNormalizationPlugin being debugged) is active.
+   * @param mae is the MAExplorer instance
+   * @return true if parallel mode may be used
+   * @see MaeJavaAPI#getNormalizationState
+   */
+  static boolean isParallelOK(MAExplorer mae)
+  { /* isParallelOK */
+    if(!useParallelSamplesFlag || maxWorkers<=1)
+      return(false);
+    if(mae.mja!=null && mae.mja.getNormalizationState())
+      return(false);
+    if(mae.DBUG_GENERIC_NORM_PLUGIN && mae.testGenericNormPluginFlag)
+      return(false);
+    return(true);
+  } /* isParallelOK */
+
+
+  /**
+   * nextSample() - get the index of the next sample to process
+   * @return index in msList[], else -1 if there are no more
+   */
+  private synchronized int nextSample()
+  { /* nextSample */
+    return((nextIdx<nSamples) ? nextIdx++ : -1);
+  } /* nextSample */
+
+
+  /**
+   * sampleDone() - count a finished sample
+   * @return # of samples done so far
+   */
+  private synchronized int sampleDone()
+  { /* sampleDone */
+    return(++nDone);
+  } /* sampleDone */
+
+
+  /**
+   * setError() - save the first error message
+   * @param msg is the error message
+   */
+  private synchronized void setError(String msg)
+  { /* setError */
+    if(errMsg==null)
+      errMsg= msg;
+  } /* setError */
+
+
+  /**
+   * run() - process samples until there are no more. This is called on
+   * the other worker threads.
+   * @see #processSamples
+   */
+  public void run()
+  { /* run */
+    processSamples(false);
+  } /* run */
+
+
+  /**
+   * processSamples() - process samples until there are no more.
+   * @param reportFlag report the # of samples done with Util.showMsg3()
+   * @see MaHybridSample#calcMeanCalDNA
+   * @see MaHybridSample#calcMeanUseNormGeneSet
+   * @see MaHybridSample#calcIntensScaleExtrema
+   * @see Util#showMsg3
+   */
+  private void processSamples(boolean reportFlag)
+  { /* processSamples */
+    MaHybridSample ms;
+    int
+      idx,
+      n;
+
+    while((idx= nextSample())>=0)
+    { /* process the next sample */
+      ms= msList[idx];
+      try
+      {
+        if(task==CAL_MEANS)
+        {
+          if(mae.normByCalDNAflag)
+            ms.calcMeanCalDNA();        /* compute mean and std-dev */
+          if(mae.normByGeneSetFlag)
+            ms.calcMeanUseNormGeneSet(); /* compute mean and std-dev */
+        }
+        else if(task==SCALE_EXTREMA)
+          ms.calcIntensScaleExtrema();
+      }
+      catch(Exception e)
+      {
+        setError(ms.hpName + ": " + e.toString());
+      }
+
+      n= sampleDone();
+      if(reportFlag && nSamples>1)
+        Util.showMsg3("Computing " + taskNames[task] + " " + n + " of " +
+                      nSamples + " samples");
+    } /* process the next sample */
+  } /* processSamples */
+
+
+  /**
+   * getStatusStr() - get the serial and parallel run counts and
+   * the time of the last run for each task that was run.
+   * @return status string
+   */
+  static String getStatusStr()
+  { /* getStatusStr */
+    String sR= "Parallel sample normalization (" +
+               ((useParallelSamplesFlag)
+                  ? ("enabled, up to " + maxWorkers + " workers")
+                  : "disabled") + ")\n";
+
+    for(int t=0;t<N_TASKS;t++)
+    { /* add tasks that were run */
+      if(nSerialRuns[t]==0 && nParallelRuns[t]==0)
+        continue;
+      sR += taskNames[t] + ": " + nParallelRuns[t] + " parallel, " +
+            nSerialRuns[t] + " serial, last run " + lastNbrWorkers[t] +
+            " worker(s) " + lastRunMsec[t] + " msec\n";
+    }
+
+    return(sR);
+  } /* getStatusStr */
+
+} /* end of class SampleWorker */
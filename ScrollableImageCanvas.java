@@ -1062,9 +1062,7 @@ class ScrollableImageCanvas extends Canvas implements
         { /* do f1, or f1 and f2 */
           if(j==2)
           { /* remap F1 gid to F2 gid */
-            GridCoords
-            gc= map.gid2fgrc[gid];
-            gid= map.fgrc2gid[2][gc.g][gc.r][gc.c];
+            gid= map.getGID(2, map.gid2g[gid], map.gid2r[gid], map.gid2c[gid]);
           }
           Point p= xyList[gid];
           if(p==null)
@@ -1072,11 +1070,10 @@ class ScrollableImageCanvas extends Canvas implements
           
           if(mae.CANVAS_WRAPAROUND_BUG)
           { // debug code to look at (x,y) data from last grid
-            GridCoords grc= mae.mp.gid2fgrc[gid];
             int
-              grcG= grc.g,
-              grcR= grc.r,
-              grcC= grc.c;
+              grcG= mae.mp.gid2g[gid],
+              grcR= mae.mp.gid2r[gid],
+              grcC= mae.mp.gid2c[gid];
             if((grcG==(mae.cfg.maxGRIDS/2) || grcG>=(mae.cfg.maxGRIDS-1)) && grcC==1)
               System.out.println("SIC-DEGL sc(Wth,Hght)=("+
                                  scWidth+","+scHeight+
@@ -1151,13 +1148,14 @@ class ScrollableImageCanvas extends Canvas implements
   private void drawGeneClustersOfCurrentGene(Graphics g)
   { /* drawGeneClustersOfCurrentGene */
     if(//g.clusterDistThr==0 ||
-       ClusterGenes.curClusterCL==null)
+       ClusterGenes.curClusterCL==null || ClusterGenes.clusterRS==null)
       return;
     int
       mid,
       thickness= (mae.presentViewFlag) ? 3 : 2,
       nTest= ClusterGenes.curClusterCL.length;
     Gene mList[]=ClusterGenes.curClusterCL.mList;
+    float geneDist;
     Color
       seedGeneColor,
       simClustColor;
@@ -1183,7 +1181,8 @@ class ScrollableImageCanvas extends Canvas implements
       int
         gid= gene.gid,
         gid2= (cfg.maxFIELDS>1) ? map.gidToGangGid[gid] : -1;
-      if(gene.geneDist==0.0)
+      geneDist= ClusterGenes.clusterRS.get(GeneResultSet.DISTANCE, mid);
+      if(geneDist==0.0)
       { /* gene being tested */
         Point p= xyCQ[gid];
         drawCircleAroundSpot(p, g, seedGeneColor,addPixels,thickness);
@@ -1198,7 +1197,7 @@ class ScrollableImageCanvas extends Canvas implements
       { /* other genes */
         /* make the size 1/LSQerr */
         float
-          dist= gene.geneDist,
+          dist= geneDist,
           pctR= 1.0F-(dist/cfg.clusterDistThr);
         int radius= (int)((1.2*pctR+0.5F)*mae.spotRad);
         Point p= xyCQ[gid];
@@ -1590,7 +1589,7 @@ class ScrollableImageCanvas extends Canvas implements
         grid= cdb.objGrid,
         r= cdb.objRow,
         c= cdb.objCol,
-        gid= map.fgrc2gid[f][grid][r][c],
+        gid= map.getGID(f,grid,r,c),
         mid= map.gid2mid[gid];
       Gene gene= map.midStaticCL.mList[mid];
       String
@@ -477,7 +477,7 @@ class ShowStringPopup extends Frame implements ActionListener, WindowListener
       int curMID= (curGene!=null) ? curGene.mid : -1;
       String sMsg= mae.gct.editedCL.length+
                    " expr. profiles of genes similar to [" +
-                   curGene.Gene_Name + "]";
+                   curGene.getGene_Name() + "]";
       Util.saveCmdHistory("Creating list of "+sMsg, false);
       ShowExprProfilesPopup 
         simEPplots= new ShowExprProfilesPopup(mae, mae.gct.editedCL,
@@ -547,7 +547,7 @@ class ShowStringPopup extends Frame implements ActionListener, WindowListener
                                 mae.fc.KmeansNodesCL, geneEPvect);
       String title= "K-means ClusterGram for "+ cg.nClist+
                     " genes. Seed gene ["+ cg.initialSeedGene.Master_ID+"] "+
-                    cg.initialSeedGene.Gene_Name;
+                    cg.initialSeedGene.getGene_Name();
       Util.saveCmdHistory("Creating "+title, false);
       cg.hierClusterGramPopup= 
           new ShowPlotPopup(mae,mae.PLOT_KMEANS_CLUSTERGRAM, title, 
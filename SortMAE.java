@@ -12,11 +12,12 @@ import java.text.*;
 
 /**
  * The SortMAE class contains a variety of sorting methods.
- * These include: insertion sort, bubble sort and quicksort. They may
+ * These include: insertion sort, index sort and quicksort. They may
  * be applied to various types of arrays of data including
- * string[], int[], float[] data structures. In general, the more efficient
- * quicksort methods may be used to replace bubble sort methods. 
- * Sort times are a problem with large datasets using bubble sorts.
+ * string[], int[], float[] data structures. The bubbleSort() and
+ * bubbleSortIndex() methods keep their names but now call the stable
+ * O(n log n) IndexSort, since sort times were a problem with large
+ * datasets using bubble sorts.
  * The constructor is not used. 
  *<P>
  * This work was produced by Peter Lemkin of the National Cancer
@@ -79,262 +80,98 @@ class SortMAE
   
   
   /**
-   * bubbleSort() - Sort String array via bubble sort w/len
+   * bubbleSort() - Sort String array without case w/len. This now uses
+   * the stable O(n log n) IndexSort instead of a bubble sort.
    * @param data array of data to be sorted
    * @param len size of subarray array of data to be sorted [0:len-1]
    * @return the new sorted string[] array
+   * @see IndexSort#sortIndex
    */
   static String[] bubbleSort(String data[], int len)
   { /* bubbleSort */
     if(data==null || len==0)
       return(data);
     
-    String
-      dataUCJM1,
-      dataUCJ,
-      tempStr,
-      dataUC[]= new String[len];
-    int lenMinus1= len-1;
-    
-    /* convert temp array to upper case  */
-    for (int i= 0; i < len; i++)
-      dataUC[i]= data[i].toUpperCase();
+    int index[]= IndexSort.sortIndex(data, len, true);
+    String sortedData[]= new String[len];
     
     for(int i= 0; i < len; i++)
-    {
-      for(int j= lenMinus1; j > i; j--)
-      {
-        dataUCJM1= dataUC[j-1];
-        dataUCJ= dataUC[j];
-        
-        if(dataUCJM1.compareTo(dataUCJ) > 0)
-        { /* exchange */
-          tempStr= data[j-1];  /* parallel sort the data */
-          data[j-1]= data[j];
-          data[j]= tempStr;
-          
-          dataUC[j-1]= dataUCJ;
-          dataUC[j]= dataUCJM1;
-        }
-      }
-    }
+      sortedData[i]= data[index[i]];
+    for(int i= 0; i < len; i++)
+      data[i]= sortedData[i];    /* sort the data in place */
     
     return(data);
   } /* bubbleSort */
   
   
   /**
-   * bubbleSortIndex() - sort copy of String[0:len-1] data with bubble sort, return index[].
-   * Do NOT actually sort the original data[].
+   * bubbleSortIndex() - sort copy of String[0:len-1] data without case, return index[].
+   * Do NOT actually sort the original data[]. This now uses the stable
+   * O(n log n) IndexSort instead of a bubble sort.
    * @param data array of data to be sorted
    * @param len size of subarray array of data to be sorted [0:len-1]
    * @param ascending sort if true
    * @return the index[] of the sorted data
+   * @see IndexSort#sortIndex
    */
   static int[] bubbleSortIndex(String data[], int len, boolean ascending)
   { /* bubbleSortIndex */
-    if(data==null || len==0)
-      return(null);
-    
-    String
-      dataUCJM1,
-      dataUCJ,
-      tempStr,
-      dataUC[]= new String[len];
-    int
-      oldJm1,
-      index[]= new int[len],
-      j,
-      strCmp,
-      lenMinus1= (len-1);
-    
-    /* convert temp array to upper case  */
-    for (int i= 0; i < len; i++)
-    {
-      dataUC[i]= data[i].toUpperCase();
-      index[i]= i;
-    }
-    
-    /* Do the sort */
-    for(int i= 0; i < len; i++)
-    {
-      for(j= lenMinus1; j > i; j--)
-      {
-        dataUCJM1= dataUC[j-1];
-        dataUCJ= dataUC[j];
-        strCmp= dataUCJM1.compareTo(dataUCJ);
-        if((ascending && strCmp > 0) || (!ascending && strCmp < 0))
-        { /* exchange */
-          oldJm1= index[j-1];  /* parallel sort the index and dataUC */
-          index[j-1]= index[j];
-          index[j]= oldJm1;
-          
-          dataUC[j-1]= dataUCJ;
-          dataUC[j]= dataUCJM1;
-        }
-      }
-    }
-    
-    return(index);
+    return(IndexSort.sortIndex(data, len, ascending));
   } /* bubbleSortIndex */
   
   
   /**
-   * bubbleSortIndex() - sort copy of short[0:len-1] data with bubble sort, return index[].
-   * Do NOT actually sort the original data[].
+   * bubbleSortIndex() - sort copy of short[0:len-1] data, return index[].
+   * Do NOT actually sort the original data[]. This now uses the stable
+   * O(n log n) IndexSort instead of a bubble sort.
    * @param data array of data to be sorted
    * @param len size of subarray array of data to be sorted [0:len-1]
    * @param ascending sort if true
    * @return the index[] of the sorted data
+   * @see IndexSort#sortIndex
    */
   static int[] bubbleSortIndex(short data[], int len, boolean ascending)
   { /* bubbleSortIndex */
     if(data==null || len==0)
       return(null);
     
-    short
-      dataCJM1,
-      dataCJ,
-      dataC[]= new short[len];
-    int
-      j,
-      strCmp,
-      lenMinus1=(len-1),
-      oldJm1,
-      index[]= new int[len];
-
-    /* copy data and create default cardinal numbering */
+    int dataC[]= new int[len];
     for (int i= 0; i < len; i++)
-    {
       dataC[i]= data[i];
-      index[i]= i;
-    }
-    
-    /* Do the sort */
-    for(int i= 0; i < len; i++)
-    {
-      for(j= lenMinus1; j > i; j--)
-      {
-        dataCJM1= dataC[j-1];
-        dataCJ= dataC[j];
-        if(ascending && (dataCJM1 > dataCJ) ||
-           (!ascending && (dataCJM1 < dataCJ)))
-        { /* exchange */
-          oldJm1= index[j-1];  /* parallel sort index and dataUC */
-          index[j-1]= index[j];
-          index[j]= oldJm1;
-          
-          dataC[j-1]= dataCJ;
-          dataC[j]= dataCJM1;
-        }
-      }
-    }
     
-    return(index);
+    return(IndexSort.sortIndex(dataC, len, ascending));
   } /* bubbleSortIndex */
   
   
   /**
-   * bubbleSortIndex() - sort copy of int[0:len-1] data with bubble sort, return index[].
+   * bubbleSortIndex() - sort copy of int[0:len-1] data, return index[].
+   * Do NOT actually sort the original data[]. This now uses the stable
+   * O(n log n) IndexSort instead of a bubble sort.
    * @param data array of data to be sorted
    * @param len size of subarray array of data to be sorted [0:len-1]
    * @param ascending sort if true
    * @return the index[] of the sorted data
+   * @see IndexSort#sortIndex
    */
   static int[] bubbleSortIndex(int data[], int len, boolean ascending)
   { /* bubbleSortIndex */
-    if(data==null || len==0)
-      return(null);
-    
-    int
-      oldJm1,
-      index[]= new int[len],
-      j,
-      dataCJM1,
-      dataCJ,
-      lenMinus1= len-1,
-      dataC[]= new int[len];
-    
-    /* copy data and create default cardinal numbering */
-    for (int i= 0; i < len; i++)
-    {
-      dataC[i]= data[i];
-      index[i]= i;
-    }
-    
-    /* Do the sort */
-    for(int i= 0; i < len; i++)
-    {
-      for(j= lenMinus1; j > i; j--)
-      {
-        dataCJM1= dataC[j-1];
-        dataCJ= dataC[j];
-        if(ascending && (dataCJM1 > dataCJ) ||
-           (!ascending && (dataCJM1 < dataCJ)))
-        { /* exchange */
-          oldJm1= index[j-1];  /* parallel sort index and dataC */
-          index[j-1]= index[j];
-          index[j]= oldJm1;
-          
-          dataC[j-1]= dataCJ;
-          dataC[j]= dataCJM1;
-        }
-      }
-    }
-    
-    return(index);
+    return(IndexSort.sortIndex(data, len, ascending));
   } /* bubbleSortIndex */
   
   
   /**
-   * bubbleSortIndex() - sort copy of float[0:len-1] data with bubble sort, return index[].
+   * bubbleSortIndex() - sort copy of float[0:len-1] data, return index[].
+   * Do NOT actually sort the original data[]. This now uses the stable
+   * O(n log n) IndexSort instead of a bubble sort.
+   * @param data array of data to be sorted
    * @param len size of subarray array of data to be sorted [0:len-1]
    * @param ascending sort if true
    * @return the index[] of the sorted data
+   * @see IndexSort#sortIndex
    */
   static int[] bubbleSortIndex(float data[], int len, boolean ascending)
   { /* bubbleSortIndex */
-    if(data==null || len==0)
-      return(null);
-    
-    int
-      oldJm1,
-      index[]= new int[len],
-      j,
-      lenMinus1= len-1;
-    float
-      dataCJM1,
-      dataCJ,
-      dataC[]= new float[len];
-    
-    /* copy data and create default cardinal numbering */
-    for (int i= 0; i < len; i++)
-    {
-      dataC[i]= data[i];
-      index[i]= i;
-    }
-    
-    /* Do the sort */
-    for(int i= 0; i < len; i++)
-    {
-      for(j= lenMinus1; j > i; j--)
-      {
-        dataCJM1= dataC[j-1];
-        dataCJ= dataC[j];
-        if(ascending && (dataCJM1 > dataCJ) ||
-        (!ascending && (dataCJM1 < dataCJ)))
-        { /* exchange */
-          oldJm1= index[j-1];  /* parallel sort index and dataC */
-          index[j-1]= index[j];
-          index[j]= oldJm1;
-          
-          dataC[j-1]= dataCJ;
-          dataC[j]= dataCJM1;
-        }
-      }
-    }
-    
-    return(index);
+    return(IndexSort.sortIndex(data, len, ascending));
   } /* bubbleSortIndex */
   
   
@@ -457,47 +294,31 @@ class SortMAE
   
   
   /**
-   * sortArray() - bubble sort string array either ASCENDING or DESCENDING.
-   * This uses a bubble sort.
+   * sortArray() - sort string array either ASCENDING or DESCENDING.
+   * This uses the Collator order with the stable O(n log n) IndexSort.
    * [TODO] extend this to deal with trailing numbers
    * eg. A1, A10, A2 should be sorted as A1, A2, A10.
    * Should be able to use a RuleBasedCollator...
    * @param data array of data to be sorted
    * @param sortAscending direction of sort
    * @return the sorted list.
+   * @see IndexSort#sortIndex
    */
   static String[] sortArray(String data[], boolean sortAscending)
   { /* sortArray */
-    if(data==null || data.length==1)
+    if(data==null || data.length<=1)
       return(data);
     
     int
-      n,
-      strCmp,
-      jMin= 0,
       lth= data.length,
-      lth1= lth-1;
-    String
-      dataJ,
-      dataJ1;
-    Collator col= Collator.getInstance();
-    
-    for(int i= 0; i<lth-1; i++)
-    { /* bubble sort */
-      n= jMin;
-      for(int j= (lth-2); j>=n; j--)
-      { /* compare data[j] with data[j+1] & swap if out of order*/
-        dataJ= data[j];
-        dataJ1= data[j+1];
-        strCmp= col.compare(dataJ, dataJ1);
-        if((sortAscending && strCmp >0) || ((!sortAscending && strCmp <0)))
-        { /* swap j and j+1 index */
-          data[j]= dataJ1;
-          data[j+1]= dataJ;
-          jMin= j;
-        } /* swap j and j+1 index */
-      } /* compare data[j] with data[j+1] & swap if out of order*/
-    } /* bubble sort */
+      index[]= IndexSort.sortIndex(data, lth, Collator.getInstance(),
+                                   sortAscending);
+    String sortedData[]= new String[lth];
+    
+    for(int i= 0; i<lth; i++)
+      sortedData[i]= data[index[i]];
+    for(int i= 0; i<lth; i++)
+      data[i]= sortedData[i];    /* sort the data in place */
     
     return(data);
   } /* sortArray */
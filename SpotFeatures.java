@@ -180,10 +180,10 @@ class SpotFeatures
      changeStr= null;            /* either ratios "X/Y" or "F1/F2"
                                   * or zscore "X-Y" or "F1-F2" */
     int
-      f= map.gid2fgrc[gid].f,
-      g= map.gid2fgrc[gid].g,
-      r= map.gid2fgrc[gid].r,
-      c= map.gid2fgrc[gid].c,
+      f= map.gid2f[gid],
+      g= map.gid2g[gid],
+      r= map.gid2r[gid],
+      c= map.gid2c[gid],
       fGang= (f==1) ? 2 : 1,
       maxPrecision= 7,            /* maximum precision allowed */
       cngStrPrecision= 5;         /* cvd2s() precision for changeData
@@ -286,10 +286,14 @@ class SpotFeatures
       
       if(mae.cfg.maxFIELDS>1)
       { /* hasreplicate spots */
-        tot1BCX= msX.getDataByGID(gid, mae.useRatioDataFlag, ms.DATA_F1TOT);
-        tot2BCX= msX.getDataByGID(gid, mae.useRatioDataFlag, ms.DATA_F2TOT);
-        tot1BCY= msY.getDataByGID(gid, mae.useRatioDataFlag, ms.DATA_F1TOT);
-        tot2BCY= msY.getDataByGID(gid, mae.useRatioDataFlag, ms.DATA_F2TOT);
+        tot1BCX= cdb.normData.getDataByGID(msX, gid,
+                                           mae.useRatioDataFlag, ms.DATA_F1TOT);
+        tot2BCX= cdb.normData.getDataByGID(msX, gid,
+                                           mae.useRatioDataFlag, ms.DATA_F2TOT);
+        tot1BCY= cdb.normData.getDataByGID(msY, gid,
+                                           mae.useRatioDataFlag, ms.DATA_F1TOT);
+        tot2BCY= cdb.normData.getDataByGID(msY, gid,
+                                           mae.useRatioDataFlag, ms.DATA_F2TOT);
         float
           mnX= (tot1BCX+tot2BCX)/2,
           mnY= (tot1BCY+tot2BCY)/2;
@@ -306,8 +310,10 @@ class SpotFeatures
       }
       else
       { /* use single spot or ratio data */
-        tot1BCX= msX.getDataByGID(gid, mae.useRatioDataFlag, ms.DATA_F1TOT);
-        tot1BCY= msY.getDataByGID(gid, mae.useRatioDataFlag, ms.DATA_F1TOT);
+        tot1BCX= cdb.normData.getDataByGID(msX, gid,
+                                           mae.useRatioDataFlag, ms.DATA_F1TOT);
+        tot1BCY= cdb.normData.getDataByGID(msY, gid,
+                                           mae.useRatioDataFlag, ms.DATA_F1TOT);
         s1= " (X,Y)=(" + Util.cvf2s(tot1BCX,3) + "," + Util.cvf2s(tot1BCY,3);
         changeData1= (mae.isZscoreFlag) ? tot1BCX-tot1BCY : tot1BCX/tot1BCY;
         cngStrPrecision= (Math.abs(changeData1)<0.0001) ? maxPrecision : 5;
@@ -351,8 +357,10 @@ class SpotFeatures
       
       if(mae.cfg.maxFIELDS>1)
       { /* has replicate spots */
-        totBC= msX.getDataByGID(gid, mae.useRatioDataFlag, type1);
-        totGBC= msY.getDataByGID(gid, mae.useRatioDataFlag, type2);
+        totBC= cdb.normData.getDataByGID(msX, gid,
+                                         mae.useRatioDataFlag, type1);
+        totGBC= cdb.normData.getDataByGID(msY, gid,
+                                          mae.useRatioDataFlag, type2);
       }
       else
       { /* use single spot or ratio data */
@@ -375,7 +383,8 @@ class SpotFeatures
           totBC= (f1Data!=0.0F) ? (f2Data/f1Data) : 0.0F;
         }
         else
-          totBC= msR.getDataByGID(gid, mae.useRatioDataFlag, type);
+          totBC= cdb.normData.getDataByGID(msR, gid,
+                                           mae.useRatioDataFlag, type);
         totGBC= 0;
       }
       
@@ -656,9 +665,9 @@ class SpotFeatures
     
     if(gene!=null & plate!=null)
     { /* get from geone */
-      plate= gene.plate;
-      plate_row= gene.plate_row;
-      plate_col= gene.plate_col;
+      plate= gene.getPlate();
+      plate_row= gene.getPlate_row();
+      plate_col= gene.getPlate_col();
       sR= " plate[" + plate +"," + plate_row + "," + plate_col + "]";
     }
     
@@ -677,21 +686,21 @@ class SpotFeatures
     
     if(gene!=null)
     { /* get from gene object */
-      plate= gene.plate;
-      plate_row= gene.plate_row;
-      plate_col= gene.plate_col;
+      plate= gene.getPlate();
+      plate_row= gene.getPlate_row();
+      plate_col= gene.getPlate_col();
       masterID= gene.Master_ID;
-      cloneID= gene.Clone_ID;
-      Unigene_ID= gene.Unigene_ID;
-      dbESTid3= gene.dbEST3;
-      dbESTid5= gene.dbEST5;
-      GenBankAcc= gene.GenBankAcc;
-      GenBankAcc3= gene.GenBankAcc3;
-      GenBankAcc5= gene.GenBankAcc5;
-      SwissProt= gene.SwissProt;
-      geneName= gene.Gene_Name;
-      geneClass= gene.Gene_Class;
-      UGclusterName= gene.UGclusterName;
+      cloneID= gene.getClone_ID();
+      Unigene_ID= gene.getUnigene_ID();
+      dbESTid3= gene.getDbEST3();
+      dbESTid5= gene.getDbEST5();
+      GenBankAcc= gene.getGenBankAcc();
+      GenBankAcc3= gene.getGenBankAcc3();
+      GenBankAcc5= gene.getGenBankAcc5();
+      SwissProt= gene.getSwissProt();
+      geneName= gene.getGene_Name();
+      geneClass= gene.getGene_Class();
+      UGclusterName= gene.getUGclusterName();
       
       switch(mae.masterNameMode)
       {
@@ -653,7 +653,7 @@ class SSspreadPanel extends Panel implements MouseListener
    * @param prepRows is # actual data cols
    * @param unsortedData is unsorted data to be stroed
    * @return sorted data
-   * @see SortMAE#bubbleSortIndex
+   * @see IndexSort#sortIndex
    * @see Util#cvs2f
    */
   String[][] sortSpreadsheet(int oldPosition, int colToSort,
@@ -731,11 +731,11 @@ class SSspreadPanel extends Panel implements MouseListener
       * Data in dataUCxxx[] and index[] is in [0:rows-2] NOT [2:rows]
       */
       if(isNumber)
-        index= SortMAE.bubbleSortIndex(dataUCnbr, prepRows-1,
-        sortAsendDesendFlag);
+        index= IndexSort.sortIndex(dataUCnbr, prepRows-1,
+                                   sortAsendDesendFlag);
       else
-        index= SortMAE.bubbleSortIndex(dataUCstr, prepRows-1,
-        sortAsendDesendFlag);
+        index= IndexSort.sortIndex(dataUCstr, prepRows-1,
+                                   sortAsendDesendFlag);
       
       /* [6] place labels at top */
       for(int c= 1; c < prepCols; c++)
@@ -0,0 +1,823 @@
+/** File: StatBatch.java */
+
+/**
+ * The class computes a statistical test for every gene at once and holds the
+ * results as arrays indexed by MID, so the Filter, the p-value pseudoimage
+ * and the reports read them instead of recomputing the test for each gene.
+ * There are two kinds of batch:
+ *<PRE>
+ *   XY_SETS_T_TEST - t-test of the HP-X 'set' vs the HP-Y 'set' samples
+ *   OCL_F_TEST     - F-test (one-way ANOVA) of the conditions in the
+ *                    current Ordered Condition List
+ *</PRE>
+ * The normalized sample data is copied once into a [sample][MID] float
+ * matrix. The means and variances are then accumulated a sample column at
+ * a time over all genes, and finally the t or F statistic and its
+ * incomplete-beta p-value are computed for each gene in a single loop using
+ * StatKernel with one reused StatResult.
+ *<P>
+ * A batch is not changed after it is built. It keeps the key it was built
+ * from (the normalization generation, the data modes and the samples it
+ * used) and getXYsetsBatch() or getOCL_Fbatch() return the previous batch
+ * if the key is the same, else build a new one. So a reader that holds a
+ * batch always sees a consistent set of arrays even if another thread
+ * builds a newer one. CompositeDatabase keeps the current batches.
+ *<P>
+ * For the Benjamini-Hochberg FDR and Bonferroni p-Value threshold modes
+ * the p-values of the tested genes are sorted once per batch, on first use,
+ * together with their q-values. The genes passing a threshold are then the
+ * first k ranks, where k is found by a binary search.
+ *<P>
+ * This file is part of MAExplorer. It is offered as open source software
+ * under the Mozilla Public License (version 1.1) subject to the
+ * limitations noted in the accompanying LEGAL file. This notice must be
+ * included with the code. The MAExplorer Mozilla and Legal files are
+ * available on http://maexplorer.sourceforge.net/.
+ *<P>
+ * @author P. Lemkin (NCI), G. Thornwall (SAIC), NCI-Frederick, Frederick, MD
+ * @version $Date$   $Revision$
+ * @see <A HREF="http://maexplorer.sourceforge.net/">MAExplorer Home</A>
+ * @see CompositeDatabase#getXYsetsStatBatch
+ * @see CompositeDatabase#getOCL_FstatBatch
+ * @see StatKernel
+ */
+
+class StatBatch
+{
+  /** kind: HP-X 'set' vs HP-Y 'set' t-test */
+  final static int
+    XY_SETS_T_TEST= 0;
+  /** kind: F-test on current Ordered Condition List */
+  final static int
+    OCL_F_TEST= 1;
+  /** # of kinds */
+  final static int
+    N_KINDS= 2;
+  /** names of the kinds for the status report */
+  final static String
+    kindNames[]= {"HP-XY sets t-test", "OCL F-test"};
+
+  /** # of batches built for each kind */
+  static int
+    nBuilds[]= new int[N_KINDS];
+  /** # of times a batch was reused for each kind */
+  static int
+    nReuses[]= new int[N_KINDS];
+  /** elapsed time (msec) of the last build of each kind */
+  static long
+    lastBuildMsec[]= new long[N_KINDS];
+  /** use the MathMAE p-value tables if there are at least this many genes */
+  static int
+    minGenesForPvalueTables= 2000;
+  /** # of threshold tests that needed the exact p-value */
+  static int
+    nExactRetests= 0;
+  /** # of times the p-values of a batch were sorted for the
+   * FDR and Bonferroni threshold modes */
+  static int
+    nRankSorts= 0;
+
+  /** kind of batch XY_SETS_T_TEST or OCL_F_TEST */
+  int
+    kind;
+  /** # of genes, size of the [0:maxGenes-1] MID arrays */
+  int
+    maxGenes;
+
+  /** [0:maxGenes-1] set if the test succeeded for the gene */
+  boolean
+    ok[];
+  /** [0:maxGenes-1] p-value of the test (1.0 if it failed) */
+  float
+    pValues[];
+  /** flag: pValues[] came from PValueTables, so use passes() to
+   * compare them against a threshold */
+  boolean
+    usedPvalueTablesFlag;
+
+  /* --- XY_SETS_T_TEST --- */
+  /** # of HP-X 'set' samples */
+  int
+    nX;
+  /** # of HP-Y 'set' samples */
+  int
+    nY;
+  /** [0:maxGenes-1] set if HP-X and HP-Y data exists for the gene */
+  boolean
+    hasXYdata[];
+  /** [0:maxGenes-1] HP-X 'set' mean */
+  float
+    mnX[];
+  /** [0:maxGenes-1] HP-Y 'set' mean */
+  float
+    mnY[];
+  /** [0:maxGenes-1] HP-X 'set' standard deviation */
+  float
+    sdX[];
+  /** [0:maxGenes-1] HP-Y 'set' standard deviation */
+  float
+    sdY[];
+  /** [0:maxGenes-1] t or t' statistic */
+  float
+    tStat[];
+  /** [0:maxGenes-1] degrees of freedom of t-test */
+  float
+    dF[];
+  /** [0:maxGenes-1] 1-tailed f-test p-value that the variances are the same */
+  float
+    pF[];
+
+  /* --- OCL_F_TEST --- */
+  /** # of conditions */
+  int
+    nConditions;
+  /** [0:nConditions-1] # of samples in each condition */
+  int
+    nCondData[];
+  /** [0:maxGenes-1] f-statistic */
+  float
+    fStat[];
+  /** [0:maxGenes-1] degrees of freedom within conditions */
+  float
+    dfWithin[];
+  /** [0:maxGenes-1] degrees of freedom between conditions */
+  float
+    dfBetween[];
+  /** [0:maxGenes-1] mean square within variance */
+  float
+    mnSqWithin[];
+  /** [0:maxGenes-1] mean square between variance */
+  float
+    mnSqBetween[];
+  /** [0:nConditions-1][0:maxGenes-1] mean of each condition */
+  float
+    condMean[][];
+  /** [0:nConditions-1][0:maxGenes-1] variance of each condition */
+  float
+    condVar[][];
+
+  /* --- p-value ranks for the FDR and Bonferroni threshold modes,
+   * computed once by ensureRanks() on first use --- */
+  /** # of genes tested (ok[mid] set), the size m of the test family */
+  private int
+    nTests= -1;
+  /** [0:nTests-1] MIDs of the tested genes sorted by increasing p-value */
+  private int
+    sortedMID[];
+  /** [0:nTests-1] p-values of sortedMID[] */
+  private double
+    sortedP[];
+  /** [0:nTests-1] Benjamini-Hochberg q-values of sortedMID[] */
+  private double
+    sortedQbh[];
+  /** [0:maxGenes-1] rank of the gene in sortedMID[], -1 if not tested */
+  private int
+    rankOf[];
+
+  /** key scalar values the batch was built from */
+  private double
+    keyVal[];
+  /** key object references (samples, conditions) the batch was built from */
+  private Object
+    keyObj[];
+
+
+  /**
+   * StatBatch() - constructor for an empty batch. Use getXYsetsBatch()
+   * or getOCL_Fbatch().
+   * @param kind is XY_SETS_T_TEST or OCL_F_TEST
+   * @param maxGenes is the # of genes
+   */
+  private StatBatch(int kind, int maxGenes)
+  { /* StatBatch */
+    this.kind= kind;
+    this.maxGenes= maxGenes;
+    ok= new boolean[maxGenes];
+    pValues= new float[maxGenes];
+    usedPvalueTablesFlag= (MathMAE.usePvalueTablesFlag &&
+                           maxGenes>=minGenesForPvalueTables);
+  } /* StatBatch */
+
+
+  /**
+   * getGlobalKey() - start a key with the global state every batch
+   * depends on: the normalization generation and the ratio, Cy5/Cy3,
+   * Zscore and HP-XY 'set' data modes.
+   * @param mae is the MAExplorer instance
+   * @param kind is XY_SETS_T_TEST or OCL_F_TEST
+   * @return key values
+   */
+  private static double[] getGlobalKey(MAExplorer mae, int kind)
+  { /* getGlobalKey */
+    double kv[]= {kind, mae.cdb.normGeneration,
+                  ((mae.useRatioDataFlag) ? 1 : 0),
+                  ((mae.useCy5OverCy3Flag) ? 1 : 0),
+                  ((mae.isZscoreFlag) ? 1 : 0),
+                  ((mae.useHPxySetDataFlag) ? 1 : 0)};
+    return(kv);
+  } /* getGlobalKey */
+
+
+  /**
+   * addSamplesToKey() - add the samples msList[1:nHP] and their Cy3/Cy5
+   * swap state to the key object list starting at keyObj[k].
+   * @param keyObj is the key object list
+   * @param k is the next free entry
+   * @param msList is the list of samples [1:nHP], may be null
+   * @param nHP is the # of samples in the list
+   * @return the next free entry
+   */
+  private static int addSamplesToKey(Object keyObj[], int k,
+                                     MaHybridSample msList[], int nHP)
+  { /* addSamplesToKey */
+    MaHybridSample ms;
+
+    for(int i=1;i<=nHP;i++)
+    {
+      ms= (msList==null || i>=msList.length) ? null : msList[i];
+      keyObj[k++]= ms;
+      keyObj[k++]= (ms!=null && ms.swapCy5Cy3DataFlag) ? Boolean.TRUE
+                                                       : Boolean.FALSE;
+    }
+    return(k);
+  } /* addSamplesToKey */
+
+
+  /**
+   * sameKey() - test if the batch was built from the key
+   * @param kv is the key values
+   * @param ko is the key object references, compared by identity
+   * @return true if the same
+   */
+  private boolean sameKey(double kv[], Object ko[])
+  { /* sameKey */
+    if(keyVal==null || keyVal.length!=kv.length || keyObj.length!=ko.length)
+      return(false);
+    for(int i=0;i<kv.length;i++)
+      if(keyVal[i]!=kv[i])
+        return(false);
+    for(int i=0;i<ko.length;i++)
+      if(keyObj[i]!=ko[i])
+        return(false);
+    return(true);
+  } /* sameKey */
+
+
+  /**
+   * getXYsetsBatch() - get the HP-X 'set' vs HP-Y 'set' t-test batch for
+   * the current samples and data modes. If the previous batch was built
+   * from the same key, return it, else build a new batch.
+   * @param mae is the MAExplorer instance
+   * @param prev is the previous batch, may be null
+   * @return the batch
+   * @see #buildXYsets
+   */
+  static StatBatch getXYsetsBatch(MAExplorer mae, StatBatch prev)
+  { /* getXYsetsBatch */
+    SampleSets hps= mae.hps;
+    int
+      nHP_X= (mae.useHPxySetDataFlag) ? hps.nHP_X : 0,
+      nHP_Y= (mae.useHPxySetDataFlag) ? hps.nHP_Y : 0,
+      k= 0;
+    double kv[]= getGlobalKey(mae, XY_SETS_T_TEST);
+    Object ko[]= new Object[2*(2+nHP_X+nHP_Y)];
+    MaHybridSample
+      msX[]= {null, mae.msX},
+      msY[]= {null, mae.msY};
+
+    k= addSamplesToKey(ko, k, msX, 1);
+    k= addSamplesToKey(ko, k, msY, 1);
+    k= addSamplesToKey(ko, k, hps.msListX, nHP_X);
+    k= addSamplesToKey(ko, k, hps.msListY, nHP_Y);
+
+    if(prev!=null && prev.sameKey(kv, ko))
+    {
+      nReuses[XY_SETS_T_TEST]++;
+      return(prev);
+    }
+
+    StatBatch sb= new StatBatch(XY_SETS_T_TEST, mae.mp.maxGenes);
+    sb.buildXYsets(mae);
+    sb.keyVal= kv;
+    sb.keyObj= ko;
+
+    return(sb);
+  } /* getXYsetsBatch */
+
+
+  /**
+   * getOCL_Fbatch() - get the F-test batch for the current Ordered
+   * Condition List, current samples and data modes. If the previous batch
+   * was built from the same key, return it, else build a new batch.
+   * @param mae is the MAExplorer instance
+   * @param prev is the previous batch, may be null
+   * @return the batch, or null if there is no current OCL or it has
+   *         a condition without samples.
+   * @see Condition#getHPlist
+   * @see MJAbase#lookupHPsampleNbr
+   * @see #buildOCL_F
+   */
+  static StatBatch getOCL_Fbatch(MAExplorer mae, StatBatch prev)
+  { /* getOCL_Fbatch */
+    Condition cdList= mae.cdList;
+    int curOCLidx= cdList.curOCLidx;
+    if(curOCLidx==-1)
+      return(null);      /* There is no current OCL */
+
+    Condition
+      cd,
+      ocl[]= cdList.orderedCondList[curOCLidx];
+    int
+      nConditions= cdList.nOrderedCondList[curOCLidx],
+      nCondData[]= new int[nConditions],
+      allSamplesIndex[][]= new int[nConditions][],
+      nObj= 0,
+      k= 0;
+    MaHybridSample msLists[][]= new MaHybridSample[nConditions][];
+
+    for(int c=0;c<nConditions;c++)
+    { /* get the samples for all conditions */
+      cd= ocl[c];
+      msLists[c]= cd.getHPlist();
+      if(msLists[c]==null)
+        return(null);    /* fatal error */
+      nCondData[c]= cd.nMScond;
+      nObj += 1+2*cd.nMScond;
+    }
+
+    double kv[]= getGlobalKey(mae, OCL_F_TEST);
+    Object ko[]= new Object[nObj];
+    for(int c=0;c<nConditions;c++)
+    {
+      ko[k++]= ocl[c];
+      k= addSamplesToKey(ko, k, msLists[c], nCondData[c]);
+    }
+
+    if(prev!=null && prev.sameKey(kv, ko))
+    {
+      nReuses[OCL_F_TEST]++;
+      return(prev);
+    }
+
+    for(int c=0;c<nConditions;c++)
+    { /* get sample indices for all conditions */
+      allSamplesIndex[c]= new int[nCondData[c]];
+      for(int i=1;i<=nCondData[c];i++)
+        allSamplesIndex[c][i-1]= MJAbase.lookupHPsampleNbr(msLists[c][i]);
+    }
+
+    StatBatch sb= new StatBatch(OCL_F_TEST, mae.mp.maxGenes);
+    sb.buildOCL_F(mae, nConditions, nCondData, allSamplesIndex);
+    sb.keyVal= kv;
+    sb.keyObj= ko;
+
+    return(sb);
+  } /* getOCL_Fbatch */
+
+
+  /**
+   * getMoments() - compute the mean[] and standard deviation or variance
+   * of each gene of a [sample][MID] data matrix, a sample column at a time.
+   * Genes with hasData[mid] false are left as 0.
+   * @param data is the data[0:nSamples-1][0:maxGenes-1]
+   * @param nSamples is the # of samples
+   * @param hasData is the [0:maxGenes-1] genes to compute
+   * @param mean is the [0:maxGenes-1] returned mean
+   * @param spread is the [0:maxGenes-1] returned std dev or variance
+   * @param stdDevFlag return std dev in spread[], else variance
+   */
+  private void getMoments(float data[][], int nSamples, boolean hasData[],
+                          float mean[], float spread[], boolean stdDevFlag)
+  { /* getMoments */
+    double
+      sum[]= new double[maxGenes],
+      mn[]= new double[maxGenes],
+      diff;
+    float row[];
+
+    /* [1] Sum the samples a column at a time */
+    for(int s=0;s<nSamples;s++)
+    {
+      row= data[s];
+      for(int mid=0;mid<maxGenes;mid++)
+        sum[mid] += row[mid];
+    }
+    for(int mid=0;mid<maxGenes;mid++)
+    {
+      mn[mid]= (hasData[mid] && nSamples>0) ? (sum[mid]/nSamples) : 0.0;
+      mean[mid]= (float)mn[mid];
+      sum[mid]= 0.0;
+    }
+
+    /* [2] Sum the squared differences from the mean */
+    for(int s=0;s<nSamples;s++)
+    {
+      row= data[s];
+      for(int mid=0;mid<maxGenes;mid++)
+      {
+        diff= (mn[mid] - row[mid]);
+        sum[mid] += diff*diff;
+      }
+    }
+    for(int mid=0;mid<maxGenes;mid++)
+    {
+      if(!hasData[mid] || nSamples<2)
+        spread[mid]= 0.0F;
+      else if(stdDevFlag)
+        spread[mid]= (float)Math.sqrt(sum[mid]/(nSamples-1));
+      else
+        spread[mid]= (float)(sum[mid]/(nSamples-1));
+    }
+  } /* getMoments */
+
+
+  /**
+   * buildXYsets() - build the HP-X 'set' vs HP-Y 'set' t-test batch.
+   * The 'set' data for each gene is copied from its own HPxyData instance
+   * into the [sample][MID] matrices, then the means, std devs, t, dF, pF
+   * and p-values are computed for all genes.
+   * @param mae is the MAExplorer instance
+   * @see HPxyData#setupDataStruct
+   * @see HPxyData#updateDataAndStat
+   * @see MathMAE#getPvalueTable
+   * @see StatKernel#tTest
+   * @see #getMoments
+   */
+  private void buildXYsets(MAExplorer mae)
+  { /* buildXYsets */
+    long startTime= System.currentTimeMillis();
+    Gene
+      gene,
+      mList[]= mae.mp.midStaticCL.mList;
+    HPxyData hpxy= new HPxyData(mae, -1, mae.useHPxySetDataFlag);
+    hpxy.setupDataStruct(mae.useHPxySetDataFlag);
+
+    nX= hpxy.nX;
+    nY= hpxy.nY;
+    hasXYdata= new boolean[maxGenes];
+    mnX= new float[maxGenes];
+    mnY= new float[maxGenes];
+    sdX= new float[maxGenes];
+    sdY= new float[maxGenes];
+    tStat= new float[maxGenes];
+    dF= new float[maxGenes];
+    pF= new float[maxGenes];
+
+    float
+      dataX[][]= new float[nX][maxGenes],
+      dataY[][]= new float[nY][maxGenes];
+
+    /* [1] Copy the 'set' data into the [sample][MID] matrices */
+    for(int mid=0;mid<maxGenes;mid++)
+    { /* get data for each gene */
+      gene= mList[mid];
+      if(gene==null || gene.gid==-1 || (gene.properties & Gene.C_BAD_SPOT)!=0)
+        continue;            /* ignore bogus spots */
+      if(!hpxy.updateDataAndStat(mid))
+        continue;
+      hasXYdata[mid]= true;
+      for(int s=0;s<nX;s++)
+        dataX[s][mid]= hpxy.hpDataX[s];
+      for(int s=0;s<nY;s++)
+        dataY[s][mid]= hpxy.hpDataY[s];
+    } /* get data for each gene */
+
+    /* [2] Compute means and std devs over all genes */
+    getMoments(dataX, nX, hasXYdata, mnX, sdX, true);
+    getMoments(dataY, nY, hasXYdata, mnY, sdY, true);
+    dataX= null;
+    dataY= null;
+
+    /* [3] Compute t, dF, pF and p-value for all genes */
+    StatResult r= new StatResult();
+    for(int mid=0;mid<maxGenes;mid++)
+    { /* t-test each gene */
+      if(!hasXYdata[mid])
+      {
+        pValues[mid]= 1.0F;
+        continue;
+      }
+      ok[mid]= StatKernel.tTest(nX, nY, mnX[mid], mnY[mid],
+                                sdX[mid], sdY[mid], r,
+                                usedPvalueTablesFlag);
+      pValues[mid]= (float)r.pT;
+      tStat[mid]= (float)r.t;
+      dF[mid]= (float)r.dF;
+      pF[mid]= (float)r.pF;
+    } /* t-test each gene */
+
+    nBuilds[kind]++;
+    lastBuildMsec[kind]= System.currentTimeMillis()-startTime;
+  } /* buildXYsets */
+
+
+  /**
+   * buildOCL_F() - build the Ordered Condition List F-test batch.
+   * The normalized data of all genes is copied a sample at a time into
+   * [sample][MID] matrices for the samples in each condition, then the
+   * condition means and variances, F statistic, degrees of freedom, mean
+   * squares and p-values are computed for all genes.
+   * @param mae is the MAExplorer instance
+   * @param nConditions # of conditions
+   * @param nCondData # samples in each [nConditions]
+   * @param allSamplesIndex is the [nConditions][] sample indices [1:N]
+   * @see MathMAE#getPvalueTable
+   * @see MJAsample#getSampleDataColumn
+   * @see StatKernel#nCondFtestFromMoments
+   * @see #getMoments
+   */
+  private void buildOCL_F(MAExplorer mae, int nConditions, int nCondData[],
+                          int allSamplesIndex[][])
+  { /* buildOCL_F */
+    long startTime= System.currentTimeMillis();
+    MJAsample mjaSample= mae.mja.mjaSample;
+    Gene
+      gene,
+      mList[]= mae.mp.midStaticCL.mList;
+    boolean hasData[]= new boolean[maxGenes];
+    float data[][][]= new float[nConditions][][];
+
+    this.nConditions= nConditions;
+    this.nCondData= nCondData;
+    fStat= new float[maxGenes];
+    dfWithin= new float[maxGenes];
+    dfBetween= new float[maxGenes];
+    mnSqWithin= new float[maxGenes];
+    mnSqBetween= new float[maxGenes];
+    condMean= new float[nConditions][maxGenes];
+    condVar= new float[nConditions][maxGenes];
+
+    /* [1] Get the normalized data of each sample as a [sample][MID] row */
+    for(int mid=0;mid<maxGenes;mid++)
+    { /* find the genes to test, ignore bogus spots */
+      gene= mList[mid];
+      hasData[mid]= !(gene==null || gene.gid==-1 ||
+                      (gene.properties & Gene.C_BAD_SPOT)!=0);
+    }
+    for(int c=0;c<nConditions;c++)
+    { /* get the data for each sample in condition c */
+      data[c]= new float[nCondData[c]][maxGenes];
+      for(int s=0;s<nCondData[c];s++)
+        mjaSample.getSampleDataColumn(data[c][s], allSamplesIndex[c][s],
+                                      hasData);
+    }
+
+    /* [2] Compute condition means and variances over all genes */
+    for(int c=0;c<nConditions;c++)
+    {
+      getMoments(data[c], nCondData[c], hasData, condMean[c], condVar[c],
+                 false);
+      data[c]= null;
+    }
+
+    /* [3] Compute the F-test for all genes */
+    StatResult r= new StatResult();
+    r.ensureConditions(nConditions);
+    r.nConditions= nConditions;
+    for(int mid=0;mid<maxGenes;mid++)
+    { /* F-test each gene */
+      if(!hasData[mid])
+      {
+        pValues[mid]= 1.0F;
+        continue;
+      }
+      for(int c=0;c<nConditions;c++)
+      {
+        r.mean[c]= condMean[c][mid];
+        r.variance[c]= condVar[c][mid];
+      }
+      ok[mid]= StatKernel.nCondFtestFromMoments(nCondData, nConditions, r,
+                                                usedPvalueTablesFlag);
+      pValues[mid]= (float)r.pFnConds;
+      fStat[mid]= (float)r.fStatNconds;
+      dfWithin[mid]= (float)r.dfWithin;
+      dfBetween[mid]= (float)r.dfBetween;
+      mnSqWithin[mid]= (float)r.mnSqWithin;
+      mnSqBetween[mid]= (float)r.mnSqBetween;
+    } /* F-test each gene */
+
+    nBuilds[kind]++;
+    lastBuildMsec[kind]= System.currentTimeMillis()-startTime;
+  } /* buildOCL_F */
+
+
+  /**
+   * getExactPvalue() - recompute the p-value of a gene exactly from
+   * its saved statistic and degrees of freedom.
+   * @param mid is the gene
+   * @return p-value, 1.0 if it fails
+   * @see MathMAE#fTailProb
+   */
+  double getExactPvalue(int mid)
+  { /* getExactPvalue */
+    double p;
+
+    if(kind==XY_SETS_T_TEST)
+      p= MathMAE.fTailProb((double)tStat[mid]*tStat[mid], 1.0, dF[mid]);
+    else
+    {
+      p= 2.0*MathMAE.fTailProb(fStat[mid], dfWithin[mid], dfBetween[mid]);
+      if(p>1.0)
+        p= 2.0 - p;
+    }
+
+    return((Double.isNaN(p) || p>1.0) ? 1.0 : p);
+  } /* getExactPvalue */
+
+
+  /**
+   * passes() - test if the gene passed the test with a p-value <= pValueThr.
+   * If the p-value came from a PValueTable and is close to the threshold,
+   * it is recomputed exactly so the decision is the same as without
+   * the tables.
+   * @param mid is the gene
+   * @param pValueThr is the p-value threshold
+   * @return true if it passes
+   * @see MathMAE#isNearPvalue
+   * @see #getExactPvalue
+   */
+  boolean passes(int mid, float pValueThr)
+  { /* passes */
+    if(!ok[mid])
+      return(false);
+
+    double p= pValues[mid];
+    if(usedPvalueTablesFlag && MathMAE.isNearPvalue(p, pValueThr))
+    {
+      nExactRetests++;
+      p= (float)getExactPvalue(mid);
+    }
+
+    return(p<=pValueThr);
+  } /* passes */
+
+
+  /**
+   * ensureRanks() - sort the p-values of the tested genes once and compute
+   * their Benjamini-Hochberg q-values. The q-value of the i'th smallest
+   * (1-based) of the m p-values is min(p(j)*m/j) over j>=i, so the
+   * q-values are non-decreasing in rank and the genes passing q <= x are
+   * the first k ranks. Ties are ordered by MID.
+   * The sort key is the float bits of the p-value (ordered like the value
+   * since p>=0) in the high word and the MID in the low word.
+   */
+  private synchronized void ensureRanks()
+  { /* ensureRanks */
+    if(nTests>=0)
+      return;               /* already done */
+
+    int
+      m= 0,
+      mid;
+    long keys[];
+    double q;
+
+    for(mid=0;mid<maxGenes;mid++)
+      if(ok[mid])
+        m++;
+
+    keys= new long[m];
+    m= 0;
+    for(mid=0;mid<maxGenes;mid++)
+      if(ok[mid])
+        keys[m++]= (((long)Float.floatToIntBits(pValues[mid]))<<32) | mid;
+    java.util.Arrays.sort(keys);
+
+    sortedMID= new int[m];
+    sortedP= new double[m];
+    sortedQbh= new double[m];
+    rankOf= new int[maxGenes];
+    for(mid=0;mid<maxGenes;mid++)
+      rankOf[mid]= -1;
+    for(int i=0;i<m;i++)
+    {
+      mid= (int)(keys[i] & 0xFFFFFFFFL);
+      sortedMID[i]= mid;
+      sortedP[i]= pValues[mid];
+      rankOf[mid]= i;
+    }
+
+    /* Step-up from the largest p-value keeping the running minimum */
+    q= 1.0;
+    for(int i=m-1;i>=0;i--)
+    {
+      q= Math.min(q, sortedP[i]*m/(i+1));
+      sortedQbh[i]= q;
+    }
+
+    nRankSorts++;
+    nTests= m;              /* set last, marks the ranks as done */
+  } /* ensureRanks */
+
+
+  /**
+   * countAtMost() - binary search for the # of leading entries of a
+   * non-decreasing list that are <= thr.
+   * @param list is the sorted list [0:n-1]
+   * @param n is the # of entries
+   * @param thr is the threshold
+   * @return # of entries <= thr
+   */
+  private static int countAtMost(double list[], int n, double thr)
+  { /* countAtMost */
+    int
+      lo= 0,
+      hi= n,
+      mid;
+
+    while(lo<hi)
+    {
+      mid= (lo+hi)>>>1;
+      if(list[mid]<=thr)
+        lo= mid+1;
+      else
+        hi= mid;
+    }
+    return(lo);
+  } /* countAtMost */
+
+
+  /**
+   * getPassRankLimit() - get the # of genes that pass the threshold in
+   * an adjusted p-value mode. The genes that pass are those with
+   * a rank < the limit, see isRankedBelow().
+   * The family of tests is all the genes the test succeeded for.
+   * In PVALUE_MODE_RAW the raw p-values are used with passes() instead.
+   * The p-values are those saved in the batch, so if PValueTables were
+   * used they have the relative error of the tables.
+   *<PRE>
+   *   PVALUE_MODE_FDR_BH      - Benjamini-Hochberg q-value <= thr
+   *   PVALUE_MODE_BONFERRONI  - p-value * nTests <= thr
+   *</PRE>
+   * @param pValueThrMode is the MAExplorer.PVALUE_MODE_xxx mode
+   * @param thr is the threshold
+   * @return # of genes that pass, or -1 if the mode is PVALUE_MODE_RAW
+   * @see #ensureRanks
+   */
+  int getPassRankLimit(int pValueThrMode, float thr)
+  { /* getPassRankLimit */
+    if(pValueThrMode!=MAExplorer.PVALUE_MODE_FDR_BH &&
+       pValueThrMode!=MAExplorer.PVALUE_MODE_BONFERRONI)
+      return(-1);
+
+    ensureRanks();
+    if(pValueThrMode==MAExplorer.PVALUE_MODE_FDR_BH)
+      return(countAtMost(sortedQbh, nTests, thr));
+    else
+      return(countAtMost(sortedP, nTests, (double)thr/Math.max(1,nTests)));
+  } /* getPassRankLimit */
+
+
+  /**
+   * isRankedBelow() - test if the gene is one of the first rankLimit
+   * genes by increasing p-value.
+   * @param mid is the gene
+   * @param rankLimit is the limit from getPassRankLimit()
+   * @return true if it passes
+   * @see #getPassRankLimit
+   */
+  boolean isRankedBelow(int mid, int rankLimit)
+  { /* isRankedBelow */
+    int rank= rankOf[mid];
+    return(rank>=0 && rank<rankLimit);
+  } /* isRankedBelow */
+
+
+  /**
+   * getQvalue() - get the Benjamini-Hochberg q-value of the gene
+   * @param mid is the gene
+   * @return q-value, 1.0 if the gene was not tested
+   * @see #ensureRanks
+   */
+  double getQvalue(int mid)
+  { /* getQvalue */
+    ensureRanks();
+    int rank= rankOf[mid];
+    return((rank<0) ? 1.0 : sortedQbh[rank]);
+  } /* getQvalue */
+
+
+  /**
+   * getStatusStr() - get the build and reuse counts and the time of
+   * the last build for each kind of batch that was used.
+   * @return status string
+   */
+  static String getStatusStr()
+  { /* getStatusStr */
+    String sR= "Statistics batches\n";
+
+    for(int k=0;k<N_KINDS;k++)
+    { /* add kinds that were used */
+      if(nBuilds[k]==0 && nReuses[k]==0)
+        continue;
+      sR += kindNames[k] + ": " + nBuilds[k] + " built, " + nReuses[k] +
+            " reused, last build " + lastBuildMsec[k] + " msec\n";
+    }
+    sR += "Exact p-value retests near threshold: " + nExactRetests + "\n";
+    sR += "p-Value rank sorts for FDR/Bonferroni: " + nRankSorts + "\n";
+    sR += MathMAE.getPvalueTablesStatusStr();
+
+    return(sR);
+  } /* getStatusStr */
+
+} /* end of class StatBatch */
@@ -0,0 +1,682 @@
+/** File: StatKernel.java */
+
+/**
+ * The class is the re-entrant statistics kernel for the t-test, the F-test
+ * of 2 variances, the N-condition F-test (one-way ANOVA), the
+ * Kolmogorov-Smirnov test, the Wilcoxon-Mann-Whitney test and X-Y
+ * correlation. The methods are static, take primitive arrays and return
+ * their results in a caller-owned StatResult. They keep no state of their
+ * own and do not allocate per call, so any number of threads may run tests
+ * at the same time as long as each thread uses its own StatResult (and
+ * its own data arrays for the KS and WMW tests which sort them in place).
+ *<P>
+ * Statistics, MJAstatistics and MathMAE.calcXYstat() are facades over this
+ * kernel which copy the results into their (shared) CALC and RTN variables.
+ *<P>
+ * This file is part of MAExplorer. It is offered as open source software
+ * under the Mozilla Public License (version 1.1) subject to the
+ * limitations noted in the accompanying LEGAL file. This notice must be
+ * included with the code. The MAExplorer Mozilla and Legal files are
+ * available on http://maexplorer.sourceforge.net/.
+ *<P>
+ * @author P. Lemkin (NCI), G. Thornwall (SAIC), NCI-Frederick, Frederick, MD
+ * @version $Date$   $Revision$
+ * @see <A HREF="http://maexplorer.sourceforge.net/">MAExplorer Home</A>
+ * @see StatResult
+ * @see Statistics
+ */
+
+final class StatKernel
+{
+
+  /**
+   * StatKernel() - no instances, all methods are static
+   */
+  private StatKernel()
+  { /* StatKernel */
+  } /* StatKernel */
+
+
+  /**
+   * fTestVariances() - calculate 2-tailed f probility that variances
+   * are the same.
+   * It computes:
+   *<PRE>
+   *    r.fStat - the f-statistic
+   *    r.pF    - 2-tailed probability vars. same
+   *</PRE>
+   * This method was derived from GELLAB-II which was derived from
+   * Numerical Recipes in C and Snedecore and Chochran Statistical Methods.
+   * @param n1 # samples class 1
+   * @param n2 # samples class 2
+   * @param var1 variance of class 1
+   * @param var2 variance of class 2
+   * @param r is the result
+   * @return true if succeed, else false if any problems.
+   * @see MathMAE#betaI
+   */
+  static boolean fTestVariances(int n1, int n2, double var1, double var2,
+                                StatResult r)
+  { /* fTestVariances */
+    return(fTestVariances(n1, n2, var1, var2, r, false));
+  } /* fTestVariances */
+
+
+  /**
+   * fTestVariances() - calculate 2-tailed f probility that variances
+   * are the same, optionally using a PValueTable for the probability.
+   * @param n1 # samples class 1
+   * @param n2 # samples class 2
+   * @param var1 variance of class 1
+   * @param var2 variance of class 2
+   * @param r is the result
+   * @param useTablesFlag use MathMAE.fTailProbTab() else the exact value
+   * @return true if succeed, else false if any problems.
+   * @see MathMAE#fTailProb
+   * @see MathMAE#fTailProbTab
+   */
+  static boolean fTestVariances(int n1, int n2, double var1, double var2,
+                                StatResult r, boolean useTablesFlag)
+  { /* fTestVariances */
+    double
+      df1,
+      df2,
+      pBeta;
+
+    r.ok= false;
+    if (n1==0 || n2==0 || var1<=0.0 || var2<=0.0)
+      return(false);
+
+    /* See Numerical Recipes in C 2nd Edition, Page 619 Sec. 14.2 */
+    if (var1 > var2)
+    {
+      r.fStat= var1/var2;
+      df1= n1 - 1.0;
+      df2= n2 - 1.0;
+    }
+    else
+    {
+      r.fStat= var2/var1;
+      df1= n2 - 1.0;
+      df2= n1 - 1.0;
+    }
+
+    /* Calc. 2-tailed f-test probability that the means are from the
+     * same distribution. See Numerical Recipes in C, 2nd Ed.
+     * Page 616, Section 14-2.
+     */
+    pBeta= (useTablesFlag) ? MathMAE.fTailProbTab(r.fStat, df1, df2)
+                           : MathMAE.fTailProb(r.fStat, df1, df2);
+    /* [TODO] The okBeta test is inverted, as in the original
+     * calcFprobFromVariances(), so a good F-test returns false with pF= 1.0
+     * and tTest() always uses Student's t. Fixing it changes the t-test
+     * results, so it is left for a separate change.
+     */
+    boolean okBeta= !Double.isNaN(pBeta);
+    r.pF= (okBeta) ? 2.0*pBeta : 0.0;
+
+    if(okBeta || r.pF<0.0)
+    {
+      r.pF= 1.0;
+      return(false);
+    }
+
+    if(r.pF > 1.0)
+      r.pF= 2.0 - r.pF;
+
+    r.ok= true;
+    return(true);
+  } /* fTestVariances */
+
+
+  /**
+   * tTest() - calculate t, pT, dF (and fStat, pF) from (n1,m1,s1)
+   * and (n2,m2,s2).
+   * Use Behrens-Fisher/Satterthwaite estimate for t and dF if the f-test
+   * p-value that the variances are different is < 0.05. Otherwise use the
+   * standard student t-statistic with DF= (n1+n2-2).
+   * It uses the algorithm described Numerical Recipes in C (1st Ed)
+   * for estimating p-value given the t-statistic using the incomplete
+   * beta function betai().
+   * It computes:
+   *<pre>
+   *    r.t - t or t' statistic
+   *    r.pT - t-test p-value w/NULL hypoth
+   *    r.dF - degrees of freedom
+   *    r.useTest - 'B' or 'T'
+   *    r.fStat - f statistic of the variances
+   *    r.pF - 1-tailed f-test p-value w/NULL hypoth
+   * </pre>
+   * This method was derived from GELLAB-II which was derived from
+   * Numerical Recipes in C and Snedecore and Chochran Statistical Methods.
+   * @param n1 # samples in class 1
+   * @param  n2 # samples in class 2
+   * @param m1 sample mean class 1
+   * @param m2 sample mean class 2
+   * @param s1 sample std dev class 1
+   * @param s2 sample std dev class 2
+   * @param r is the result
+   * @return false if any of the data is invalid (need >= 2 samples/class)
+   * or the beta fct fails.
+   * @see MathMAE#betaI
+   * @see #fTestVariances
+   */
+  static boolean tTest(int n1, int n2, double m1, double m2,
+                       double s1, double s2, StatResult r)
+  { /* tTest */
+    return(tTest(n1, n2, m1, m2, s1, s2, r, false));
+  } /* tTest */
+
+
+  /**
+   * tTest() - calculate t, pT, dF (and fStat, pF) from (n1,m1,s1)
+   * and (n2,m2,s2), optionally using PValueTables for the probabilities.
+   * The f-test of the variances is recomputed exactly if its table value
+   * is near the 0.05 threshold that picks the Behrens-Fisher test.
+   * @param n1 # samples in class 1
+   * @param  n2 # samples in class 2
+   * @param m1 sample mean class 1
+   * @param m2 sample mean class 2
+   * @param s1 sample std dev class 1
+   * @param s2 sample std dev class 2
+   * @param r is the result
+   * @param useTablesFlag use MathMAE.fTailProbTab() else the exact values
+   * @return false if any of the data is invalid (need >= 2 samples/class)
+   * or the beta fct fails.
+   * @see MathMAE#fTailProbTab
+   * @see MathMAE#isNearPvalue
+   * @see #fTestVariances
+   */
+  static boolean tTest(int n1, int n2, double m1, double m2,
+                       double s1, double s2, StatResult r,
+                       boolean useTablesFlag)
+  { /* tTest */
+    boolean okF;
+    double
+      v1,
+      v2;
+
+    if(n1<2 || n2<2 || s1==0.0 || s2==0.0)
+    {
+      r.ok= false;
+      r.pT= 1.0;		/* TOTAL FAILURE!!! */
+      r.pF= 1.0;
+      r.dF= (n1+n2-2);
+      return(false);
+    }
+
+    v1= s1*s1;
+    v2= s2*s2;
+
+    /* Always compute the f-statistic and the f-probability. */
+    okF= fTestVariances(n1, n2, v1, v2, r, useTablesFlag); /* sets (fStat, pF) */
+    if(useTablesFlag && MathMAE.isNearPvalue(0.5*r.pF, 0.05))
+      okF= fTestVariances(n1, n2, v1, v2, r, false);
+    r.pF= (0.5 * r.pF);		/* NOTE: use 1-tailed not 2-tailed
+                                 * which is returned by calc. */
+
+    r.useTest= (okF && (r.pF < 0.05)) ? 'B' : 'T';
+    r.ok= false;
+
+    if(r.useTest=='B')
+    { /* Behrens-Fisher t-test.
+       * Estimate t' stat. using Satterthwaite estimate for dF
+       * if f-stat <0.05.
+       * See Snedicore and Cochran 8th edition pg 97 for formulas.
+       */
+      double
+        vb1= v1/n1,
+        vb2= v2/n2,
+        vPrime= ((vb1 + vb2) * (vb1 + vb2)) /
+                 ((vb1 * vb1) / (n1 - 1.0) + (vb2 * vb2) / (n2 - 1.0));
+
+      r.dF= vPrime;		/* Satterthwaite estimate of df' for NEQ
+                                 * variance. */
+      r.t= (m1-m2)/Math.sqrt(vb1 + vb2);
+    }
+    else
+    { /* Student's t-statistic for EQU variance */
+      r.dF= n1 + n2 - 2.0;
+      double varpooled= ((n1-1)*v1 + (n2-1)*v2) / r.dF;  /* Pooled variance */
+      r.t= (m1-m2) / Math.sqrt(varpooled * ((1.0/n1) + (1.0/n2)));
+    }
+
+    /* Compute probability pT for t-test. */
+    r.pT= (useTablesFlag) ? MathMAE.fTailProbTab(r.t*r.t, 1.0, r.dF)
+                          : MathMAE.fTailProb(r.t*r.t, 1.0, r.dF);
+
+    if(Double.isNaN(r.pT) || r.pT>1.0 )
+    {
+      r.pT= 1.0;		/* TOTAL FAILURE!!! */
+      return(false);
+    }
+
+    r.ok= true;
+    return(true);
+  } /* tTest */
+
+
+  /**
+   * nCondFtest() - calc. F-test statistics (one-way ANOVA) of
+   * data[0:nConditions-1][samples].
+   * It computes:
+   *<pre>
+   *    r.pFnConds - p value
+   *    r.fStatNconds - f statistic
+   *    r.mnSqWithin - mean within class variance
+   *    r.mnSqBetween - mean between class variance
+   *    r.dfWithin - degrees of freedom Within conditions
+   *    r.dfBetween - degrees of freedom Between conditions
+   *    r.mean[0:nConditions-1] - mean of each condition
+   *    r.variance[0:nConditions-1] - sample variance of each condition
+   * </pre>
+   * This method was derived from GELLAB-II which was derived from
+   * Numerical Recipes in C, 2nd Edition, pg 619, Sec. 14.2,
+   * and Snedecore and Chochran Statistical Methods.
+   * @param data sample data[nConditions][sampleNbrInCondition]
+   * @param nData # samples in each [nConditions]
+   * @param nConditions # of conditions
+   * @param r is the result
+   * @return false if any of the data is invalid (need >1 sample/Condition)
+   * @see MathMAE#betaI
+   */
+  static boolean nCondFtest(float data[][], int nData[], int nConditions,
+                            StatResult r)
+  { /* nCondFtest */
+    int nSamples;
+    float dataS[];
+    double
+      mn,
+      sum,
+      diff,
+      sumDiffSq;
+
+    r.ensureConditions(nConditions);
+    r.nConditions= nConditions;
+    double
+      mean[]= r.mean,
+      variance[]= r.variance;
+
+    /* Worst case */
+    r.ok= false;
+    r.pFnConds= 1.0;
+    r.fStatNconds= 0.0;
+    r.mnSqWithin= 0.0;
+    r.mnSqBetween= 0.0;
+    r.dfWithin= 0.0;
+    r.dfBetween= 0.0;
+
+    /* [1] Calculate the means and variances for each data class */
+    for(int k=0;k<nConditions;k++)
+    { /* create the mean[0:nConditions-1] and variance[0:nConditions-1] */
+      dataS= data[k];
+      nSamples= nData[k];
+      if(dataS==null || nSamples==0)
+        return(false);     /* bad data */
+
+      sum= 0.0;
+      for(int i=0;i<nSamples;i++)
+        sum += dataS[i];
+      mn= sum/nSamples;
+      mean[k]= mn;
+
+      sumDiffSq= 0.0;
+      for(int i= 0;i<nSamples;i++)
+      {
+        diff= (mn - dataS[i]);
+        sumDiffSq += diff*diff;
+      }
+      variance[k]= (nSamples<2) ? 0.0 : (sumDiffSq/(nSamples-1));
+    }
+
+    return(nCondFtestFromMoments(nData, nConditions, r));
+  } /* nCondFtest */
+
+
+  /**
+   * nCondFtestFromMoments() - calc. F-test statistics (one-way ANOVA) from
+   * the r.mean[0:nConditions-1] and r.variance[0:nConditions-1] already
+   * computed for each condition. This is the second half of nCondFtest()
+   * and is used by StatBatch which computes the moments for all genes at once.
+   * It computes the same r.pFnConds, r.fStatNconds, r.mnSqWithin,
+   * r.mnSqBetween, r.dfWithin and r.dfBetween as nCondFtest().
+   * @param nData # samples in each [nConditions]
+   * @param nConditions # of conditions
+   * @param r is the result with mean[] and variance[] set
+   * @return false if any of the data is invalid (need >1 sample/Condition)
+   * @see #nCondFtest
+   */
+  static boolean nCondFtestFromMoments(int nData[], int nConditions,
+                                       StatResult r)
+  { /* nCondFtestFromMoments */
+    return(nCondFtestFromMoments(nData, nConditions, r, false));
+  } /* nCondFtestFromMoments */
+
+
+  /**
+   * nCondFtestFromMoments() - calc. F-test statistics (one-way ANOVA) from
+   * the r.mean[] and r.variance[] of each condition, optionally using a
+   * PValueTable for the probability.
+   * @param nData # samples in each [nConditions]
+   * @param nConditions # of conditions
+   * @param r is the result with mean[] and variance[] set
+   * @param useTablesFlag use MathMAE.fTailProbTab() else the exact value
+   * @return false if any of the data is invalid (need >1 sample/Condition)
+   * @see MathMAE#fTailProb
+   * @see MathMAE#fTailProbTab
+   */
+  static boolean nCondFtestFromMoments(int nData[], int nConditions,
+                                       StatResult r, boolean useTablesFlag)
+  { /* nCondFtestFromMoments */
+    int nTot= 0;	       /* total # of samples in all class subsets */
+    double
+      sumGlbMean= 0.0,	       /* sum global mean of all data */
+      glbMean= 0.0,	       /* global mean of all data */
+      sumSQbetween= 0.0,       /* sum Sq between errors */
+      sumSQwithin= 0.0;	       /* sum Sq within errors */
+    double
+      mean[]= r.mean,
+      variance[]= r.variance;
+
+    /* Worst case */
+    r.ok= false;
+    r.pFnConds= 1.0;
+    r.fStatNconds= 0.0;
+    r.mnSqWithin= 0.0;
+    r.mnSqBetween= 0.0;
+    r.dfWithin= 0.0;
+    r.dfBetween= 0.0;
+
+    for(int k=0;k<nConditions;k++)
+    { /* Get within class statistics */
+      if (nData[k] < 2)
+        return(false);     /* if fail any one, then fail the F-test */
+
+      nTot += nData[k];
+      sumGlbMean += mean[k]*nData[k];
+    } /* get within class stat */
+
+    /* [1.1] If failed, then just return false. */
+    if (nTot==0)
+      return(false);		/* bad set - save time and abort test */
+
+    /* [2] Compute F-statistic from means, variances and counts */
+    glbMean= (sumGlbMean/nTot);
+
+    for(int k=0;k<nConditions;k++)
+    { /* compute grand totals */
+      sumSQbetween += ((mean[k]-glbMean)*(mean[k]-glbMean))*nData[k];
+      sumSQwithin  += variance[k]*(nData[k]-1);
+    } /* compute grand totals */
+
+    /* [3] Compute mean square errors */
+    r.mnSqWithin= ((nTot-nConditions)!=0) ? sumSQwithin/(nTot-nConditions) : 0.0;
+    r.mnSqBetween= ((nConditions-1)!=0) ? sumSQbetween/(nConditions-1) : 0.0;
+
+    /* make sure don't divide by zero */
+    if(r.mnSqWithin==0.0)
+      return(false);
+
+    r.fStatNconds= (r.mnSqBetween/r.mnSqWithin); /* Calculate SAMPLE F-statistic */
+    r.dfWithin= (nTot - nConditions);
+    r.dfBetween= (nConditions-1);
+
+    /* [4] Compute F-test */
+    if(r.fStatNconds<1.0)
+    { /* swap */
+      double tmp= r.dfWithin;
+      r.fStatNconds= 1.0/r.fStatNconds;
+      r.dfWithin= r.dfBetween;
+      r.dfBetween= tmp;
+    } /* swap */
+
+    /* See Numerical Recipes in C, 2nd Edition, pg 619, Sec. 14.2 */
+    r.pFnConds= 2.0*((useTablesFlag)
+                       ? MathMAE.fTailProbTab(r.fStatNconds, r.dfWithin,
+                                              r.dfBetween)
+                       : MathMAE.fTailProb(r.fStatNconds, r.dfWithin,
+                                           r.dfBetween));
+    if(Double.isNaN(r.pFnConds))
+    {
+      r.pFnConds= 0.0;
+      return(false);
+    }
+    if(r.pFnConds>1.0)
+      r.pFnConds= 2.0 - r.pFnConds;
+
+    r.ok= true;
+    return(true);
+  } /* nCondFtestFromMoments */
+
+
+  /**
+   * ksTest() - calculate Kolmogorov-Smirnov ksD, pKS, dFks
+   * from (n1,data1) and (n2,data2). DF= (n1+n2-2).
+   * Note: data1[] and data2[] are sorted in place.
+   * It computes:
+   *<pre>
+   *    r.ksD - D statistic
+   *    r.pKS - KS test p-value w/NULL hypoth
+   *    r.dFks - degrees of freedom
+   * </pre>
+   * @param data1 sample data class 1
+   * @param n1 # samples in class 1
+   * @param data2 sample data class 2
+   * @param n2 # samples in class 2
+   * @param r is the result
+   * @return false if any of the data is invalid (need >= 2 samples/class)
+   * @see MathMAE#kstwoD
+   * @see MathMAE#kstwoProb
+   */
+  static boolean ksTest(double data1[], int n1, double data2[], int n2,
+                        StatResult r)
+  { /* ksTest */
+    double d;
+
+    r.ok= false;
+    r.dFks= n1 + n2 - 2.0;
+    r.ksD= 0.0;
+    r.pKS= 1.0;	                /* TOTAL FAILURE!!! unless succeed */
+
+    if(n1<1 || n2<1)
+      return(false);
+
+    d= MathMAE.kstwoD(data1, n1, data2, n2);
+    if(d<0.0)
+      return(false);
+    r.ksD= d;
+
+    r.pKS= MathMAE.kstwoProb(d, n1, n2);
+    if(Double.isNaN(r.pKS) || r.pKS>1.0 || r.pKS<0.0 )
+    {
+      r.pKS= 1.0;
+      return(false);
+    }
+
+    r.ok= true;
+    return(true);
+  } /* ksTest */
+
+
+  /**
+   * wmwTest() - calculate the Wilcoxon-Mann-Whitney rank sum test from
+   * (n1,data1) and (n2,data2). Tied values get their average rank. The
+   * p-value uses the normal approximation of U with a tie and continuity
+   * correction. Note: data1[] and data2[] are sorted in place.
+   * It computes:
+   *<pre>
+   *    r.wmwU - U statistic for class 1
+   *    r.wmwZ - z-score of U
+   *    r.pWMW - 2-tailed WMW test p-value w/NULL hypoth
+   * </pre>
+   * @param data1 sample data class 1
+   * @param n1 # samples in class 1
+   * @param data2 sample data class 2
+   * @param n2 # samples in class 2
+   * @param r is the result
+   * @return false if any of the data is invalid (need >= 2 samples/class)
+   * or all of the data is tied.
+   * @see MathMAE#nr_erfcc
+   * @see MathMAE#nr_hpsort
+   */
+  static boolean wmwTest(double data1[], int n1, double data2[], int n2,
+                         StatResult r)
+  { /* wmwTest */
+    int
+      i= 0,
+      j= 0,
+      c1,
+      c2,
+      nTies,
+      nTot= n1 + n2;
+    double
+      v,
+      rank= 0.0,               /* # of values ranked so far */
+      avgRank,
+      rankSum1= 0.0,           /* sum of ranks of class 1 */
+      tieSum= 0.0,             /* sum of (t^3 - t) over tied groups */
+      meanU,
+      varU,
+      diffU;
+
+    r.ok= false;
+    r.wmwU= 0.0;
+    r.wmwZ= 0.0;
+    r.pWMW= 1.0;	        /* TOTAL FAILURE!!! unless succeed */
+
+    if(n1<2 || n2<2 || data1==null || data2==null)
+      return(false);
+
+    MathMAE.nr_hpsort(n1, data1);
+    MathMAE.nr_hpsort(n2, data2);
+
+    /* [1] Merge the sorted data and rank each group of tied values */
+    while(i<n1 || j<n2)
+    { /* rank next value */
+      if(j>=n2 || (i<n1 && data1[i]<=data2[j]))
+        v= data1[i];
+      else
+        v= data2[j];
+
+      c1= 0;
+      while(i<n1 && data1[i]==v)
+      {
+        c1++;
+        i++;
+      }
+      c2= 0;
+      while(j<n2 && data2[j]==v)
+      {
+        c2++;
+        j++;
+      }
+
+      nTies= c1 + c2;
+      avgRank= rank + (nTies+1)/2.0;   /* ranks start at 1 */
+      rankSum1 += c1*avgRank;
+      if(nTies>1)
+        tieSum += ((double)nTies*nTies*nTies - nTies);
+      rank += nTies;
+    } /* rank next value */
+
+    /* [2] Compute U and its normal approximation */
+    r.wmwU= rankSum1 - (n1*(n1+1.0))/2.0;
+    meanU= (n1*(double)n2)/2.0;
+    varU= ((n1*(double)n2)/12.0) *
+          ((nTot+1.0) - tieSum/((double)nTot*(nTot-1.0)));
+    if(varU<=0.0)
+      return(false);          /* all tied */
+
+    diffU= Math.abs(r.wmwU - meanU) - 0.5;  /* continuity correction */
+    if(diffU<0.0)
+      diffU= 0.0;
+    r.wmwZ= diffU/Math.sqrt(varU);
+    if(r.wmwU < meanU)
+      r.wmwZ= -r.wmwZ;
+
+    r.pWMW= MathMAE.nr_erfcc(Math.abs(r.wmwZ)/Math.sqrt(2.0));
+    if(r.pWMW>1.0)
+      r.pWMW= 1.0;
+
+    r.ok= true;
+    return(true);
+  } /* wmwTest */
+
+
+  /**
+   * xyCorrelation() - compute the correlation coefficient, means and
+   * standard deviations of (xList[],yList[]). If propList[] is not null,
+   * then only use entries where propList[i] is Gene.C_IS_FILTERED.
+   * It computes:
+   *<pre>
+   *    r.nXY - # of pairs used
+   *    r.rSq - correlation coefficient
+   *    r.mnX, r.mnY - means
+   *    r.sdX, r.sdY - standard deviations
+   * </pre>
+   * This method was derived from GELLAB-II which was derived from
+   * Snedecore and Chochran Statistical Methods.
+   * @param n size of lists
+   * @param xList is X class data
+   * @param yList is Y class data
+   * @param propList is properties data, else null
+   * @param r is the result
+   * @return true if there was any data.
+   */
+  static boolean xyCorrelation(int n, float xList[], float yList[],
+                               int propList[], StatResult r)
+  { /* xyCorrelation */
+    double
+      diffX,
+      diffY,
+      sumX= 0.0,
+      sumY= 0.0,
+      sumXDiffSq= 0.0,
+      sumYDiffSq= 0.0,
+      sumXYdiff= 0.0;
+
+    r.ok= false;
+    r.nXY= 0;          /* compute it here. Note: n includes ALL genes */
+    r.rSq= 0.0;        /* reset to default if failed */
+    r.mnX= 0.0;
+    r.mnY= 0.0;
+    r.sdX= 0.0;
+    r.sdY= 0.0;
+
+    for(int i=0; i<n;i++)
+    { /* compute sums */
+      if(propList!=null && propList[i]!=Gene.C_IS_FILTERED)
+        continue;              /* ignore non-filtered genes */
+      r.nXY++;
+      sumX += xList[i];
+      sumY += yList[i];
+    }
+    if(r.nXY==0)
+      return(false);           /* there is not data */
+
+    r.mnX= sumX/r.nXY;         /* compute means */
+    r.mnY= sumY/r.nXY;
+
+    /* Compute std deviations. Use PropList to filter if it exists */
+    for(int i= 0;i<n;i++)
+    {
+      if(propList!=null && propList[i]!=Gene.C_IS_FILTERED)
+        continue;              /* ignore non-filtered genes */
+
+      diffX= (r.mnX - xList[i]);
+      diffY= (r.mnY - yList[i]);
+      sumXDiffSq += diffX*diffX;
+      sumYDiffSq += diffY*diffY;
+      sumXYdiff += diffX*diffY;
+    }
+
+    r.sdX= (float)Math.sqrt(sumXDiffSq/r.nXY);
+    r.sdY= (float)Math.sqrt(sumYDiffSq/r.nXY);
+
+    r.rSq= sumXYdiff/Math.sqrt(sumXDiffSq*sumYDiffSq);
+
+    r.ok= true;
+    return(true);
+  } /* xyCorrelation */
+
+} /* end of class StatKernel */
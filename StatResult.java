@@ -0,0 +1,143 @@
+/** File: StatResult.java */
+
+/**
+ * The class holds the results of a StatKernel test. It is owned by the
+ * caller, who keeps one per thread and reuses it for each test, so the
+ * kernel does not allocate anything per call. Only the fields for the test
+ * that was run are set. Working arrays for the N-condition F-test are grown
+ * on demand and then reused.
+ *<P>
+ * This file is part of MAExplorer. It is offered as open source software
+ * under the Mozilla Public License (version 1.1) subject to the
+ * limitations noted in the accompanying LEGAL file. This notice must be
+ * included with the code. The MAExplorer Mozilla and Legal files are
+ * available on http://maexplorer.sourceforge.net/.
+ *<P>
+ * @author P. Lemkin (NCI), G. Thornwall (SAIC), NCI-Frederick, Frederick, MD
+ * @version $Date$   $Revision$
+ * @see <A HREF="http://maexplorer.sourceforge.net/">MAExplorer Home</A>
+ * @see StatKernel
+ */
+
+class StatResult
+{
+  /** RTN: set if the last test succeeded */
+  boolean
+    ok;
+
+  /* --- t-test and 2 condition F-test --- */
+  /** RTN: t or t' statistic */
+  double
+    t;
+  /** RTN: t-test p-value w/NULL hypoth */
+  double
+    pT;
+  /** RTN: degrees of freedom of t-test */
+  double
+    dF;
+  /** RTN: 'B' (Behrens-Fisher) or 'T' (Student) t-test used */
+  char
+    useTest;
+  /** RTN: f-statistic of the variances */
+  double
+    fStat;
+  /** RTN: f-test p-value w/NULL hypoth (2-tailed from fTestVariances(),
+   * 1-tailed from tTest()) */
+  double
+    pF;
+
+  /* --- N condition F-test (ANOVA) --- */
+  /** RTN: f-statistic nConditions test */
+  double
+    fStatNconds;
+  /** RTN: f-test p-value w/NULL hypoth for nConditions */
+  double
+    pFnConds;
+  /** RTN: mean square within variance */
+  double
+    mnSqWithin;
+  /** RTN: mean square between variance */
+  double
+    mnSqBetween;
+  /** RTN: degrees of freedom within conditions */
+  double
+    dfWithin;
+  /** RTN: degrees of freedom between conditions */
+  double
+    dfBetween;
+  /** RTN: # of conditions in mean[] and variance[] */
+  int
+    nConditions;
+  /** RTN: mean[0:nConditions-1] of each condition */
+  double
+    mean[];
+  /** RTN: variance[0:nConditions-1] of each condition */
+  double
+    variance[];
+
+  /* --- KS-test --- */
+  /** RTN: Kolmogorov-Smirnov D statistic */
+  double
+    ksD;
+  /** RTN: KS-test p-value w/NULL hypoth */
+  double
+    pKS;
+  /** RTN: degrees of freedom of KS-test */
+  double
+    dFks;
+
+  /* --- Wilcoxon-Mann-Whitney test --- */
+  /** RTN: Mann-Whitney U statistic for class 1 */
+  double
+    wmwU;
+  /** RTN: normal approximation z-score of U */
+  double
+    wmwZ;
+  /** RTN: 2-tailed WMW-test p-value w/NULL hypoth */
+  double
+    pWMW;
+
+  /* --- X-Y correlation --- */
+  /** RTN: # of (x,y) pairs used */
+  int
+    nXY;
+  /** RTN: correlation coefficient */
+  double
+    rSq;
+  /** RTN: mean X */
+  double
+    mnX;
+  /** RTN: mean Y */
+  double
+    mnY;
+  /** RTN: standard deviation X */
+  double
+    sdX;
+  /** RTN: standard deviation Y */
+  double
+    sdY;
+
+
+  /**
+   * StatResult() - constructor for an empty result
+   */
+  StatResult()
+  { /* StatResult */
+  } /* StatResult */
+
+
+  /**
+   * ensureConditions() - make sure the mean[] and variance[] arrays
+   * can hold nConditions entries.
+   * @param nConditions # of conditions
+   */
+  void ensureConditions(int nConditions)
+  { /* ensureConditions */
+    if(mean==null || mean.length<nConditions)
+    {
+      mean= new double[nConditions];
+      variance= new double[nConditions];
+    }
+  } /* ensureConditions */
+
+} /* end of class StatResult */
@@ -1329,8 +1329,11 @@ class StateScrollers extends Frame implements
   
   
   /**
-   * adjustmentValueChanged() - handle scroller state changed events
+   * adjustmentValueChanged() - handle scroller state changed events.
+   * The recomputation is done in the background by the FilterScheduler
+   * if FilterScheduler.useBackgroundFilterFlag is set.
    * @see Filter#computeWorkingGeneList
+   * @see FilterScheduler#requestUpdate
    * @see MAExplorer#repaint
    * @see Util#cvf2s
    * @see #clearPostProcessingFlags
@@ -1493,7 +1496,20 @@ class StateScrollers extends Frame implements
     String sLbl=  ivStr;
     sbLblValue[idx].setText(sLbl);
     
-    /* [5] Do cluster analysis if required. Rerun cluster analysis after
+    /* [5] If background recomputation is enabled, hand the Filter,
+     * cluster analysis and image optimization to the FilterScheduler
+     * worker thread. It coalesces a burst of slider changes and publishes
+     * the new workingCL and repaints when done.
+     */
+    if(FilterScheduler.useBackgroundFilterFlag && mae.fsch!=null)
+    {
+      mae.fsch.requestUpdate(runFilter,
+                             (runClusterAnalysis || runKmeansClusterAnalysis),
+                             runImageOptimizer);
+      return;
+    }
+    
+    /* [5.1] Do cluster analysis if required. Rerun cluster analysis after
      * changed state. If it succeeds, the caller needs to do a global repaint.
      */
     if(runClusterAnalysis || runKmeansClusterAnalysis)
@@ -1502,7 +1518,7 @@ class StateScrollers extends Frame implements
         doRepaint= true;
     }
     
-    /* [5.1] rerun pseudoarray image optimization after changed state.
+    /* [5.2] rerun pseudoarray image optimization after changed state.
      * If it succeeds, the caller needs to do a global repaint.
      */
     if(runImageOptimizer)
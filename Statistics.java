@@ -8,6 +8,10 @@
  * NOTE: Statistics package (derived from WebGel and GELLAB-II which were
  * derived from Numerical Recipes, etc.). 
  *<P>
+ * The tests are computed by the re-entrant StatKernel into a StatResult
+ * owned by this instance, and then copied into the CALC variables below.
+ * So each thread running tests at the same time needs its own instance.
+ *<P>
  * This work was produced by Peter Lemkin of the National Cancer
  * Institute, an agency of the United States Government.  As a work of
  * the United States Government there is no associated copyright.  It is
@@ -19,6 +23,7 @@
  * @author P. Lemkin (NCI), G. Thornwall (SAIC), NCI-Frederick, Frederick, MD
  * @version $Date: 2004/01/13 16:46:20 $   $Revision: 1.12 $
  * @see <A HREF="http://maexplorer.sourceforge.net/">MAExplorer Home</A>
+ * @see StatKernel
  */
 
 class Statistics
@@ -34,6 +39,9 @@ class Statistics
    /** link to global instance of MAExplorer */
    private MAExplorer 
      mae;                       
+   /** results of the last StatKernel test */
+   private StatResult
+     res;
    
    /* --- CALC values computed by various methods --- */
    /** CALC: t-test p-value w/NULL hypoth set by calcTandPvalues() */
@@ -70,6 +78,15 @@ class Statistics
    /** CALC: degrees of freedom for KS-test set by calcKStestStat() */
     double
      dFks;                        
+   /** CALC: WMW-test p-value w/NULL hypoth set by calcWMWtestStat() */
+   double
+     pWMW;
+   /** CALC: Mann-Whitney U statistic set by calcWMWtestStat() */
+   double
+     wmwU;
+   /** CALC: z-score of U set by calcWMWtestStat() */
+   double
+     wmwZ;
    /** CALC: 'B' or 'T' - t-test to use set by calcTandPvalues() */
    char
      useTest;  
@@ -174,6 +191,7 @@ class Statistics
    { /* Statistics */
      nCondAlloc= -1;           /* no allocation */
      nBinsH= 0;                /* no histogram */
+     res= new StatResult();
    } /* Statistics */
    
    
@@ -185,6 +203,7 @@ class Statistics
    { /* Statistics */
      this.mae= mae;
      nBinsH= 0;                       /* no histogram */
+     res= new StatResult();
    } /* Statistics */
    
    
@@ -247,48 +266,19 @@ class Statistics
     * @param var1 variance of class 1
     * @param var2 variance of class 2
     * @return true and set variables if succeed, else false if any problems.
-    * @see MathMAE#nr_betai
+    * @see StatKernel#fTestVariances
     */
    boolean calcFprobFromVariances(int n1, int n2, double var1, double var2)
    { /* calcFprobFromVariances */
-     double
-       df1,
-       df2;
+     boolean ok= StatKernel.fTestVariances(n1, n2, var1, var2, res);
      
-     if (n1==0 || n2==0 || var1<=0.0 || var2<=0.0)
-       return(false);
+     if(n1==0 || n2==0 || var1<=0.0 || var2<=0.0)
+       return(false);             /* nothing computed */
+     fStat= res.fStat;
+     f= fStat;
+     pF= res.pF;
      
-     /* See Numerical Recipes in C 2nd Edition, Page 619 Sec. 14.2 */
-     if (var1 > var2)
-     {
-       fStat= var1/var2;
-       df1= n1 - 1.0;
-       df2= n2 - 1.0;
-     }
-     else
-     {
-       fStat= var2/var1;
-       df1= n2 - 1.0;
-       df2= n1 - 1.0;
-     }
-     
-     /* Calc. 2-tailed f-test probability that the means are from the
-      * same distribution. See Numerical Recipes in C, 2nd Ed.
-      * Page 616, Section 14-2.
-      */
-     pF= 2.0*MathMAE.nr_betai(0.5*df2, 0.5*df1,
-                              (df2 / (df2 + (df1 * fStat))) );
-     
-     if(MathMAE.okBetaI || pF<0.0)
-     {
-       pF= 1.0;
-       return(false);
-     }
-     
-     if(pF > 1.0)
-       pF= 2.0 - pF;
-     
-     return(true);
+     return(ok);
    } /* calcFprobFromVariances */
    
    
@@ -320,88 +310,32 @@ class Statistics
     * @param s2 sample std dev class 2
     * @return false if any of the data is invalid (need >= 2 samples/class)
     * or the beta fct fails.
-    * @see MathMAE#nr_betai
-    * @see #calcFprobFromVariances
+    * @see StatKernel#tTest
     */
    boolean calcTandPvalues(int n1, int n2, double m1, double m2,
                            double s1, double s2 )
    { /* calcTandPvalues */
-     boolean
-       varDiffFlag,		/* set if variances are different */
-       okF= false,		/* F-test OK */
-       okT= false;		/* T-Test OK */
-     double
-       varpooled,
-       v1,
-       v2;
+     boolean ok= StatKernel.tTest(n1, n2, m1, m2, s1, s2, res);
      
+     pT= res.pT;
+     pF= res.pF;
+     dF= res.dF;
      if(n1<2 || n2<2 || s1==0.0 || s2==0.0)
-     {
-       pT= 1.0;		/* TOTAL FAILURE!!! */
-       pF= 1.0;
-       dF= (n1+n2-2);
-       return(false);
-     }
-     
-     v1= s1*s1;
-     v2= s2*s2;
-     
-     /* Always compute the f-statistic and the f-probability. */
-     okF= calcFprobFromVariances(n1, n2, v1, v2);  /* sets (f, pF) */
-     pF= (0.5 * pF);		/* NOTE: use 1-tailed not 2-tailed
-                         * which is returned by calc. */
+       return(false);             /* only (pT, pF, dF) were set */
      
-     varDiffFlag= (okF && (pF < 0.05));
-     if(varDiffFlag)
-       useTest= 'B';
-     else useTest= 'T';
-     
-     switch(useTest)
-     {
-       case 'B':			/* Behrens-Fisher t-test */
-       { /* Estimate t' stat. using Satterthwaite estimate for dF
-          * if f-stat <0.05.
-          * See Snedicore and Cochran 8th edition pg 97 for formulas.
-          */
-         double
-           vb1= v1/n1,
-           vb2= v2/n2,
-           vPrime= ((vb1 + vb2) * (vb1 + vb2)) /
-                    ((vb1 * vb1) / (n1 - 1.0) + (vb2 * vb2) / (n2 - 1.0));
-         
-         dF= vPrime;		/* Satterthwaite estimate of df' for NEQ
-                         * variance. Round down to nearest integer*/
-         t= (m1-m2)/Math.sqrt(vb1 + vb2);
-                       /* Behrens-Fisher estimate of t' for NEQ variance */
-         break;
-       }
-       
-       case 'T':			/* Student's t-test */
-       { /* t-statistic for EQU variance */
-         dF= n1 + n2 - 2.0;
-         varpooled= ((n1-1)*v1 + (n2-1)*v2) / dF;  /* Pooled variance */
-         t= (m1-m2) / Math.sqrt(varpooled * ((1.0/n1) + (1.0/n2)));
-         break;
-       }
-     }
+     t= res.t;
+     fStat= res.fStat;
+     f= fStat;
+     useTest= res.useTest;
      
-     /* Compute probability pT for t-test. */
-     pT= MathMAE.nr_betai(0.5*dF, 0.5, (dF / (dF + (t * t))) );
-     
-     if(!MathMAE.okBetaI || pT>1.0 )
-     {
-       pT= 1.0;		/* TOTAL FAILURE!!! */
-       return(false);
-     }
-     
-     return(true);
+     return(ok);
    } /* calcTandPvalues */
    
    
    /**
     * calcWMWtestStat() -  calculate WMW statistics from (n1,m1,s1) and (n2,m2,s2).
-    * If enabled, do WMW-test for 2 classes.
-    * [TODO] - not available yet
+    * The WMW rank sum test needs the sample data, not just the mean and
+    * std dev, so this always fails. Use calcWMWtestStat(data1,n1,data2,n2).
     *<P>
     * @param n1 # samples in class 1
     * @param  n2 # samples in class 2
@@ -420,6 +354,34 @@ class Statistics
    } /* calcWMWtestStat */
    
    
+   /**
+    * calcWMWtestStat() - calculate Wilcoxon-Mann-Whitney wmwU, wmwZ, pWMW
+    * from (n1,data1) and (n2,data2). Note: the data is sorted in place.
+    * It computes:
+    *<pre>
+    *    wmwU - U statistic for class 1
+    *    wmwZ - z-score of U
+    *    pWMW - 2-tailed WMW test p-value w/NULL hypoth
+    * </pre>
+    * @param data1 sample data class 1
+    * @param n1 # samples in class 1
+    * @param data2 sample data class 2
+    * @param n2 # samples in class 2
+    * @return false if any of the data is invalid (need >= 2 samples/class)
+    * @see StatKernel#wmwTest
+    */
+   boolean calcWMWtestStat(double data1[], int n1, double data2[], int n2)
+   { /* calcWMWtestStat */
+     boolean ok= StatKernel.wmwTest(data1, n1, data2, n2, res);
+     
+     wmwU= res.wmwU;
+     wmwZ= res.wmwZ;
+     pWMW= res.pWMW;
+     
+     return(ok);
+   } /* calcWMWtestStat */
+   
+   
    /**
     * calcKStestStat() - calculate Kolmogorov-Smirnov ksD, pKS, dFks 
     * from (n1,data1) and (n2,data2). DF= (n1+n2-2).
@@ -436,30 +398,17 @@ class Statistics
     * @param data2 sample data class 2
     * @param n2 # samples in class 2
     * @return false if any of the data is invalid (need >= 2 samples/class)
+    * @see StatKernel#ksTest
     */
    boolean calcKStestStat(double data1[], int n1, double data2[], int n2)
    { /* calcKStestStat */
-     boolean okKS= false;		        /* KS-test OK */
-       
-     dFks= n1 + n2 - 2.0;
+     boolean ok= StatKernel.ksTest(data1, n1, data2, n2, res);
      
-     if(n1<1 || n2<1)
-     {
-       pKS= 1.0;	                	/* TOTAL FAILURE!!! */
-       return(false);
-     }
-          
-     okKS= MathMAE.nr_kstwo(data1, n1, data2, n2);
-     pKS= MathMAE.probKS;
-     ksD= MathMAE.dKS;
+     dFks= res.dFks;
+     pKS= res.pKS;
+     ksD= res.ksD;
      
-     if(!MathMAE.okProbKS || pKS>1.0 || pKS<0.0 )
-     {
-       pKS= 1.0;		                /* TOTAL FAILURE!!! */
-       return(false);
-     }
-     
-     return(true);
+     return(ok);
    } /* calcKStestStat */
    
    
@@ -650,19 +599,12 @@ class Statistics
     * @param nData # samples in each [nConditions]
     * @param nConditions # of conditions
     * @return false if any of the data is invalid (need >1 sample/Condition)
+    * @see StatKernel#nCondFtest
     */
    boolean calcNCondFtestStat(float data[][], int nData[], int nConditions)
    { /* calcNCondFtestStat */
      this.nConditions= nConditions; 
-     boolean flag= false;	/* test succeed flag */
-     int nTot= 0;	/* total # of samples in all class subsets */
-     double
-       sumGlbMean= 0.0,			/* sum global mean of all data */
-       glbMean= 0.0,			  /* global mean of all data */
-       sumSQbetween= 0.0,		/* sum Sq between errors */
-       sumSQwithin= 0.0;		/* sum Sq within errors */
-
-     /* [1] Calculate the means and variances for each data class */  
+     
      if(nCondAlloc < nConditions)
      { /* allocate arrays if needed */
        condData= new float[nConditions][];
@@ -672,80 +614,24 @@ class Statistics
        stdDev= new double[nConditions];
        nCondAlloc= nConditions;
      }
-      
-     /* Worst case */
-     pFnConds= 1.0; 
-     fStatNconds= 0.0;
-     mnSqWithin= 0.0;
-     mnSqBetween= 0.0;
-     dfWithin= 0.0;
-     dfBetween= 0.0;
-  
-     for(int k=0;k<nConditions;k++)
-     { /* create the mean[0:nConditions-1] and variance[0:nConditions-1] arrays */
-       /* Also copies the condData[conditionK] and nCondData[conditionK] as well */
-       flag= calcMeanAndVariance(data[k],nData[k],k,false);
-       if(!flag)
-         return(false);     /* bad data */
-     }
-     
-     for(int k=0;k<nConditions;k++)
-     { /* Get within class statistics */
-       if (nData[k] < 2)
-       { /* if fail any one, then fail the F-test */
-         return(false);
-       }
-       
-       /* Note: sample variance=(Sum (x-mean)**2)/n =(Sum devSq)/n
-        * Therefore, Sum devSq=variance*n.
-       */
-       nTot += nData[k];
-       sumGlbMean += mean[k]*nData[k];
-     } /* get within class stat */
      
-     /* [1.1] If failed, then just return false. */
-     if (nTot==0)
-       return(false);		/* bad set - save time and abort test */
-     
-     /* [2] Compute F-statistic from means, variances and counts */
-     glbMean= (nTot>0) ? (sumGlbMean/nTot) : 0.0;
-     sumSQbetween= 0.0;
-     sumSQwithin= 0.0;
+     boolean flag= StatKernel.nCondFtest(data, nData, nConditions, res);
      
+     /* Copy the per condition data, means and variances */
      for(int k=0;k<nConditions;k++)
-     { /* compute grand totals */
-       sumSQbetween += ((mean[k]-glbMean)*(mean[k]-glbMean))*nData[k];
-       sumSQwithin  += variance[k]*(nData[k]-1);
-     } /* compute grand totals */
-     
-     /* [3] Compute mean square errors */
-     mnSqWithin= ((nTot-nConditions)!=0) ? sumSQwithin/(nTot-nConditions) : 0.0;
-     mnSqBetween= ((nConditions-1)!=0) ? sumSQbetween/(nConditions-1) : 0.0;
-     
-     /* make sure don't divide by zero */
-     if(mnSqWithin==0.0)
-       return(false);
-     
-     fStatNconds= (mnSqBetween/mnSqWithin);	/* Calculate SAMPLE F-statistic */
-     dfWithin= (nTot - nConditions);
-     dfBetween= (nConditions-1);
-     
-    /* [4] Compute F-test */
-     if(fStatNconds<1.0)
-     { /* swap */
-       double tmp= dfWithin;
-       fStatNconds= 1.0/fStatNconds;
-       dfWithin= dfBetween;
-       dfBetween= tmp;
-     } /* swap */
-     
-     /* See Numerical Recipes in C, 2nd Edition, pg 619, Sec. 14.2 */
-     pFnConds= 2.0*MathMAE.nr_betai(0.5*dfBetween, 0.5*dfWithin,
-                                    (dfBetween/(dfBetween+dfWithin*fStatNconds)));
-     if(pFnConds>1.0)
-       pFnConds= 2.0 - pFnConds;
-     
-     flag= MathMAE.okBetaI;
+     {
+       condData[k]= data[k];
+       nCondData[k]= nData[k];
+       mean[k]= res.mean[k];
+       variance[k]= res.variance[k];
+     }
+     
+     pFnConds= res.pFnConds;
+     fStatNconds= res.fStatNconds;
+     mnSqWithin= res.mnSqWithin;
+     mnSqBetween= res.mnSqBetween;
+     dfWithin= res.dfWithin;
+     dfBetween= res.dfBetween;
      
      return(flag);
   } /* calcNCondFtestStat */
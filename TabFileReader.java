@@ -0,0 +1,620 @@
+/** File: TabFileReader.java */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.zip.*;
+
+/**
+ * The class reads a tab-delimited file (e.g. a .quant or GIPO file) a
+ * row at a time from a buffered or memory-mapped channel and tokenizes
+ * the fields in place in the byte buffer. Unlike FileIO.readData() and
+ * the Table class, it never holds the whole file as a String or a
+ * String[rows][cols] table. Numeric columns are parsed from the bytes
+ * straight into float[] arrays, and String objects are only made for the
+ * header fields and the columns the caller asks for as Strings.
+ *<PRE>
+ * Usage:
+ *   TabFileReader tfr= new TabFileReader(mae);
+ *   if(tfr.open(fileName) && tfr.readHeader())
+ *   {
+ *     int numCols[]= {tfr.lookupFieldIdx("F1"), tfr.lookupFieldIdx("F2")};
+ *     float numData[][]= new float[2][maxRows];
+ *     int nRows= tfr.readColumns(numCols, numData, null, null, maxRows, 0.0F);
+ *   }
+ *   tfr.close();
+ *</PRE>
+ * Local files are memory-mapped if useMappedIOFlag is set, else read
+ * through a BUF_SIZE direct buffer. Files ending in ".zip" are read
+ * through the decompressing stream of the zip entry, which is the
+ * file name as in FileIO.readZipFileFromDisk(), or the first entry if
+ * there is no entry with that name. Web (http://) files are not
+ * streamed, so open() returns false and the caller should use
+ * FileIO.readData() as before.
+ *<P>
+ * Lines may end in LF, CR-LF or CR, and blank lines are skipped.
+ *<P>
+ * This file is part of MAExplorer. It is offered as open source software
+ * under the Mozilla Public License (version 1.1) subject to the
+ * limitations noted in the accompanying LEGAL file. This notice must be
+ * included with the code. The MAExplorer Mozilla and Legal files are
+ * available on http://maexplorer.sourceforge.net/.
+ *<P>
+ * @author P. Lemkin (NCI), G. Thornwall (SAIC), NCI-Frederick, Frederick, MD
+ * @version $Date$   $Revision$
+ * @see <A HREF="http://maexplorer.sourceforge.net/">MAExplorer Home</A>
+ * @see FileIO#readData
+ * @see FileIO#readZipFileFromDisk
+ */
+
+class TabFileReader
+{
+  /** flag: memory-map local files, else use a buffered channel */
+  static boolean
+    useMappedIOFlag= true;
+  /** size of the read buffer for streamed files */
+  final static int
+    BUF_SIZE= 65536;
+  /** largest mantissa that is exact in a float (2^24) */
+  private final static long
+    MAX_FLOAT_MANT= (1L<<24);
+  /** powers of ten that are exact in a float for the numeric fast path */
+  private final static float
+    pow10[]= {1.0E0F, 1.0E1F, 1.0E2F, 1.0E3F, 1.0E4F, 1.0E5F, 1.0E6F,
+              1.0E7F, 1.0E8F, 1.0E9F, 1.0E10F};
+  /** byte returned at the end of the data */
+  private final static int
+    EOF= -1;
+
+  /** link to global MAExplorer instance */
+  private MAExplorer
+    mae;
+  /** file being read */
+  String
+    fileName;
+  /** field names of the header row */
+  String
+    fields[];
+  /** # of fields in the header row */
+  int
+    nFields;
+  /** # of data rows read so far */
+  int
+    nRows;
+
+  /** open local file, else null */
+  private RandomAccessFile
+    raf;
+  /** open zip file, else null */
+  private ZipFile
+    zf;
+  /** channel the buffer is refilled from, null if mapped */
+  private ReadableByteChannel
+    ch;
+  /** mapped file data or the read buffer */
+  private ByteBuffer
+    buf;
+  /** set at the end of the data */
+  private boolean
+    eofFlag;
+  /** byte pushed back by a line ending test, EOF if none */
+  private int
+    pushBack= EOF;
+  /** scratch bytes of the current String or fall-back numeric field */
+  private byte
+    tok[]= new byte[256];
+  /** length of the field in tok[] */
+  private int
+    tokLth;
+  /** byte that ended the last readFloatField() field */
+  private int
+    fieldEnd;
+
+
+  /**
+   * TabFileReader() - constructor
+   * @param mae is the MAExplorer instance
+   */
+  TabFileReader(MAExplorer mae)
+  { /* TabFileReader */
+    this.mae= mae;
+  } /* TabFileReader */
+
+
+  /**
+   * open() - open a local or .zip file to read.
+   * @param fileName is the full path filename to read
+   * @return true if opened, false if it is a Web file or it could not
+   *         be opened.
+   * @see FileIO#logMsgln
+   */
+  boolean open(String fileName)
+  { /* open */
+    this.fileName= fileName;
+    nRows= 0;
+    eofFlag= false;
+    pushBack= EOF;
+    if(fileName==null || fileName.startsWith("http://"))
+      return(false);
+
+    try
+    {
+      File f= new File(fileName);
+      if(!f.canRead() || !f.isFile())
+      {
+        mae.fio.logMsgln("TFR-O Can't read ["+fileName+"]");
+        return(false);
+      }
+
+      if(fileName.endsWith(".zip"))
+      { /* stream the zip entry */
+        zf= new ZipFile(f);
+        ZipEntry ze= zf.getEntry(fileName);
+        if(ze==null)
+        { /* use the first entry */
+          java.util.Enumeration e= zf.entries();
+          ze= (e.hasMoreElements()) ? (ZipEntry)e.nextElement() : null;
+        }
+        if(ze==null)
+        {
+          mae.fio.logMsgln("TFR-O Zip entry not found ["+fileName+"]");
+          close();
+          return(false);
+        }
+        ch= Channels.newChannel(new BufferedInputStream(zf.getInputStream(ze),
+                                                        BUF_SIZE));
+        buf= ByteBuffer.allocate(BUF_SIZE);
+        buf.flip();                   /* empty until filled */
+      }
+      else
+      { /* local file */
+        raf= new RandomAccessFile(f,"r");
+        FileChannel fc= raf.getChannel();
+        if(useMappedIOFlag && fc.size()<Integer.MAX_VALUE)
+        { /* map the whole file, no refills */
+          MappedByteBuffer mb= fc.map(FileChannel.MapMode.READ_ONLY, 0,
+                                      fc.size());
+          buf= mb;
+          ch= null;
+        }
+        else
+        {
+          ch= fc;
+          buf= ByteBuffer.allocateDirect(BUF_SIZE);
+          buf.flip();                 /* empty until filled */
+        }
+      }
+      return(true);
+    }
+    catch(IOException e)
+    {
+      mae.fio.logMsgln("TFR-O IOExcep.["+fileName+"] "+e);
+    }
+    catch(SecurityException e)
+    {
+      mae.fio.logMsgln("TFR-O secur.Excep.["+fileName+"] "+e);
+    }
+
+    close();
+    return(false);
+  } /* open */
+
+
+  /**
+   * close() - close the file and free the buffer
+   */
+  void close()
+  { /* close */
+    try
+    {
+      if(ch!=null)
+        ch.close();
+      if(raf!=null)
+        raf.close();
+      if(zf!=null)
+        zf.close();
+    }
+    catch(IOException e)
+    { }
+    ch= null;
+    raf= null;
+    zf= null;
+    buf= null;
+    eofFlag= true;
+  } /* close */
+
+
+  /**
+   * fill() - refill the buffer from the channel
+   * @return true if there is more data
+   */
+  private boolean fill()
+  { /* fill */
+    if(ch==null || eofFlag)
+    {
+      eofFlag= true;
+      return(false);
+    }
+
+    try
+    {
+      int n;
+      buf.clear();
+      do
+        n= ch.read(buf);
+      while(n==0);
+      buf.flip();
+      if(n<0)
+      {
+        eofFlag= true;
+        return(false);
+      }
+      return(true);
+    }
+    catch(IOException e)
+    {
+      mae.fio.logMsgln("TFR-F IOExcep.["+fileName+"] "+e);
+      eofFlag= true;
+      return(false);
+    }
+  } /* fill */
+
+
+  /**
+   * nextByte() - get the next byte of the data
+   * @return byte [0:255], else EOF at the end of the data
+   */
+  private int nextByte()
+  { /* nextByte */
+    int b= pushBack;
+    if(b!=EOF)
+    {
+      pushBack= EOF;
+      return(b);
+    }
+    if(buf==null || (!buf.hasRemaining() && !fill()))
+      return(EOF);
+    return(buf.get() & 0xFF);
+  } /* nextByte */
+
+
+  /**
+   * endLine() - finish a line ending. After a CR, a following LF is
+   * part of the same line ending.
+   * @param b is the byte that ended the field
+   */
+  private void endLine(int b)
+  { /* endLine */
+    if(b=='\r')
+    {
+      int c= nextByte();
+      if(c!='\n')
+        pushBack= c;
+    }
+  } /* endLine */
+
+
+  /**
+   * skipBlankLines() - skip empty lines
+   * @return false at the end of the data
+   */
+  private boolean skipBlankLines()
+  { /* skipBlankLines */
+    int b;
+
+    while((b= nextByte())=='\n' || b=='\r')
+      endLine(b);
+    if(b==EOF)
+      return(false);
+    pushBack= b;
+    return(true);
+  } /* skipBlankLines */
+
+
+  /**
+   * readToken() - read the bytes of the next field into tok[]
+   * @return the byte that ended the field ('\t', '\n', '\r' or EOF),
+   *         the field length is in tokLth
+   */
+  private int readToken()
+  { /* readToken */
+    int b;
+
+    tokLth= 0;
+    while((b= nextByte())!='\t' && b!='\n' && b!='\r' && b!=EOF)
+    {
+      if(tokLth==tok.length)
+      { /* grow */
+        byte newTok[]= new byte[2*tok.length];
+        System.arraycopy(tok,0,newTok,0,tokLth);
+        tok= newTok;
+      }
+      tok[tokLth++]= (byte)b;
+    }
+    return(b);
+  } /* readToken */
+
+
+  /**
+   * skipField() - skip the next field
+   * @return the byte that ended the field
+   */
+  private int skipField()
+  { /* skipField */
+    int b;
+
+    while((b= nextByte())!='\t' && b!='\n' && b!='\r' && b!=EOF)
+      ;
+    return(b);
+  } /* skipField */
+
+
+  /**
+   * readFloatField() - parse the next field as a float from the bytes.
+   * Plain decimal numbers with a mantissa up to 2^24 and an exponent within
+   * [-10:10] are converted with one float multiply or divide by a power
+   * of ten. Both are exact in a float, so the result is correctly rounded
+   * and the same as Float.parseFloat(). Other numbers are converted by
+   * Float.parseFloat() from the field bytes.
+   * @param defaultValue is returned for an empty or non-numeric field
+   * @return the value
+   */
+  private float readFloatField(float defaultValue)
+  { /* readFloatField */
+    int b;
+
+    tokLth= 0;
+    while((b= nextByte())==' ')
+      ;                              /* skip leading blanks */
+
+    boolean
+      negFlag= false,
+      okFlag= true,
+      anyDigitFlag= false;
+    long mant= 0;
+    int
+      nDigits= 0,
+      exp10= 0;
+
+    if(b=='-' || b=='+')
+    {
+      negFlag= (b=='-');
+      b= keep(b);
+    }
+    while(b>='0' && b<='9')
+    { /* integer part */
+      anyDigitFlag= true;
+      if(nDigits<18)
+      {
+        mant= 10*mant + (b-'0');
+        if(mant>0)
+          nDigits++;
+      }
+      else
+        exp10++;                     /* too many digits, drop them */
+      b= keep(b);
+    }
+    if(b=='.')
+    { /* fraction */
+      b= keep(b);
+      while(b>='0' && b<='9')
+      {
+        anyDigitFlag= true;
+        if(nDigits<18)
+        {
+          mant= 10*mant + (b-'0');
+          if(mant>0)
+            nDigits++;
+          exp10--;
+        }
+        b= keep(b);
+      }
+    }
+    if(b=='e' || b=='E')
+    { /* exponent */
+      int
+        e= 0,
+        nExpDigits= 0;
+      boolean negExpFlag= false;
+      b= keep(b);
+      if(b=='-' || b=='+')
+      {
+        negExpFlag= (b=='-');
+        b= keep(b);
+      }
+      while(b>='0' && b<='9')
+      {
+        if(e<100000)
+          e= 10*e + (b-'0');
+        nExpDigits++;
+        b= keep(b);
+      }
+      if(nExpDigits==0)
+        okFlag= false;
+      exp10 += (negExpFlag) ? -e : e;
+    }
+    while(b==' ')
+      b= keep(b);                    /* skip trailing blanks */
+
+    if(b!='\t' && b!='\n' && b!='\r' && b!=EOF)
+    { /* something else, e.g. NaN, let Float parse it */
+      okFlag= false;
+      while((b= keep(b))!='\t' && b!='\n' && b!='\r' && b!=EOF)
+        ;
+    }
+    fieldEnd= b;
+
+    if(!okFlag || !anyDigitFlag || mant>MAX_FLOAT_MANT ||
+       exp10<-10 || exp10>10)
+    { /* not a plain number */
+      if(tokLth==0)
+        return(defaultValue);
+      try
+      {
+        return(Float.parseFloat(new String(tok,0,tokLth).trim()));
+      }
+      catch(NumberFormatException ex)
+      {
+        return(defaultValue);
+      }
+    }
+
+    float f= (float)mant;
+    if(exp10<0)
+      f /= pow10[-exp10];
+    else if(exp10>0)
+      f *= pow10[exp10];
+
+    return((negFlag) ? -f : f);
+  } /* readFloatField */
+
+
+  /**
+   * keep() - save a byte of the field in tok[] and get the next byte
+   * @param b is the byte to save
+   * @return next byte
+   */
+  private int keep(int b)
+  { /* keep */
+    if(tokLth==tok.length)
+    { /* grow */
+      byte newTok[]= new byte[2*tok.length];
+      System.arraycopy(tok,0,newTok,0,tokLth);
+      tok= newTok;
+    }
+    tok[tokLth++]= (byte)b;
+    return(nextByte());
+  } /* keep */
+
+
+  /**
+   * readHeader() - read the header row of field names. Blank lines
+   * before it are skipped.
+   * @return true if there is a header row
+   */
+  boolean readHeader()
+  { /* readHeader */
+    String list[]= new String[64];
+    int b;
+
+    nFields= 0;
+    if(!skipBlankLines())
+      return(false);
+
+    do
+    {
+      b= readToken();
+      if(nFields==list.length)
+      { /* grow */
+        String newList[]= new String[2*list.length];
+        System.arraycopy(list,0,newList,0,nFields);
+        list= newList;
+      }
+      list[nFields++]= new String(tok,0,tokLth).trim();
+    }
+    while(b=='\t');
+    endLine(b);
+
+    fields= new String[nFields];
+    System.arraycopy(list,0,fields,0,nFields);
+
+    return(true);
+  } /* readHeader */
+
+
+  /**
+   * lookupFieldIdx() - lookup the column index of a header field
+   * @param fieldName is the name of the field
+   * @return column index, else -1 if not found
+   */
+  int lookupFieldIdx(String fieldName)
+  { /* lookupFieldIdx */
+    for(int c=0;c<nFields;c++)
+      if(fields[c].equals(fieldName))
+        return(c);
+    return(-1);
+  } /* lookupFieldIdx */
+
+
+  /**
+   * readColumns() - read the data rows to the end of the file or maxRows.
+   * Numeric columns numCols[k] are parsed into numData[k][row] and String
+   * columns strCols[j] into strData[j][row]. Other columns are skipped
+   * without making Strings. A column index of -1 (e.g. a field that was not
+   * found) fills its numeric entries with defaultValue and its String
+   * entries with "". Short rows are filled the same way.
+   * @param numCols is the list of numeric column indexes, may be null
+   * @param numData is the [numCols.length][maxRows] numeric data
+   * @param strCols is the list of String column indexes, may be null
+   * @param strData is the [strCols.length][maxRows] String data
+   * @param maxRows is the max # of rows to read
+   * @param defaultValue is used for empty or non-numeric numeric fields
+   * @return # of rows read
+   */
+  int readColumns(int numCols[], float numData[][], int strCols[],
+                  String strData[][], int maxRows, float defaultValue)
+  { /* readColumns */
+    int
+      nNum= (numCols==null) ? 0 : numCols.length,
+      nStr= (strCols==null) ? 0 : strCols.length,
+      maxCol= -1;
+
+    for(int k=0;k<nNum;k++)
+      maxCol= Math.max(maxCol, numCols[k]);
+    for(int j=0;j<nStr;j++)
+      maxCol= Math.max(maxCol, strCols[j]);
+
+    /* colSlot[c] is k+1 for numeric, -(j+1) for String, 0 to skip */
+    int colSlot[]= new int[maxCol+1];
+    for(int k=0;k<nNum;k++)
+      if(numCols[k]>=0)
+        colSlot[numCols[k]]= k+1;
+    for(int j=0;j<nStr;j++)
+      if(strCols[j]>=0)
+        colSlot[strCols[j]]= -(j+1);
+
+    int
+      row= 0,
+      c,
+      b,
+      slot;
+
+    while(row<maxRows && skipBlankLines())
+    { /* read a row */
+      for(int k=0;k<nNum;k++)
+        numData[k][row]= defaultValue;
+      for(int j=0;j<nStr;j++)
+        strData[j][row]= "";
+
+      c= 0;
+      do
+      { /* read a field */
+        slot= (c<=maxCol) ? colSlot[c] : 0;
+        if(slot>0)
+        {
+          numData[slot-1][row]= readFloatField(defaultValue);
+          b= fieldEnd;
+        }
+        else if(slot<0)
+        {
+          b= readToken();
+          strData[-slot-1][row]= new String(tok,0,tokLth).trim();
+        }
+        else
+          b= skipField();
+        c++;
+      }
+      while(b=='\t');
+      endLine(b);
+
+      row++;
+    } /* read a row */
+
+    nRows += row;
+    return(row);
+  } /* readColumns */
+
+} /* end of class TabFileReader */
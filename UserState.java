@@ -464,9 +464,10 @@ class UserState
     StringBuffer sBuf= new StringBuffer(nBytesEst);  /* est. - optimize */
     sBuf.append(hdr);
     
+    long cbsWords[]= cbs.getWords();    /* decoded if compressed */
     for(int i=0;i<maxWords;i++)
     {
-      String sWord= Util.cvLongToHex(cbs.bitData[i]);
+      String sWord= Util.cvLongToHex(cbsWords[i]);
       sBuf.append(sWord);
       sBuf.append("\n");
     }
@@ -569,9 +570,10 @@ class UserState
     StringBuffer sBuf= new StringBuffer(nBytesEst);  /* est. - optimize */
     sBuf.append(hdr);
     
+    long cbsWords[]= cbs.getWords();    /* decoded if compressed */
     for(int i=0;i<maxWords;i++)
     { /* save each word as a long */
-      sWord= ""+cbs.bitData[i];   /* output as long values */
+      sWord= ""+cbsWords[i];      /* output as long values */
       sBuf.append("w-"+i+"=");
       sBuf.append(sWord);
       sBuf.append("\n");
@@ -737,8 +739,9 @@ class UserState
     cbs.assignedBSname= assignedBSname;   /* could be null */
     
     /* Stuff the data */
+    long cbsWords[]= cbs.expand();
     for(int i=0;i<maxWords;i++)
-      cbs.bitData[i]= getLongValFromLine("w-"+i,parser);
+      cbsWords[i]= getLongValFromLine("w-"+i,parser);
     
     /* Set other fields as well */
     cbs.count= count;        /* save count from file */
@@ -2072,6 +2075,7 @@ class UserState
     sBuf.append("\ntTestXYsetsFilterFlag\t" + mae.tTestXYsetsFilterFlag);
     sBuf.append("\nKS_TestXYsetsFilterFlag\t" + mae.KS_TestXYsetsFilterFlag);
     sBuf.append("\nF_TestOCLFilterFlag\t" + mae.F_TestOCLFilterFlag);
+    sBuf.append("\npValueThrMode\t" + mae.pValueThrMode);
     sBuf.append("\nclusterHP_EfilterFlag\t" + mae.clusterHP_EfilterFlag);
     sBuf.append("\nuseDiffFilterFlag\t" + mae.useDiffFilterFlag);
     sBuf.append("\nuseHighRatiosFilterFlag\t" + mae.useHighRatiosFilterFlag);